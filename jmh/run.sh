@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+#
+# Builds and runs the JMH benchmarks of the project (jmh/src), no other build tool is needed.
+# JMH jars are downloaded from Maven Central to jmh/lib on the first run.
+#
+# Usage:
+#     jmh/run.sh                                  # all benchmarks
+#     jmh/run.sh ArrayManipulator -p size=1000000 # any JMH options, e.g. a filter and parameters
+#     THREADS="1 2 4" jmh/run.sh MatrixManipulator
+#
+# The benchmarks run once for every number of THREADS (default: 1 2 4 ... up to the CPUs of the host).
+# It is the number of CPUs visible to the forked JVM (-XX:ActiveProcessorCount), which sets
+# the threads of multiplyPar and the parallelism of the common ForkJoinPool.
+# Results are written to jmh/results/<benchmark filter>-threads-<n>.json
+#
+set -euo pipefail
+
+JMH_VERSION=1.37
+MAVEN=https://repo1.maven.org/maven2
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+LIB=$ROOT/jmh/lib
+BUILD=$ROOT/jmh/build
+RESULTS=$ROOT/jmh/results
+
+fetch() {
+    local path=$1
+    local jar=$LIB/$(basename "$path")
+    if [ ! -f "$jar" ]; then
+        echo "Downloading $(basename "$path")"
+        curl -fsSL -o "$jar.tmp" "$MAVEN/$path" && mv "$jar.tmp" "$jar"
+    fi
+}
+
+mkdir -p "$LIB"
+fetch org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar
+fetch org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar
+fetch net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar
+fetch org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar
+CLASSPATH_JARS=$(find "$LIB" -name '*.jar' | sort | tr '\n' ':')
+
+# main sources of the project (tests need JUnit) and the benchmarks,
+# the annotation processor generates the benchmark stubs
+rm -rf "$BUILD"
+mkdir -p "$BUILD/classes"
+find "$ROOT/src" -name '*.java' ! -name '*Test.java' ! -name '*TestPerformance.java' > "$BUILD/sources.txt"
+find "$ROOT/jmh/src" -name '*.java' >> "$BUILD/sources.txt"
+javac -cp "$CLASSPATH_JARS" -processorpath "$CLASSPATH_JARS" -d "$BUILD/classes" @"$BUILD/sources.txt"
+
+CPUS=$(getconf _NPROCESSORS_ONLN)
+if [ -z "${THREADS:-}" ]; then
+    THREADS=""
+    for ((t = 1; t < CPUS; t *= 2)); do
+        THREADS="$THREADS $t"
+    done
+    THREADS="$THREADS $CPUS"
+fi
+
+mkdir -p "$RESULTS"
+NAME=$(echo "${1:-all}" | tr -c 'A-Za-z0-9_.\n' '_')
+case "${1:-}" in -*) NAME=all ;; esac
+for t in $THREADS; do
+    echo "=== $t thread(s) ==="
+    java -cp "$BUILD/classes:$CLASSPATH_JARS" org.openjdk.jmh.Main \
+        -jvmArgsAppend "-XX:ActiveProcessorCount=$t" \
+        -rf json -rff "$RESULTS/$NAME-threads-$t.json" \
+        "$@"
+done
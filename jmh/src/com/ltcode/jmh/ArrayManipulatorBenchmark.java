@@ -0,0 +1,94 @@
+package com.ltcode.jmh;
+
+import com.ltcode.forkjoin.ArrayManipulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of all increment methods of ArrayManipulator, with serial and parallel streams as baselines.
+ * The number of threads of the common pool follows the CPUs visible to the forked JVM
+ * (-XX:ActiveProcessorCount, see jmh/run.sh).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ArrayManipulatorBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+
+    private int[] array;
+
+    @Setup
+    public void setUp() {
+        array = new int[size];
+    }
+
+    /**
+     * Threshold of incrementParWithThreshold - a separate state, so the other methods
+     * are not repeated for every number of tasks
+     */
+    @State(Scope.Benchmark)
+    public static class Threshold {
+
+        // leaf tasks per thread of the common pool
+        @Param({"1", "4", "16"})
+        public int tasksPerThread;
+
+        private int threshold;
+
+        @Setup
+        public void setUp(ArrayManipulatorBenchmark benchmark) {
+            int tasks = ForkJoinPool.getCommonPoolParallelism() * tasksPerThread;
+            threshold = Math.max(1, (benchmark.size + tasks - 1) / tasks);
+        }
+    }
+
+    @Benchmark
+    public int[] incrementSeq() {
+        ArrayManipulator.incrementSeq(array, 0, size, 1);
+        return array;
+    }
+
+    @Benchmark
+    public int[] incrementPar() {
+        ArrayManipulator.incrementPar(array, 0, size, 1);
+        return array;
+    }
+
+    @Benchmark
+    public int[] incrementParWithThreshold(Threshold threshold) {
+        ArrayManipulator.incrementParWithThreshold(array, 0, size, 1, threshold.threshold);
+        return array;
+    }
+
+    @Benchmark
+    public int[] serialStream() {
+        int[] a = array;
+        IntStream.range(0, size).forEach(i -> a[i] += 1);
+        return a;
+    }
+
+    @Benchmark
+    public int[] parallelStream() {
+        int[] a = array;
+        IntStream.range(0, size).parallel().forEach(i -> a[i] += 1);
+        return a;
+    }
+}
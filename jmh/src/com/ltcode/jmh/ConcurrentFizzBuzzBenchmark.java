@@ -0,0 +1,37 @@
+package com.ltcode.jmh;
+
+import com.ltcode.threads.ConcurrentFizzBuzz;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of ConcurrentFizzBuzz - its 4 threads take turns on one monitor, so it measures
+ * the cost of the hand-offs rather than the work. print() is left out, it measures System.out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConcurrentFizzBuzzBenchmark {
+
+    @Param({"100", "10000"})
+    public int numbers;
+
+    @Benchmark
+    public String[] getOutput() {
+        // the output is cached, so every call needs a new game
+        return new ConcurrentFizzBuzz(1, numbers).getOutput();
+    }
+}
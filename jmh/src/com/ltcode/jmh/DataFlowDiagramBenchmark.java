@@ -0,0 +1,62 @@
+package com.ltcode.jmh;
+
+import com.ltcode.data_flow.DataFlowDiagram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the runs of DataFlowDiagram. Its workers sleep for 1 second, so every run
+ * takes seconds and is measured once per iteration (single shot) - the result shows
+ * the overhead of the engines over the critical path length (3 s) and the total work (7 s).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataFlowDiagramBenchmark {
+
+    private DataFlowDiagram diagram;
+
+    /**
+     * Pool of runDiagramNonBlocking - a separate state, so the other runs are not repeated for every size
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+
+        @Param({"1", "2", "4", "7"})
+        public int threads;
+    }
+
+    @Setup
+    public void setUp() {
+        diagram = new DataFlowDiagram();
+    }
+
+    @Benchmark
+    public long runDiagramSeq() {
+        return diagram.runDiagramSeq();
+    }
+
+    @Benchmark
+    public long runDiagramPar() {
+        return diagram.runDiagramPar();
+    }
+
+    @Benchmark
+    public long runDiagramNonBlocking(Pool pool) {
+        return diagram.runDiagramNonBlocking(pool.threads);
+    }
+}
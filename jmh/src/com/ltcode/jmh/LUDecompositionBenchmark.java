@@ -0,0 +1,59 @@
+package com.ltcode.jmh;
+
+import com.ltcode.forkjoin.LUDecomposition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the unblocked sequential LU decomposition against the blocked fork/join one.
+ * GFLOP/s = 2/3 * n^3 / time. Run at 1, 2, 4 ... N threads (jmh/run.sh) it gives the strong scaling;
+ * the large sizes take minutes per call sequentially, e.g.:
+ *
+ *     THREADS="1 4" jmh/run.sh LUDecomposition -p n=8192 -f 1 -wi 1 -i 3
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class LUDecompositionBenchmark {
+
+    @Param({"1024", "2048", "4096", "8192"})
+    public int n;
+
+    private double[][] a;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = new double[n][n];
+        for (double[] row : a) {
+            for (int c = 0; c < n; c++) {
+                row[c] = random.nextDouble();
+            }
+        }
+    }
+
+    @Benchmark
+    public LUDecomposition decomposeSeq() {
+        return LUDecomposition.decomposeSeq(a);
+    }
+
+    @Benchmark
+    public LUDecomposition decomposePar() {
+        return LUDecomposition.decomposePar(a);
+    }
+}
@@ -0,0 +1,101 @@
+package com.ltcode.jmh;
+
+import com.ltcode.threads.MatrixExpression;
+import com.ltcode.threads.MatrixManipulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of MatrixExpression against the same expressions computed step by step,
+ * with a new matrix for every step:
+ *
+ *     alpha*A + B .* C   - element-wise, bound by the memory bandwidth
+ *     alpha*(A x B) + C  - the element-wise part is the epilogue of the multiply
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MatrixExpressionBenchmark {
+
+    private static final int ALPHA = 3;
+
+    @Param({"512", "2048"})
+    public int size;
+
+    private int[][] a;
+    private int[][] b;
+    private int[][] c;
+    private MatrixExpression elementWise;
+    private MatrixExpression product;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = new int[size][size];
+        b = new int[size][size];
+        c = new int[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int col = 0; col < size; col++) {
+                a[r][col] = random.nextInt(128);
+                b[r][col] = random.nextInt(128);
+                c[r][col] = random.nextInt(128);
+            }
+        }
+        elementWise = MatrixExpression.of(a).scale(ALPHA)
+                .add(MatrixExpression.of(b).hadamard(MatrixExpression.of(c)));
+        product = MatrixExpression.of(a).multiply(MatrixExpression.of(b))
+                .scale(ALPHA).add(MatrixExpression.of(c));
+    }
+
+    @Benchmark
+    public int[][] elementWiseFused() {
+        return elementWise.evaluatePar();
+    }
+
+    @Benchmark
+    public int[][] elementWiseSteps() {
+        int[][] scaled = new int[size][size];
+        for (int r = 0; r < size; r++)
+            for (int col = 0; col < size; col++)
+                scaled[r][col] = ALPHA * a[r][col];
+        int[][] hadamard = new int[size][size];
+        for (int r = 0; r < size; r++)
+            for (int col = 0; col < size; col++)
+                hadamard[r][col] = b[r][col] * c[r][col];
+        int[][] result = new int[size][size];
+        for (int r = 0; r < size; r++)
+            for (int col = 0; col < size; col++)
+                result[r][col] = scaled[r][col] + hadamard[r][col];
+        return result;
+    }
+
+    @Benchmark
+    public int[][] productFused() {
+        return product.evaluatePar();
+    }
+
+    @Benchmark
+    public int[][] productSteps() {
+        int[][] ab = MatrixManipulator.multiplyPar(a, b);
+        int[][] result = new int[size][size];
+        for (int r = 0; r < size; r++)
+            for (int col = 0; col < size; col++)
+                result[r][col] = ALPHA * ab[r][col] + c[r][col];
+        return result;
+    }
+}
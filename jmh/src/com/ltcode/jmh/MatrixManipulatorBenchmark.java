@@ -0,0 +1,63 @@
+package com.ltcode.jmh;
+
+import com.ltcode.threads.MatrixManipulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the sequential and the parallel multiply of MatrixManipulator on square matrices.
+ * multiplyPar starts one thread per CPU visible to the forked JVM (-XX:ActiveProcessorCount, see jmh/run.sh).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MatrixManipulatorBenchmark {
+
+    @Param({"128", "256", "512"})
+    public int size;
+
+    private int[][] a;
+    private int[][] b;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = randomMatrix(size, random);
+        b = randomMatrix(size, random);
+    }
+
+    @Benchmark
+    public int[][] multiplySeq() {
+        return MatrixManipulator.multiplySeq(a, b);
+    }
+
+    @Benchmark
+    public int[][] multiplyPar() {
+        return MatrixManipulator.multiplyPar(a, b);
+    }
+
+    private static int[][] randomMatrix(int size, Random random) {
+        int[][] matrix = new int[size][size];
+        for (int[] row : matrix) {
+            for (int c = 0; c < size; c++) {
+                row[c] = random.nextInt(128);
+            }
+        }
+        return matrix;
+    }
+}
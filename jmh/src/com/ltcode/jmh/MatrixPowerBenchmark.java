@@ -0,0 +1,70 @@
+package com.ltcode.jmh;
+
+import com.ltcode.threads.MatrixManipulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of MatrixManipulator.power (repeated squaring, about 2 * log2(k) multiplies)
+ * against k - 1 calls of multiplyPar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MatrixPowerBenchmark {
+
+    private static final int MODULUS = 1_000_000_007;
+
+    @Param({"128", "256"})
+    public int size;
+
+    @Param({"16", "64"})
+    public int exponent;
+
+    private int[][] a;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = new int[size][size];
+        for (int[] row : a) {
+            for (int c = 0; c < size; c++) {
+                row[c] = random.nextInt(2);
+            }
+        }
+    }
+
+    @Benchmark
+    public int[][] power() {
+        return MatrixManipulator.power(a, exponent);
+    }
+
+    @Benchmark
+    public int[][] powerModulo() {
+        return MatrixManipulator.power(a, exponent, MODULUS);
+    }
+
+    @Benchmark
+    public int[][] multiplyParLoop() {
+        int[][] result = a;
+        for (int i = 1; i < exponent; i++) {
+            result = MatrixManipulator.multiplyPar(result, a);
+        }
+        return result;
+    }
+}
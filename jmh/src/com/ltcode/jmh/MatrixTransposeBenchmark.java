@@ -0,0 +1,153 @@
+package com.ltcode.jmh;
+
+import com.ltcode.forkjoin.MatrixTranspose;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the cache-oblivious transposes of MatrixTranspose against the naive double loop,
+ * for int[][] and flat matrices. The in-place transposes are their own inverse, so they can run
+ * repeatedly on the same matrix. 16384 x 16384 ints take 1 GB per matrix, so the forked
+ * JVMs get a 6 GB heap - for smaller machines run only the smaller sizes:
+ *
+ *     jmh/run.sh MatrixTranspose -p size=1024,4096
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx6g")
+public class MatrixTransposeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Matrix2D {
+
+        @Param({"1024", "4096", "16384"})
+        public int size;
+
+        int[][] a;
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(42);
+            a = new int[size][size];
+            for (int[] row : a) {
+                for (int c = 0; c < size; c++) {
+                    row[c] = random.nextInt();
+                }
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FlatMatrix {
+
+        @Param({"1024", "4096", "16384"})
+        public int size;
+
+        int[] a;
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(42);
+            a = new int[size * size];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = random.nextInt();
+            }
+        }
+    }
+
+    @Benchmark
+    public int[][] naive(Matrix2D m) {
+        int n = m.size;
+        int[][] t = new int[n][n];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                t[c][r] = m.a[r][c];
+            }
+        }
+        return t;
+    }
+
+    @Benchmark
+    public int[][] transpose(Matrix2D m) {
+        return MatrixTranspose.transpose(m.a);
+    }
+
+    @Benchmark
+    public int[][] transposePar(Matrix2D m) {
+        return MatrixTranspose.transposePar(m.a);
+    }
+
+    @Benchmark
+    public int[][] naiveInPlace(Matrix2D m) {
+        int n = m.size;
+        int[][] a = m.a;
+        for (int r = 0; r < n; r++) {
+            for (int c = r + 1; c < n; c++) {
+                int tmp = a[r][c];
+                a[r][c] = a[c][r];
+                a[c][r] = tmp;
+            }
+        }
+        return a;
+    }
+
+    @Benchmark
+    public int[][] transposeInPlace(Matrix2D m) {
+        MatrixTranspose.transposeInPlace(m.a);
+        return m.a;
+    }
+
+    @Benchmark
+    public int[][] transposeInPlacePar(Matrix2D m) {
+        MatrixTranspose.transposeInPlacePar(m.a);
+        return m.a;
+    }
+
+    @Benchmark
+    public int[] naiveFlat(FlatMatrix m) {
+        int n = m.size;
+        int[] t = new int[n * n];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                t[c * n + r] = m.a[r * n + c];
+            }
+        }
+        return t;
+    }
+
+    @Benchmark
+    public int[] transposeFlat(FlatMatrix m) {
+        return MatrixTranspose.transpose(m.a, m.size, m.size);
+    }
+
+    @Benchmark
+    public int[] transposeParFlat(FlatMatrix m) {
+        return MatrixTranspose.transposePar(m.a, m.size, m.size);
+    }
+
+    @Benchmark
+    public int[] transposeInPlaceFlat(FlatMatrix m) {
+        MatrixTranspose.transposeInPlace(m.a, m.size);
+        return m.a;
+    }
+
+    @Benchmark
+    public int[] transposeInPlaceParFlat(FlatMatrix m) {
+        MatrixTranspose.transposeInPlacePar(m.a, m.size);
+        return m.a;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ltcode.jmh;
+
+import com.ltcode.threads.MatrixManipulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the matrix-vector multiply of MatrixManipulator. The kernel reads every element
+ * of the matrix once, so it is bound by the memory bandwidth: GB/s = rows * cols * 4 / time.
+ * The production size needs a larger heap:
+ *
+ *     jmh/run.sh MatrixVector -p rows=100000 -p cols=10000 -jvmArgsAppend -Xmx6g
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MatrixVectorBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"1000"})
+    public int cols;
+
+    private int[][] a;
+    private int[][] aTransposed;
+    private int[] x;
+    private int[][] column;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = new int[rows][cols];
+        aTransposed = new int[cols][rows];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                a[r][c] = random.nextInt(128);
+                aTransposed[c][r] = a[r][c];
+            }
+        }
+        x = new int[cols];
+        column = new int[cols][1];
+        for (int c = 0; c < cols; c++) {
+            x[c] = random.nextInt(128);
+            column[c][0] = x[c];
+        }
+    }
+
+    @Benchmark
+    public int[] multiplyVectorSeq() {
+        return MatrixManipulator.multiplyVectorSeq(a, x);
+    }
+
+    @Benchmark
+    public int[] multiplyVectorPar() {
+        return MatrixManipulator.multiplyVectorPar(a, x);
+    }
+
+    @Benchmark
+    public int[] multiplyTransposedVectorSeq() {
+        return MatrixManipulator.multiplyVectorSeq(aTransposed, x, true);
+    }
+
+    @Benchmark
+    public int[] multiplyTransposedVectorPar() {
+        return MatrixManipulator.multiplyVectorPar(aTransposed, x, true, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The N x 1 matrix multiply, replaced by multiplyVector
+     */
+    @Benchmark
+    public int[][] multiplyParColumn() {
+        return MatrixManipulator.multiplyPar(a, column);
+    }
+}
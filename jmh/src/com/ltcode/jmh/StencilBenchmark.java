@@ -0,0 +1,116 @@
+package com.ltcode.jmh;
+
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.forkjoin.Stencil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the stencil kernels on a square grid of the given side (the 1D kernels on an array
+ * of side^2 elements). The Jacobi runs compare the double buffered sweep over the whole array
+ * (time block 1) with temporal blocking, where each chunk does several steps while it stays in the cache.
+ * Blocking pays off once the arrays do not fit in the last level cache, e.g.:
+ *
+ *     jmh/run.sh 'Stencil.*jacobi' -p side=8192 -p steps=32
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class StencilBenchmark {
+
+    @Param({"512", "2048"})
+    public int side;
+
+    @Param({"16"})
+    public int steps;
+
+    private double[] grid;
+    private double[][] kernel3;
+    private double[][] kernel5;
+    private ExecutionContext context;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        grid = new double[side * side];
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = random.nextDouble();
+        }
+        kernel3 = new double[3][3];
+        kernel5 = new double[5][5];
+        for (double[] row : kernel3) {
+            Arrays.fill(row, 1.0 / 9);
+        }
+        for (double[] row : kernel5) {
+            Arrays.fill(row, 1.0 / 25);
+        }
+        context = ExecutionContext.builder().build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public double[] jacobiSeq() {
+        return Stencil.jacobi(grid, steps);
+    }
+
+    @Benchmark
+    public double[] jacobiParUnblocked() {
+        return Stencil.jacobiPar(grid, steps, 1, context);
+    }
+
+    @Benchmark
+    public double[] jacobiParBlocked() {
+        return Stencil.jacobiPar(grid, steps, 8, context);
+    }
+
+    @Benchmark
+    public double[] jacobi2DSeq() {
+        return Stencil.jacobi2D(grid, side, side, steps);
+    }
+
+    @Benchmark
+    public double[] jacobi2DParUnblocked() {
+        return Stencil.jacobi2DPar(grid, side, side, steps, 1, context);
+    }
+
+    @Benchmark
+    public double[] jacobi2DParBlocked() {
+        return Stencil.jacobi2DPar(grid, side, side, steps, 8, context);
+    }
+
+    @Benchmark
+    public double[] convolve2DPar3x3() {
+        return Stencil.convolve2DPar(grid, side, side, kernel3, context);
+    }
+
+    @Benchmark
+    public double[] convolve2DPar5x5() {
+        return Stencil.convolve2DPar(grid, side, side, kernel5, context);
+    }
+
+    @Benchmark
+    public double[] movingAveragePar() {
+        return Stencil.movingAveragePar(grid, 31, context);
+    }
+}
@@ -0,0 +1,250 @@
+package com.ltcode.data_flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Work/span analysis of the DataFlowGraph
+ *
+ *     WORK (T1)          - sum of the costs of all nodes = running time on 1 worker
+ *     SPAN (T_inf / CPL) - cost of the most expensive path = running time on infinitely many workers
+ *
+ * For P workers the running time T(P) is bounded by:
+ *     max(WORK / P, SPAN)  <=  T(P)  <=  (WORK - SPAN) / P + SPAN      (Brent's theorem)
+ *
+ * Costs are either estimated (see DataFlowGraph.Builder.setEstimatedCost) or measured in the last run.
+ */
+public class DataFlowAnalysis {
+
+    private final DataFlowGraph graph;
+    private final long[] costs;
+    private final long[] topLevels;      // longest path from any source to the node, excluding the node
+    private final long[] bottomLevels;   // longest path from the node to any sink, including the node
+    private final long totalWork;
+    private final long span;
+    private final List<DataFlowNode<?>> criticalPath;
+
+    private DataFlowAnalysis(DataFlowGraph graph, ToLongFunction<DataFlowNode<?>> costFunction) {
+        this.graph = graph;
+        List<DataFlowNode<?>> order = graph.getNodes();
+        int size = graph.size();
+        costs = new long[size];
+        topLevels = new long[size];
+        bottomLevels = new long[size];
+
+        long work = 0;
+        for (DataFlowNode<?> node : order) {
+            long cost = costFunction.applyAsLong(node);
+            if (cost < 0)
+                throw new IllegalArgumentException("Cost of node '" + node.getName() + "' is negative");
+            costs[node.getId()] = cost;
+            work += cost;
+        }
+        totalWork = work;
+
+        // top levels in topological order
+        for (DataFlowNode<?> node : order) {
+            long level = 0;
+            for (DataFlowNode<?> parent : node.getParents()) {
+                level = Math.max(level, topLevels[parent.getId()] + costs[parent.getId()]);
+            }
+            topLevels[node.getId()] = level;
+        }
+
+        // bottom levels in reversed topological order
+        for (int i = order.size() - 1; i >= 0; i--) {
+            DataFlowNode<?> node = order.get(i);
+            long level = 0;
+            for (DataFlowNode<?> child : node.getChildren()) {
+                level = Math.max(level, bottomLevels[child.getId()]);
+            }
+            bottomLevels[node.getId()] = level + costs[node.getId()];
+        }
+
+        // critical path starts in the source with the highest bottom level and always
+        // continues to the child with the highest bottom level
+        List<DataFlowNode<?>> path = new ArrayList<>();
+        DataFlowNode<?> next = null;
+        for (DataFlowNode<?> node : order) {
+            if (node.getParents().isEmpty() && (next == null || bottomLevel(node) > bottomLevel(next)))
+                next = node;
+        }
+        while (next != null) {
+            path.add(next);
+            DataFlowNode<?> current = next;
+            next = null;
+            for (DataFlowNode<?> child : current.getChildren()) {
+                if (next == null || bottomLevel(child) > bottomLevel(next))
+                    next = child;
+            }
+        }
+        criticalPath = Collections.unmodifiableList(path);
+        span = path.isEmpty() ? 0 : bottomLevel(path.get(0));
+    }
+
+    /**
+     * Analyses the graph with the estimated costs of its nodes
+     *
+     * @param graph Analysed graph
+     * @return The analysis, costs are in nanoseconds
+     */
+    public static DataFlowAnalysis ofEstimatedCosts(DataFlowGraph graph) {
+        return new DataFlowAnalysis(graph, DataFlowNode::getEstimatedCost);
+    }
+
+    /**
+     * Analyses the graph with the costs measured in the given run
+     *
+     * @param results Results of a run of the graph
+     * @return The analysis, costs are in nanoseconds
+     */
+    public static DataFlowAnalysis ofMeasuredCosts(DataFlowResults results) {
+        return new DataFlowAnalysis(results.getGraph(), results::getRunNanos);
+    }
+
+    /**
+     * Analyses the graph with any costs
+     *
+     * @param graph        Analysed graph
+     * @param costFunction Returns the cost of each node
+     * @return The analysis, costs are in the units of the costFunction
+     */
+    public static DataFlowAnalysis of(DataFlowGraph graph, ToLongFunction<DataFlowNode<?>> costFunction) {
+        return new DataFlowAnalysis(graph, costFunction);
+    }
+
+    /**
+     * @return Sum of the costs of all nodes (T1)
+     */
+    public long getTotalWork() {
+        return totalWork;
+    }
+
+    /**
+     * @return Critical Path Length (T_inf)
+     */
+    public long getSpan() {
+        return span;
+    }
+
+    /**
+     * @return Nodes of the most expensive path from a source to a sink
+     */
+    public List<DataFlowNode<?>> getCriticalPath() {
+        return criticalPath;
+    }
+
+    /**
+     * @return Average parallelism = WORK / SPAN - more workers will not speed up the graph
+     */
+    public double getParallelism() {
+        return span == 0 ? 0 : (double) totalWork / span;
+    }
+
+    /**
+     * @param node Node of the analysed graph
+     * @return Cost of the node used in the analysis
+     */
+    public long getCost(DataFlowNode<?> node) {
+        graph.checkContains(node);
+        return costs[node.getId()];
+    }
+
+    /**
+     * @param node Node of the analysed graph
+     * @return Cost of the most expensive path from the node to any sink, including the node
+     */
+    public long getBottomLevel(DataFlowNode<?> node) {
+        graph.checkContains(node);
+        return bottomLevel(node);
+    }
+
+    /**
+     * @param node Node of the analysed graph
+     * @return Cost of the most expensive path from any source to the node, excluding the node
+     *         - the earliest possible start of the node
+     */
+    public long getTopLevel(DataFlowNode<?> node) {
+        graph.checkContains(node);
+        return topLevels[node.getId()];
+    }
+
+    /**
+     * Returns the lower bound of the running time on P workers: max(WORK / P, SPAN)
+     *
+     * @param workers Number of workers (P)
+     * @return The lower bound
+     */
+    public long getLowerBound(int workers) {
+        checkWorkers(workers);
+        return Math.max(ceilDiv(totalWork, workers), span);
+    }
+
+    /**
+     * Predicts the running time on P workers with Brent's theorem: (WORK - SPAN) / P + SPAN.
+     * Any greedy scheduler does not exceed this time.
+     *
+     * @param workers Number of workers (P)
+     * @return The predicted (upper bound) running time
+     */
+    public long predictRuntime(int workers) {
+        checkWorkers(workers);
+        return ceilDiv(totalWork - span, workers) + span;
+    }
+
+    /**
+     * Returns how many times the measured running time exceeds the lower bound max(WORK / P, SPAN)
+     *
+     * @param runtime Measured running time, in the units of the analysis
+     * @param workers Number of workers (P) the graph ran on
+     * @return runtime / lower bound, 1.0 means the run was perfect
+     */
+    public double getSlowdown(long runtime, int workers) {
+        long lowerBound = getLowerBound(workers);
+        return lowerBound == 0 ? 1.0 : (double) runtime / lowerBound;
+    }
+
+    /**
+     * Flags a run whose running time strays too far from the lower bound
+     *
+     * @param runtime     Measured running time, in the units of the analysis
+     * @param workers     Number of workers (P) the graph ran on
+     * @param maxSlowdown Accepted ratio of runtime / lower bound, e.g. 1.5
+     * @return True if the run was slower than accepted
+     */
+    public boolean isTooSlow(long runtime, int workers, double maxSlowdown) {
+        return getSlowdown(runtime, workers) > maxSlowdown;
+    }
+
+    /**
+     * Returns the smallest number of workers, for which the Brent's prediction is within
+     * the given ratio of the SPAN - more workers would mostly be idle
+     *
+     * @param maxSlowdown Accepted ratio of predicted runtime / SPAN, e.g. 1.1
+     * @return Suggested number of workers
+     */
+    public int suggestWorkers(double maxSlowdown) {
+        if (maxSlowdown <= 1.0)
+            throw new IllegalArgumentException("Max slowdown must be greater than 1.0");
+        if (span == 0)
+            return 1;
+        // (WORK - SPAN) / P + SPAN <= maxSlowdown * SPAN
+        double workers = (totalWork - span) / ((maxSlowdown - 1.0) * span);
+        return (int) Math.max(1, Math.ceil(workers));
+    }
+
+    private long bottomLevel(DataFlowNode<?> node) {
+        return bottomLevels[node.getId()];
+    }
+
+    private static long ceilDiv(long x, int y) {
+        return (x + y - 1) / y;
+    }
+
+    private static void checkWorkers(int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("Number of workers must be positive");
+    }
+}
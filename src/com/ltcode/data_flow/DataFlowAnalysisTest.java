@@ -0,0 +1,97 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of the class DataFlowAnalysis
+ */
+class DataFlowAnalysisTest {
+
+    /**
+     *             A(2)    B(1)
+     *            /    \  /   \
+     *          C(5)   D(1)   E(4)
+     *                  |
+     *                 G(3)
+     */
+    @Test
+    void analysisOfEstimatedCosts() {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Void> a = addNode(builder, "A", 2);
+        DataFlowNode<Void> b = addNode(builder, "B", 1);
+        DataFlowNode<Void> c = addNode(builder, "C", 5, a);
+        DataFlowNode<Void> d = addNode(builder, "D", 1, a, b);
+        DataFlowNode<Void> e = addNode(builder, "E", 4, b);
+        DataFlowNode<Void> g = addNode(builder, "G", 3, d);
+        DataFlowAnalysis analysis = DataFlowAnalysis.ofEstimatedCosts(builder.build());
+
+        assert analysis.getTotalWork() == 16;
+        assert analysis.getSpan() == 7;
+        assert analysis.getCriticalPath().equals(Arrays.asList(a, c)) : analysis.getCriticalPath();
+        assert analysis.getBottomLevel(b) == 5;
+        assert analysis.getTopLevel(g) == 3;
+        assert analysis.getTopLevel(e) == 1;
+
+        // max(16 / 2, 7) = 8, (16 - 7) / 2 + 7 = 12 (rounded up)
+        assert analysis.getLowerBound(2) == 8;
+        assert analysis.predictRuntime(2) == 12;
+        assert analysis.getLowerBound(100) == 7;
+        assert analysis.predictRuntime(1) == 16;
+
+        assert !analysis.isTooSlow(9, 2, 1.5);
+        assert analysis.isTooSlow(13, 2, 1.5);
+    }
+
+    /**
+     * Checks that the Diagram's CPL and total work are computed from the graph
+     */
+    @Test
+    void analysisOfDiagram() {
+        DataFlowDiagram dfd = new DataFlowDiagram();
+
+        assert dfd.getTotalWork() == 7000;
+        assert dfd.getCPL() == 3000;
+
+        List<DataFlowNode<?>> path = dfd.getAnalysis().getCriticalPath();
+        assert path.size() == 3;
+        assert path.get(2).getName().equals("G");
+    }
+
+    /**
+     * Checks that measured costs find the node that actually was the slowest
+     */
+    @Test
+    void analysisOfMeasuredCosts() {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Void> a = builder.addNode("A", sleep(1));
+        DataFlowNode<Void> b = builder.addNode("B", sleep(50), a);
+        builder.addNode("C", sleep(1), a);
+        DataFlowGraph graph = builder.build();
+
+        DataFlowAnalysis analysis = DataFlowAnalysis.ofMeasuredCosts(graph.runSeq());
+
+        assert analysis.getCriticalPath().equals(Arrays.asList(a, b)) : analysis.getCriticalPath();
+        assert analysis.getSpan() >= TimeUnit.MILLISECONDS.toNanos(51);
+        assert analysis.getTotalWork() >= analysis.getSpan();
+    }
+
+    // HELPER METHODS
+
+    private static DataFlowNode<Void> addNode(DataFlowGraph.Builder builder, String name, long cost,
+                                              DataFlowNode<?>... parents) {
+        DataFlowNode<Void> node = builder.addNode(name, () -> null, parents);
+        builder.setEstimatedCost(node, cost);
+        return node;
+    }
+
+    private static DataFlowTask<Void> sleep(int millis) {
+        return results -> {
+            Thread.sleep(millis);
+            return null;
+        };
+    }
+}
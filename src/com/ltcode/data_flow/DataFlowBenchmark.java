@@ -0,0 +1,117 @@
+package com.ltcode.data_flow;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark mode of the data flow engine - runs a graph sequentially and on P workers,
+ * and compares the achieved speedup with the ideal one given by the measured work and span:
+ *
+ *     speedup       = T1 / T(P)
+ *     ideal speedup = T1 / max(WORK / P, SPAN)
+ *     efficiency    = speedup / ideal speedup
+ *
+ * Use it with DataFlowGraphGenerator and DataFlowKernels to get realistic numbers
+ * for CPU-bound graphs of any shape.
+ */
+public class DataFlowBenchmark {
+
+    /**
+     * Runs the graph sequentially and with the critical path first scheduler,
+     * each the given number of times, and keeps the fastest runs
+     *
+     * @param graph   - benchmarked graph
+     * @param workers - number of workers (P) of the parallel runs
+     * @param repeats - number of runs of each mode
+     * @return Result of the benchmark
+     * @throws InterruptedException if interrupted while waiting for the graph
+     */
+    public static Result run(DataFlowGraph graph, int workers, int repeats) throws InterruptedException {
+        if (repeats < 1)
+            throw new IllegalArgumentException("Number of repeats must be positive");
+
+        DataFlowResults bestSeq = null;
+        for (int i = 0; i < repeats; i++) {
+            DataFlowResults results = graph.runSeq();
+            if (bestSeq == null || results.getRuntimeNanos() < bestSeq.getRuntimeNanos())
+                bestSeq = results;
+        }
+
+        long bestPar = Long.MAX_VALUE;
+        try (DataFlowScheduler scheduler = new DataFlowScheduler(DataFlowScheduler.Policy.CRITICAL_PATH_FIRST, workers)) {
+            DataFlowAnalysis measured = DataFlowAnalysis.ofMeasuredCosts(bestSeq);
+            for (int i = 0; i < repeats; i++) {
+                bestPar = Math.min(bestPar, scheduler.run(graph, measured).getRuntimeNanos());
+            }
+        }
+
+        return new Result(graph.size(), workers, bestSeq.getRuntimeNanos(), bestPar,
+                DataFlowAnalysis.ofMeasuredCosts(bestSeq));
+    }
+
+    /**
+     * Result of one benchmark, times are in nanoseconds
+     */
+    public static class Result {
+
+        private final int nodes;
+        private final int workers;
+        private final long seqRuntime;
+        private final long parRuntime;
+        private final DataFlowAnalysis analysis;
+
+        private Result(int nodes, int workers, long seqRuntime, long parRuntime, DataFlowAnalysis analysis) {
+            this.nodes = nodes;
+            this.workers = workers;
+            this.seqRuntime = seqRuntime;
+            this.parRuntime = parRuntime;
+            this.analysis = analysis;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public long getSeqRuntime() {
+            return seqRuntime;
+        }
+
+        public long getParRuntime() {
+            return parRuntime;
+        }
+
+        /**
+         * @return Work/span analysis with the costs measured in the sequential run
+         */
+        public DataFlowAnalysis getAnalysis() {
+            return analysis;
+        }
+
+        public double getSpeedup() {
+            return (double) seqRuntime / parRuntime;
+        }
+
+        public double getIdealSpeedup() {
+            return (double) analysis.getTotalWork() / analysis.getLowerBound(workers);
+        }
+
+        public double getEfficiency() {
+            return getSpeedup() / getIdealSpeedup();
+        }
+
+        public static String header() {
+            return String.format("%6s %4s %10s %10s %10s %10s %8s %8s %8s",
+                    "nodes", "P", "work[ms]", "span[ms]", "seq[ms]", "par[ms]", "speedup", "ideal", "eff");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d %4d %10d %10d %10d %10d %8.2f %8.2f %8.2f",
+                    nodes, workers,
+                    TimeUnit.NANOSECONDS.toMillis(analysis.getTotalWork()),
+                    TimeUnit.NANOSECONDS.toMillis(analysis.getSpan()),
+                    TimeUnit.NANOSECONDS.toMillis(seqRuntime),
+                    TimeUnit.NANOSECONDS.toMillis(parRuntime),
+                    getSpeedup(), getIdealSpeedup(), getEfficiency());
+        }
+    }
+}
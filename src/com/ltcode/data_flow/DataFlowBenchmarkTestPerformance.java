@@ -0,0 +1,64 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs random graphs of different shapes with CPU-bound kernels and prints
+ * the achieved speedup next to the ideal speedup given by the measured work and span
+ */
+class DataFlowBenchmarkTestPerformance {
+
+    private static int REPEATS;
+    private static int WORKERS;
+    private static Random random;
+
+    @BeforeAll
+    static void setUp() {
+        REPEATS = 3;
+        WORKERS = Runtime.getRuntime().availableProcessors();
+        random = new Random();
+    }
+
+    @Test
+    void matrixBlockKernel() throws InterruptedException {
+        runShapes(DataFlowKernels.Kernel.MATRIX_BLOCK);
+    }
+
+    @Test
+    void arrayPassKernel() throws InterruptedException {
+        runShapes(DataFlowKernels.Kernel.ARRAY_PASS);
+    }
+
+    /**
+     * Runs wide, deep and highly connected graphs with the given kernel
+     */
+    private void runShapes(DataFlowKernels.Kernel kernel) throws InterruptedException {
+        // {depth, maxWidth, maxFanIn}
+        int[][] shapes = {
+                {4, 32, 2},     // wide
+                {32, 4, 2},     // deep
+                {10, 10, 6},    // high fan-in
+        };
+
+        System.out.println(kernel);
+        System.out.printf("%-20s %s%n", "shape", DataFlowBenchmark.Result.header());
+        for (int[] shape : shapes) {
+            DataFlowGraph graph = new DataFlowGraphGenerator(random)
+                    .setDepth(shape[0])
+                    .setMaxWidth(shape[1])
+                    .setMaxFanIn(shape[2])
+                    .setCosts(1, 10, TimeUnit.MILLISECONDS)
+                    .generate(DataFlowKernels.cpuTasks(kernel, random));
+
+            DataFlowBenchmark.Result result = DataFlowBenchmark.run(graph, WORKERS, REPEATS);
+            // parallel runs can not beat the ideal speedup - the ratio is printed, not asserted,
+            // the noise of wall-clock times on a shared host has no fixed bound
+            System.out.printf("%-20s %s  speedup/ideal %.3f%n", String.format("d=%d w=%d f=%d", shape[0], shape[1], shape[2]),
+                    result, result.getSpeedup() / result.getIdealSpeedup());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.ltcode.data_flow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of node results stored in a local directory, so it survives a restart.
+ * Every entry is one file named by the fingerprint of the node's inputs.
+ * When the total size of the entries exceeds maxBytes, the least recently used
+ * entries are deleted. The order of use is kept in memory and written to the directory
+ * by close() - entries stored after the last close() follow in the order of their write times.
+ * Temporary files left by a crash during put() are deleted when the cache is opened.
+ *
+ * The directory must be trusted: the results are read back with Java deserialization,
+ * which can run the code of any serializable class on the classpath. Never use a directory
+ * other users can write to.
+ *
+ * Usage: graph.setCache(new DataFlowCache(directory, maxBytes))
+ */
+public class DataFlowCache implements AutoCloseable {
+
+    private static final String SUFFIX = ".bin";
+    private static final String TEMP_PREFIX = "entry";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // keys from the least to the most recently used, one per line
+    private static final String ORDER_FILE = "access-order.txt";
+
+    private final Path directory;
+    private final long maxBytes;
+    // key -> size of the entry, in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Opens the cache - entries already stored in the directory are loaded
+     *
+     * @param directory - directory of the cache, created if it does not exist
+     * @param maxBytes  - max total size of the entries
+     * @throws IOException if the directory can not be read
+     */
+    public DataFlowCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("Max size can not be negative");
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    /**
+     * Returns the stored entry and marks it as recently used
+     *
+     * @param key - fingerprint of the node's inputs
+     * @return The entry or null if there is no such entry
+     */
+    public byte[] get(String key) {
+        synchronized (this) {
+            // get() moves the entry to the end of the access order
+            if (entries.get(key) == null)
+                return null;
+        }
+        try {
+            return Files.readAllBytes(fileOf(key));
+        } catch (IOException e) {
+            // deleted from outside - forget the entry
+            synchronized (this) {
+                Long size = entries.remove(key);
+                if (size != null)
+                    totalBytes -= size;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the entry and evicts the least recently used entries if the cache is full
+     *
+     * @param key   - fingerprint of the node's inputs
+     * @param value - serialized result of the node
+     */
+    public void put(String key, byte[] value) {
+        if (value.length > maxBytes)
+            return;
+        try {
+            Path temp = Files.createTempFile(directory, TEMP_PREFIX, TEMP_SUFFIX);
+            Files.write(temp, value);
+            synchronized (this) {
+                Files.move(temp, fileOf(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Long previous = entries.put(key, (long) value.length);
+                totalBytes += value.length - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Entry can not be stored in " + directory, e);
+        }
+    }
+
+    /**
+     * @return Number of stored entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Total size of the stored entries in bytes
+     */
+    public synchronized long getSizeBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Deletes all entries
+     */
+    public synchronized void clear() {
+        for (String key : new ArrayList<>(entries.keySet())) {
+            delete(key);
+        }
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Writes the order of use of the entries, so that the next open continues with it.
+     * The cache can be used further, the order is written again by the next close().
+     *
+     * @throws UncheckedIOException if the order can not be written
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            Path temp = Files.createTempFile(directory, TEMP_PREFIX, TEMP_SUFFIX);
+            Files.write(temp, entries.keySet(), StandardCharsets.UTF_8);
+            Files.move(temp, directory.resolve(ORDER_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Order of the entries can not be stored in " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the size limit is kept
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            delete(entry.getKey());
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Deletes the temporary files of crashed writes and loads the stored entries from the oldest
+     * to the newest used - first in the order written by close(), then the entries stored after it
+     */
+    private void load() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, TEMP_PREFIX + "*" + TEMP_SUFFIX)) {
+            for (Path temp : stream)
+                Files.deleteIfExists(temp);
+        }
+
+        Map<String, Path> files = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                files.put(name.substring(0, name.length() - SUFFIX.length()), file);
+            }
+        }
+        Path order = directory.resolve(ORDER_FILE);
+        if (Files.exists(order)) {
+            for (String key : Files.readAllLines(order, StandardCharsets.UTF_8)) {
+                Path file = files.remove(key);
+                if (file != null)
+                    add(key, Files.size(file));
+            }
+        }
+        List<Path> newer = new ArrayList<>(files.values());
+        newer.sort(Comparator.comparing(DataFlowCache::lastModified));
+        for (Path file : newer) {
+            String name = file.getFileName().toString();
+            add(name.substring(0, name.length() - SUFFIX.length()), Files.size(file));
+        }
+        evict();
+    }
+
+    private void add(String key, long size) {
+        entries.put(key, size);
+        totalBytes += size;
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(fileOf(key));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /* serialization of results and parameters */
+
+    /**
+     * @return Serialized object or null if the object is not serializable
+     */
+    static byte[] serialize(Object object) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        } catch (IOException e) {
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Only for entries of a trusted directory - deserialization can run the code of any serializable class
+     *
+     * @return Deserialized object
+     * @throws IOException if the bytes are not a serialized object
+     */
+    static Object deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
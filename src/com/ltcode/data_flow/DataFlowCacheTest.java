@@ -0,0 +1,155 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of the class DataFlowCache and incremental runs of the DataFlowGraph
+ */
+class DataFlowCacheTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("data-flow-cache");
+    }
+
+    /**
+     * Checks that the least recently used entries are evicted
+     */
+    @Test
+    void evictsLeastRecentlyUsed() throws IOException {
+        DataFlowCache cache = new DataFlowCache(directory, 30);
+        cache.put("a", new byte[10]);
+        cache.put("b", new byte[10]);
+        cache.put("c", new byte[10]);
+        cache.get("a");                 // b is now the least recently used
+        cache.put("d", new byte[10]);
+
+        assert cache.size() == 3;
+        assert cache.getSizeBytes() == 30;
+        assert cache.get("b") == null;
+        assert cache.get("a") != null && cache.get("c") != null && cache.get("d") != null;
+
+        cache.put("too-big", new byte[31]);
+        assert cache.get("too-big") == null;
+    }
+
+    /**
+     * Checks that the entries survive opening the cache again
+     */
+    @Test
+    void survivesRestart() throws IOException {
+        DataFlowCache cache = new DataFlowCache(directory, 1000);
+        cache.put("a", new byte[] {1, 2, 3});
+
+        DataFlowCache reopened = new DataFlowCache(directory, 1000);
+        assert reopened.size() == 1;
+        assert reopened.get("a")[2] == 3;
+
+        // a smaller limit evicts on opening
+        DataFlowCache smaller = new DataFlowCache(directory, 2);
+        assert smaller.size() == 0;
+    }
+
+    /**
+     * Checks that the order of use written by close() is restored and stale temporary files are deleted
+     */
+    @Test
+    void keepsOrderOfUseAcrossRestart() throws IOException {
+        try (DataFlowCache cache = new DataFlowCache(directory, 30)) {
+            cache.put("a", new byte[10]);
+            cache.put("b", new byte[10]);
+            cache.put("c", new byte[10]);
+            cache.get("a");             // b is now the least recently used
+        }
+        Path stale = Files.createTempFile(directory, "entry", ".tmp");
+
+        DataFlowCache reopened = new DataFlowCache(directory, 30);
+        assert !Files.exists(stale) : "Stale temporary file was not deleted";
+        reopened.put("d", new byte[10]);
+        assert reopened.get("b") == null;
+        assert reopened.get("a") != null && reopened.get("c") != null && reopened.get("d") != null;
+    }
+
+    /**
+     *      A(param)   B
+     *          \     /
+     *             C
+     * Only nodes with changed inputs run again - also after a restart
+     */
+    @Test
+    void rerunsOnlyDirtyNodes() throws IOException, InterruptedException {
+        AtomicInteger parameterOfA = new AtomicInteger(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Integer> a = builder.addNode("A", () -> {
+            runs.incrementAndGet();
+            return parameterOfA.get() * 10;
+        });
+        builder.setParameters(a, parameterOfA::get);
+        DataFlowNode<Integer> b = builder.addNode("B", () -> {
+            runs.incrementAndGet();
+            return 5;
+        });
+        DataFlowNode<Integer> c = builder.addNode("C", results -> {
+            runs.incrementAndGet();
+            return results.get(a) + results.get(b);
+        }, a, b);
+        DataFlowGraph graph = builder.build();
+        graph.setCache(new DataFlowCache(directory, 1 << 20));
+
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            DataFlowResults results = graph.runNonBlocking(es);
+            assert results.get(c) == 15;
+            assert runs.get() == 3;
+
+            results = graph.runNonBlocking(es);
+            assert results.get(c) == 15;
+            assert runs.get() == 3 : "No node should run again";
+            assert results.isReused(a) && results.isReused(b) && results.isReused(c);
+
+            parameterOfA.set(2);
+            results = graph.runNonBlocking(es);
+            assert results.get(c) == 25;
+            assert runs.get() == 5 : "A and C should run again";
+            assert !results.isReused(a) && results.isReused(b) && !results.isReused(c);
+
+            // new cache instance on the same directory = restart
+            graph.setCache(new DataFlowCache(directory, 1 << 20));
+            results = graph.runSeq();
+            assert results.get(c) == 25;
+            assert runs.get() == 5 : "No node should run again after restart";
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * Results that are not serializable are never reused
+     */
+    @Test
+    void notSerializableResultsRunAgain() throws IOException {
+        AtomicInteger runs = new AtomicInteger();
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Object> a = builder.addNode("A", () -> new Object());
+        builder.addNode("B", () -> runs.incrementAndGet(), a);
+        DataFlowGraph graph = builder.build();
+        graph.setCache(new DataFlowCache(directory, 1 << 20));
+
+        graph.runSeq();
+        graph.runSeq();
+
+        assert runs.get() == 2;
+    }
+}
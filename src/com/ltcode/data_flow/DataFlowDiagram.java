@@ -1,16 +1,18 @@
 package com.ltcode.data_flow;
 
+import com.ltcode.execution.ExecutionContext;
+
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Class shows the use of class Phaser in running the below Diagram
+ * Class shows the use of class Phaser (see DataFlowGraph.runPar) in running the below Diagram
  *
  *         Data Flow Diagram
  *             A      B       TOTAL_WORK = 7 * 1000 = 7000 milliseconds
- *            / \  / | \             CPL = 3 * 3000 = 3000 milliseconds  (critical path length A -> D -> G)
+ *            / \  / | \             CPL = 3 * 1000 = 3000 milliseconds  (critical path length A -> D -> G)
  *           C   D   E   F
  *              /
  *             G            Each task can run only if the 'parent' task has finished
@@ -20,13 +22,22 @@ public class DataFlowDiagram {
     private final int NUM_WORKERS = 7;
     private final int WORKLOAD = 1000;    // milliseconds
 
-    private final Worker A = new Worker("A", WORKLOAD);
-    private final Worker B = new Worker("B", WORKLOAD);
-    private final Worker C = new Worker("C", WORKLOAD, A);
-    private final Worker D = new Worker("D", WORKLOAD, A, B);
-    private final Worker E = new Worker("E", WORKLOAD, B);
-    private final Worker F = new Worker("F", WORKLOAD, B);
-    private final Worker G = new Worker("G", WORKLOAD, D);
+    private final DataFlowGraph graph;
+    private final DataFlowAnalysis analysis;
+    private volatile boolean verbose;
+
+    public DataFlowDiagram() {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Void> A = addWorker(builder, "A");
+        DataFlowNode<Void> B = addWorker(builder, "B");
+        addWorker(builder, "C", A);
+        DataFlowNode<Void> D = addWorker(builder, "D", A, B);
+        addWorker(builder, "E", B);
+        addWorker(builder, "F", B);
+        addWorker(builder, "G", D);
+        graph = builder.build();
+        analysis = DataFlowAnalysis.ofEstimatedCosts(graph);
+    }
 
     /**
      * Runs the Data Flow Diagram parallel
@@ -37,16 +48,52 @@ public class DataFlowDiagram {
         ExecutorService es = Executors.newFixedThreadPool(NUM_WORKERS);
 
         long startTime = System.currentTimeMillis();
-        es.execute(A);
-        es.execute(B);
-        es.execute(C);
-        es.execute(D);
-        es.execute(E);
-        es.execute(F);
-        es.execute(G);
-        es.shutdown();
         try {
-            es.awaitTermination(NUM_WORKERS * WORKLOAD / 1000 + 1, TimeUnit.SECONDS);
+            graph.runPar(es);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            es.shutdown();
+        }
+        long timeInMillis = System.currentTimeMillis() - startTime;
+
+        return timeInMillis;
+    }
+
+    /**
+     * Runs the Data Flow Diagram parallel without blocking threads on dependencies,
+     * so the pool can be smaller than the number of workers
+     *
+     * @param numThreads - number of threads in the pool
+     * @return Running time in milliseconds
+     */
+    public long runDiagramNonBlocking(int numThreads) {
+        ExecutorService es = Executors.newFixedThreadPool(numThreads);
+
+        long startTime = System.currentTimeMillis();
+        try {
+            graph.runNonBlocking(es);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            es.shutdown();
+        }
+        long timeInMillis = System.currentTimeMillis() - startTime;
+
+        return timeInMillis;
+    }
+
+    /**
+     * Runs the Data Flow Diagram parallel without blocking threads on dependencies
+     * in the pool of the context - the pool is not shut down
+     *
+     * @param context - execution context giving the pool
+     * @return Running time in milliseconds
+     */
+    public long runDiagramPar(ExecutionContext context) {
+        long startTime = System.currentTimeMillis();
+        try {
+            graph.runNonBlocking(context.getExecutor());
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -62,78 +109,85 @@ public class DataFlowDiagram {
      */
     public long runDiagramSeq()  {
         long startTime = System.currentTimeMillis();
-        A.runWithoutWaiting();
-        B.runWithoutWaiting();
-        C.runWithoutWaiting();
-        D.runWithoutWaiting();
-        E.runWithoutWaiting();
-        F.runWithoutWaiting();
-        G.runWithoutWaiting();
+        graph.runSeq();
         long timeInMillis = System.currentTimeMillis() - startTime;
 
         return timeInMillis;
     }
 
     /**
-     * Returns total work in milliseconds, where
-     * total work = number of workers * workload of each worker
+     * Returns total work in milliseconds computed from the graph, where
+     * total work = sum of the workloads of all workers
      *
      * @return Total work in milliseconds
      */
     public int getTotalWork() {
-        return NUM_WORKERS * WORKLOAD;
+        return (int) TimeUnit.NANOSECONDS.toMillis(analysis.getTotalWork());
     }
 
     /**
-     * Returns Critical Path Length - in this Diagram CPL = 3000
+     * Returns Critical Path Length computed from the graph - in this Diagram CPL = 3000
      *
      * @return Critical Path Length in milliseconds
      */
     public int getCPL() {
-        return 3000;
+        return (int) TimeUnit.NANOSECONDS.toMillis(analysis.getSpan());
     }
 
-    private static class Worker implements Runnable {
-
-        private final String name;
-        private final int workLoad;
-        private final Worker[] workersToWaitFor;
-        private final Phaser phaser;
+    /**
+     * @return Work/span analysis of the Diagram with the estimated workloads
+     */
+    public DataFlowAnalysis getAnalysis() {
+        return analysis;
+    }
 
-        public Worker(String name, int workLoad, Worker... workersToWaitFor) {
-            this.name = name;
-            this.workLoad = workLoad;
-            this.workersToWaitFor = workersToWaitFor;
-            this.phaser = new Phaser(1);
-        }
+    /**
+     * @param verbose - if true, the workers print when they start and end working
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
 
-        @Override
-        public void run() {
-            // Wait for 'parent' workers to complete their work
-            for (Worker workerToWaitFor : workersToWaitFor) {
-                workerToWaitFor.getPhaser().awaitAdvance(phaser.getPhase());
-            }
-            doWork();
-            // Signal end of work
-            phaser.arrive();
-        }
+    /**
+     * @return The graph behind the Diagram
+     */
+    public DataFlowGraph getGraph() {
+        return graph;
+    }
 
-        public void runWithoutWaiting() {
-            doWork();
-        }
+    /**
+     * Adds one worker with the default workload to the Diagram
+     *
+     * @param builder - builder of the Diagram's graph
+     * @param name    - name of the worker
+     * @param parents - workers that must finish first
+     * @return Node of the worker
+     */
+    private DataFlowNode<Void> addWorker(DataFlowGraph.Builder builder, String name, DataFlowNode<?>... parents) {
+        DataFlowNode<Void> node = builder.addNode(name, work(name, WORKLOAD), parents);
+        builder.setEstimatedCost(node, TimeUnit.MILLISECONDS.toNanos(WORKLOAD));
+        return node;
+    }
 
-        private void doWork() {
-            System.out.println(this.name + " starts working");
+    /**
+     * Returns the work of one node of the Diagram
+     *
+     * @param name     - name of the node
+     * @param workLoad - time of work in milliseconds
+     * @return Task simulating the work
+     */
+    private Callable<Void> work(String name, int workLoad) {
+        return () -> {
+            if (verbose)
+                System.out.println(name + " starts working");
             try {
                 Thread.sleep(workLoad);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
-            System.out.println(this.name + " ends working");
-        }
-
-        public Phaser getPhaser() {
-            return this. phaser;
-        }
+            if (verbose)
+                System.out.println(name + " ends working");
+            return null;
+        };
     }
 }
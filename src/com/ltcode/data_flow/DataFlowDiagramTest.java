@@ -1,5 +1,6 @@
 package com.ltcode.data_flow;
 
+import com.ltcode.execution.ExecutionContext;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -26,6 +27,41 @@ class DataFlowDiagramTest {
                         runtime);
     }
 
+    /**
+     * C, D, E and F can run at the same time, so 4 threads are enough to reach the CPL
+     */
+    @Test
+    void runDiagramNonBlocking() {
+        long runtime = dfd.runDiagramNonBlocking(4);
+        long maxExpectedRuntime = (long) (dfd.getCPL() * 1.1);
+
+        assert runtime < maxExpectedRuntime :
+                String.format("Max expected runtime was: %d, but actual runtime was: %d",
+                        maxExpectedRuntime,
+                        runtime);
+    }
+
+    /**
+     * A context with 4 workers is enough to reach the CPL, with 2 workers C, D, E and F take two rounds
+     */
+    @Test
+    void runDiagramParWithContext() {
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(4).build()) {
+            long runtime = dfd.runDiagramPar(context);
+            long maxExpectedRuntime = (long) (dfd.getCPL() * 1.1);
+
+            assert runtime < maxExpectedRuntime :
+                    String.format("Max expected runtime was: %d, but actual runtime was: %d",
+                            maxExpectedRuntime,
+                            runtime);
+        }
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(2).build()) {
+            long runtime = dfd.runDiagramPar(context);
+
+            assert runtime >= 4000 : "Runtime with 2 workers was: " + runtime;
+        }
+    }
+
     @Test
     void runDiagramSeq() {
         long runtime = dfd.runDiagramSeq();
@@ -0,0 +1,21 @@
+package com.ltcode.data_flow;
+
+/**
+ * Thrown when a node of the DataFlowGraph fails - its children are not run
+ */
+public class DataFlowException extends RuntimeException {
+
+    private final DataFlowNode<?> node;
+
+    public DataFlowException(DataFlowNode<?> node, Throwable cause) {
+        super("Node '" + node.getName() + "' failed", cause);
+        this.node = node;
+    }
+
+    /**
+     * @return The first node that failed
+     */
+    public DataFlowNode<?> getNode() {
+        return node;
+    }
+}
@@ -0,0 +1,637 @@
+package com.ltcode.data_flow;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Directed acyclic graph of tasks (nodes), where each node can run only if all
+ * its 'parent' nodes have finished. The graph is described with DataFlowGraph.Builder:
+ *
+ *     DataFlowGraph.Builder builder = DataFlowGraph.builder();
+ *     DataFlowNode<Integer> a = builder.addNode("A", () -> 1);
+ *     DataFlowNode<Integer> b = builder.addNode("B", () -> 2);
+ *     DataFlowNode<Integer> c = builder.addNode("C", results -> results.get(a) + results.get(b), a, b);
+ *     DataFlowGraph graph = builder.build();
+ *
+ * The structure of the graph is immutable and the graph can be run many times,
+ * each run returns new DataFlowResults.
+ */
+public class DataFlowGraph {
+
+    private final Builder builder;
+    private final List<DataFlowNode<?>> nodes;              // ordered by node's id
+    private final List<DataFlowNode<?>> topologicalOrder;
+    private volatile DataFlowTracer tracer;
+    private volatile DataFlowCache cache;
+
+    private DataFlowGraph(Builder builder, List<DataFlowNode<?>> nodes, List<DataFlowNode<?>> topologicalOrder) {
+        this.builder = builder;
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.topologicalOrder = Collections.unmodifiableList(topologicalOrder);
+    }
+
+    /**
+     * @return New builder of the graph
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return All nodes in topological order - each node comes after all its 'parent' nodes
+     */
+    public List<DataFlowNode<?>> getNodes() {
+        return topologicalOrder;
+    }
+
+    /**
+     * @param name Name of the node
+     * @return The node with the given name or null if there is no such node
+     */
+    public DataFlowNode<?> getNode(String name) {
+        return builder.nodesByName.get(name);
+    }
+
+    /**
+     * Sets the tracer recording each node of the following runs
+     *
+     * @param tracer The tracer or null to stop tracing
+     */
+    public void setTracer(DataFlowTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public DataFlowTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Sets the cache for incremental runs. Each node gets a fingerprint of its name,
+     * its parameters (see Builder.setParameters) and the fingerprints of its parents' results.
+     * A node whose fingerprint is found in the cache is not run - its result is taken
+     * from the cache, so only the nodes with changed inputs (and their descendants) run again.
+     * Results that are not Serializable are never cached.
+     *
+     * @param cache The cache or null to run all nodes
+     */
+    public void setCache(DataFlowCache cache) {
+        this.cache = cache;
+    }
+
+    public DataFlowCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return Number of nodes in the graph
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Runs all nodes sequentially in the current thread in topological order
+     *
+     * @return Results of all nodes
+     * @throws DataFlowException if any node failed
+     */
+    public DataFlowResults runSeq() {
+        Execution execution = new Execution();
+        for (DataFlowNode<?> node : topologicalOrder) {
+            execution.runNode(node);
+        }
+        return execution.finish();
+    }
+
+    /**
+     * Runs the graph in parallel. Every node is submitted as a separate task, that first
+     * waits on the Phasers of its 'parent' nodes and then signals its own Phaser.
+     *
+     * Nodes are submitted in topological order, so with an executor which takes tasks
+     * in FIFO order (e.g. Executors.newFixedThreadPool) the graph always completes.
+     * Waiting threads are blocked though, so the parallelism is limited by the number
+     * of nodes waiting at the same time - see runNonBlocking for a mode without waiting.
+     *
+     * @param executor Executor running the nodes - it is not shut down
+     * @return Results of all nodes
+     * @throws InterruptedException if the current thread was interrupted while waiting for the graph
+     * @throws DataFlowException if any node failed
+     */
+    public DataFlowResults runPar(ExecutorService executor) throws InterruptedException {
+        Execution execution = new Execution();
+        Phaser[] phasers = new Phaser[size()];
+        for (int i = 0; i < phasers.length; i++) {
+            phasers[i] = new Phaser(1);
+        }
+        CountDownLatch finished = new CountDownLatch(size());
+
+        for (DataFlowNode<?> node : topologicalOrder) {
+            executor.execute(() -> {
+                try {
+                    // Wait for 'parent' nodes to complete their work
+                    for (DataFlowNode<?> parent : node.getParents()) {
+                        phasers[parent.getId()].awaitAdvance(0);
+                    }
+                    execution.runNode(node);
+                } finally {
+                    // Signal end of work
+                    phasers[node.getId()].arrive();
+                    finished.countDown();
+                }
+            });
+        }
+        finished.await();
+
+        return execution.finish();
+    }
+
+    /**
+     * Runs the graph in parallel without blocking any thread on dependencies.
+     * Each node has an atomic counter of 'parent' nodes that have not finished yet,
+     * the parent that finishes last submits the node to the executor.
+     * Hence a pool of any size (even a single thread) can run graphs of any size.
+     *
+     * @param executor Executor running the nodes
+     * @return Future completed with results of all nodes, or exceptionally with
+     *         DataFlowException if any node failed
+     */
+    public CompletableFuture<DataFlowResults> runAsync(Executor executor) {
+        return new NonBlockingExecution(executor, node -> 0).start();
+    }
+
+    /**
+     * Runs the graph like runAsync, but the ready nodes are submitted as Comparable tasks
+     * with the given priority, so an executor with a priority queue can run the most
+     * important nodes first (see DataFlowScheduler)
+     *
+     * @param executor Executor running the nodes
+     * @param priority Priority of each node - higher runs first, ties run in the order they got ready
+     * @return Future completed with results of all nodes
+     */
+    CompletableFuture<DataFlowResults> runAsync(Executor executor, ToLongFunction<DataFlowNode<?>> priority) {
+        return new NonBlockingExecution(executor, priority).start();
+    }
+
+    /**
+     * Runs the graph with runAsync and waits for the results
+     *
+     * @param executor Executor running the nodes - it is not shut down
+     * @return Results of all nodes
+     * @throws InterruptedException if the current thread was interrupted while waiting for the graph
+     * @throws DataFlowException if any node failed
+     */
+    public DataFlowResults runNonBlocking(Executor executor) throws InterruptedException {
+        try {
+            return runAsync(executor).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataFlowException)
+                throw (DataFlowException) e.getCause();
+            throw new IllegalStateException("Graph could not be run", e.getCause());
+        }
+    }
+
+    /**
+     * Throws Exception if the node was not created by this graph's builder
+     */
+    void checkContains(DataFlowNode<?> node) {
+        if (node.getBuilder() != builder)
+            throw new IllegalArgumentException("Node '" + node.getName() + "' does not belong to the graph");
+    }
+
+    /**
+     * State of one run of the graph
+     */
+    private class Execution {
+
+        private final DataFlowResults results = new DataFlowResults(DataFlowGraph.this);
+        private final boolean[] failed = new boolean[size()];
+        private final AtomicReference<DataFlowException> failure = new AtomicReference<>();
+        private final long startTime = System.nanoTime();
+        private final DataFlowTracer tracer = DataFlowGraph.this.tracer;
+        private final long[] endTimes = tracer == null ? null : new long[size()];
+        private final DataFlowCache cache = DataFlowGraph.this.cache;
+        private final byte[][] fingerprints = cache == null ? null : new byte[size()][];
+
+        /**
+         * Runs the node's task unless any of its 'parent' nodes failed
+         */
+        private void runNode(DataFlowNode<?> node) {
+            for (DataFlowNode<?> parent : node.getParents()) {
+                if (failed[parent.getId()]) {
+                    failed[node.getId()] = true;
+                    return;
+                }
+            }
+            long nodeStartTime = System.nanoTime();
+            try {
+                if (cache == null)
+                    results.set(node, node.getTask().call(results));
+                else
+                    runIncremental(node);
+            } catch (Throwable e) {
+                failed[node.getId()] = true;
+                failure.compareAndSet(null, new DataFlowException(node, e));
+            }
+            long nodeEndTime = System.nanoTime();
+            results.setRunNanos(node, nodeEndTime - nodeStartTime);
+            if (tracer != null)
+                trace(node, nodeStartTime, nodeEndTime);
+        }
+
+        /**
+         * Takes the node's result from the cache if the fingerprint of its inputs is known,
+         * otherwise runs the node and stores its result
+         */
+        private void runIncremental(DataFlowNode<?> node) throws Exception {
+            String key = toHex(inputFingerprint(node));
+            byte[] stored = cache.get(key);
+            if (stored != null) {
+                try {
+                    results.set(node, DataFlowCache.deserialize(stored));
+                    results.setReused(node);
+                    fingerprints[node.getId()] = sha256().digest(stored);
+                    return;
+                } catch (IOException e) {
+                    // corrupted entry - run the node again
+                }
+            }
+
+            Object result = node.getTask().call(results);
+            results.set(node, result);
+            byte[] serialized = DataFlowCache.serialize(result);
+            if (serialized == null) {
+                // result can not be compared, so all descendants must run again too
+                fingerprints[node.getId()] = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                fingerprints[node.getId()] = sha256().digest(serialized);
+                cache.put(key, serialized);
+            }
+        }
+
+        /**
+         * Fingerprint of the node's name, parameters and its parents' results
+         */
+        private byte[] inputFingerprint(DataFlowNode<?> node) {
+            MessageDigest digest = sha256();
+            digest.update(node.getName().getBytes(StandardCharsets.UTF_8));
+            if (node.getParameters() != null) {
+                byte[] parameters = DataFlowCache.serialize(node.getParameters().get());
+                if (parameters == null)
+                    throw new IllegalStateException("Parameters of node '" + node.getName() + "' are not serializable");
+                digest.update(parameters);
+            }
+            for (DataFlowNode<?> parent : node.getParents()) {
+                digest.update(fingerprints[parent.getId()]);
+            }
+            return digest.digest();
+        }
+
+        private MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private String toHex(byte[] bytes) {
+            StringBuilder sb = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        }
+
+        /**
+         * The node got ready when its last 'parent' node finished
+         */
+        private void trace(DataFlowNode<?> node, long nodeStartTime, long nodeEndTime) {
+            long readyTime = startTime;
+            for (DataFlowNode<?> parent : node.getParents()) {
+                readyTime = Math.max(readyTime, endTimes[parent.getId()]);
+            }
+            endTimes[node.getId()] = nodeEndTime;
+            tracer.record(node, readyTime, nodeStartTime, nodeEndTime);
+        }
+
+        private DataFlowResults finish() {
+            results.setRuntimeNanos(System.nanoTime() - startTime);
+            if (failure.get() != null)
+                throw failure.get();
+            return results;
+        }
+    }
+
+    /**
+     * State of one non-blocking run of the graph
+     */
+    private class NonBlockingExecution {
+
+        private final Executor executor;
+        private final ToLongFunction<DataFlowNode<?>> priority;
+        private final Execution execution = new Execution();
+        private final AtomicIntegerArray pendingParents = new AtomicIntegerArray(size());
+        private final AtomicInteger pendingNodes = new AtomicInteger(size());
+        private final AtomicLong readySequence = new AtomicLong();
+        private final CompletableFuture<DataFlowResults> future = new CompletableFuture<>();
+
+        private NonBlockingExecution(Executor executor, ToLongFunction<DataFlowNode<?>> priority) {
+            this.executor = executor;
+            this.priority = priority;
+            for (DataFlowNode<?> node : nodes) {
+                pendingParents.set(node.getId(), node.getParents().size());
+            }
+        }
+
+        private CompletableFuture<DataFlowResults> start() {
+            if (size() == 0) {
+                complete();
+                return future;
+            }
+            for (DataFlowNode<?> node : topologicalOrder) {
+                if (node.getParents().isEmpty())
+                    submit(node);
+            }
+            return future;
+        }
+
+        private void submit(DataFlowNode<?> node) {
+            try {
+                executor.execute(new ReadyNode(node, priority.applyAsLong(node), readySequence.getAndIncrement()));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void run(DataFlowNode<?> node) {
+            execution.runNode(node);
+
+            // the parent that finishes last submits the child
+            for (DataFlowNode<?> child : node.getChildren()) {
+                if (pendingParents.decrementAndGet(child.getId()) == 0)
+                    submit(child);
+            }
+            if (pendingNodes.decrementAndGet() == 0)
+                complete();
+        }
+
+        private void complete() {
+            try {
+                future.complete(execution.finish());
+            } catch (DataFlowException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Node whose 'parent' nodes have all finished. Comparable, so it can wait
+         * in a PriorityBlockingQueue of a ThreadPoolExecutor.
+         */
+        private class ReadyNode implements Runnable, Comparable<ReadyNode> {
+
+            private final DataFlowNode<?> node;
+            private final long priority;
+            private final long sequence;
+
+            private ReadyNode(DataFlowNode<?> node, long priority, long sequence) {
+                this.node = node;
+                this.priority = priority;
+                this.sequence = sequence;
+            }
+
+            @Override
+            public void run() {
+                NonBlockingExecution.this.run(node);
+            }
+
+            @Override
+            public int compareTo(ReadyNode other) {
+                if (priority != other.priority)
+                    return Long.compare(other.priority, priority);
+                return Long.compare(sequence, other.sequence);
+            }
+        }
+    }
+
+    /**
+     * Builder of the DataFlowGraph. Checks that the graph has no cycles.
+     */
+    public static class Builder {
+
+        private final List<DataFlowNode<?>> nodes = new ArrayList<>();
+        private final Map<String, DataFlowNode<?>> nodesByName = new HashMap<>();
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a node, which does not need its parents' results
+         *
+         * @param name    Unique name of the node
+         * @param task    Work of the node
+         * @param parents Nodes that must finish before this node can start
+         * @param <T>     Type of the node's result
+         * @return Handle of the new node
+         */
+        public <T> DataFlowNode<T> addNode(String name, Callable<T> task, DataFlowNode<?>... parents) {
+            if (task == null)
+                throw new NullPointerException("Task can not be null");
+            return addNode(name, results -> task.call(), parents);
+        }
+
+        /**
+         * Adds a node, which can read its parents' results
+         *
+         * @param name    Unique name of the node
+         * @param task    Work of the node
+         * @param parents Nodes that must finish before this node can start
+         * @param <T>     Type of the node's result
+         * @return Handle of the new node
+         */
+        public <T> DataFlowNode<T> addNode(String name, DataFlowTask<T> task, DataFlowNode<?>... parents) {
+            checkNotBuilt();
+            if (name == null || task == null)
+                throw new NullPointerException("Name and task can not be null");
+            if (nodesByName.containsKey(name))
+                throw new IllegalArgumentException("Node '" + name + "' already exists");
+
+            DataFlowNode<T> node = new DataFlowNode<>(this, nodes.size(), name, task);
+            nodes.add(node);
+            nodesByName.put(name, node);
+            for (DataFlowNode<?> parent : parents) {
+                addEdge(parent, node);
+            }
+            return node;
+        }
+
+        /**
+         * Adds dependency: child can run only if parent has finished
+         *
+         * @param parent Node that must finish first
+         * @param child  Node that waits for the parent
+         * @return This builder
+         */
+        public Builder addEdge(DataFlowNode<?> parent, DataFlowNode<?> child) {
+            checkNotBuilt();
+            checkOwnNode(parent);
+            checkOwnNode(child);
+            if (!child.getParents().contains(parent)) {
+                child.addParent(parent);
+                parent.addChild(child);
+            }
+            return this;
+        }
+
+        /**
+         * Sets estimated cost of the node used by DataFlowAnalysis
+         *
+         * @param node          Node of this builder
+         * @param costNanos     Estimated running time of the node in nanoseconds
+         * @return This builder
+         */
+        public Builder setEstimatedCost(DataFlowNode<?> node, long costNanos) {
+            checkNotBuilt();
+            checkOwnNode(node);
+            if (costNanos < 0)
+                throw new IllegalArgumentException("Cost can not be negative");
+            node.setEstimatedCost(costNanos);
+            return this;
+        }
+
+        /**
+         * Sets parameters of the node used in the node's fingerprint for incremental runs
+         * (see DataFlowGraph.setCache). The supplier is called in every run, so it should
+         * return e.g. the version of an input file that the node reads.
+         *
+         * @param node       Node of this builder
+         * @param parameters Supplier of the node's parameters
+         * @return This builder
+         */
+        public Builder setParameters(DataFlowNode<?> node, Supplier<? extends Serializable> parameters) {
+            checkNotBuilt();
+            checkOwnNode(node);
+            node.setParameters(parameters);
+            return this;
+        }
+
+        /**
+         * Builds the graph - the builder can not be used anymore
+         *
+         * @return The immutable graph
+         * @throws IllegalArgumentException if the graph contains a cycle
+         */
+        public DataFlowGraph build() {
+            checkNotBuilt();
+            List<DataFlowNode<?>> order = topologicalOrder();
+            built = true;
+            nodes.forEach(DataFlowNode::freeze);
+            return new DataFlowGraph(this, nodes, order);
+        }
+
+        /**
+         * Kahn's algorithm - nodes that are left after sorting are part of a cycle
+         * or depend on a cycle
+         */
+        private List<DataFlowNode<?>> topologicalOrder() {
+            int[] pendingParents = new int[nodes.size()];
+            Queue<DataFlowNode<?>> ready = new ArrayDeque<>();
+            for (DataFlowNode<?> node : nodes) {
+                pendingParents[node.getId()] = node.getParents().size();
+                if (pendingParents[node.getId()] == 0)
+                    ready.add(node);
+            }
+
+            List<DataFlowNode<?>> order = new ArrayList<>(nodes.size());
+            while (!ready.isEmpty()) {
+                DataFlowNode<?> node = ready.poll();
+                order.add(node);
+                for (DataFlowNode<?> child : node.getChildren()) {
+                    if (--pendingParents[child.getId()] == 0)
+                        ready.add(child);
+                }
+            }
+
+            if (order.size() < nodes.size())
+                throw new IllegalArgumentException("Data flow graph contains a cycle: " + findCycle(pendingParents));
+            return order;
+        }
+
+        /**
+         * Every node left by Kahn's algorithm has a 'parent' that was left too,
+         * so walking through such parents must end in a cycle
+         */
+        private String findCycle(int[] pendingParents) {
+            Map<DataFlowNode<?>, Integer> visited = new HashMap<>();
+            List<DataFlowNode<?>> path = new ArrayList<>();
+
+            DataFlowNode<?> node = nodes.stream()
+                    .filter(n -> pendingParents[n.getId()] > 0)
+                    .findFirst()
+                    .get();
+            while (!visited.containsKey(node)) {
+                visited.put(node, path.size());
+                path.add(node);
+                node = node.getParents().stream()
+                        .filter(p -> pendingParents[p.getId()] > 0)
+                        .findFirst()
+                        .get();
+            }
+
+            // path was walked backwards (child -> parent), so print it reversed
+            LinkedList<DataFlowNode<?>> cycle = new LinkedList<>();
+            for (int i = visited.get(node); i < path.size(); i++) {
+                cycle.addFirst(path.get(i));
+            }
+            // start with the first added node of the cycle
+            DataFlowNode<?> first = cycle.stream()
+                    .min(Comparator.comparingInt(DataFlowNode::getId))
+                    .get();
+            Collections.rotate(cycle, -cycle.indexOf(first));
+            cycle.add(first);
+            return cycle.stream()
+                    .map(DataFlowNode::getName)
+                    .collect(Collectors.joining(" -> "));
+        }
+
+        private void checkOwnNode(DataFlowNode<?> node) {
+            if (node == null)
+                throw new NullPointerException("Node can not be null");
+            if (node.getBuilder() != this)
+                throw new IllegalArgumentException("Node '" + node.getName() + "' belongs to another graph");
+        }
+
+        private void checkNotBuilt() {
+            if (built)
+                throw new IllegalStateException("Graph has already been built");
+        }
+    }
+}
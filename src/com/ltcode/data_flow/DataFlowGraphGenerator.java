@@ -0,0 +1,157 @@
+package com.ltcode.data_flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Generates random layered data flow graphs for tests and benchmarks
+ *
+ *     layer 0:        o   o   o          (sources, up to maxWidth nodes in a layer)
+ *                     | \ | / |
+ *     layer 1:        o   o   o   o      every node has 1..maxFanIn parents from
+ *                      \ /    |  /       the earlier layers, mostly from the previous one
+ *     layer 2:          o     o
+ *       ...
+ *     layer depth-1
+ *
+ * Costs of the nodes are spread between minCost and maxCost with a long tail,
+ * which gives uneven graphs, where the order of the ready nodes matters.
+ */
+public class DataFlowGraphGenerator {
+
+    private final Random random;
+    private int depth = 10;
+    private int maxWidth = 10;
+    private int maxFanIn = 3;
+    private long minCostNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    private long maxCostNanos = TimeUnit.MILLISECONDS.toNanos(20);
+
+    public DataFlowGraphGenerator(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * @param depth - number of layers
+     */
+    public DataFlowGraphGenerator setDepth(int depth) {
+        if (depth < 1)
+            throw new IllegalArgumentException("Depth must be positive");
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * @param maxWidth - max number of nodes in one layer
+     */
+    public DataFlowGraphGenerator setMaxWidth(int maxWidth) {
+        if (maxWidth < 1)
+            throw new IllegalArgumentException("Width must be positive");
+        this.maxWidth = maxWidth;
+        return this;
+    }
+
+    /**
+     * @param maxFanIn - max number of parents of one node
+     */
+    public DataFlowGraphGenerator setMaxFanIn(int maxFanIn) {
+        if (maxFanIn < 1)
+            throw new IllegalArgumentException("Fan-in must be positive");
+        this.maxFanIn = maxFanIn;
+        return this;
+    }
+
+    /**
+     * @param minCost - min cost of one node
+     * @param maxCost - max cost of one node
+     * @param unit    - unit of the costs
+     */
+    public DataFlowGraphGenerator setCosts(long minCost, long maxCost, TimeUnit unit) {
+        if (minCost < 0 || maxCost < minCost)
+            throw new IllegalArgumentException("Costs must satisfy 0 <= minCost <= maxCost");
+        this.minCostNanos = unit.toNanos(minCost);
+        this.maxCostNanos = unit.toNanos(maxCost);
+        return this;
+    }
+
+    /**
+     * Generates a new random graph, where every node sleeps for its cost
+     *
+     * @return The graph with estimated costs
+     */
+    public DataFlowGraph generate() {
+        return generate(DataFlowGraphGenerator::sleepTask);
+    }
+
+    /**
+     * Generates a new random graph
+     *
+     * @param payload Creates the task of a node from the node's cost in nanoseconds
+     * @return The graph with estimated costs
+     */
+    public DataFlowGraph generate(LongFunction<DataFlowTask<?>> payload) {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        List<List<DataFlowNode<?>>> layers = new ArrayList<>();
+
+        for (int layer = 0; layer < depth; layer++) {
+            int width = 1 + random.nextInt(maxWidth);
+            List<DataFlowNode<?>> nodes = new ArrayList<>(width);
+
+            for (int i = 0; i < width; i++) {
+                DataFlowNode<?>[] parents = layer == 0
+                        ? new DataFlowNode<?>[0]
+                        : randomParents(layers);
+                long cost = randomCost();
+                DataFlowNode<?> node = builder.addNode("L" + layer + "N" + i, payload.apply(cost), parents);
+                builder.setEstimatedCost(node, cost);
+                nodes.add(node);
+            }
+            layers.add(nodes);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the task, which simulates work by sleeping for the given time
+     *
+     * @param costNanos - time of work in nanoseconds
+     * @return Task simulating the work
+     */
+    public static DataFlowTask<Void> sleepTask(long costNanos) {
+        return results -> {
+            TimeUnit.NANOSECONDS.sleep(costNanos);
+            return null;
+        };
+    }
+
+    /**
+     * Picks 1..maxFanIn distinct parents, the first one always from the previous layer
+     */
+    private DataFlowNode<?>[] randomParents(List<List<DataFlowNode<?>>> layers) {
+        int fanIn = 1 + random.nextInt(maxFanIn);
+        List<DataFlowNode<?>> parents = new ArrayList<>(fanIn);
+        List<DataFlowNode<?>> previousLayer = layers.get(layers.size() - 1);
+        parents.add(previousLayer.get(random.nextInt(previousLayer.size())));
+
+        for (int i = 1; i < fanIn; i++) {
+            // 3 of 4 parents come from the previous layer, the rest from any earlier layer
+            List<DataFlowNode<?>> layer = random.nextInt(4) > 0
+                    ? previousLayer
+                    : layers.get(random.nextInt(layers.size()));
+            DataFlowNode<?> parent = layer.get(random.nextInt(layer.size()));
+            if (!parents.contains(parent))
+                parents.add(parent);
+        }
+        return parents.toArray(new DataFlowNode<?>[0]);
+    }
+
+    /**
+     * Cost with a long tail - most nodes are cheap, a few are expensive
+     */
+    private long randomCost() {
+        double r = random.nextDouble();
+        return minCostNanos + (long) (r * r * r * (maxCostNanos - minCostNanos));
+    }
+}
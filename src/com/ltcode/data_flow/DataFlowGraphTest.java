@@ -0,0 +1,214 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tests of the class DataFlowGraph
+ */
+class DataFlowGraphTest {
+
+    /**
+     * Checks that nodes can read results of their 'parent' nodes
+     */
+    @Test
+    void runSeqPassesResults() {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Integer> a = builder.addNode("A", () -> 2);
+        DataFlowNode<Integer> b = builder.addNode("B", () -> 3);
+        DataFlowNode<Integer> c = builder.addNode("C", results -> results.get(a) * results.get(b), a, b);
+        DataFlowNode<String> d = builder.addNode("D", results -> "C=" + results.get(c), c);
+        DataFlowGraph graph = builder.build();
+
+        DataFlowResults results = graph.runSeq();
+
+        assert results.get(c) == 6;
+        assert results.get(d).equals("C=6");
+    }
+
+    /**
+     * Checks that the Phaser engine keeps the dependencies of a big random graph
+     * even if the pool is much smaller than the number of nodes
+     */
+    @Test
+    void runParKeepsDependencies() throws InterruptedException {
+        int NUM_NODES = 500;
+        AtomicIntegerArray finished = new AtomicIntegerArray(NUM_NODES);
+        AtomicBoolean dependencyBroken = new AtomicBoolean();
+        DataFlowGraph graph = createRandomGraph(NUM_NODES, new Random(), finished, dependencyBroken);
+
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            graph.runPar(es);
+        } finally {
+            es.shutdown();
+        }
+
+        assert !dependencyBroken.get() : "Node started before its parent finished";
+        for (int i = 0; i < NUM_NODES; i++) {
+            assert finished.get(i) == 1 : "Node " + i + " has not run exactly once";
+        }
+    }
+
+    /**
+     * Checks that the non-blocking engine runs a graph of 10k nodes on a pool
+     * with only availableProcessors() threads
+     */
+    @Test
+    void runNonBlockingOnSmallPool() throws InterruptedException {
+        int NUM_NODES = 10_000;
+        AtomicIntegerArray finished = new AtomicIntegerArray(NUM_NODES);
+        AtomicBoolean dependencyBroken = new AtomicBoolean();
+        DataFlowGraph graph = createRandomGraph(NUM_NODES, new Random(), finished, dependencyBroken);
+
+        ExecutorService es = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            graph.runNonBlocking(es);
+        } finally {
+            es.shutdown();
+        }
+
+        assert !dependencyBroken.get() : "Node started before its parent finished";
+        for (int i = 0; i < NUM_NODES; i++) {
+            assert finished.get(i) == 1 : "Node " + i + " has not run exactly once";
+        }
+    }
+
+    /**
+     * Checks that a long chain completes even on a single thread
+     */
+    @Test
+    void runAsyncOnSingleThread() throws Exception {
+        int CHAIN_LENGTH = 1_000;
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Integer> last = builder.addNode("N0", () -> 0);
+        for (int i = 1; i < CHAIN_LENGTH; i++) {
+            DataFlowNode<Integer> parent = last;
+            last = builder.addNode("N" + i, results -> results.get(parent) + 1, parent);
+        }
+        DataFlowGraph graph = builder.build();
+
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            DataFlowResults results = graph.runAsync(es).get(10, TimeUnit.SECONDS);
+            assert results.get(last) == CHAIN_LENGTH - 1;
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /**
+     * Checks that a failed node stops its children, but not the independent nodes
+     */
+    @Test
+    void failureSkipsChildren() throws InterruptedException {
+        AtomicBoolean childRun = new AtomicBoolean();
+        AtomicBoolean independentRun = new AtomicBoolean();
+
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Integer> a = builder.addNode("A", () -> {
+            throw new IllegalStateException("broken");
+        });
+        builder.addNode("B", () -> childRun.getAndSet(true), a);
+        builder.addNode("C", () -> independentRun.getAndSet(true));
+        DataFlowGraph graph = builder.build();
+
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            graph.runPar(es);
+            assert false : "DataFlowException was expected";
+        } catch (DataFlowException e) {
+            assert e.getNode() == a;
+            assert e.getCause() instanceof IllegalStateException;
+        }
+        try {
+            graph.runNonBlocking(es);
+            assert false : "DataFlowException was expected";
+        } catch (DataFlowException e) {
+            assert e.getNode() == a;
+        } finally {
+            es.shutdown();
+        }
+
+        assert !childRun.get() : "Child of the failed node should not run";
+        assert independentRun.get() : "Independent node should run";
+    }
+
+    /**
+     * Checks that the builder rejects cycles and names the nodes of the cycle
+     */
+    @Test
+    void buildDetectsCycle() {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Integer> a = builder.addNode("A", () -> 1);
+        DataFlowNode<Integer> b = builder.addNode("B", () -> 2, a);
+        DataFlowNode<Integer> c = builder.addNode("C", () -> 3, b);
+        builder.addNode("D", () -> 4, c);
+        builder.addEdge(c, a);
+
+        try {
+            builder.build();
+            assert false : "IllegalArgumentException was expected";
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().endsWith("A -> B -> C -> A") : e.getMessage();
+        }
+    }
+
+    @Test
+    void buildRejectsDuplicateNamesAndForeignNodes() {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        builder.addNode("A", () -> 1);
+        try {
+            builder.addNode("A", () -> 2);
+            assert false : "IllegalArgumentException was expected";
+        } catch (IllegalArgumentException expected) {
+        }
+
+        DataFlowNode<Integer> foreign = DataFlowGraph.builder().addNode("X", () -> 1);
+        try {
+            builder.addNode("B", () -> 2, foreign);
+            assert false : "IllegalArgumentException was expected";
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // HELPER METHODS
+
+    /**
+     * Creates a random DAG - every node depends on up to 3 nodes created before it.
+     * Each node checks that all its parents have already finished.
+     */
+    private static DataFlowGraph createRandomGraph(int numNodes, Random random,
+                                                   AtomicIntegerArray finished, AtomicBoolean dependencyBroken) {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        List<DataFlowNode<Integer>> nodes = new ArrayList<>();
+
+        for (int i = 0; i < numNodes; i++) {
+            int id = i;
+            int numParents = i == 0 ? 0 : random.nextInt(Math.min(i, 3) + 1);
+            int[] parentIds = random.ints(numParents, 0, Math.max(i, 1)).distinct().toArray();
+            DataFlowNode<?>[] parents = new DataFlowNode<?>[parentIds.length];
+            for (int p = 0; p < parentIds.length; p++) {
+                parents[p] = nodes.get(parentIds[p]);
+            }
+
+            nodes.add(builder.addNode("N" + id, () -> {
+                for (int parentId : parentIds) {
+                    if (finished.get(parentId) != 1)
+                        dependencyBroken.set(true);
+                }
+                finished.incrementAndGet(id);
+                return id;
+            }, parents));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.ltcode.data_flow;
+
+import com.ltcode.forkjoin.ArrayManipulator;
+import com.ltcode.threads.MatrixManipulator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * CPU-bound payloads for the nodes of data flow benchmarks. Unlike Thread.sleep,
+ * they compete for cores, caches and memory bandwidth:
+ *
+ *     MATRIX_BLOCK - multiplies two square int matrices with MatrixManipulator.multiplySeq
+ *                    (compute bound, the blocks fit in the cache)
+ *     ARRAY_PASS   - increments an int array of 1M elements with ArrayManipulator.incrementSeq
+ *                    (memory bandwidth bound)
+ *
+ * Kernels are calibrated once, so a task gets roughly the requested cost in nanoseconds.
+ */
+public class DataFlowKernels {
+
+    public enum Kernel {
+        MATRIX_BLOCK,
+        ARRAY_PASS
+    }
+
+    private static final int ARRAY_LENGTH = 1 << 20;
+    private static final int CALIBRATION_MATRIX_SIDE = 64;
+    private static final int CALIBRATION_REPEATS = 20;
+
+    /**
+     * Returns a factory of tasks of the kernel, to be used with DataFlowGraphGenerator.generate
+     *
+     * @param kernel - kernel of the tasks
+     * @param random - source of the matrices' values
+     * @return Function from the cost in nanoseconds to a task of about that cost
+     */
+    public static LongFunction<DataFlowTask<?>> cpuTasks(Kernel kernel, Random random) {
+        switch (kernel) {
+            case MATRIX_BLOCK: {
+                // cost grows with side^3
+                double nanosPerCell = calibrate(matrixBlock(CALIBRATION_MATRIX_SIDE, random))
+                        / Math.pow(CALIBRATION_MATRIX_SIDE, 3);
+                return cost -> matrixBlock((int) Math.max(1, Math.cbrt(cost / nanosPerCell)), random);
+            }
+            case ARRAY_PASS: {
+                // cost grows linearly with the number of elements
+                double nanosPerElement = (double) calibrate(arrayPass(ARRAY_LENGTH)) / ARRAY_LENGTH;
+                return cost -> arrayPass((int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, cost / nanosPerElement)));
+            }
+            default:
+                throw new IllegalArgumentException("Unknown kernel " + kernel);
+        }
+    }
+
+    /**
+     * @param side   - side of the multiplied matrices
+     * @param random - source of the matrices' values
+     * @return Task multiplying two random side x side matrices, returns a cell of the product
+     */
+    public static DataFlowTask<Integer> matrixBlock(int side, Random random) {
+        int[][] A = randomMatrix(side, random);
+        int[][] B = randomMatrix(side, random);
+        return results -> MatrixManipulator.multiplySeq(A, B)[side - 1][side - 1];
+    }
+
+    /**
+     * @param elements - number of incremented elements, passes over an array of 1M elements
+     *                 are repeated until this number is reached
+     * @return Task incrementing the array, returns a cell of the array
+     */
+    public static DataFlowTask<Integer> arrayPass(int elements) {
+        return results -> {
+            int[] array = new int[Math.min(elements, ARRAY_LENGTH)];
+            for (int done = 0; done < elements; done += array.length) {
+                ArrayManipulator.incrementSeq(array, 0, Math.min(array.length, elements - done), 1);
+            }
+            return array[0];
+        };
+    }
+
+    /**
+     * @return The fastest of some runs of the task in nanoseconds - the first runs warm up the JIT
+     */
+    private static long calibrate(DataFlowTask<Integer> task) {
+        long best = Long.MAX_VALUE;
+        try {
+            for (int i = 0; i < CALIBRATION_REPEATS; i++) {
+                long start = System.nanoTime();
+                task.call(null);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Kernel can not be calibrated", e);
+        }
+        return Math.max(best, TimeUnit.MICROSECONDS.toNanos(1));
+    }
+
+    private static int[][] randomMatrix(int side, Random random) {
+        int[][] matrix = new int[side][side];
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                matrix[r][c] = random.nextInt(128);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Tests of the class DataFlowKernels
+ */
+class DataFlowKernelsTest {
+
+    @Test
+    void arrayPassIncrementsEveryPass() throws Exception {
+        assert DataFlowKernels.arrayPass(10).call(null) == 1;
+        assert DataFlowKernels.arrayPass(3 << 20).call(null) == 3;
+    }
+
+    @Test
+    void matrixBlockReturnsCellOfProduct() throws Exception {
+        // random values from 0 to 127, so the product cell is between 0 and side * 127^2
+        int cell = DataFlowKernels.matrixBlock(8, new Random()).call(null);
+        assert cell >= 0 && cell <= 8 * 127 * 127;
+    }
+
+    /**
+     * Calibrated tasks should take about the requested time - the bounds are loose,
+     * because the test can run on a busy machine
+     */
+    @Test
+    void calibratedTasksTakeAboutRequestedTime() throws Exception {
+        long cost = TimeUnit.MILLISECONDS.toNanos(20);
+        for (DataFlowKernels.Kernel kernel : DataFlowKernels.Kernel.values()) {
+            LongFunction<DataFlowTask<?>> tasks = DataFlowKernels.cpuTasks(kernel, new Random());
+            DataFlowTask<?> task = tasks.apply(cost);
+
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                task.call(null);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+
+            assert best > cost / 10 && best < cost * 10 :
+                    String.format("%s: requested %d ms, but took %d ms", kernel,
+                            TimeUnit.NANOSECONDS.toMillis(cost), TimeUnit.NANOSECONDS.toMillis(best));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ltcode.data_flow;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One node (task) of the DataFlowGraph. Nodes are created by DataFlowGraph.Builder
+ * and serve as typed handles for reading the node's result from DataFlowResults.
+ *
+ * @param <T> Type of the node's result
+ */
+public final class DataFlowNode<T> {
+
+    private final DataFlowGraph.Builder builder;
+    private final int id;
+    private final String name;
+    private final DataFlowTask<T> task;
+    private long estimatedCost = 1;
+    private Supplier<? extends Serializable> parameters;
+
+    // edges - only modified by the builder before the graph is built
+    private List<DataFlowNode<?>> parents = new ArrayList<>();
+    private List<DataFlowNode<?>> children = new ArrayList<>();
+
+    DataFlowNode(DataFlowGraph.Builder builder, int id, String name, DataFlowTask<T> task) {
+        this.builder = builder;
+        this.id = id;
+        this.name = name;
+        this.task = task;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Estimated cost of the node in nanoseconds, 1 if no estimation was given
+     */
+    public long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    /**
+     * @return Supplier of the node's parameters used in the node's fingerprint, or null
+     */
+    public Supplier<? extends Serializable> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return Nodes that must finish before this node can start
+     */
+    public List<DataFlowNode<?>> getParents() {
+        return parents;
+    }
+
+    /**
+     * @return Nodes that wait for this node
+     */
+    public List<DataFlowNode<?>> getChildren() {
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /* package-private methods used by the builder and the graph */
+
+    int getId() {
+        return id;
+    }
+
+    DataFlowTask<T> getTask() {
+        return task;
+    }
+
+    DataFlowGraph.Builder getBuilder() {
+        return builder;
+    }
+
+    void setEstimatedCost(long estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
+
+    void setParameters(Supplier<? extends Serializable> parameters) {
+        this.parameters = parameters;
+    }
+
+    void addParent(DataFlowNode<?> parent) {
+        parents.add(parent);
+    }
+
+    void addChild(DataFlowNode<?> child) {
+        children.add(child);
+    }
+
+    /**
+     * Makes the edges read-only - called when the graph is built
+     */
+    void freeze() {
+        parents = Collections.unmodifiableList(parents);
+        children = Collections.unmodifiableList(children);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ltcode.data_flow;
+
+/**
+ * Results of one run of the DataFlowGraph
+ * A node's result is available as soon as the node has finished, so tasks can read
+ * the results of their 'parent' nodes.
+ */
+public class DataFlowResults {
+
+    private final DataFlowGraph graph;
+    private final Object[] results;
+    private final long[] runNanos;
+    private final boolean[] reused;
+    private long runtimeNanos;
+
+    DataFlowResults(DataFlowGraph graph) {
+        this.graph = graph;
+        this.results = new Object[graph.size()];
+        this.runNanos = new long[graph.size()];
+        this.reused = new boolean[graph.size()];
+    }
+
+    /**
+     * Returns the result of the given node
+     *
+     * @param node Node of the graph that was run
+     * @param <T> Type of the node's result
+     * @return Result computed by the node's task
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(DataFlowNode<T> node) {
+        graph.checkContains(node);
+        return (T) results[node.getId()];
+    }
+
+    /**
+     * Returns the measured running time of the given node, 0 if the node did not run
+     *
+     * @param node Node of the graph that was run
+     * @return Running time of the node's task in nanoseconds
+     */
+    public long getRunNanos(DataFlowNode<?> node) {
+        graph.checkContains(node);
+        return runNanos[node.getId()];
+    }
+
+    /**
+     * @param node Node of the graph that was run
+     * @return True if the node's result was taken from the DataFlowCache instead of running the node
+     */
+    public boolean isReused(DataFlowNode<?> node) {
+        graph.checkContains(node);
+        return reused[node.getId()];
+    }
+
+    /**
+     * @return The graph that was run
+     */
+    public DataFlowGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return Running time of the whole graph in nanoseconds
+     */
+    public long getRuntimeNanos() {
+        return runtimeNanos;
+    }
+
+    void set(DataFlowNode<?> node, Object result) {
+        results[node.getId()] = result;
+    }
+
+    void setReused(DataFlowNode<?> node) {
+        reused[node.getId()] = true;
+    }
+
+    void setRunNanos(DataFlowNode<?> node, long nanos) {
+        runNanos[node.getId()] = nanos;
+    }
+
+    void setRuntimeNanos(long runtimeNanos) {
+        this.runtimeNanos = runtimeNanos;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ltcode.data_flow;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs data flow graphs on a bounded pool of workers. When there are more ready nodes
+ * than workers, the order of the ready nodes is given by the policy:
+ *
+ *     FIFO                - nodes run in the order they got ready
+ *     CRITICAL_PATH_FIRST - node with the longest remaining path to a sink (bottom level)
+ *                           runs first (HLFET list scheduling)
+ *
+ * Bottom levels are computed by DataFlowAnalysis - from the estimated costs, or from
+ * the analysis given to run(), e.g. with the costs measured in the previous run.
+ */
+public class DataFlowScheduler implements AutoCloseable {
+
+    public enum Policy {
+        FIFO,
+        CRITICAL_PATH_FIRST
+    }
+
+    private final Policy policy;
+    private final int workers;
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * @param policy  - order of the ready nodes
+     * @param workers - number of worker threads
+     */
+    public DataFlowScheduler(Policy policy, int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("Number of workers must be positive");
+        this.policy = policy;
+        this.workers = workers;
+
+        BlockingQueue<Runnable> queue = policy == Policy.FIFO
+                ? new LinkedBlockingQueue<>()
+                : new PriorityBlockingQueue<>();
+        this.pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Runs the graph, priorities are computed from the estimated costs
+     *
+     * @param graph Graph to run
+     * @return Results of all nodes
+     * @throws InterruptedException if the current thread was interrupted while waiting for the graph
+     * @throws DataFlowException if any node failed
+     */
+    public DataFlowResults run(DataFlowGraph graph) throws InterruptedException {
+        return run(graph, DataFlowAnalysis.ofEstimatedCosts(graph));
+    }
+
+    /**
+     * Runs the graph, priorities are the bottom levels of the given analysis
+     *
+     * @param graph    Graph to run
+     * @param analysis Analysis of the same graph
+     * @return Results of all nodes
+     * @throws InterruptedException if the current thread was interrupted while waiting for the graph
+     * @throws DataFlowException if any node failed
+     */
+    public DataFlowResults run(DataFlowGraph graph, DataFlowAnalysis analysis) throws InterruptedException {
+        try {
+            if (policy == Policy.FIFO)
+                return graph.runAsync(pool).get();
+            return graph.runAsync(pool, analysis::getBottomLevel).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataFlowException)
+                throw (DataFlowException) e.getCause();
+            throw new IllegalStateException("Graph could not be run", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of the class DataFlowScheduler
+ */
+class DataFlowSchedulerTest {
+
+    /**
+     * With a single worker the ready node with the longest remaining path must run first
+     *
+     *          S
+     *        / | \
+     *       X  Y  Z1 - Z2 - Z3
+     */
+    @Test
+    void criticalPathFirstOrder() throws InterruptedException {
+        List<String> order = new CopyOnWriteArrayList<>();
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Void> s = addNode(builder, order, "S", 1);
+        addNode(builder, order, "X", 1, s);
+        addNode(builder, order, "Y", 2, s);
+        DataFlowNode<Void> z1 = addNode(builder, order, "Z1", 2, s);
+        DataFlowNode<Void> z2 = addNode(builder, order, "Z2", 2, z1);
+        addNode(builder, order, "Z3", 2, z2);
+        DataFlowGraph graph = builder.build();
+
+        try (DataFlowScheduler scheduler = new DataFlowScheduler(DataFlowScheduler.Policy.CRITICAL_PATH_FIRST, 1)) {
+            scheduler.run(graph);
+        }
+        assert order.subList(0, 3).equals(Arrays.asList("S", "Z1", "Z2")) : order;
+
+        order.clear();
+        try (DataFlowScheduler scheduler = new DataFlowScheduler(DataFlowScheduler.Policy.FIFO, 1)) {
+            scheduler.run(graph);
+        }
+        assert order.subList(0, 4).equals(Arrays.asList("S", "X", "Y", "Z1")) : order;
+    }
+
+    /**
+     * Checks that every node of a random graph runs with both policies
+     */
+    @Test
+    void runRandomGraph() throws InterruptedException {
+        DataFlowGraph graph = new DataFlowGraphGenerator(new Random())
+                .setDepth(20)
+                .setMaxWidth(20)
+                .setCosts(0, 10, TimeUnit.MICROSECONDS)
+                .generate();
+
+        for (DataFlowScheduler.Policy policy : DataFlowScheduler.Policy.values()) {
+            try (DataFlowScheduler scheduler = new DataFlowScheduler(policy, 3)) {
+                DataFlowResults results = scheduler.run(graph);
+                for (DataFlowNode<?> node : graph.getNodes()) {
+                    assert results.getRunNanos(node) > 0 : "Node " + node + " did not run";
+                }
+            }
+        }
+    }
+
+    // HELPER METHODS
+
+    private static DataFlowNode<Void> addNode(DataFlowGraph.Builder builder, List<String> order,
+                                              String name, long cost, DataFlowNode<?>... parents) {
+        DataFlowNode<Void> node = builder.addNode(name, () -> {
+            order.add(name);
+            return null;
+        }, parents);
+        builder.setEstimatedCost(node, cost);
+        return node;
+    }
+}
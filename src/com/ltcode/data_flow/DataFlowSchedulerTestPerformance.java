@@ -0,0 +1,77 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares makespans of the scheduling policies on random uneven graphs
+ * No tests for correctness are included in this class - you can find them
+ * in the class: DataFlowSchedulerTest
+ */
+class DataFlowSchedulerTestPerformance {
+
+    private static int GRAPHS;
+    private static int WORKERS;
+    private static Random random;
+
+    @BeforeAll
+    static void setUp() {
+        GRAPHS = 5;
+        WORKERS = 4;
+        random = new Random();
+    }
+
+    /**
+     * Runs each random graph with FIFO and CRITICAL_PATH_FIRST policies and prints
+     * the makespans next to the lower bound max(WORK / P, SPAN) and Brent's bound
+     */
+    @Test
+    void compareMakespans() throws InterruptedException {
+        double sumFifo = 0;
+        double sumCriticalPath = 0;
+
+        // a greedy scheduler stays within Brent's bound up to the overhead of sleeping - cpf/brent is printed,
+        // not asserted, a loaded host makes any wall-clock bound fail at random
+        System.out.printf("%6s %6s %10s %10s %10s %10s %10s%n",
+                "nodes", "P", "lower[ms]", "brent[ms]", "fifo[ms]", "cpf[ms]", "cpf/brent");
+
+        try (DataFlowScheduler fifo = new DataFlowScheduler(DataFlowScheduler.Policy.FIFO, WORKERS);
+             DataFlowScheduler criticalPath = new DataFlowScheduler(DataFlowScheduler.Policy.CRITICAL_PATH_FIRST, WORKERS)) {
+
+            for (int i = 0; i < GRAPHS; i++) {
+                DataFlowGraph graph = new DataFlowGraphGenerator(random)
+                        .setDepth(12)
+                        .setMaxWidth(12)
+                        .setMaxFanIn(3)
+                        .setCosts(1, 40, TimeUnit.MILLISECONDS)
+                        .generate();
+                DataFlowAnalysis analysis = DataFlowAnalysis.ofEstimatedCosts(graph);
+
+                long makespanFifo = fifo.run(graph).getRuntimeNanos();
+                long makespanCriticalPath = criticalPath.run(graph).getRuntimeNanos();
+
+                System.out.printf("%6d %6d %10d %10d %10d %10d %10.3f%n",
+                        graph.size(), WORKERS,
+                        toMillis(analysis.getLowerBound(WORKERS)),
+                        toMillis(analysis.predictRuntime(WORKERS)),
+                        toMillis(makespanFifo),
+                        toMillis(makespanCriticalPath),
+                        (double) makespanCriticalPath / analysis.predictRuntime(WORKERS));
+
+                sumFifo += analysis.getSlowdown(makespanFifo, WORKERS);
+                sumCriticalPath += analysis.getSlowdown(makespanCriticalPath, WORKERS);
+            }
+        }
+
+        System.out.printf("Average makespan / lower bound - FIFO: %.3f, CRITICAL_PATH_FIRST: %.3f%n",
+                sumFifo / GRAPHS, sumCriticalPath / GRAPHS);
+    }
+
+    /* helper methods */
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ltcode.data_flow;
+
+/**
+ * Work of one node of the DataFlowGraph. Unlike a plain Callable the task gets
+ * access to the results of the 'parent' nodes it depends on.
+ *
+ * @param <T> Type of the node's result
+ */
+@FunctionalInterface
+public interface DataFlowTask<T> {
+
+    /**
+     * Computes the node's result
+     *
+     * @param results Results of the current run - all 'parent' results are already available
+     * @return The node's result
+     * @throws Exception if the result can not be computed
+     */
+    T call(DataFlowResults results) throws Exception;
+}
@@ -0,0 +1,338 @@
+package com.ltcode.data_flow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the execution of every node of a DataFlowGraph into a preallocated ring buffer:
+ *
+ *     ready time - all 'parent' nodes have finished
+ *     start time - the node's task started
+ *     end time   - the node's task finished
+ *     thread     - thread that ran the task
+ *
+ * Recording does not allocate and does not lock - a slot is claimed with one atomic
+ * increment, so only the newest 'capacity' records are kept. The slots work as seqlocks:
+ * an export copies a record and keeps it only if the slot was not rewritten meanwhile.
+ * The records can be exported as Chrome/Perfetto trace JSON (chrome://tracing, ui.perfetto.dev)
+ * or summarized as per-node histograms of waiting (start - ready) and running (end - start) time.
+ *
+ * Usage: graph.setTracer(new DataFlowTracer(4096))
+ */
+public class DataFlowTracer {
+
+    private final int mask;
+    private final DataFlowNode<?>[] nodes;
+    private final Thread[] threads;
+    private final long[] readyTimes;
+    private final long[] startTimes;
+    private final long[] endTimes;
+    // sequence number of the record in the slot + 1, written last, 0 = empty slot
+    private final AtomicLongArray committed;
+    private final AtomicLong nextRecord = new AtomicLong();
+
+    /**
+     * @param capacity - max number of kept records, rounded up to a power of two
+     */
+    public DataFlowTracer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        this.mask = size - 1;
+        this.nodes = new DataFlowNode<?>[size];
+        this.threads = new Thread[size];
+        this.readyTimes = new long[size];
+        this.startTimes = new long[size];
+        this.endTimes = new long[size];
+        this.committed = new AtomicLongArray(size);
+    }
+
+    /**
+     * Records one execution of a node, times are from System.nanoTime()
+     */
+    public void record(DataFlowNode<?> node, long readyTime, long startTime, long endTime) {
+        long sequence = nextRecord.getAndIncrement();
+        int slot = (int) sequence & mask;
+        committed.lazySet(slot, 0);
+        // readers must not see the new fields with the old sequence
+        VarHandle.releaseFence();
+        nodes[slot] = node;
+        threads[slot] = Thread.currentThread();
+        readyTimes[slot] = readyTime;
+        startTimes[slot] = startTime;
+        endTimes[slot] = endTime;
+        committed.lazySet(slot, sequence + 1);
+    }
+
+    /**
+     * @return Number of records ever made, including the overwritten ones
+     */
+    public long getRecordCount() {
+        return nextRecord.get();
+    }
+
+    /**
+     * Forgets all records
+     */
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            committed.set(i, 0);
+            nodes[i] = null;
+            threads[i] = null;
+        }
+    }
+
+    /**
+     * Exports the kept records as Chrome trace JSON. Running is a complete event on
+     * the thread's track, waiting for a thread is an async event on the 'ready queue' track.
+     *
+     * @param out - destination of the JSON
+     */
+    public void writeChromeTrace(Appendable out) {
+        List<Record> records = snapshot();
+        long base = Long.MAX_VALUE;
+        for (Record record : records) {
+            base = Math.min(base, record.readyTime);
+        }
+
+        try {
+            out.append("{\"traceEvents\":[\n");
+            boolean first = true;
+            Map<Long, String> threadNames = new LinkedHashMap<>();
+            for (Record record : records) {
+                Thread thread = record.thread;
+                threadNames.put(thread.getId(), thread.getName());
+                String name = escape(record.node.getName());
+
+                if (!first)
+                    out.append(",\n");
+                first = false;
+                out.append(String.format("{\"name\":\"%s\",\"cat\":\"run\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,"
+                                + "\"ts\":%s,\"dur\":%s,\"args\":{\"wait_us\":%s}}",
+                        name, thread.getId(),
+                        micros(record.startTime - base),
+                        micros(record.endTime - record.startTime),
+                        micros(record.startTime - record.readyTime)));
+                if (record.startTime > record.readyTime) {
+                    out.append(String.format(",\n{\"name\":\"%s\",\"cat\":\"wait\",\"ph\":\"b\",\"id\":%d,\"pid\":1,\"tid\":0,\"ts\":%s}",
+                            name, record.sequence, micros(record.readyTime - base)));
+                    out.append(String.format(",\n{\"name\":\"%s\",\"cat\":\"wait\",\"ph\":\"e\",\"id\":%d,\"pid\":1,\"tid\":0,\"ts\":%s}",
+                            name, record.sequence, micros(record.startTime - base)));
+                }
+            }
+            out.append(first ? "" : ",\n");
+            out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":0,\"args\":{\"name\":\"ready queue\"}}");
+            for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+                out.append(String.format(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                        thread.getKey(), escape(thread.getValue())));
+            }
+            out.append("\n]}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The kept records as Chrome trace JSON
+     */
+    public String toChromeTrace() {
+        StringBuilder sb = new StringBuilder();
+        writeChromeTrace(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Groups the kept records by node
+     *
+     * @return Waiting and running histograms of each node, in order of the first record
+     */
+    public Map<String, NodeSummary> getSummary() {
+        Map<String, NodeSummary> summary = new LinkedHashMap<>();
+        for (Record record : snapshot()) {
+            summary.computeIfAbsent(record.node.getName(), NodeSummary::new)
+                    .add(record.startTime - record.readyTime, record.endTime - record.startTime);
+        }
+        return summary;
+    }
+
+    /**
+     * @return Table with the summary of each node
+     */
+    public String getSummaryTable() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %6s %10s %10s %10s %10s %10s %10s%n", "node", "count",
+                "wait p50", "wait p99", "wait max", "run p50", "run p99", "run max"));
+        for (NodeSummary node : getSummary().values()) {
+            sb.append(String.format("%-16s %6d %10s %10s %10s %10s %10s %10s%n", node.getName(), node.getCount(),
+                    format(node.getWaitHistogram().getPercentile(50)),
+                    format(node.getWaitHistogram().getPercentile(99)),
+                    format(node.getWaitHistogram().getMax()),
+                    format(node.getRunHistogram().getPercentile(50)),
+                    format(node.getRunHistogram().getPercentile(99)),
+                    format(node.getRunHistogram().getMax())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Copies the committed records in the order of recording. A record is kept only if its slot has
+     * the same sequence before and after the copy - a writer wrapping around the ring meanwhile
+     * would give a record torn between two executions.
+     */
+    private List<Record> snapshot() {
+        long end = nextRecord.get();
+        long start = Math.max(0, end - mask - 1);
+        List<Record> records = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            if (committed.get(slot) != sequence + 1)
+                continue;
+            Record record = new Record(sequence, nodes[slot], threads[slot],
+                    readyTimes[slot], startTimes[slot], endTimes[slot]);
+            // the copy is read before the second check of the sequence
+            VarHandle.acquireFence();
+            if (committed.get(slot) == sequence + 1 && record.node != null && record.thread != null)
+                records.add(record);
+        }
+        return records;
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.3f", nanos / 1000.0);
+    }
+
+    private static String format(long nanos) {
+        if (nanos < TimeUnit.MICROSECONDS.toNanos(10))
+            return nanos + "ns";
+        if (nanos < TimeUnit.MILLISECONDS.toNanos(10))
+            return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+        return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Copy of one record
+     */
+    private static class Record {
+
+        final long sequence;
+        final DataFlowNode<?> node;
+        final Thread thread;
+        final long readyTime;
+        final long startTime;
+        final long endTime;
+
+        Record(long sequence, DataFlowNode<?> node, Thread thread, long readyTime, long startTime, long endTime) {
+            this.sequence = sequence;
+            this.node = node;
+            this.thread = thread;
+            this.readyTime = readyTime;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+    }
+
+    /**
+     * Waiting and running times of one node
+     */
+    public static class NodeSummary {
+
+        private final String name;
+        private final Histogram waitHistogram = new Histogram();
+        private final Histogram runHistogram = new Histogram();
+
+        private NodeSummary(String name) {
+            this.name = name;
+        }
+
+        private void add(long waitNanos, long runNanos) {
+            waitHistogram.add(waitNanos);
+            runHistogram.add(runNanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return runHistogram.getCount();
+        }
+
+        public Histogram getWaitHistogram() {
+            return waitHistogram;
+        }
+
+        public Histogram getRunHistogram() {
+            return runHistogram;
+        }
+    }
+
+    /**
+     * Histogram with power-of-two buckets of nanoseconds: bucket i counts values in [2^(i-1), 2^i)
+     */
+    public static class Histogram {
+
+        private final long[] buckets = new long[64];
+        private long count;
+        private long max;
+
+        private void add(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets[64 - Long.numberOfLeadingZeros(nanos)]++;
+            count++;
+            max = Math.max(max, nanos);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param bucket - index of the bucket
+         * @return Number of values in [2^(bucket-1), 2^bucket) nanoseconds
+         */
+        public long getBucket(int bucket) {
+            return buckets[bucket];
+        }
+
+        /**
+         * @param percentile - percentile between 0 and 100
+         * @return Upper bound of the bucket containing the percentile, at most the max value
+         */
+        public long getPercentile(double percentile) {
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0)
+                    return Math.min(max, i == 0 ? 0 : (1L << i) - 1);
+            }
+            return max;
+        }
+    }
+}
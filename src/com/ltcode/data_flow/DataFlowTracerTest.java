@@ -0,0 +1,150 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests of the class DataFlowTracer
+ */
+class DataFlowTracerTest {
+
+    /**
+     * Checks that only the newest records are kept
+     */
+    @Test
+    void ringBufferKeepsNewestRecords() {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Integer> a = builder.addNode("A", () -> 1);
+        DataFlowNode<Integer> b = builder.addNode("B", () -> 2);
+        builder.build();
+
+        DataFlowTracer tracer = new DataFlowTracer(3);     // rounded up to 4
+        for (int i = 0; i < 10; i++) {
+            tracer.record(i < 6 ? a : b, i, i + 1, i + 3);
+        }
+
+        Map<String, DataFlowTracer.NodeSummary> summary = tracer.getSummary();
+        assert tracer.getRecordCount() == 10;
+        assert summary.size() == 1 : summary.keySet();
+        assert summary.get("B").getCount() == 4;
+        assert summary.get("B").getWaitHistogram().getMax() == 1;
+        assert summary.get("B").getRunHistogram().getMax() == 2;
+    }
+
+    /**
+     * Exports while writers wrap around a small ring - every exported record must be one whole record:
+     * node i always waits 1 ns and runs i + 1 ns, so a record torn between two writes shows other times
+     */
+    @Test
+    void exportDuringWrapAroundHasNoTornRecords() throws InterruptedException {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        int nNodes = 4;
+        List<DataFlowNode<Integer>> nodes = new ArrayList<>();
+        for (int i = 0; i < nNodes; i++) {
+            int value = i;
+            nodes.add(builder.addNode("N" + i, () -> value));
+        }
+        builder.build();
+
+        DataFlowTracer tracer = new DataFlowTracer(8);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            writers[w] = new Thread(() -> {
+                for (long t = 0; !stop.get(); t++) {
+                    int i = (int) (t % nNodes);
+                    tracer.record(nodes.get(i), t * 1000, t * 1000 + 1, t * 1000 + 2 + i);
+                }
+            });
+            writers[w].start();
+        }
+        try {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            while (System.nanoTime() < end) {
+                for (DataFlowTracer.NodeSummary node : tracer.getSummary().values()) {
+                    int i = Integer.parseInt(node.getName().substring(1));
+                    assert node.getWaitHistogram().getMax() == 1 : node.getName();
+                    assert node.getRunHistogram().getMax() == i + 1 : node.getName();
+                    assert node.getRunHistogram().getBucket(64 - Long.numberOfLeadingZeros(i + 1)) == node.getCount()
+                            : node.getName();
+                }
+                String trace = tracer.toChromeTrace();
+                assert trace.endsWith("]}\n");
+            }
+        } finally {
+            stop.set(true);
+            for (Thread writer : writers)
+                writer.join();
+        }
+    }
+
+    /**
+     * Runs two independent nodes on a single thread - the second must wait for the first
+     */
+    @Test
+    void traceOfGraphRun() throws InterruptedException {
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Void> a = builder.addNode("A", sleep(20));
+        builder.addNode("B", sleep(20));
+        builder.addNode("C", sleep(1), a);
+        DataFlowGraph graph = builder.build();
+        DataFlowTracer tracer = new DataFlowTracer(16);
+        graph.setTracer(tracer);
+
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            graph.runNonBlocking(es);
+        } finally {
+            es.shutdown();
+        }
+
+        Map<String, DataFlowTracer.NodeSummary> summary = tracer.getSummary();
+        assert summary.keySet().size() == 3;
+        long waitA = summary.get("A").getWaitHistogram().getMax();
+        long waitB = summary.get("B").getWaitHistogram().getMax();
+        assert Math.max(waitA, waitB) >= TimeUnit.MILLISECONDS.toNanos(20) : "One source should wait for the thread";
+        assert summary.get("C").getRunHistogram().getMax() >= TimeUnit.MILLISECONDS.toNanos(1);
+
+        String json = tracer.toChromeTrace();
+        assert json.startsWith("{\"traceEvents\":[") && json.trim().endsWith("]}");
+        assert json.split("\"ph\":\"X\"").length - 1 == 3;
+        assert json.contains("\"ph\":\"b\"") && json.contains("\"ph\":\"e\"");
+        assert tracer.getSummaryTable().contains("wait p99");
+    }
+
+    /**
+     * Percentiles are upper bounds of power-of-two buckets
+     */
+    @Test
+    void histogramPercentiles() {
+        DataFlowTracer tracer = new DataFlowTracer(128);
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<Integer> a = builder.addNode("A", () -> 1);
+        builder.build();
+        for (int i = 1; i <= 100; i++) {
+            tracer.record(a, 0, 0, i);
+        }
+
+        DataFlowTracer.Histogram run = tracer.getSummary().get("A").getRunHistogram();
+        assert run.getCount() == 100;
+        assert run.getPercentile(50) == 63;
+        assert run.getPercentile(99) == 100;
+        assert run.getBucket(7) == 37;       // 64..100
+    }
+
+    // HELPER METHODS
+
+    private static DataFlowTask<Void> sleep(int millis) {
+        return results -> {
+            Thread.sleep(millis);
+            return null;
+        };
+    }
+}
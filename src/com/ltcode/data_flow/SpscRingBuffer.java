@@ -0,0 +1,164 @@
+package com.ltcode.data_flow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free ring buffer for exactly one producer thread and one consumer thread.
+ * It is the edge of the StreamingDataFlow - a full buffer stops the producer (backpressure),
+ * an empty buffer stops the consumer.
+ *
+ * The producer only writes 'tail', the consumer only writes 'head', so no CAS is needed.
+ * Each side caches the last seen position of the other side to avoid reading it on every call.
+ * A waiting side spins and yields first and then parks, the other side unparks it after its next move.
+ *
+ * @param <E> Type of the elements
+ */
+class SpscRingBuffer<E> {
+
+    // spinning only helps if the other side runs on another CPU
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+    private static final int YIELDS = 10;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+
+    private final Object[] buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();    // next position to read
+    private final AtomicLong tail = new AtomicLong();    // next position to write
+    private long cachedHead;                             // used only by the producer
+    private long cachedTail;                             // used only by the consumer
+
+    private volatile Thread waitingProducer;
+    private volatile Thread waitingConsumer;
+
+    /**
+     * @param capacity - max number of elements, rounded up to a power of two
+     */
+    SpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        int size = Math.max(1, Integer.highestOneBit(capacity - 1) << 1);
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Called by the producer
+     *
+     * @return False if the buffer is full
+     */
+    boolean offer(E element) {
+        long t = tail.get();
+        if (t - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if (t - cachedHead >= buffer.length)
+                return false;
+        }
+        buffer[(int) t & mask] = element;
+        // volatile write - must not be reordered with the read of waitingConsumer
+        tail.set(t + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * Called by the consumer
+     *
+     * @return The oldest element or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long h = head.get();
+        if (h >= cachedTail) {
+            cachedTail = tail.get();
+            if (h >= cachedTail)
+                return null;
+        }
+        int slot = (int) h & mask;
+        E element = (E) buffer[slot];
+        buffer[slot] = null;
+        head.set(h + 1);
+        Thread producer = waitingProducer;
+        if (producer != null)
+            LockSupport.unpark(producer);
+        return element;
+    }
+
+    /**
+     * Called by the producer - waits while the buffer is full
+     *
+     * @throws InterruptedException if the producer was interrupted while waiting
+     */
+    void put(E element) throws InterruptedException {
+        int spins = 0;
+        while (!offer(element)) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (++spins < SPINS) {
+                Thread.onSpinWait();
+            } else if (spins < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                waitingProducer = Thread.currentThread();
+                if (isFull())
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                waitingProducer = null;
+            }
+        }
+    }
+
+    /**
+     * Registers the consumer to be unparked by the next offer
+     */
+    void setWaitingConsumer(Thread consumer) {
+        waitingConsumer = consumer;
+    }
+
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    private boolean isFull() {
+        return tail.get() - head.get() >= buffer.length;
+    }
+
+    /**
+     * Waits until any of the buffers has an element - used by a consumer with many inputs
+     *
+     * @param buffers - input buffers of the consumer, null entries are ignored
+     * @param spins   - number of times the consumer has already found all buffers empty
+     * @throws InterruptedException if the consumer was interrupted
+     */
+    static void awaitAny(SpscRingBuffer<?>[] buffers, int spins) throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+            return;
+        }
+        if (spins < SPINS + YIELDS) {
+            Thread.yield();
+            return;
+        }
+        Thread current = Thread.currentThread();
+        boolean allEmpty = true;
+        for (SpscRingBuffer<?> buffer : buffers) {
+            if (buffer != null) {
+                buffer.setWaitingConsumer(current);
+                allEmpty &= buffer.isEmpty();
+            }
+        }
+        if (allEmpty)
+            LockSupport.parkNanos(buffers, MAX_PARK_NANOS);
+        for (SpscRingBuffer<?> buffer : buffers) {
+            if (buffer != null)
+                buffer.setWaitingConsumer(null);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the class SpscRingBuffer
+ */
+class SpscRingBufferTest {
+
+    @Test
+    void offerAndPollKeepOrder() {
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(3);     // rounded up to 4
+
+        assert buffer.capacity() == 4;
+        for (int i = 0; i < 4; i++) {
+            boolean offered = buffer.offer(i);
+            assert offered;
+        }
+        boolean offered = buffer.offer(4);
+        assert !offered : "Buffer should be full";
+        Integer polled = buffer.poll();
+        assert polled == 0;
+        offered = buffer.offer(4);
+        assert offered;
+        for (int i = 1; i <= 4; i++) {
+            polled = buffer.poll();
+            assert polled == i;
+        }
+        polled = buffer.poll();
+        assert polled == null;
+        assert buffer.isEmpty();
+    }
+
+    /**
+     * One producer and one consumer pass many elements through a small buffer
+     */
+    @Test
+    void producerAndConsumerThreads() throws InterruptedException {
+        int ELEMENTS = 1_000_000;
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(8);
+        boolean[] orderBroken = new boolean[1];
+        long[] sum = new long[1];
+
+        Thread consumer = new Thread(() -> {
+            int expected = 0;
+            int spins = 0;
+            while (expected < ELEMENTS) {
+                Integer element = buffer.poll();
+                if (element == null) {
+                    try {
+                        SpscRingBuffer.awaitAny(new SpscRingBuffer<?>[] {buffer}, spins++);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    continue;
+                }
+                spins = 0;
+                if (element != expected)
+                    orderBroken[0] = true;
+                sum[0] += element;
+                expected++;
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < ELEMENTS; i++) {
+            buffer.put(i);
+        }
+        consumer.join();
+
+        assert !orderBroken[0] : "Elements were not consumed in order";
+        assert sum[0] == (long) ELEMENTS * (ELEMENTS - 1) / 2;
+    }
+}
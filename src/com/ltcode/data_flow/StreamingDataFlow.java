@@ -0,0 +1,385 @@
+package com.ltcode.data_flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Streaming (pipelined) version of the data flow graph. Unlike DataFlowGraph, where a node
+ * runs only once all its 'parent' nodes have finished, here the nodes process streams of
+ * batches, and every node runs in its own thread at the same time as the others:
+ *
+ *          A            source  - produces batches until it returns null
+ *         / \
+ *        C   D          stages  - transform every batch as soon as it arrives
+ *         \ /
+ *          G            sink    - consumes the batches
+ *
+ * Every edge is a bounded SpscRingBuffer, so a slow node stops its producers (backpressure)
+ * and the memory used by the flow is bounded by (number of edges * buffer capacity) batches.
+ * A batch sent to many children is shared, so batches must not be modified by the nodes.
+ */
+public class StreamingDataFlow {
+
+    // marks the end of the stream in the buffers - compared by identity
+    private static final List<Object> END = new ArrayList<>(0);
+
+    private final List<StreamNode<?>> nodes;
+    private final int bufferCapacity;
+
+    private StreamingDataFlow(List<StreamNode<?>> nodes, int bufferCapacity) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * @return New builder of the flow
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return All nodes in the order they were added
+     */
+    public List<StreamNode<?>> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Runs the flow - every node in its own thread - and waits until the sinks consume
+     * the whole stream
+     *
+     * @return Running time in nanoseconds
+     * @throws InterruptedException if the current thread was interrupted while waiting for the flow
+     * @throws IllegalStateException if any node failed - the other nodes are interrupted
+     */
+    public long run() throws InterruptedException {
+        // new edges for every run
+        List<List<SpscRingBuffer<List<?>>>> outputs = new ArrayList<>();
+        List<SpscRingBuffer<List<?>>[]> inputs = new ArrayList<>();
+        for (StreamNode<?> node : nodes) {
+            outputs.add(new ArrayList<>());
+            inputs.add(newBuffers(node.getParents().size()));
+        }
+        for (StreamNode<?> node : nodes) {
+            List<StreamNode<?>> parents = node.getParents();
+            for (int p = 0; p < parents.size(); p++) {
+                SpscRingBuffer<List<?>> edge = new SpscRingBuffer<>(bufferCapacity);
+                inputs.get(node.getId())[p] = edge;
+                outputs.get(parents.get(p).getId()).add(edge);
+            }
+        }
+
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (StreamNode<?> node : nodes) {
+            node.reset();
+            NodeRunner runner = new NodeRunner(node, inputs.get(node.getId()), outputs.get(node.getId()), failure, threads);
+            threads.add(new Thread(runner, "stream-" + node.getName()));
+        }
+
+        long startTime = System.nanoTime();
+        threads.forEach(Thread::start);
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            throw e;
+        }
+        long runtime = System.nanoTime() - startTime;
+
+        if (failure.get() != null)
+            throw failure.get();
+        return runtime;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SpscRingBuffer<List<?>>[] newBuffers(int size) {
+        return (SpscRingBuffer<List<?>>[]) new SpscRingBuffer<?>[size];
+    }
+
+    /**
+     * Thread of one node - reads batches from the inputs in round robin,
+     * processes them and writes results to all outputs
+     */
+    private static class NodeRunner implements Runnable {
+
+        private final StreamNode<?> node;
+        private final SpscRingBuffer<List<?>>[] inputs;
+        private final List<SpscRingBuffer<List<?>>> outputs;
+        private final AtomicReference<RuntimeException> failure;
+        private final List<Thread> allThreads;
+
+        private NodeRunner(StreamNode<?> node, SpscRingBuffer<List<?>>[] inputs, List<SpscRingBuffer<List<?>>> outputs,
+                           AtomicReference<RuntimeException> failure, List<Thread> allThreads) {
+            this.node = node;
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.failure = failure;
+            this.allThreads = allThreads;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (inputs.length == 0)
+                    runSource();
+                else
+                    runStage();
+                emit(END);
+            } catch (InterruptedException e) {
+                // another node failed
+            } catch (RuntimeException | Error e) {
+                if (failure.compareAndSet(null, new IllegalStateException("Node '" + node.getName() + "' failed", e))) {
+                    allThreads.forEach(Thread::interrupt);
+                }
+            }
+        }
+
+        private void runSource() throws InterruptedException {
+            List<?> batch;
+            while ((batch = node.process(null)) != null) {
+                emit(batch);
+            }
+        }
+
+        private void runStage() throws InterruptedException {
+            int openInputs = inputs.length;
+            int next = 0;
+            int idleSpins = 0;
+
+            while (openInputs > 0) {
+                boolean received = false;
+                for (int i = 0; i < inputs.length; i++) {
+                    int idx = (next + i) % inputs.length;
+                    if (inputs[idx] == null)
+                        continue;
+                    List<?> batch = inputs[idx].poll();
+                    if (batch == null)
+                        continue;
+
+                    received = true;
+                    next = idx + 1;
+                    if (batch == END) {
+                        inputs[idx] = null;
+                        openInputs--;
+                    } else {
+                        List<?> result = node.process(batch);
+                        if (result != null && !result.isEmpty())
+                            emit(result);
+                    }
+                    break;
+                }
+
+                if (received)
+                    idleSpins = 0;
+                else if (openInputs > 0)
+                    SpscRingBuffer.awaitAny(inputs, idleSpins++);
+            }
+        }
+
+        private void emit(List<?> batch) throws InterruptedException {
+            for (SpscRingBuffer<List<?>> output : outputs) {
+                output.put(batch);
+            }
+        }
+    }
+
+    /**
+     * Node of the StreamingDataFlow
+     *
+     * @param <T> Type of the elements the node produces
+     */
+    public static final class StreamNode<T> {
+
+        private final Builder builder;
+        private final int id;
+        private final String name;
+        private final Function<List<?>, List<?>> function;
+        private final List<StreamNode<?>> parents;
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong elements = new AtomicLong();
+
+        private StreamNode(Builder builder, int id, String name,
+                           Function<List<?>, List<?>> function, List<StreamNode<?>> parents) {
+            this.builder = builder;
+            this.id = id;
+            this.name = name;
+            this.function = function;
+            this.parents = Collections.unmodifiableList(parents);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<StreamNode<?>> getParents() {
+            return parents;
+        }
+
+        /**
+         * @return Number of batches processed by the node in the last run
+         */
+        public long getProcessedBatches() {
+            return batches.get();
+        }
+
+        /**
+         * @return Number of elements processed by the node in the last run
+         *         (produced elements for a source)
+         */
+        public long getProcessedElements() {
+            return elements.get();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+        private int getId() {
+            return id;
+        }
+
+        private List<?> process(List<?> batch) {
+            List<?> result = function.apply(batch);
+            List<?> counted = batch == null ? result : batch;
+            if (counted != null) {
+                batches.incrementAndGet();
+                elements.addAndGet(counted.size());
+            }
+            return result;
+        }
+
+        private void reset() {
+            batches.set(0);
+            elements.set(0);
+        }
+    }
+
+    /**
+     * Builder of the StreamingDataFlow
+     */
+    public static class Builder {
+
+        private final List<StreamNode<?>> nodes = new ArrayList<>();
+        private final Set<String> names = new HashSet<>();
+        private int bufferCapacity = 16;
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * @param bufferCapacity - max number of batches waiting in one edge
+         * @return This builder
+         */
+        public Builder setBufferCapacity(int bufferCapacity) {
+            if (bufferCapacity < 1)
+                throw new IllegalArgumentException("Buffer capacity must be positive");
+            this.bufferCapacity = bufferCapacity;
+            return this;
+        }
+
+        /**
+         * Adds a node without inputs
+         *
+         * @param name   Unique name of the node
+         * @param source Returns the next batch, or null at the end of the stream
+         * @param <T>    Type of the produced elements
+         * @return The new node
+         */
+        public <T> StreamNode<T> addSource(String name, Supplier<List<T>> source) {
+            return add(name, batch -> source.get(), Collections.emptyList());
+        }
+
+        /**
+         * Adds a node transforming batches of its parents - batches of different
+         * parents are merged in the order they arrive
+         *
+         * @param name    Unique name of the node
+         * @param stage   Transforms one input batch to one output batch (null or empty means no output)
+         * @param parents Nodes producing the input
+         * @param <I>     Type of the input elements
+         * @param <O>     Type of the output elements
+         * @return The new node
+         */
+        @SafeVarargs
+        public final <I, O> StreamNode<O> addStage(String name, Function<List<I>, List<O>> stage,
+                                                   StreamNode<? extends I>... parents) {
+            // the elements are copied, the generic varargs array itself is not passed on
+            List<StreamNode<?>> list = new ArrayList<>(parents.length);
+            for (StreamNode<? extends I> parent : parents)
+                list.add(Objects.requireNonNull(parent, "Parent can not be null"));
+            return addStageOf(name, stage, list);
+        }
+
+        /**
+         * Adds a node consuming batches of its parents
+         *
+         * @param name    Unique name of the node
+         * @param sink    Consumes one batch
+         * @param parents Nodes producing the input
+         * @param <I>     Type of the input elements
+         * @return The new node
+         */
+        @SafeVarargs
+        public final <I> StreamNode<Void> addSink(String name, Consumer<List<I>> sink, StreamNode<? extends I>... parents) {
+            List<StreamNode<?>> list = new ArrayList<>(parents.length);
+            for (StreamNode<? extends I> parent : parents)
+                list.add(Objects.requireNonNull(parent, "Parent can not be null"));
+            return addStageOf(name, (List<I> batch) -> {
+                sink.accept(batch);
+                return null;
+            }, list);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <I, O> StreamNode<O> addStageOf(String name, Function<List<I>, List<O>> stage,
+                                                List<StreamNode<?>> parents) {
+            if (parents.isEmpty())
+                throw new IllegalArgumentException("Stage needs at least one parent");
+            return add(name, batch -> stage.apply((List<I>) batch), parents);
+        }
+
+        /**
+         * @return The flow - the builder can not be used anymore
+         */
+        public StreamingDataFlow build() {
+            checkNotBuilt();
+            built = true;
+            return new StreamingDataFlow(nodes, bufferCapacity);
+        }
+
+        private <T> StreamNode<T> add(String name, Function<List<?>, List<?>> function, List<StreamNode<?>> parents) {
+            checkNotBuilt();
+            if (name == null || function == null)
+                throw new NullPointerException("Name and function can not be null");
+            if (!names.add(name))
+                throw new IllegalArgumentException("Node '" + name + "' already exists");
+            for (StreamNode<?> parent : parents) {
+                if (parent.builder != this)
+                    throw new IllegalArgumentException("Node '" + parent.getName() + "' belongs to another flow");
+            }
+            StreamNode<T> node = new StreamNode<>(this, nodes.size(), name, function, new ArrayList<>(parents));
+            nodes.add(node);
+            return node;
+        }
+
+        private void checkNotBuilt() {
+            if (built)
+                throw new IllegalStateException("Flow has already been built");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tests of the class StreamingDataFlow
+ */
+class StreamingDataFlowTest {
+
+    /**
+     *          A
+     *         / \
+     *        C   D
+     *         \ /
+     *          G
+     */
+    @Test
+    void diamondComputesAllElements() throws InterruptedException {
+        int BATCHES = 1_000;
+        int BATCH_SIZE = 10;
+        AtomicInteger produced = new AtomicInteger();
+        AtomicLong sum = new AtomicLong();
+
+        StreamingDataFlow.Builder builder = StreamingDataFlow.builder().setBufferCapacity(4);
+        StreamingDataFlow.StreamNode<Integer> a = builder.addSource("A", () -> {
+            int batch = produced.getAndIncrement();
+            if (batch == BATCHES)
+                return null;
+            return IntStream.range(batch * BATCH_SIZE, (batch + 1) * BATCH_SIZE).boxed().collect(Collectors.toList());
+        });
+        StreamingDataFlow.StreamNode<Integer> c = builder.addStage("C", (List<Integer> batch) -> map(batch, 2), a);
+        StreamingDataFlow.StreamNode<Integer> d = builder.addStage("D", (List<Integer> batch) -> map(batch, 3), a);
+        StreamingDataFlow.StreamNode<Void> g = builder.addSink("G", (List<Integer> batch) -> {
+            batch.forEach(sum::addAndGet);
+        }, c, d);
+        builder.build().run();
+
+        long n = (long) BATCHES * BATCH_SIZE;
+        long sumOfInput = n * (n - 1) / 2;
+        assert sum.get() == 5 * sumOfInput : "Expected " + 5 * sumOfInput + ", but was " + sum.get();
+        assert g.getProcessedBatches() == 2 * BATCHES;
+        assert a.getProcessedElements() == n;
+    }
+
+    /**
+     * A slow sink must stop the source - the source can not run ahead
+     * more than the capacity of the buffers
+     */
+    @Test
+    void backpressureBoundsMemory() throws InterruptedException {
+        int CAPACITY = 4;
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        StreamingDataFlow.Builder builder = StreamingDataFlow.builder().setBufferCapacity(CAPACITY);
+        StreamingDataFlow.StreamNode<Integer> a = builder.addSource("A", () -> {
+            int batch = produced.get();
+            if (batch == 200)
+                return null;
+            maxInFlight.accumulateAndGet(batch - consumed.get(), Math::max);
+            produced.incrementAndGet();
+            return List.of(batch);
+        });
+        StreamingDataFlow.StreamNode<Integer> b = builder.addStage("B", (List<Integer> batch) -> batch, a);
+        builder.addSink("C", (List<Integer> batch) -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumed.incrementAndGet();
+        }, b);
+        builder.build().run();
+
+        // two edges of CAPACITY batches + one batch in B + one batch in C
+        assert maxInFlight.get() <= 2 * CAPACITY + 2 : "Source ran ahead by " + maxInFlight.get() + " batches";
+        assert consumed.get() == 200;
+    }
+
+    /**
+     * Failure of a node stops the whole flow
+     */
+    @Test
+    void failureStopsFlow() throws InterruptedException {
+        StreamingDataFlow.Builder builder = StreamingDataFlow.builder().setBufferCapacity(2);
+        StreamingDataFlow.StreamNode<Integer> a = builder.addSource("A", () -> List.of(1));   // never ends
+        builder.addSink("B", (List<Integer> batch) -> {
+            throw new IllegalArgumentException("broken");
+        }, a);
+
+        try {
+            builder.build().run();
+            assert false : "IllegalStateException was expected";
+        } catch (IllegalStateException e) {
+            assert e.getMessage().contains("'B'");
+            assert e.getCause() instanceof IllegalArgumentException;
+        }
+    }
+
+    // HELPER METHODS
+
+    private static List<Integer> map(List<Integer> batch, int multiplier) {
+        List<Integer> result = new ArrayList<>(batch.size());
+        for (int element : batch) {
+            result.add(element * multiplier);
+        }
+        return result;
+    }
+}
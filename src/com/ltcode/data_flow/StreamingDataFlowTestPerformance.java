@@ -0,0 +1,162 @@
+package com.ltcode.data_flow;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the throughput and latency of the diamond graph A -> C/D -> G run as
+ * a stream of batches (StreamingDataFlow) and stage by stage (DataFlowGraph)
+ * No tests for correctness are included in this class - you can find them
+ * in the class: StreamingDataFlowTest
+ */
+class StreamingDataFlowTestPerformance {
+
+    private static int BATCHES;
+    private static int BATCH_SIZE;
+    private static int WORK_PER_ELEMENT;
+
+    @BeforeAll
+    static void setUp() {
+        BATCHES = 2_000;
+        BATCH_SIZE = 100;
+        WORK_PER_ELEMENT = 200;
+    }
+
+    @Test
+    void diamondStreamingVsStageByStage() throws InterruptedException {
+        // warm up
+        runStreaming(16);
+        runStageByStage();
+
+        for (int capacity : new int[] {1, 4, 16, 64}) {
+            print("streaming, capacity " + capacity, runStreaming(capacity));
+        }
+        print("stage by stage", runStageByStage());
+    }
+
+    /**
+     * @return {runtime, latencies of batches...} in nanoseconds
+     */
+    private long[] runStreaming(int capacity) throws InterruptedException {
+        AtomicInteger produced = new AtomicInteger();
+        long[] latencies = new long[2 * BATCHES];
+        int[] consumed = new int[1];
+
+        StreamingDataFlow.Builder builder = StreamingDataFlow.builder().setBufferCapacity(capacity);
+        StreamingDataFlow.StreamNode<Record> a = builder.addSource("A",
+                () -> produced.getAndIncrement() < BATCHES ? createBatch() : null);
+        StreamingDataFlow.StreamNode<Record> c = builder.addStage("C", StreamingDataFlowTestPerformance::work, a);
+        StreamingDataFlow.StreamNode<Record> d = builder.addStage("D", StreamingDataFlowTestPerformance::work, a);
+        builder.addSink("G", (List<Record> batch) -> latencies[consumed[0]++] = System.nanoTime() - batch.get(0).createdNanos, c, d);
+
+        long runtime = builder.build().run();
+        return withRuntime(runtime, latencies);
+    }
+
+    /**
+     * @return {runtime, latencies of batches...} in nanoseconds
+     */
+    private long[] runStageByStage() throws InterruptedException {
+        long[] latencies = new long[2 * BATCHES];
+
+        DataFlowGraph.Builder builder = DataFlowGraph.builder();
+        DataFlowNode<List<List<Record>>> a = builder.addNode("A", () -> {
+            List<List<Record>> batches = new ArrayList<>(BATCHES);
+            for (int i = 0; i < BATCHES; i++) {
+                batches.add(createBatch());
+            }
+            return batches;
+        });
+        DataFlowNode<List<List<Record>>> c = builder.addNode("C", results -> workAll(results.get(a)), a);
+        DataFlowNode<List<List<Record>>> d = builder.addNode("D", results -> workAll(results.get(a)), a);
+        builder.addNode("G", results -> {
+            int i = 0;
+            for (List<Record> batch : results.get(c)) {
+                latencies[i++] = System.nanoTime() - batch.get(0).createdNanos;
+            }
+            for (List<Record> batch : results.get(d)) {
+                latencies[i++] = System.nanoTime() - batch.get(0).createdNanos;
+            }
+            return null;
+        }, c, d);
+        DataFlowGraph graph = builder.build();
+
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            long runtime = graph.runNonBlocking(es).getRuntimeNanos();
+            return withRuntime(runtime, latencies);
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    /* helper methods */
+
+    private static List<Record> createBatch() {
+        long now = System.nanoTime();
+        List<Record> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new Record(now, i));
+        }
+        return batch;
+    }
+
+    private static List<Record> work(List<Record> batch) {
+        List<Record> result = new ArrayList<>(batch.size());
+        for (Record record : batch) {
+            int value = record.value;
+            for (int i = 0; i < WORK_PER_ELEMENT; i++) {
+                value = value * 31 + i;
+            }
+            result.add(new Record(record.createdNanos, value));
+        }
+        return result;
+    }
+
+    private static List<List<Record>> workAll(List<List<Record>> batches) {
+        List<List<Record>> result = new ArrayList<>(batches.size());
+        for (List<Record> batch : batches) {
+            result.add(work(batch));
+        }
+        return result;
+    }
+
+    private static long[] withRuntime(long runtime, long[] latencies) {
+        long[] result = new long[latencies.length + 1];
+        result[0] = runtime;
+        System.arraycopy(latencies, 0, result, 1, latencies.length);
+        return result;
+    }
+
+    private static void print(String name, long[] result) {
+        long runtime = result[0];
+        long[] latencies = Arrays.copyOfRange(result, 1, result.length);
+        Arrays.sort(latencies);
+        double elements = (double) BATCHES * BATCH_SIZE;
+
+        System.out.printf("%-24s: %8.0f elements/ms, latency p50: %6d us, p99: %6d us, max: %6d us%n",
+                name,
+                elements / TimeUnit.NANOSECONDS.toMillis(Math.max(runtime, 1_000_000)),
+                TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[(int) (latencies.length * 0.99)]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]));
+    }
+
+    private static class Record {
+        private final long createdNanos;
+        private final int value;
+
+        private Record(long createdNanos, int value) {
+            this.createdNanos = createdNanos;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ltcode.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary wire format between DistributedMatrixMultiplier and MatrixWorker.
+ * All numbers are big-endian ints, a block is written row by row without any separators:
+ *
+ *     coordinator -> worker
+ *         ACCUMULATE  id rows inner cols  A[rows x inner]  B[inner x cols]    C(id) += A x B in place
+ *         RESULT      id                                                      send C(id) and forget it
+ *         SHUTDOWN                                                            exit the worker
+ *
+ *     worker -> coordinator
+ *         RESULT      id rows cols  C[rows x cols]
+ *         ERROR       length  UTF-8 message
+ */
+final class BlockProtocol {
+
+    static final int ACCUMULATE = 1;
+    static final int RESULT = 2;
+    static final int SHUTDOWN = 3;
+    static final int ERROR = 4;
+
+    /**
+     * Line printed to the standard output by a worker started with port 0, followed by the port
+     */
+    static final String PORT_LINE = "MatrixWorker listening on port ";
+
+    private BlockProtocol() {
+    }
+
+    /**
+     * Writes the block [r0, r0 + rows) x [c0, c0 + cols) of the matrix
+     */
+    static void writeBlock(DataOutputStream out, int[][] M, int r0, int rows, int c0, int cols, byte[] buffer)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer);
+        for (int r = r0; r < r0 + rows; r++) {
+            bytes.clear();
+            bytes.asIntBuffer().put(M[r], c0, cols);
+            out.write(buffer, 0, cols * Integer.BYTES);
+        }
+    }
+
+    /**
+     * @return New matrix with the block
+     */
+    static int[][] readBlock(DataInputStream in, int rows, int cols, byte[] buffer) throws IOException {
+        int[][] block = new int[rows][cols];
+        readBlock(in, block, 0, rows, 0, cols, buffer);
+        return block;
+    }
+
+    /**
+     * Reads a block into [r0, r0 + rows) x [c0, c0 + cols) of the matrix
+     */
+    static void readBlock(DataInputStream in, int[][] M, int r0, int rows, int c0, int cols, byte[] buffer)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer);
+        for (int r = r0; r < r0 + rows; r++) {
+            in.readFully(buffer, 0, cols * Integer.BYTES);
+            bytes.clear();
+            bytes.asIntBuffer().get(M[r], c0, cols);
+        }
+    }
+
+    /**
+     * @return Buffer for the rows of blocks with at most the given number of columns
+     */
+    static byte[] newBuffer(int maxColumns) {
+        return new byte[Math.max(1, maxColumns) * Integer.BYTES];
+    }
+}
@@ -0,0 +1,435 @@
+package com.ltcode.distributed;
+
+import com.ltcode.metrics.KernelMetrics;
+import com.ltcode.threads.MatrixManipulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Multiplies matrices too large for one JVM on worker JVMs (MatrixWorker) connected over TCP.
+ *
+ * SUMMA on a gridRows x gridColumns grid of the workers: C is split into one 2D block per worker,
+ * worker (p, q) owns the rows of the block row p and the columns of the block column q. For every panel
+ * k of blockSize columns of A (rows of B) it receives A(p, k) and B(k, q) once and accumulates
+ * C(p, q) += A(p, k) x B(k, q) in place, so a worker holds only its block of C and a few panels at a time.
+ * A panel of A goes to the gridColumns workers of its block row and a panel of B to the gridRows workers
+ * of its block column - the traffic is N * M * gridColumns + M * L * gridRows elements, the grid is
+ * chosen to minimize it. At the end the coordinator asks for the blocks and assembles C.
+ *
+ * Communication overlaps with the compute: every worker has one coordinator thread sending
+ * the panels and one receiving the finished blocks, and the worker multiplies a panel while
+ * it receives the next one.
+ *
+ * Usage:
+ *     try (DistributedMatrixMultiplier multiplier = DistributedMatrixMultiplier.launch(4, "-Xmx2g")) {
+ *         int[][] C = multiplier.multiply(A, B);
+ *     }
+ */
+public class DistributedMatrixMultiplier implements AutoCloseable {
+
+    private static final KernelMetrics.Operation MULTIPLY = KernelMetrics.operation("DistributedMatrixMultiplier.multiply");
+
+    private static final int DEFAULT_BLOCK_SIZE = 512;
+    private static final int STREAM_BUFFER = 1 << 16;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final long START_TIMEOUT_SECONDS = 30;
+
+    private final List<Connection> connections;
+    private final List<Process> processes;
+    private final ExecutorService executor;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private boolean closed;
+
+    private DistributedMatrixMultiplier(List<Connection> connections, List<Process> processes) {
+        this.connections = connections;
+        this.processes = processes;
+        this.executor = Executors.newFixedThreadPool(2 * connections.size(), runnable -> {
+            Thread thread = new Thread(runnable, "DistributedMatrixMultiplier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the workers as new JVMs on this machine. Their classpath is the location of the classes
+     * of this library followed by the classpath of this JVM - a launcher (e.g. of JUnit) may load
+     * the library from its own classpath, not from java.class.path.
+     *
+     * @param nWorkers   - number of worker JVMs
+     * @param jvmOptions - options of the worker JVMs, e.g. "-Xmx2g"
+     * @throws IOException if a worker can not be started, does not listen within 30 s or can not be connected
+     */
+    public static DistributedMatrixMultiplier launch(int nWorkers, String... jvmOptions) throws IOException {
+        if (nWorkers < 1)
+            throw new IllegalArgumentException("Number of workers must be positive");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = workerClassPath();
+        List<Process> processes = new ArrayList<>();
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < nWorkers; i++) {
+                List<String> command = new ArrayList<>();
+                command.add(java);
+                command.addAll(Arrays.asList(jvmOptions));
+                command.addAll(List.of("-cp", classPath, MatrixWorker.class.getName(), "0"));
+                processes.add(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+            }
+            // the workers start at the same time, so one deadline covers all of them
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(START_TIMEOUT_SECONDS);
+            for (Process process : processes) {
+                int port = readPort(process, deadline);
+                connections.add(new Connection(new InetSocketAddress(InetAddress.getLoopbackAddress(), port)));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Connection connection : connections)
+                connection.closeQuietly();
+            for (Process process : processes)
+                process.destroyForcibly();
+            throw e;
+        }
+        return new DistributedMatrixMultiplier(connections, processes);
+    }
+
+    /**
+     * Connects to running workers, e.g. on other machines - they are left running on close()
+     *
+     * @throws IOException if a worker can not be connected
+     */
+    public static DistributedMatrixMultiplier connect(List<InetSocketAddress> workers) throws IOException {
+        if (workers == null)
+            throw new NullPointerException("Workers can not be null");
+        if (workers.isEmpty())
+            throw new IllegalArgumentException("At least one worker is required");
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (InetSocketAddress address : workers)
+                connections.add(new Connection(address));
+        } catch (IOException e) {
+            for (Connection connection : connections)
+                connection.closeQuietly();
+            throw e;
+        }
+        return new DistributedMatrixMultiplier(connections, Collections.emptyList());
+    }
+
+    public int getWorkers() {
+        return connections.size();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @param blockSize - width of the panels of A (height of the panels of B) sent to the workers
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Block size must be positive");
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Multiplies two matrices on the workers (A x B = C)
+     * If the multiply fails, the multiplier is closed - the state of the workers is unknown
+     *
+     * @param A An input matrix with dimensions NxM
+     * @param B An input matrix with dimensions MxL
+     * @return The output two-dimensional matrix with size NxL
+     * @throws IOException if the communication with a worker fails or a worker fails
+     */
+    public synchronized int[][] multiply(int[][] A, int[][] B) throws IOException {
+        if (closed)
+            throw new IllegalStateException("Multiplier is closed");
+        if (!MatrixManipulator.isMultiplyPossible(A, B))
+            throw new IllegalArgumentException("Matrices can not be multiplied");
+
+        long start = MULTIPLY.start();
+        int N = A.length;
+        int M = B.length;
+        int L = M == 0 ? 0 : B[0].length;
+        int[][] C = new int[N][L];
+        if (M == 0 || L == 0) {
+            MULTIPLY.stop(start, (long) N * L);
+            return C;
+        }
+
+        Grid grid = new Grid(N, M, L, blockSize, connections.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < connections.size(); w++) {
+            Connection connection = connections.get(w);
+            int worker = w;
+            futures.add(executor.submit(() -> {
+                send(connection, grid, worker, A, B);
+                return null;
+            }));
+            futures.add(executor.submit(() -> {
+                receive(connection, grid, worker, C);
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException | InterruptedException e) {
+            close();
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException("Distributed multiply failed", cause);
+        }
+        MULTIPLY.stop(start, (long) N * L);
+        return C;
+    }
+
+    /**
+     * Sends the panels of the block owned by the worker, then asks for the block
+     */
+    private void send(Connection connection, Grid grid, int worker, int[][] A, int[][] B) throws IOException {
+        if (worker >= grid.blocks)
+            return;
+        DataOutputStream out = connection.out;
+        int r0 = grid.rowStart(worker);
+        int c0 = grid.columnStart(worker);
+        int rows = grid.rows(worker);
+        int cols = grid.columns(worker);
+        byte[] buffer = BlockProtocol.newBuffer(Math.max(grid.size, cols));
+        for (int k0 = 0; k0 < grid.M; k0 += grid.size) {
+            int inner = Math.min(grid.size, grid.M - k0);
+            out.writeInt(BlockProtocol.ACCUMULATE);
+            out.writeInt(worker);
+            out.writeInt(rows);
+            out.writeInt(inner);
+            out.writeInt(cols);
+            BlockProtocol.writeBlock(out, A, r0, rows, k0, inner, buffer);
+            BlockProtocol.writeBlock(out, B, k0, inner, c0, cols, buffer);
+        }
+        out.writeInt(BlockProtocol.RESULT);
+        out.writeInt(worker);
+        out.flush();
+    }
+
+    /**
+     * Receives the block owned by the worker and copies it to C
+     */
+    private void receive(Connection connection, Grid grid, int worker, int[][] C) throws IOException {
+        if (worker >= grid.blocks)
+            return;
+        DataInputStream in = connection.in;
+        int type = in.readInt();
+        if (type == BlockProtocol.ERROR) {
+            byte[] message = new byte[in.readInt()];
+            in.readFully(message);
+            throw new IOException("Worker failed: " + new String(message, StandardCharsets.UTF_8));
+        }
+        if (type != BlockProtocol.RESULT)
+            throw new IOException("Unexpected message type: " + type);
+        int received = in.readInt();
+        int rows = in.readInt();
+        int cols = in.readInt();
+        if (received != worker || rows != grid.rows(worker) || cols != grid.columns(worker))
+            throw new IOException("Unexpected block: " + received);
+        BlockProtocol.readBlock(in, C, grid.rowStart(worker), rows, grid.columnStart(worker), cols,
+                BlockProtocol.newBuffer(cols));
+    }
+
+    /**
+     * Sends SHUTDOWN to launched workers, closes the connections and waits for the launched JVMs
+     */
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        boolean launched = !processes.isEmpty();
+        for (Connection connection : connections) {
+            if (launched) {
+                try {
+                    connection.out.writeInt(BlockProtocol.SHUTDOWN);
+                    connection.out.flush();
+                } catch (IOException ignored) {
+                }
+            }
+            connection.closeQuietly();
+        }
+        executor.shutdownNow();
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return Location of MatrixWorker (a directory or a jar) followed by the classpath of this JVM
+     */
+    private static String workerClassPath() {
+        String classPath = System.getProperty("java.class.path");
+        CodeSource source = MatrixWorker.class.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null)
+            return classPath;
+        try {
+            String location = Paths.get(source.getLocation().toURI()).toString();
+            return classPath.isEmpty() ? location : location + File.pathSeparator + classPath;
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            // not a file, e.g. a class of a custom class loader
+            return classPath;
+        }
+    }
+
+    /**
+     * Waits for the port printed by a launched worker. The reading blocks, so it runs in its own
+     * thread - a worker hanging before it listens is killed at the deadline.
+     *
+     * @param deadline - System.nanoTime() of the deadline
+     */
+    private static int readPort(Process process, long deadline) throws IOException {
+        FutureTask<Integer> task = new FutureTask<>(() -> {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(BlockProtocol.PORT_LINE))
+                    return Integer.parseInt(line.substring(BlockProtocol.PORT_LINE.length()).trim());
+            }
+            throw new IOException("Worker exited before listening");
+        });
+        Thread reader = new Thread(task, "DistributedMatrixMultiplier-port");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // closes the output of the worker, the reader thread ends
+            process.destroyForcibly();
+            throw new IOException("Worker did not listen within " + START_TIMEOUT_SECONDS + " s");
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a worker");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException("Invalid port of a worker", cause);
+        }
+    }
+
+    /**
+     * Socket to one worker
+     */
+    private static class Connection {
+
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.connect(address);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Grid of the workers - worker id = p * gridColumns + q owns the block (p, q) of C,
+     * the workers from gridRows * gridColumns on are idle
+     */
+    private static class Grid {
+
+        final int N;
+        final int M;
+        final int L;
+        final int size;
+        final int gridRows;
+        final int gridColumns;
+        final int blocks;
+
+        Grid(int N, int M, int L, int size, int workers) {
+            this.N = N;
+            this.M = M;
+            this.L = L;
+            this.size = size;
+            // the most workers, then the least traffic N * M * gridColumns + M * L * gridRows
+            int bestRows = 1;
+            int bestColumns = 1;
+            for (int rows = 1; rows <= Math.min(workers, N); rows++) {
+                int columns = Math.min(workers / rows, L);
+                long blocks = (long) rows * columns;
+                long best = (long) bestRows * bestColumns;
+                if (blocks > best || blocks == best && (long) N * columns + (long) L * rows
+                        < (long) N * bestColumns + (long) L * bestRows) {
+                    bestRows = rows;
+                    bestColumns = columns;
+                }
+            }
+            this.gridRows = bestRows;
+            this.gridColumns = bestColumns;
+            this.blocks = bestRows * bestColumns;
+        }
+
+        int rowStart(int id) {
+            return (int) ((long) (id / gridColumns) * N / gridRows);
+        }
+
+        int columnStart(int id) {
+            return (int) ((long) (id % gridColumns) * L / gridColumns);
+        }
+
+        int rows(int id) {
+            return (int) ((long) (id / gridColumns + 1) * N / gridRows) - rowStart(id);
+        }
+
+        int columns(int id) {
+            return (int) ((long) (id % gridColumns + 1) * L / gridColumns) - columnStart(id);
+        }
+    }
+}
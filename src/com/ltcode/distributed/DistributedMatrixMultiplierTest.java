@@ -0,0 +1,149 @@
+package com.ltcode.distributed;
+
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.threads.MatrixManipulator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests of the classes DistributedMatrixMultiplier and MatrixWorker
+ */
+class DistributedMatrixMultiplierTest {
+
+    private static int REPEATS;
+    private static int MAX_MATRIX_SIDE;
+    private static Random random;
+
+    @BeforeAll
+    static void setUp() {
+        REPEATS = 10;
+        random = new Random();
+        MAX_MATRIX_SIDE = 200;
+    }
+
+    /**
+     * Tests the multiply on worker JVMs started on this machine
+     */
+    @Test
+    void multiplyOnLaunchedWorkers() throws Exception {
+        try (DistributedMatrixMultiplier multiplier = DistributedMatrixMultiplier.launch(4, "-Xmx256m")) {
+            assert multiplier.getWorkers() == 4;
+            for (int i = 0; i < REPEATS; i++) {
+                int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+                int M = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+                int L = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+                // narrow panels up to one panel for the whole inner dimension
+                multiplier.setBlockSize(7 + random.nextInt(MAX_MATRIX_SIDE));
+
+                int[][] A = createRandomMatrix(N, M);
+                int[][] B = createRandomMatrix(M, L);
+                assert Arrays.deepEquals(MatrixManipulator.multiplySeq(A, B), multiplier.multiply(A, B))
+                        : "Matrices are not equal, block size: " + multiplier.getBlockSize();
+            }
+
+            // fewer rows or columns than the workers - the grid is a row or a column, some workers are idle
+            int[][] shapes = {{1, 5, 1}, {1, 30, 40}, {40, 30, 1}, {2, 9, 3}};
+            for (int[] shape : shapes) {
+                int[][] A = createRandomMatrix(shape[0], shape[1]);
+                int[][] B = createRandomMatrix(shape[1], shape[2]);
+                assert Arrays.deepEquals(MatrixManipulator.multiplySeq(A, B), multiplier.multiply(A, B))
+                        : "Matrices are not equal: " + Arrays.toString(shape);
+            }
+        }
+    }
+
+    /**
+     * Tests the multiply on a running worker, which serves the next coordinator after the first one disconnects
+     */
+    @Test
+    void multiplyOnConnectedWorker() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             ExecutionContext context = ExecutionContext.builder().setParallelism(2).build()) {
+            MatrixWorker worker = new MatrixWorker(context);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2; i++) {
+                        try (Socket socket = server.accept()) {
+                            worker.serve(socket);
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            thread.start();
+
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            for (int i = 0; i < 2; i++) {
+                try (DistributedMatrixMultiplier multiplier = DistributedMatrixMultiplier.connect(List.of(address))) {
+                    multiplier.setBlockSize(16);
+                    int[][] A = createRandomMatrix(50, 33);
+                    int[][] B = createRandomMatrix(33, 41);
+                    assert Arrays.deepEquals(MatrixManipulator.multiplySeq(A, B), multiplier.multiply(A, B))
+                            : "Matrices are not equal";
+                }
+            }
+            thread.join(10_000);
+            assert !thread.isAlive() : "Worker did not end";
+        }
+    }
+
+    /**
+     * Tests the arguments and a closed multiplier
+     */
+    @Test
+    void arguments() throws Exception {
+        DistributedMatrixMultiplier multiplier = DistributedMatrixMultiplier.launch(1);
+        try {
+            multiplier.multiply(new int[2][3], new int[2][3]);
+            assert false : "Invalid multiply accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            multiplier.setBlockSize(0);
+            assert false : "Zero block size accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        assert multiplier.multiply(new int[3][0], new int[0][0]).length == 3;
+
+        multiplier.close();
+        try {
+            multiplier.multiply(new int[1][1], new int[1][1]);
+            assert false : "Closed multiplier accepted a multiply";
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            DistributedMatrixMultiplier.launch(0);
+            assert false : "Zero workers accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    // HELPER METHODS
+
+    /**
+     * Creates new random int[N][M] matrix to use as input for the tests
+     *
+     * @param N - number rows
+     * @param M - number columns
+     * @return Initialized int[N][M] array
+     */
+    private static int[][] createRandomMatrix(int N, int M) {
+        int[][] matrix = new int[N][M];
+
+        for (int n = 0; n < N; n++) {
+            for (int m = 0; m < M; m++) {
+                matrix[n][m] = random.nextInt(19) - 9;
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,256 @@
+package com.ltcode.distributed;
+
+import com.ltcode.execution.ExecutionContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Worker JVM of DistributedMatrixMultiplier - owns blocks of C and accumulates C(id) += A x B
+ * for the blocks of A and B sent by the coordinator (see BlockProtocol).
+ *
+ * The socket is read by one thread and the blocks are multiplied by another one, so the next blocks
+ * are received while the current ones are multiplied. The product is added to C row by row in place
+ * (i-k-j order, rows split into fork/join tasks of the context), so a panel allocates nothing but its
+ * received A and B. The queue between the threads holds at most QUEUED_TASKS messages - with the blocks
+ * of C it bounds the memory of a worker.
+ *
+ * Usage:
+ *     java -cp <classpath> com.ltcode.distributed.MatrixWorker [port [parallelism]]
+ *
+ * With port 0 (default) the worker listens on any free port and prints it to the standard output.
+ * It serves one coordinator at a time until it receives SHUTDOWN.
+ */
+public class MatrixWorker {
+
+    private static final int QUEUED_TASKS = 2;
+    private static final int STREAM_BUFFER = 1 << 16;
+
+    private final ExecutionContext context;
+
+    public MatrixWorker(ExecutionContext context) {
+        if (context == null)
+            throw new NullPointerException("Context can not be null");
+        this.context = context;
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        try (ServerSocket server = new ServerSocket(port);
+             ExecutionContext context = ExecutionContext.builder().setParallelism(parallelism).build()) {
+            System.out.println(BlockProtocol.PORT_LINE + server.getLocalPort());
+            System.out.flush();
+
+            MatrixWorker worker = new MatrixWorker(context);
+            boolean shutdown = false;
+            while (!shutdown) {
+                try (Socket socket = server.accept()) {
+                    shutdown = worker.serve(socket);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Serves one coordinator until it disconnects or sends SHUTDOWN
+     *
+     * @return true if the coordinator sent SHUTDOWN
+     * @throws IOException if the connection fails
+     */
+    public boolean serve(Socket socket) throws IOException, InterruptedException {
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER));
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(QUEUED_TASKS);
+
+        Thread compute = new Thread(() -> compute(queue, out, socket), "MatrixWorker-compute");
+        compute.setDaemon(true);
+        compute.start();
+
+        int type = BlockProtocol.SHUTDOWN;
+        byte[] buffer = BlockProtocol.newBuffer(0);
+        try {
+            while (true) {
+                try {
+                    type = in.readInt();
+                } catch (EOFException e) {
+                    type = -1;
+                    break;
+                }
+                if (type == BlockProtocol.SHUTDOWN)
+                    break;
+                int id = in.readInt();
+                if (type == BlockProtocol.RESULT) {
+                    queue.put(new Task(id, null, null));
+                } else if (type == BlockProtocol.ACCUMULATE) {
+                    int rows = in.readInt();
+                    int inner = in.readInt();
+                    int cols = in.readInt();
+                    if (buffer.length < Math.max(inner, cols) * Integer.BYTES)
+                        buffer = BlockProtocol.newBuffer(Math.max(inner, cols));
+                    int[][] A = BlockProtocol.readBlock(in, rows, inner, buffer);
+                    int[][] B = BlockProtocol.readBlock(in, inner, cols, buffer);
+                    queue.put(new Task(id, A, B));
+                } else {
+                    throw new IOException("Unknown message type: " + type);
+                }
+            }
+        } finally {
+            queue.put(Task.END);
+            compute.join();
+        }
+        return type == BlockProtocol.SHUTDOWN;
+    }
+
+    /**
+     * Body of the compute thread - multiplies the received blocks and sends the results
+     */
+    private void compute(BlockingQueue<Task> queue, DataOutputStream out, Socket socket) {
+        Map<Integer, int[][]> blocks = new HashMap<>();
+        try {
+            for (Task task = queue.take(); task != Task.END; task = queue.take()) {
+                int[][] C = blocks.get(task.id);
+                if (task.A != null) {
+                    if (C == null) {
+                        C = new int[task.A.length][task.B.length == 0 ? 0 : task.B[0].length];
+                        blocks.put(task.id, C);
+                    } else if (C.length != task.A.length || C.length > 0 && C[0].length != task.B[0].length) {
+                        throw new IllegalStateException("Dimensions of block " + task.id + " changed");
+                    }
+                    accumulate(task.A, task.B, C);
+                } else {
+                    if (C == null)
+                        throw new IllegalStateException("Unknown block: " + task.id);
+                    blocks.remove(task.id);
+                    writeResult(out, task.id, C);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            try {
+                byte[] message = String.valueOf(e).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(BlockProtocol.ERROR);
+                out.writeInt(message.length);
+                out.write(message);
+                out.flush();
+                // the reader fails on the closed socket and the connection ends
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            // the reader may wait for space in the queue until it sees the closed socket
+            try {
+                while (queue.take() != Task.END) {
+                }
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    /**
+     * C += A x B in place, the rows of C are split into tasks of the context
+     */
+    private void accumulate(int[][] A, int[][] B, int[][] C) {
+        int cols = Math.max(1, B.length == 0 ? 0 : B[0].length);
+        int cutoffRows = (int) Math.max(1, Math.min(C.length, context.getCutoff((long) C.length * cols) / cols));
+        RowsAccumulator task = new RowsAccumulator(A, B, C, 0, C.length, cutoffRows);
+        context.invoke(task, C.length, cutoffRows);
+    }
+
+    /**
+     * Adds the rows [startRow, endRow) of A x B to C - row r of C gets the rows of B weighted by row r of A
+     */
+    private static void accumulateRows(int[][] A, int[][] B, int[][] C, int startRow, int endRow) {
+        final int M = B.length;
+        final int L = M == 0 ? 0 : B[0].length;
+        for (int r = startRow; r < endRow; r++) {
+            final int[] rowC = C[r];
+            final int[] rowA = A[r];
+            for (int k = 0; k < M; k++) {
+                final int a = rowA[k];
+                final int[] rowB = B[k];
+                for (int c = 0; c < L; c++) {
+                    rowC[c] += a * rowB[c];
+                }
+            }
+        }
+    }
+
+    private static void writeResult(DataOutputStream out, int id, int[][] C) throws IOException {
+        int cols = C.length == 0 ? 0 : C[0].length;
+        out.writeInt(BlockProtocol.RESULT);
+        out.writeInt(id);
+        out.writeInt(C.length);
+        out.writeInt(cols);
+        BlockProtocol.writeBlock(out, C, 0, C.length, 0, cols, BlockProtocol.newBuffer(cols));
+        out.flush();
+    }
+
+    /**
+     * Accumulates a range of the rows of C - halves the range until it is not larger than the cutoff
+     */
+    private static class RowsAccumulator extends RecursiveAction {
+
+        private final int[][] A;
+        private final int[][] B;
+        private final int[][] C;
+        private final int lo;
+        private final int hi;
+        private final int cutoff;
+
+        private RowsAccumulator(int[][] A, int[][] B, int[][] C, int lo, int hi, int cutoff) {
+            this.A = A;
+            this.B = B;
+            this.C = C;
+            this.lo = lo;
+            this.hi = hi;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                accumulateRows(A, B, C, lo, hi);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RowsAccumulator(A, B, C, lo, mid, cutoff),
+                        new RowsAccumulator(A, B, C, mid, hi, cutoff));
+            }
+        }
+    }
+
+    /**
+     * Received message - accumulate if A and B are set, otherwise send the result
+     */
+    private static class Task {
+
+        static final Task END = new Task(-1, null, null);
+
+        final int id;
+        final int[][] A;
+        final int[][] B;
+
+        Task(int id, int[][] A, int[][] B) {
+            this.id = id;
+            this.A = A;
+            this.B = B;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ltcode.execution;
+
+/**
+ * Decides how much work one task of a parallel kernel does sequentially.
+ * Too small tasks spend the time on splitting and joining, too large tasks
+ * leave workers idle when the others finish early.
+ */
+@FunctionalInterface
+public interface CutoffPolicy {
+
+    /**
+     * @param size        - number of elements of the whole call
+     * @param parallelism - target parallelism of the context
+     * @return Max number of elements done sequentially by one task, at least 1
+     */
+    long getCutoff(long size, int parallelism);
+
+    /**
+     * Every worker gets about the given number of tasks, so a slow worker can be helped by the others
+     *
+     * @param tasksPerWorker - number of tasks per worker
+     * @param minCutoff      - smallest task, calls with less elements run sequentially
+     */
+    static CutoffPolicy tasksPerWorker(int tasksPerWorker, long minCutoff) {
+        if (tasksPerWorker < 1 || minCutoff < 1)
+            throw new IllegalArgumentException("Number of tasks and min cutoff must be positive");
+        return (size, parallelism) -> {
+            long tasks = (long) tasksPerWorker * parallelism;
+            return Math.max(minCutoff, (size + tasks - 1) / tasks);
+        };
+    }
+
+    /**
+     * Tasks of the same size, independent of the parallelism
+     */
+    static CutoffPolicy fixed(long cutoff) {
+        if (cutoff < 1)
+            throw new IllegalArgumentException("Cutoff must be positive");
+        return (size, parallelism) -> cutoff;
+    }
+
+    /**
+     * The whole call is one task - the kernels run sequentially in the calling thread
+     */
+    static CutoffPolicy sequential() {
+        return (size, parallelism) -> Math.max(1, size);
+    }
+}
@@ -0,0 +1,177 @@
+package com.ltcode.execution;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Shared budget of the parallel kernels - ArrayManipulator, MatrixManipulator and DataFlowDiagram
+ * accept it instead of choosing their own threads:
+ *
+ *     pool        - ForkJoinPool running the tasks, it is also the Executor of the data flow graphs
+ *     parallelism - target number of busy workers, kernels never split for more of them
+ *     cutoff      - CutoffPolicy giving the max work of one task
+ *     metrics     - if true, the calls are recorded to KernelMetrics even if the metrics are disabled
+ *
+ * A context created with a parallelism and no pool owns its pool and shuts it down on close(),
+ * a context of a given pool (e.g. the common pool) leaves the pool running.
+ *
+ * Usage:
+ *     try (ExecutionContext context = ExecutionContext.builder().setParallelism(4).build()) {
+ *         ArrayManipulator.incrementPar(array, 0, array.length, 1, context);
+ *         MatrixManipulator.multiplyPar(A, B, context);
+ *     }
+ */
+public final class ExecutionContext implements AutoCloseable {
+
+    private static final ExecutionContext COMMON = builder().setPool(ForkJoinPool.commonPool()).build();
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int parallelism;
+    private final CutoffPolicy cutoffPolicy;
+    private final boolean metricsEnabled;
+
+    private ExecutionContext(Builder builder, ForkJoinPool pool, boolean ownsPool, int parallelism) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.parallelism = parallelism;
+        this.cutoffPolicy = builder.cutoffPolicy;
+        this.metricsEnabled = builder.metricsEnabled;
+    }
+
+    /**
+     * @return Context of the common pool with its parallelism and the default cutoff policy
+     */
+    public static ExecutionContext common() {
+        return COMMON;
+    }
+
+    /**
+     * @return New builder of a context
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return The pool as an Executor, e.g. for DataFlowGraph.runNonBlocking
+     */
+    public Executor getExecutor() {
+        return pool;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public CutoffPolicy getCutoffPolicy() {
+        return cutoffPolicy;
+    }
+
+    /**
+     * @param size - number of elements of the call
+     * @return Max number of elements done sequentially by one task
+     */
+    public long getCutoff(long size) {
+        return Math.max(1, cutoffPolicy.getCutoff(size, parallelism));
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Runs the root task of a kernel - in the calling thread if the whole call fits in one task,
+     * a single task is not worth the hand-off to the pool
+     *
+     * @param task   - root task splitting itself into tasks of at most cutoff units
+     * @param size   - units of work of the whole call
+     * @param cutoff - max units of work of one task
+     * @return Result of the task
+     */
+    public <T> T invoke(ForkJoinTask<T> task, long size, long cutoff) {
+        if (size <= cutoff)
+            return task.invoke();
+        return pool.invoke(task);
+    }
+
+    /**
+     * Shuts down the pool if the context created it
+     */
+    @Override
+    public void close() {
+        if (ownsPool)
+            pool.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionContext{parallelism=" + parallelism + ", pool=" + (ownsPool ? "own" : pool.toString())
+                + ", metrics=" + metricsEnabled + "}";
+    }
+
+    /**
+     * Builder of the ExecutionContext
+     */
+    public static class Builder {
+
+        private ForkJoinPool pool;
+        private int parallelism;
+        private CutoffPolicy cutoffPolicy = CutoffPolicy.tasksPerWorker(4, 1024);
+        private boolean metricsEnabled;
+
+        private Builder() {
+        }
+
+        /**
+         * @param pool - pool running the tasks, it is not shut down by the context
+         */
+        public Builder setPool(ForkJoinPool pool) {
+            if (pool == null)
+                throw new NullPointerException("Pool can not be null");
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * @param parallelism - target number of busy workers, by default the parallelism of the pool
+         *                    or the number of available processors if the context creates its own pool
+         */
+        public Builder setParallelism(int parallelism) {
+            if (parallelism < 1)
+                throw new IllegalArgumentException("Parallelism must be positive");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param cutoffPolicy - max work of one task, by default 4 tasks per worker of at least 1024 elements
+         */
+        public Builder setCutoffPolicy(CutoffPolicy cutoffPolicy) {
+            if (cutoffPolicy == null)
+                throw new NullPointerException("Cutoff policy can not be null");
+            this.cutoffPolicy = cutoffPolicy;
+            return this;
+        }
+
+        /**
+         * @param metricsEnabled - true to record the calls to KernelMetrics even if the metrics are disabled
+         */
+        public Builder setMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+            return this;
+        }
+
+        public ExecutionContext build() {
+            if (pool != null)
+                return new ExecutionContext(this, pool, false, parallelism > 0 ? parallelism : pool.getParallelism());
+            int p = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            return new ExecutionContext(this, new ForkJoinPool(p), true, p);
+        }
+    }
+}
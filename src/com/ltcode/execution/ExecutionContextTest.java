@@ -0,0 +1,129 @@
+package com.ltcode.execution;
+
+import com.ltcode.forkjoin.ArrayManipulator;
+import com.ltcode.metrics.KernelMetrics;
+import com.ltcode.threads.MatrixManipulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Tests of the classes ExecutionContext and CutoffPolicy
+ */
+class ExecutionContextTest {
+
+    @Test
+    void commonContext() {
+        ExecutionContext common = ExecutionContext.common();
+        assert common.getPool() == ForkJoinPool.commonPool();
+        assert common.getParallelism() == ForkJoinPool.commonPool().getParallelism();
+        common.close();
+        assert !ForkJoinPool.commonPool().isShutdown();
+    }
+
+    @Test
+    void ownPoolIsShutDown() {
+        ForkJoinPool pool;
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(3).build()) {
+            pool = context.getPool();
+            assert context.getParallelism() == 3 && pool.getParallelism() == 3;
+            assert context.getExecutor() == pool;
+        }
+        assert pool.isShutdown();
+    }
+
+    @Test
+    void givenPoolIsNotShutDown() {
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            try (ExecutionContext context = ExecutionContext.builder().setPool(pool).build()) {
+                assert context.getParallelism() == 8;
+            }
+            try (ExecutionContext context = ExecutionContext.builder().setPool(pool).setParallelism(2).build()) {
+                assert context.getParallelism() == 2;
+            }
+            assert !pool.isShutdown();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void cutoffPolicies() {
+        CutoffPolicy perWorker = CutoffPolicy.tasksPerWorker(4, 100);
+        assert perWorker.getCutoff(1_000_000, 4) == 62_500;
+        assert perWorker.getCutoff(1_000, 4) == 100;
+        assert CutoffPolicy.fixed(7).getCutoff(1_000, 4) == 7;
+        assert CutoffPolicy.sequential().getCutoff(1_000, 4) == 1_000;
+        assert CutoffPolicy.sequential().getCutoff(0, 4) == 1;
+
+        ExecutionContext context = ExecutionContext.builder().setPool(ForkJoinPool.commonPool())
+                .setParallelism(2).setCutoffPolicy((size, parallelism) -> size / parallelism).build();
+        assert context.getCutoff(100) == 50;
+        assert context.getCutoff(1) == 1;
+    }
+
+    @Test
+    void invalidArguments() {
+        for (Runnable invalid : new Runnable[]{
+                () -> ExecutionContext.builder().setParallelism(0),
+                () -> CutoffPolicy.tasksPerWorker(0, 1),
+                () -> CutoffPolicy.fixed(0)}) {
+            try {
+                invalid.run();
+                assert false;
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            ExecutionContext.builder().setCutoffPolicy(null);
+            assert false;
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void kernelsHonorTheBudget() {
+        KernelMetrics.reset();
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(2)
+                .setCutoffPolicy(CutoffPolicy.tasksPerWorker(2, 1)).setMetricsEnabled(true).build()) {
+            ArrayManipulator.incrementPar(new int[1000], 0, 1000, 1, context);
+            MatrixManipulator.multiplyPar(new int[20][10], new int[10][20], context);
+        }
+
+        // metrics are disabled globally, but recorded for the context
+        assert !KernelMetrics.isEnabled();
+        KernelMetrics.Snapshot snapshot = KernelMetrics.snapshot();
+        KernelMetrics.OperationStats increment = snapshot.getOperation("ArrayManipulator.incrementPar");
+        assert increment.getCalls() == 1 && increment.getLeaves() == 4 && increment.getMaxLeafSize() == 250;
+        KernelMetrics.OperationStats multiply = snapshot.getOperation("MatrixManipulator.multiplyPar");
+        assert multiply.getCalls() == 1 && multiply.getLeaves() == 4 && multiply.getElements() == 400;
+        KernelMetrics.reset();
+    }
+
+    @Test
+    void invokeRunsOneTaskInTheCallingThread() {
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(2).build()) {
+            Thread caller = Thread.currentThread();
+            assert context.invoke(ForkJoinTask.adapt(Thread::currentThread), 100, 100) == caller;
+            Thread worker = context.invoke(ForkJoinTask.adapt(Thread::currentThread), 101, 100);
+            assert worker instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) worker).getPool() == context.getPool();
+        }
+    }
+
+    @Test
+    void sequentialPolicyRunsInTheCallingThread() {
+        KernelMetrics.reset();
+        ExecutionContext context = ExecutionContext.builder().setPool(ForkJoinPool.commonPool())
+                .setCutoffPolicy(CutoffPolicy.sequential()).setMetricsEnabled(true).build();
+        int[] array = new int[100];
+        ArrayManipulator.incrementPar(array, 0, 100, 3, context);
+        assert array[99] == 3;
+        assert KernelMetrics.snapshot().getOperation("ArrayManipulator.incrementPar").getTasks() == 1;
+        KernelMetrics.reset();
+    }
+}
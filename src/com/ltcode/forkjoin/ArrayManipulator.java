@@ -1,5 +1,8 @@
 package com.ltcode.forkjoin;
 
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.metrics.KernelMetrics;
+
 import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
@@ -10,6 +13,11 @@ import java.util.concurrent.RecursiveAction;
  */
 public class ArrayManipulator {
 
+    private static final KernelMetrics.Operation INCREMENT_SEQ = KernelMetrics.operation("ArrayManipulator.incrementSeq");
+    private static final KernelMetrics.Operation INCREMENT_PAR = KernelMetrics.operation("ArrayManipulator.incrementPar");
+    private static final KernelMetrics.Operation INCREMENT_PAR_WITH_THRESHOLD =
+            KernelMetrics.operation("ArrayManipulator.incrementParWithThreshold");
+
     /**
      * Sequentially increments array's values using for-loop
      *
@@ -19,8 +27,10 @@ public class ArrayManipulator {
      * @param endIndexExclusive   - last cell that should be incremented (exclusively)
      */
     public static void incrementSeq(int[] array, int startIndexInclusive, int endIndexExclusive, int incrementByValue) {
+        long start = INCREMENT_SEQ.start();
         for (int i = startIndexInclusive; i < endIndexExclusive; i++)
             array[i] += incrementByValue;
+        INCREMENT_SEQ.stop(start, Math.max(0, endIndexExclusive - startIndexInclusive));
     }
 
     /**
@@ -32,11 +42,90 @@ public class ArrayManipulator {
      * @param endIndexExclusive   - last cell that should be incremented (exclusively)
      */
     public static void incrementPar(int[] array, int startIndexInclusive, int endIndexExclusive, int incrementByValue) {
-        // use common pool
-        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long start = INCREMENT_PAR.start();
+        // use common pool, number of tasks that can run parallel, where +1 is current thread
+        forkChunks(array, startIndexInclusive, endIndexExclusive, incrementByValue,
+                ForkJoinPool.commonPool().getParallelism() + 1);
+        INCREMENT_PAR.stop(start, Math.max(0, endIndexExclusive - startIndexInclusive));
+    }
+
+    /**
+     * Parallel increments array's values in the given pool - one chunk of the range for every worker
+     *
+     * @param array               - array with int elements
+     * @param incrementByValue    - value by witch each cell in range should be incremented
+     * @param startIndexInclusive - first array's cell that should be incremented
+     * @param endIndexExclusive   - last cell that should be incremented (exclusively)
+     * @param pool                - pool running the tasks, its parallelism is the number of workers
+     */
+    public static void incrementPar(int[] array, int startIndexInclusive, int endIndexExclusive, int incrementByValue,
+                                    ForkJoinPool pool) {
+        long start = INCREMENT_PAR.start();
+        // tasks forked outside of a pool go to the common pool, so the splitting runs in the pool too
+        pool.invoke(ForkJoinTask.adapt(() -> forkChunks(array, startIndexInclusive, endIndexExclusive,
+                incrementByValue, pool.getParallelism())));
+        INCREMENT_PAR.stop(start, Math.max(0, endIndexExclusive - startIndexInclusive));
+    }
 
-        // number of tasks that can run parallel, where +1 is current thread
-        int numTask = pool.getParallelism() + 1;
+    /**
+     * Parallel increments array's values with the pool, parallelism and cutoff policy of the context -
+     * the range is halved until its parts are not larger than the context's cutoff
+     *
+     * @param array               - array with int elements
+     * @param incrementByValue    - value by witch each cell in range should be incremented
+     * @param startIndexInclusive - first array's cell that should be incremented
+     * @param endIndexExclusive   - last cell that should be incremented (exclusively)
+     * @param context             - execution context of the call
+     */
+    public static void incrementPar(int[] array, int startIndexInclusive, int endIndexExclusive, int incrementByValue,
+                                    ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = INCREMENT_PAR.start(always);
+        int size = Math.max(0, endIndexExclusive - startIndexInclusive);
+        int cutoff = (int) Math.min(Integer.MAX_VALUE, context.getCutoff(size));
+
+        INCREMENT_PAR.tasks(1, always);
+        IntArrayIncrementerWithThreshold task = new IntArrayIncrementerWithThreshold(array, startIndexInclusive,
+                endIndexExclusive, incrementByValue, cutoff, INCREMENT_PAR, always);
+        context.invoke(task, size, cutoff);
+        INCREMENT_PAR.stop(start, size);
+    }
+
+    /**
+     *
+     * @param array               - array with int elements
+     * @param incrementByValue    - value by witch each cell in range should be incremented
+     * @param startIndexInclusive - first array's cell that should be incremented
+     * @param endIndexExclusive   - last cell that should be incremented (exclusively)
+     * @param maxSeqentialWork    - max array range that should be worked on in one thread
+     */
+    public static void incrementParWithThreshold(int[] array, int startIndexInclusive, int endIndexExclusive,
+                                                 int incrementByValue, int maxSeqentialWork) {
+        incrementParWithThreshold(array, startIndexInclusive, endIndexExclusive, incrementByValue, maxSeqentialWork,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as incrementParWithThreshold, but runs the tasks in the given pool
+     *
+     * @param pool - pool running the tasks, its parallelism is the number of workers
+     */
+    public static void incrementParWithThreshold(int[] array, int startIndexInclusive, int endIndexExclusive,
+                                                 int incrementByValue, int maxSeqentialWork, ForkJoinPool pool) {
+        long start = INCREMENT_PAR_WITH_THRESHOLD.start();
+        INCREMENT_PAR_WITH_THRESHOLD.tasks(1);
+        pool.invoke(new IntArrayIncrementerWithThreshold(array, startIndexInclusive, endIndexExclusive,
+                incrementByValue, maxSeqentialWork, INCREMENT_PAR_WITH_THRESHOLD, false));
+        INCREMENT_PAR_WITH_THRESHOLD.stop(start, Math.max(0, endIndexExclusive - startIndexInclusive));
+    }
+
+    /**
+     * Splits the range into numTask chunks, forks all of them but the last one,
+     * runs the last one in the current thread and waits for the others
+     */
+    private static void forkChunks(int[] array, int startIndexInclusive, int endIndexExclusive, int incrementByValue,
+                                   int numTask) {
+        INCREMENT_PAR.tasks(numTask);
 
         // array with all tasks
         IntArrayIncrementer[] taskArray = new IntArrayIncrementer[numTask];
@@ -67,21 +156,6 @@ public class ArrayManipulator {
         }
     }
 
-    /**
-     *
-     * @param array               - array with int elements
-     * @param incrementByValue    - value by witch each cell in range should be incremented
-     * @param startIndexInclusive - first array's cell that should be incremented
-     * @param endIndexExclusive   - last cell that should be incremented (exclusively)
-     * @param maxSeqentialWork    - max array range that should be worked on in one thread
-     */
-    public static void incrementParWithThreshold(int[] array, int startIndexInclusive, int endIndexExclusive,
-                                                 int incrementByValue, int maxSeqentialWork) {
-        ForkJoinPool pool = ForkJoinPool.commonPool();
-        pool.invoke(new IntArrayIncrementerWithThreshold(array, startIndexInclusive, endIndexExclusive,
-                incrementByValue, maxSeqentialWork));
-    }
-
     /**
      * Private class uses ForkJoin Framework for increasing/decreasing int array's values
      * It does not call itself recursively
@@ -103,6 +177,7 @@ public class ArrayManipulator {
 
         @Override
         protected void compute() {
+            INCREMENT_PAR.leaf(Math.max(0, endIndexExclusive - startIndexInclusive));
             for (int i = startIndexInclusive; i < endIndexExclusive; i++) {
                 array[i] += incrementByValue;
             }
@@ -121,25 +196,33 @@ public class ArrayManipulator {
         private final int hi;
         private final int incrementByValue;
         private final int THRESHOLD;
+        private final KernelMetrics.Operation operation;
+        private final boolean alwaysRecord;
 
-        private IntArrayIncrementerWithThreshold(int[] array, int lo, int hi, int incrementByValue, int maxSeqentialWork) {
+        private IntArrayIncrementerWithThreshold(int[] array, int lo, int hi, int incrementByValue, int maxSeqentialWork,
+                                                 KernelMetrics.Operation operation, boolean alwaysRecord) {
             this.array = array;
             this.lo = lo;
             this.hi = hi;
             this.incrementByValue = incrementByValue;
             this.THRESHOLD = maxSeqentialWork;
+            this.operation = operation;
+            this.alwaysRecord = alwaysRecord;
         }
 
         @Override
         protected void compute() {
             //System.out.printf("Computing: lo = %d, hi = %d\n", lo, hi);
             if (hi - lo <= THRESHOLD) {
+                operation.leaf(Math.max(0, hi - lo), alwaysRecord);
                 for (int i = lo; i < hi; i++)
                     array[i] += incrementByValue;
             } else {
                 int mid = (lo + hi) >>> 1;
-                ForkJoinTask.invokeAll(new IntArrayIncrementerWithThreshold(array, lo, mid, incrementByValue, THRESHOLD),
-                        new IntArrayIncrementerWithThreshold(array, mid, hi, incrementByValue, THRESHOLD));
+                operation.tasks(2, alwaysRecord);
+                ForkJoinTask.invokeAll(
+                        new IntArrayIncrementerWithThreshold(array, lo, mid, incrementByValue, THRESHOLD, operation, alwaysRecord),
+                        new IntArrayIncrementerWithThreshold(array, mid, hi, incrementByValue, THRESHOLD, operation, alwaysRecord));
             }
         }
     }
@@ -72,6 +72,66 @@ class ArrayManipulatorTest {
         assert Arrays.equals(testedArray, safeArray) : "Tested array has false values!";
     }
 
+    /**
+     * Checks the increments running in pools of different sizes
+     */
+    @org.junit.jupiter.api.Test
+    void incrementInPool() {
+        int ARRAY_SIZE = 100_000;
+        int[] safeArray = new int[ARRAY_SIZE];
+        int[] testedArray = safeArray.clone();
+
+        for (int workers = 1; workers <= 8; workers++) {
+            java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(workers);
+            try {
+                for (int i = 0; i < 100; i++) {
+                    int startIdx = random.nextInt(ARRAY_SIZE);
+                    int endIdx = startIdx + random.nextInt(ARRAY_SIZE - startIdx + 1);
+                    int incrementByValue = random.nextInt(1000) - 500;
+
+                    incrementSafely(safeArray, startIdx, endIdx, incrementByValue);
+                    if (i % 2 == 0)
+                        ArrayManipulator.incrementPar(testedArray, startIdx, endIdx, incrementByValue, pool);
+                    else
+                        ArrayManipulator.incrementParWithThreshold(testedArray, startIdx, endIdx, incrementByValue,
+                                1 + random.nextInt(ARRAY_SIZE), pool);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        assert Arrays.equals(testedArray, safeArray) : "Tested array has false values!";
+    }
+
+    /**
+     * Checks the increments running with execution contexts of different parallelism and cutoffs
+     */
+    @org.junit.jupiter.api.Test
+    void incrementInContext() {
+        int ARRAY_SIZE = 100_000;
+        int[] safeArray = new int[ARRAY_SIZE];
+        int[] testedArray = safeArray.clone();
+
+        for (int parallelism = 1; parallelism <= 4; parallelism++) {
+            try (com.ltcode.execution.ExecutionContext context = com.ltcode.execution.ExecutionContext.builder()
+                    .setParallelism(parallelism)
+                    .setCutoffPolicy(com.ltcode.execution.CutoffPolicy.tasksPerWorker(parallelism, 1))
+                    .build()) {
+                for (int i = 0; i < 100; i++) {
+                    int startIdx = random.nextInt(ARRAY_SIZE);
+                    int endIdx = startIdx + random.nextInt(ARRAY_SIZE - startIdx + 1);
+                    int incrementByValue = random.nextInt(1000) - 500;
+
+                    incrementSafely(safeArray, startIdx, endIdx, incrementByValue);
+                    ArrayManipulator.incrementPar(testedArray, startIdx, endIdx, incrementByValue, context);
+                }
+            }
+        }
+
+        assert Arrays.equals(testedArray, safeArray) : "Tested array has false values!";
+    }
+
     /**
      * helper method for incrementing array's values
      */
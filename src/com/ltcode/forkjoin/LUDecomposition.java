@@ -0,0 +1,427 @@
+package com.ltcode.forkjoin;
+
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.metrics.KernelMetrics;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * LU decomposition with partial pivoting of a square double matrix: P x A = L x U,
+ * where L is unit lower triangular, U is upper triangular and P permutes the rows.
+ * It gives the determinant and solves A x X = B for any number of right-hand sides.
+ *
+ * decomposeSeq is the classic right-looking algorithm - every column sweeps the whole trailing matrix,
+ * so for a large matrix it is bound by the memory bandwidth. decomposePar is the blocked right-looking
+ * algorithm, for every panel of BLOCK columns:
+ *
+ *     +-----+-----------+
+ *     | A11 |    A12    |     1. factor the panel [A11; A21] with partial pivoting (rows are swapped whole)
+ *     +-----+-----------+     2. U12 = L11^-1 x A12       - fork/join tasks over the columns
+ *     |     |           |     3. A22 = A22 - L21 x U12    - fork/join blocked multiply over 2D blocks of A22
+ *     | A21 |    A22    |
+ *     |     |           |     The panel (step 1) is sequential, it is O(n^2 * BLOCK) of the O(n^3) work.
+ *     +-----+-----------+
+ *
+ * The update of A22 is a multiply of rank BLOCK, which reads every element of A22 once per panel
+ * instead of once per column.
+ */
+public class LUDecomposition {
+
+    // panel width - a row of U12 block stays in L1, the U12 block of a leaf in L2
+    private static final int BLOCK = 64;
+    // columns of A22 updated at once by a leaf - BLOCK x LEAF_COLUMNS doubles of U12 = 128 KB
+    private static final int LEAF_COLUMNS = 256;
+
+    private static final KernelMetrics.Operation DECOMPOSE_SEQ = KernelMetrics.operation("LUDecomposition.decomposeSeq");
+    private static final KernelMetrics.Operation DECOMPOSE_PAR = KernelMetrics.operation("LUDecomposition.decomposePar");
+
+    /**
+     * Updates the block [r0, r1) x [c0, c1) of the matrix
+     */
+    @FunctionalInterface
+    private interface BlockAction {
+        void apply(int r0, int r1, int c0, int c1);
+    }
+
+    // L (below the diagonal, without the unit diagonal) and U of the permuted rows
+    private final double[][] lu;
+    // pivot[i] - row of A which is row i of P x A
+    private final int[] pivot;
+    private int pivotSign = 1;
+    private boolean singular;
+
+    private LUDecomposition(double[][] A) {
+        int n = A.length;
+        lu = new double[n][];
+        pivot = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (A[i] == null || A[i].length != n)
+                throw new IllegalArgumentException("Matrix must be square");
+            lu[i] = A[i].clone();
+            pivot[i] = i;
+        }
+    }
+
+    /**
+     * Decomposes the matrix sequentially with the unblocked algorithm
+     *
+     * @param A An input matrix with dimensions NxN, it is not modified
+     * @return The decomposition
+     */
+    public static LUDecomposition decomposeSeq(final double[][] A) {
+        long start = DECOMPOSE_SEQ.start();
+        LUDecomposition decomposition = new LUDecomposition(checkMatrix(A));
+        decomposition.factorPanel(0, A.length);
+        DECOMPOSE_SEQ.stop(start, (long) A.length * A.length);
+        return decomposition;
+    }
+
+    /**
+     * Decomposes the matrix in parallel in the common pool
+     *
+     * @param A An input matrix with dimensions NxN, it is not modified
+     * @return The decomposition
+     */
+    public static LUDecomposition decomposePar(final double[][] A) {
+        return decomposePar(A, ExecutionContext.common());
+    }
+
+    /**
+     * Decomposes the matrix with the blocked algorithm - the updates right of and below every panel
+     * run as fork/join tasks with the pool and cutoff policy of the context
+     *
+     * @param A An input matrix with dimensions NxN, it is not modified
+     * @param context Execution context of the call
+     * @return The decomposition
+     */
+    public static LUDecomposition decomposePar(final double[][] A, final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = DECOMPOSE_PAR.start(always);
+        LUDecomposition decomposition = new LUDecomposition(checkMatrix(A));
+        double[][] lu = decomposition.lu;
+        int n = A.length;
+
+        for (int k0 = 0; k0 < n; k0 += BLOCK) {
+            final int k1 = Math.min(n, k0 + BLOCK);
+            final int panel = k0;
+            decomposition.factorPanel(k0, k1);
+            if (k1 == n)
+                break;
+
+            // U12 = L11^-1 x A12 - the columns are independent
+            run(context, always, k0, k1, k1, n, false,
+                    (r0, r1, c0, c1) -> solveUnitLower(lu, panel, k1, c0, c1));
+            // A22 = A22 - L21 x U12
+            run(context, always, k1, n, k1, n, true,
+                    (r0, r1, c0, c1) -> multiplySubtract(lu, panel, k1, r0, r1, c0, c1));
+        }
+
+        DECOMPOSE_PAR.stop(start, (long) n * n);
+        return decomposition;
+    }
+
+    public int getSize() {
+        return lu.length;
+    }
+
+    /**
+     * @return True if a pivot is exactly zero - the matrix has no inverse
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return Determinant of the matrix
+     */
+    public double determinant() {
+        double determinant = pivotSign;
+        for (int i = 0; i < lu.length; i++) {
+            determinant *= lu[i][i];
+        }
+        return determinant;
+    }
+
+    /**
+     * @return Unit lower triangular matrix L
+     */
+    public double[][] getL() {
+        int n = lu.length;
+        double[][] L = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu[i], 0, L[i], 0, i);
+            L[i][i] = 1;
+        }
+        return L;
+    }
+
+    /**
+     * @return Upper triangular matrix U
+     */
+    public double[][] getU() {
+        int n = lu.length;
+        double[][] U = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu[i], i, U[i], i, n - i);
+        }
+        return U;
+    }
+
+    /**
+     * @return Permutation P - element i is the row of A, which is row i of L x U
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * Solves A x x = b
+     *
+     * @param b An input vector with N elements
+     * @return Vector x with N elements
+     * @throws IllegalStateException if the matrix is singular
+     */
+    public double[] solve(final double[] b) {
+        if (b == null)
+            throw new NullPointerException("Vector can not be null");
+        if (b.length != lu.length)
+            throw new IllegalArgumentException("Matrix and vector dimensions do not agree");
+        checkNotSingular();
+
+        int n = lu.length;
+        double[] x = new double[n];
+        // L x y = P x b
+        for (int i = 0; i < n; i++) {
+            final double[] row = lu[i];
+            double sum = b[pivot[i]];
+            for (int k = 0; k < i; k++) {
+                sum -= row[k] * x[k];
+            }
+            x[i] = sum;
+        }
+        // U x x = y
+        for (int i = n - 1; i >= 0; i--) {
+            final double[] row = lu[i];
+            double sum = x[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= row[k] * x[k];
+            }
+            x[i] = sum / row[i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves A x X = B - the rows of X are updated as whole vectors, so B with many columns
+     * is read by rows
+     *
+     * @param B An input matrix with dimensions NxM
+     * @return Matrix X with dimensions NxM
+     * @throws IllegalStateException if the matrix is singular
+     */
+    public double[][] solve(final double[][] B) {
+        if (B == null)
+            throw new NullPointerException("Matrix can not be null");
+        if (B.length != lu.length)
+            throw new IllegalArgumentException("Matrix dimensions do not agree");
+        checkNotSingular();
+
+        int n = lu.length;
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] X = new double[n][];
+        for (int i = 0; i < n; i++) {
+            if (B[i].length != m)
+                throw new IllegalArgumentException("Rows of the matrix must have the same length");
+            X[i] = B[pivot[i]].clone();
+        }
+        // L x Y = P x B
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < i; k++) {
+                subtractScaled(X[i], lu[i][k], X[k], 0, m);
+            }
+        }
+        // U x X = Y
+        for (int i = n - 1; i >= 0; i--) {
+            for (int k = i + 1; k < n; k++) {
+                subtractScaled(X[i], lu[i][k], X[k], 0, m);
+            }
+            final double diagonal = lu[i][i];
+            final double[] row = X[i];
+            for (int c = 0; c < m; c++) {
+                row[c] /= diagonal;
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Factors the columns [k0, k1) of the rows [k0, n) with partial pivoting - the pivot rows are swapped whole,
+     * the rows below the pivot are updated only in the columns of the panel
+     */
+    private void factorPanel(final int k0, final int k1) {
+        final int n = lu.length;
+        for (int j = k0; j < k1; j++) {
+            // the largest element in the column is the pivot - it keeps the multipliers in [-1, 1]
+            int p = j;
+            double max = Math.abs(lu[j][j]);
+            for (int i = j + 1; i < n; i++) {
+                double value = Math.abs(lu[i][j]);
+                if (value > max) {
+                    max = value;
+                    p = i;
+                }
+            }
+            if (p != j) {
+                double[] row = lu[p];
+                lu[p] = lu[j];
+                lu[j] = row;
+                int index = pivot[p];
+                pivot[p] = pivot[j];
+                pivot[j] = index;
+                pivotSign = -pivotSign;
+            }
+            if (max == 0) {
+                // the column is zero below the diagonal, there is nothing to eliminate
+                singular = true;
+                continue;
+            }
+
+            final double[] pivotRow = lu[j];
+            final double diagonal = pivotRow[j];
+            for (int i = j + 1; i < n; i++) {
+                final double[] row = lu[i];
+                final double l = row[j] / diagonal;
+                row[j] = l;
+                if (l != 0)
+                    subtractScaled(row, l, pivotRow, j + 1, k1);
+            }
+        }
+    }
+
+    private void checkNotSingular() {
+        if (singular)
+            throw new IllegalStateException("Matrix is singular");
+    }
+
+    /**
+     * U12 = L11^-1 x A12 in the columns [c0, c1) - forward substitution with the unit lower triangle
+     * of the panel [k0, k1)
+     */
+    private static void solveUnitLower(final double[][] lu, final int k0, final int k1, final int c0, final int c1) {
+        for (int i = k0 + 1; i < k1; i++) {
+            final double[] row = lu[i];
+            for (int k = k0; k < i; k++) {
+                final double l = row[k];
+                if (l != 0)
+                    subtractScaled(row, l, lu[k], c0, c1);
+            }
+        }
+    }
+
+    /**
+     * A22 = A22 - L21 x U12 in the block [r0, r1) x [c0, c1) - for every column block of LEAF_COLUMNS,
+     * every row of the block is updated by the rows of U12 scaled by the row of L21 (i-k-j order),
+     * so the U12 block stays in the cache while the rows stream through it
+     *
+     * @param k0 - first column of the panel (L21) and first row of U12
+     * @param k1 - end of the panel (exclusive)
+     */
+    private static void multiplySubtract(final double[][] lu, final int k0, final int k1,
+                                         final int r0, final int r1, final int c0, final int c1) {
+        for (int cb = c0; cb < c1; cb += LEAF_COLUMNS) {
+            final int cEnd = Math.min(c1, cb + LEAF_COLUMNS);
+            for (int i = r0; i < r1; i++) {
+                final double[] row = lu[i];
+                int k = k0;
+                // four rows of U12 at once - the row of A22 is loaded and stored 4x less often
+                for (; k + 3 < k1; k += 4) {
+                    final double l0 = row[k], l1 = row[k + 1], l2 = row[k + 2], l3 = row[k + 3];
+                    final double[] u0 = lu[k], u1 = lu[k + 1], u2 = lu[k + 2], u3 = lu[k + 3];
+                    for (int c = cb; c < cEnd; c++) {
+                        row[c] -= l0 * u0[c] + l1 * u1[c] + l2 * u2[c] + l3 * u3[c];
+                    }
+                }
+                for (; k < k1; k++) {
+                    subtractScaled(row, row[k], lu[k], cb, cEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * row[c] -= l * source[c] for c in [c0, c1)
+     */
+    private static void subtractScaled(final double[] row, final double l, final double[] source,
+                                       final int c0, final int c1) {
+        for (int c = c0; c < c1; c++) {
+            row[c] -= l * source[c];
+        }
+    }
+
+    /**
+     * Runs the action on the block [r0, r1) x [c0, c1) as fork/join tasks - in the current thread
+     * if the block is not larger than the context's cutoff
+     */
+    private static void run(ExecutionContext context, boolean always, int r0, int r1, int c0, int c1,
+                            boolean splitRows, BlockAction action) {
+        long elements = (long) (r1 - r0) * (c1 - c0);
+        long cutoff = context.getCutoff(elements);
+        BlockUpdater task = new BlockUpdater(action, r0, r1, c0, c1, cutoff, splitRows, always);
+        DECOMPOSE_PAR.tasks(1, always);
+        context.invoke(task, elements, cutoff);
+    }
+
+    private static double[][] checkMatrix(double[][] A) {
+        if (A == null)
+            throw new NullPointerException("Matrix can not be null");
+        return A;
+    }
+
+    /**
+     * Halves the block along its longer side (only along the columns if the rows must not be split)
+     * until it is not larger than the cutoff, then runs the action
+     */
+    private static class BlockUpdater extends RecursiveAction {
+
+        private final BlockAction action;
+        private final int r0;
+        private final int r1;
+        private final int c0;
+        private final int c1;
+        private final long cutoff;
+        private final boolean splitRows;
+        private final boolean alwaysRecord;
+
+        private BlockUpdater(BlockAction action, int r0, int r1, int c0, int c1, long cutoff,
+                             boolean splitRows, boolean alwaysRecord) {
+            this.action = action;
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+            this.cutoff = cutoff;
+            this.splitRows = splitRows;
+            this.alwaysRecord = alwaysRecord;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = r1 - r0;
+            int columns = c1 - c0;
+            if ((long) rows * columns <= cutoff || (columns <= 1 && (!splitRows || rows <= 1))) {
+                DECOMPOSE_PAR.leaf((long) rows * columns, alwaysRecord);
+                action.apply(r0, r1, c0, c1);
+            } else if (splitRows && rows > columns) {
+                int mid = (r0 + r1) >>> 1;
+                DECOMPOSE_PAR.tasks(2, alwaysRecord);
+                invokeAll(new BlockUpdater(action, r0, mid, c0, c1, cutoff, true, alwaysRecord),
+                        new BlockUpdater(action, mid, r1, c0, c1, cutoff, true, alwaysRecord));
+            } else {
+                int mid = (c0 + c1) >>> 1;
+                DECOMPOSE_PAR.tasks(2, alwaysRecord);
+                invokeAll(new BlockUpdater(action, r0, r1, c0, mid, cutoff, splitRows, alwaysRecord),
+                        new BlockUpdater(action, r0, r1, mid, c1, cutoff, splitRows, alwaysRecord));
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.ltcode.forkjoin;
+
+import com.ltcode.execution.CutoffPolicy;
+import com.ltcode.execution.ExecutionContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Tests of the class LUDecomposition
+ */
+class LUDecompositionTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static Random random;
+    private static int[] SIZES;
+
+    @BeforeAll
+    static void setUp() {
+        random = new Random();
+        // around the panel width and the leaf columns
+        SIZES = new int[]{0, 1, 2, 7, 63, 64, 65, 130, 300};
+    }
+
+    /**
+     * Tests that P x A == L x U for the sequential and the parallel decomposition
+     */
+    @Test
+    void decompose() {
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(3)
+                .setCutoffPolicy(CutoffPolicy.fixed(500)).build()) {
+            for (int n : SIZES) {
+                double[][] A = randomMatrix(n);
+                double[][] copy = copy(A);
+
+                assertDecomposition(A, LUDecomposition.decomposeSeq(A));
+                assertDecomposition(A, LUDecomposition.decomposePar(A));
+                assertDecomposition(A, LUDecomposition.decomposePar(A, context));
+                assert equal(copy, A, 0) : "Input matrix was modified";
+            }
+        }
+    }
+
+    /**
+     * Tests the determinant of matrices with known determinants and seq against par
+     */
+    @Test
+    void determinant() {
+        double[][] A = {{0, 2}, {3, 4}};
+        assert LUDecomposition.decomposeSeq(A).determinant() == -6;
+        assert LUDecomposition.decomposePar(A).determinant() == -6;
+        assert LUDecomposition.decomposePar(new double[0][0]).determinant() == 1;
+
+        // triangular - the product of the diagonal, with rows swapped - the sign changes
+        int n = 100;
+        double[][] T = new double[n][n];
+        double expected = 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++)
+                T[i][j] = random.nextDouble();
+            T[i][i] = 1 + random.nextDouble();
+            expected *= T[i][i];
+        }
+        assert Math.abs(LUDecomposition.decomposePar(T).determinant() - expected) <= EPSILON * Math.abs(expected);
+        double[] row = T[0];
+        T[0] = T[n - 1];
+        T[n - 1] = row;
+        assert Math.abs(LUDecomposition.decomposePar(T).determinant() + expected) <= EPSILON * Math.abs(expected);
+
+        for (int size : SIZES) {
+            double[][] R = randomMatrix(size);
+            double seq = LUDecomposition.decomposeSeq(R).determinant();
+            double par = LUDecomposition.decomposePar(R).determinant();
+            assert Math.abs(seq - par) <= 1e-6 * Math.max(1, Math.abs(seq)) : seq + " != " + par;
+        }
+    }
+
+    /**
+     * Tests A x x = b and A x X = B by the residual
+     */
+    @Test
+    void solve() {
+        for (int n : SIZES) {
+            double[][] A = randomMatrix(n);
+            double[] b = new double[n];
+            double[][] B = new double[n][5];
+            for (int i = 0; i < n; i++) {
+                b[i] = random.nextDouble() - 0.5;
+                for (int c = 0; c < 5; c++)
+                    B[i][c] = random.nextDouble() - 0.5;
+            }
+            LUDecomposition lu = LUDecomposition.decomposePar(A);
+
+            double[] x = lu.solve(b);
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int k = 0; k < n; k++)
+                    sum += A[i][k] * x[k];
+                assert Math.abs(sum - b[i]) <= 1e-6 : "Residual too large, n: " + n;
+            }
+
+            double[][] X = lu.solve(B);
+            assert equal(multiply(A, X), B, 1e-6) : "Residual too large, n: " + n;
+        }
+    }
+
+    /**
+     * Tests a singular matrix and invalid arguments
+     */
+    @Test
+    void singular() {
+        double[][] A = {{1, 2, 3}, {2, 4, 6}, {1, 0, 1}};
+        for (LUDecomposition lu : new LUDecomposition[]{LUDecomposition.decomposeSeq(A), LUDecomposition.decomposePar(A)}) {
+            assert lu.isSingular();
+            assert lu.determinant() == 0;
+            assertDecomposition(A, lu);
+            try {
+                lu.solve(new double[3]);
+                assert false : "Singular matrix solved";
+            } catch (IllegalStateException ignored) {
+            }
+        }
+        assert !LUDecomposition.decomposePar(new double[][]{{0, 1}, {1, 0}}).isSingular();
+
+        try {
+            LUDecomposition.decomposePar(new double[2][3]);
+            assert false : "Not square matrix accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            LUDecomposition.decomposeSeq(new double[][]{{1, 0}, {0, 1}}).solve(new double[3]);
+            assert false : "Invalid vector accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    // HELPER METHODS
+
+    /**
+     * Checks that the rows of A permuted by the pivot are equal to L x U
+     */
+    private static void assertDecomposition(double[][] A, LUDecomposition lu) {
+        int n = A.length;
+        double[][] L = lu.getL();
+        double[][] U = lu.getU();
+        int[] pivot = lu.getPivot();
+        double[][] PA = new double[n][];
+        for (int i = 0; i < n; i++) {
+            PA[i] = A[pivot[i]];
+            for (int j = 0; j < n; j++) {
+                assert j <= i || L[i][j] == 0 : "L is not lower triangular";
+                assert j >= i || U[i][j] == 0 : "U is not upper triangular";
+                // partial pivoting keeps the multipliers in [-1, 1]
+                assert Math.abs(L[i][j]) <= 1 : "Multiplier larger than 1";
+            }
+        }
+        assert equal(PA, multiply(L, U), 1e-9) : "P x A != L x U, n: " + n;
+    }
+
+    private static double[][] multiply(double[][] A, double[][] B) {
+        int n = A.length;
+        int m = n == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < B.length; k++)
+                for (int j = 0; j < m; j++)
+                    C[i][j] += A[i][k] * B[k][j];
+        return C;
+    }
+
+    private static boolean equal(double[][] A, double[][] B, double epsilon) {
+        for (int i = 0; i < A.length; i++)
+            for (int j = 0; j < A[i].length; j++)
+                if (Math.abs(A[i][j] - B[i][j]) > epsilon)
+                    return false;
+        return A.length == B.length;
+    }
+
+    private static double[][] copy(double[][] A) {
+        double[][] copy = new double[A.length][];
+        for (int i = 0; i < A.length; i++)
+            copy[i] = A[i].clone();
+        return copy;
+    }
+
+    private static double[][] randomMatrix(int n) {
+        double[][] matrix = new double[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                matrix[i][j] = random.nextDouble() * 2 - 1;
+        return matrix;
+    }
+}
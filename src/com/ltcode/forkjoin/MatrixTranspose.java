@@ -0,0 +1,411 @@
+package com.ltcode.forkjoin;
+
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.metrics.KernelMetrics;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cache-oblivious matrix transposes for int[][] and flat (row-major) int[] matrices.
+ *
+ * The naive double loop reads the source by rows and writes the destination by columns,
+ * so for a large matrix every write touches another cache line and another memory page.
+ * Here the matrix is recursively halved along its longer side until a block fits in the L1 cache,
+ * so both the read and the written block stay in the cache - for any cache size, without tuning:
+ *
+ *     +-----+-----+         +-----+-----+
+ *     | A11 | A12 |   T     | A11'| A21'|
+ *     +-----+-----+  --->   +-----+-----+
+ *     | A21 | A22 |         | A12'| A22'|
+ *     +-----+-----+         +-----+-----+
+ *
+ * In place (square matrices only), the diagonal blocks A11, A22 are transposed recursively
+ * and the off-diagonal blocks A12, A21 are swapped with each other transposed.
+ * The parallel versions run the halves as fork/join tasks until the context's cutoff.
+ */
+public class MatrixTranspose {
+
+    // 32 x 32 ints - a source and a destination block fit in 32 KB of L1
+    private static final int LEAF_ELEMENTS = 1024;
+
+    private static final KernelMetrics.Operation TRANSPOSE_PAR = KernelMetrics.operation("MatrixTranspose.transposePar");
+    private static final KernelMetrics.Operation TRANSPOSE_IN_PLACE_PAR =
+            KernelMetrics.operation("MatrixTranspose.transposeInPlacePar");
+
+    /**
+     * Transposes the block [r0, r1) x [c0, c1) of the source
+     */
+    @FunctionalInterface
+    private interface BlockAction {
+        void apply(int r0, int r1, int c0, int c1);
+    }
+
+    /* int[][] */
+
+    /**
+     * Sequentially transposes the matrix
+     *
+     * @param A An input matrix with dimensions NxM
+     * @return New matrix with dimensions MxN
+     */
+    public static int[][] transpose(final int[][] A) {
+        int N = checkMatrix(A);
+        int M = N == 0 ? 0 : A[0].length;
+        int[][] T = new int[M][N];
+        split(0, N, 0, M, (r0, r1, c0, c1) -> transposeBlock(A, T, r0, r1, c0, c1));
+        return T;
+    }
+
+    /**
+     * Transposes the matrix in parallel in the common pool
+     *
+     * @param A An input matrix with dimensions NxM
+     * @return New matrix with dimensions MxN
+     */
+    public static int[][] transposePar(final int[][] A) {
+        return transposePar(A, ExecutionContext.common());
+    }
+
+    /**
+     * Transposes the matrix in parallel with the pool and cutoff policy of the context
+     *
+     * @param A An input matrix with dimensions NxM
+     * @param context Execution context of the call
+     * @return New matrix with dimensions MxN
+     */
+    public static int[][] transposePar(final int[][] A, final ExecutionContext context) {
+        long start = TRANSPOSE_PAR.start(context.isMetricsEnabled());
+        int N = checkMatrix(A);
+        int M = N == 0 ? 0 : A[0].length;
+        int[][] T = new int[M][N];
+        run(context, new BlockSplitter(0, N, 0, M, context.getCutoff((long) N * M),
+                (r0, r1, c0, c1) -> transposeBlock(A, T, r0, r1, c0, c1)));
+        TRANSPOSE_PAR.stop(start, (long) N * M);
+        return T;
+    }
+
+    /**
+     * Sequentially transposes the square matrix in place
+     *
+     * @param A An input matrix with dimensions NxN
+     */
+    public static void transposeInPlace(final int[][] A) {
+        int N = checkSquare(A);
+        new DiagonalTransposer(0, N, Long.MAX_VALUE,
+                (r0, r1) -> transposeDiagonalBlock(A, r0, r1),
+                (r0, r1, c0, c1) -> swapBlocks(A, r0, r1, c0, c1)).compute();
+    }
+
+    /**
+     * Transposes the square matrix in place in parallel in the common pool
+     *
+     * @param A An input matrix with dimensions NxN
+     */
+    public static void transposeInPlacePar(final int[][] A) {
+        transposeInPlacePar(A, ExecutionContext.common());
+    }
+
+    /**
+     * Transposes the square matrix in place in parallel with the pool and cutoff policy of the context
+     *
+     * @param A An input matrix with dimensions NxN
+     * @param context Execution context of the call
+     */
+    public static void transposeInPlacePar(final int[][] A, final ExecutionContext context) {
+        long start = TRANSPOSE_IN_PLACE_PAR.start(context.isMetricsEnabled());
+        int N = checkSquare(A);
+        run(context, new DiagonalTransposer(0, N, context.getCutoff((long) N * N),
+                (r0, r1) -> transposeDiagonalBlock(A, r0, r1),
+                (r0, r1, c0, c1) -> swapBlocks(A, r0, r1, c0, c1)));
+        TRANSPOSE_IN_PLACE_PAR.stop(start, (long) N * N);
+    }
+
+    /* flat row-major arrays */
+
+    /**
+     * Sequentially transposes the flat matrix
+     *
+     * @param a    An input matrix with dimensions rows x cols, stored by rows
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @return New flat matrix with dimensions cols x rows
+     */
+    public static int[] transpose(final int[] a, final int rows, final int cols) {
+        checkFlat(a, rows, cols);
+        int[] t = new int[a.length];
+        split(0, rows, 0, cols, (r0, r1, c0, c1) -> transposeBlock(a, t, rows, cols, r0, r1, c0, c1));
+        return t;
+    }
+
+    /**
+     * Transposes the flat matrix in parallel in the common pool
+     *
+     * @param a    An input matrix with dimensions rows x cols, stored by rows
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @return New flat matrix with dimensions cols x rows
+     */
+    public static int[] transposePar(final int[] a, final int rows, final int cols) {
+        return transposePar(a, rows, cols, ExecutionContext.common());
+    }
+
+    /**
+     * Transposes the flat matrix in parallel with the pool and cutoff policy of the context
+     *
+     * @param a       An input matrix with dimensions rows x cols, stored by rows
+     * @param rows    Number of rows
+     * @param cols    Number of columns
+     * @param context Execution context of the call
+     * @return New flat matrix with dimensions cols x rows
+     */
+    public static int[] transposePar(final int[] a, final int rows, final int cols, final ExecutionContext context) {
+        long start = TRANSPOSE_PAR.start(context.isMetricsEnabled());
+        checkFlat(a, rows, cols);
+        int[] t = new int[a.length];
+        run(context, new BlockSplitter(0, rows, 0, cols, context.getCutoff(a.length),
+                (r0, r1, c0, c1) -> transposeBlock(a, t, rows, cols, r0, r1, c0, c1)));
+        TRANSPOSE_PAR.stop(start, a.length);
+        return t;
+    }
+
+    /**
+     * Sequentially transposes the square flat matrix in place
+     *
+     * @param a An input matrix with dimensions n x n, stored by rows
+     * @param n Number of rows and columns
+     */
+    public static void transposeInPlace(final int[] a, final int n) {
+        checkFlat(a, n, n);
+        new DiagonalTransposer(0, n, Long.MAX_VALUE,
+                (r0, r1) -> transposeDiagonalBlock(a, n, r0, r1),
+                (r0, r1, c0, c1) -> swapBlocks(a, n, r0, r1, c0, c1)).compute();
+    }
+
+    /**
+     * Transposes the square flat matrix in place in parallel in the common pool
+     *
+     * @param a An input matrix with dimensions n x n, stored by rows
+     * @param n Number of rows and columns
+     */
+    public static void transposeInPlacePar(final int[] a, final int n) {
+        transposeInPlacePar(a, n, ExecutionContext.common());
+    }
+
+    /**
+     * Transposes the square flat matrix in place in parallel with the pool and cutoff policy of the context
+     *
+     * @param a       An input matrix with dimensions n x n, stored by rows
+     * @param n       Number of rows and columns
+     * @param context Execution context of the call
+     */
+    public static void transposeInPlacePar(final int[] a, final int n, final ExecutionContext context) {
+        long start = TRANSPOSE_IN_PLACE_PAR.start(context.isMetricsEnabled());
+        checkFlat(a, n, n);
+        run(context, new DiagonalTransposer(0, n, context.getCutoff(a.length),
+                (r0, r1) -> transposeDiagonalBlock(a, n, r0, r1),
+                (r0, r1, c0, c1) -> swapBlocks(a, n, r0, r1, c0, c1)));
+        TRANSPOSE_IN_PLACE_PAR.stop(start, a.length);
+    }
+
+    /* recursion */
+
+    /**
+     * Halves the longer side of the block [r0, r1) x [c0, c1) until the block fits in the L1 cache
+     */
+    private static void split(int r0, int r1, int c0, int c1, BlockAction leaf) {
+        if ((long) (r1 - r0) * (c1 - c0) <= LEAF_ELEMENTS) {
+            leaf.apply(r0, r1, c0, c1);
+        } else if (r1 - r0 >= c1 - c0) {
+            int mid = (r0 + r1) >>> 1;
+            split(r0, mid, c0, c1, leaf);
+            split(mid, r1, c0, c1, leaf);
+        } else {
+            int mid = (c0 + c1) >>> 1;
+            split(r0, r1, c0, mid, leaf);
+            split(r0, r1, mid, c1, leaf);
+        }
+    }
+
+    /**
+     * Runs the task in the pool of the context, or in the current thread if the task is sequential anyway
+     */
+    private static void run(ExecutionContext context, RecursiveAction task) {
+        if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == context.getPool())
+            task.invoke();
+        else
+            context.getPool().invoke(task);
+    }
+
+    /**
+     * Splits the block like split(), but the halves larger than the cutoff run as parallel tasks
+     */
+    private static class BlockSplitter extends RecursiveAction {
+
+        private final int r0, r1, c0, c1;
+        private final long cutoff;
+        private final BlockAction leaf;
+
+        private BlockSplitter(int r0, int r1, int c0, int c1, long cutoff, BlockAction leaf) {
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+            this.cutoff = cutoff;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (r1 - r0) * (c1 - c0) <= Math.max(cutoff, LEAF_ELEMENTS)) {
+                split(r0, r1, c0, c1, leaf);
+            } else if (r1 - r0 >= c1 - c0) {
+                int mid = (r0 + r1) >>> 1;
+                invokeAll(new BlockSplitter(r0, mid, c0, c1, cutoff, leaf),
+                        new BlockSplitter(mid, r1, c0, c1, cutoff, leaf));
+            } else {
+                int mid = (c0 + c1) >>> 1;
+                invokeAll(new BlockSplitter(r0, r1, c0, mid, cutoff, leaf),
+                        new BlockSplitter(r0, r1, mid, c1, cutoff, leaf));
+            }
+        }
+    }
+
+    /**
+     * Transposes the diagonal block [lo, hi) x [lo, hi) in place - the two diagonal halves recursively
+     * and the off-diagonal halves by swapping them. All three parts are independent, so the parts
+     * larger than the cutoff run as parallel tasks.
+     */
+    private static class DiagonalTransposer extends RecursiveAction {
+
+        @FunctionalInterface
+        private interface DiagonalAction {
+            void apply(int lo, int hi);
+        }
+
+        private final int lo, hi;
+        private final long cutoff;
+        private final DiagonalAction diagonalLeaf;
+        private final BlockAction swap;
+
+        private DiagonalTransposer(int lo, int hi, long cutoff, DiagonalAction diagonalLeaf, BlockAction swap) {
+            this.lo = lo;
+            this.hi = hi;
+            this.cutoff = cutoff;
+            this.diagonalLeaf = diagonalLeaf;
+            this.swap = swap;
+        }
+
+        @Override
+        protected void compute() {
+            long n = hi - lo;
+            if (n * n <= LEAF_ELEMENTS) {
+                diagonalLeaf.apply(lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            DiagonalTransposer upper = new DiagonalTransposer(lo, mid, cutoff, diagonalLeaf, swap);
+            DiagonalTransposer lower = new DiagonalTransposer(mid, hi, cutoff, diagonalLeaf, swap);
+            if (n * n <= cutoff) {
+                upper.compute();
+                lower.compute();
+                split(lo, mid, mid, hi, swap);
+            } else {
+                invokeAll(upper, lower, new BlockSplitter(lo, mid, mid, hi, cutoff, swap));
+            }
+        }
+    }
+
+    /* leaves */
+
+    private static void transposeBlock(int[][] A, int[][] T, int r0, int r1, int c0, int c1) {
+        for (int r = r0; r < r1; r++) {
+            final int[] row = A[r];
+            for (int c = c0; c < c1; c++) {
+                T[c][r] = row[c];
+            }
+        }
+    }
+
+    private static void transposeDiagonalBlock(int[][] A, int lo, int hi) {
+        for (int r = lo; r < hi; r++) {
+            for (int c = r + 1; c < hi; c++) {
+                int tmp = A[r][c];
+                A[r][c] = A[c][r];
+                A[c][r] = tmp;
+            }
+        }
+    }
+
+    /**
+     * Swaps the block [r0, r1) x [c0, c1) with the transposed block [c0, c1) x [r0, r1)
+     */
+    private static void swapBlocks(int[][] A, int r0, int r1, int c0, int c1) {
+        for (int r = r0; r < r1; r++) {
+            final int[] row = A[r];
+            for (int c = c0; c < c1; c++) {
+                int tmp = row[c];
+                row[c] = A[c][r];
+                A[c][r] = tmp;
+            }
+        }
+    }
+
+    private static void transposeBlock(int[] a, int[] t, int rows, int cols, int r0, int r1, int c0, int c1) {
+        for (int r = r0; r < r1; r++) {
+            for (int c = c0; c < c1; c++) {
+                t[c * rows + r] = a[r * cols + c];
+            }
+        }
+    }
+
+    private static void transposeDiagonalBlock(int[] a, int n, int lo, int hi) {
+        for (int r = lo; r < hi; r++) {
+            for (int c = r + 1; c < hi; c++) {
+                int tmp = a[r * n + c];
+                a[r * n + c] = a[c * n + r];
+                a[c * n + r] = tmp;
+            }
+        }
+    }
+
+    private static void swapBlocks(int[] a, int n, int r0, int r1, int c0, int c1) {
+        for (int r = r0; r < r1; r++) {
+            for (int c = c0; c < c1; c++) {
+                int tmp = a[r * n + c];
+                a[r * n + c] = a[c * n + r];
+                a[c * n + r] = tmp;
+            }
+        }
+    }
+
+    /* checks */
+
+    /**
+     * @return Number of rows
+     * @throws IllegalArgumentException if the rows do not have the same length
+     */
+    private static int checkMatrix(int[][] A) {
+        if (A == null)
+            throw new NullPointerException("Matrix can not be null");
+        for (int[] row : A) {
+            if (row.length != A[0].length)
+                throw new IllegalArgumentException("Rows of the matrix must have the same length");
+        }
+        return A.length;
+    }
+
+    private static int checkSquare(int[][] A) {
+        int N = checkMatrix(A);
+        if (N > 0 && A[0].length != N)
+            throw new IllegalArgumentException("Matrix must be square");
+        return N;
+    }
+
+    private static void checkFlat(int[] a, int rows, int cols) {
+        if (a == null)
+            throw new NullPointerException("Matrix can not be null");
+        if (rows < 0 || cols < 0 || (long) rows * cols != a.length)
+            throw new IllegalArgumentException("Length of the matrix must be rows * cols");
+    }
+}
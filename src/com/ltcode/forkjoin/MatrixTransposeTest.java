@@ -0,0 +1,146 @@
+package com.ltcode.forkjoin;
+
+import com.ltcode.execution.CutoffPolicy;
+import com.ltcode.execution.ExecutionContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests of the class MatrixTranspose
+ */
+class MatrixTransposeTest {
+
+    private static Random random;
+    private static int[][] SHAPES;
+
+    @BeforeAll
+    static void setUp() {
+        random = new Random();
+        // {rows, cols} - around the leaf size, odd and strip shapes
+        SHAPES = new int[][]{{0, 0}, {1, 1}, {1, 100}, {100, 1}, {31, 33}, {32, 32}, {33, 31},
+                {64, 200}, {257, 129}, {500, 500}};
+    }
+
+    @Test
+    void transpose() {
+        for (int[] shape : SHAPES) {
+            int[][] A = randomMatrix(shape[0], shape[1]);
+            int[][] expected = naiveTranspose(A, shape[0], shape[1]);
+
+            assert Arrays.deepEquals(expected, MatrixTranspose.transpose(A)) : Arrays.toString(shape);
+            assert Arrays.deepEquals(expected, MatrixTranspose.transposePar(A)) : Arrays.toString(shape);
+        }
+    }
+
+    @Test
+    void transposeFlat() {
+        for (int[] shape : SHAPES) {
+            int rows = shape[0];
+            int cols = shape[1];
+            int[] a = flat(randomMatrix(rows, cols), cols);
+            int[] expected = flat(naiveTranspose(unflat(a, rows, cols), rows, cols), rows);
+
+            assert Arrays.equals(expected, MatrixTranspose.transpose(a, rows, cols)) : Arrays.toString(shape);
+            assert Arrays.equals(expected, MatrixTranspose.transposePar(a, rows, cols)) : Arrays.toString(shape);
+        }
+    }
+
+    @Test
+    void transposeInPlace() {
+        for (int n : new int[]{0, 1, 2, 31, 32, 33, 100, 257, 600}) {
+            int[][] A = randomMatrix(n, n);
+            int[][] expected = naiveTranspose(A, n, n);
+
+            int[][] seq = copy(A);
+            MatrixTranspose.transposeInPlace(seq);
+            assert Arrays.deepEquals(expected, seq) : n;
+
+            int[][] par = copy(A);
+            MatrixTranspose.transposeInPlacePar(par);
+            assert Arrays.deepEquals(expected, par) : n;
+
+            int[] a = flat(A, n);
+            int[] flatExpected = flat(expected, n);
+            int[] flatSeq = a.clone();
+            MatrixTranspose.transposeInPlace(flatSeq, n);
+            assert Arrays.equals(flatExpected, flatSeq) : n;
+            MatrixTranspose.transposeInPlacePar(a, n);
+            assert Arrays.equals(flatExpected, a) : n;
+        }
+    }
+
+    /**
+     * Small cutoffs make many parallel tasks
+     */
+    @Test
+    void transposeWithContext() {
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(3)
+                .setCutoffPolicy(CutoffPolicy.fixed(1)).build()) {
+            int[][] A = randomMatrix(300, 170);
+            assert Arrays.deepEquals(naiveTranspose(A, 300, 170), MatrixTranspose.transposePar(A, context));
+            int[] a = flat(A, 170);
+            assert Arrays.equals(flat(naiveTranspose(A, 300, 170), 300), MatrixTranspose.transposePar(a, 300, 170, context));
+
+            int[][] S = randomMatrix(300, 300);
+            int[][] expected = naiveTranspose(S, 300, 300);
+            int[] s = flat(S, 300);
+            MatrixTranspose.transposeInPlacePar(S, context);
+            MatrixTranspose.transposeInPlacePar(s, 300, context);
+            assert Arrays.deepEquals(expected, S);
+            assert Arrays.equals(flat(expected, 300), s);
+        }
+    }
+
+    @Test
+    void invalidMatrices() {
+        for (Runnable invalid : new Runnable[]{
+                () -> MatrixTranspose.transpose(new int[][]{{1, 2}, {3}}),
+                () -> MatrixTranspose.transposeInPlace(new int[2][3]),
+                () -> MatrixTranspose.transpose(new int[6], 2, 2),
+                () -> MatrixTranspose.transposeInPlace(new int[6], 2)}) {
+            try {
+                invalid.run();
+                assert false : "Invalid matrix accepted";
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    private static int[][] naiveTranspose(int[][] A, int rows, int cols) {
+        int[][] T = new int[cols][rows];
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++)
+                T[c][r] = A[r][c];
+        return T;
+    }
+
+    private static int[][] randomMatrix(int rows, int cols) {
+        int[][] A = new int[rows][cols];
+        for (int[] row : A)
+            for (int c = 0; c < cols; c++)
+                row[c] = random.nextInt();
+        return A;
+    }
+
+    private static int[][] copy(int[][] A) {
+        return Arrays.stream(A).map(int[]::clone).toArray(int[][]::new);
+    }
+
+    private static int[] flat(int[][] A, int cols) {
+        int[] a = new int[A.length * cols];
+        for (int r = 0; r < A.length; r++)
+            System.arraycopy(A[r], 0, a, r * cols, cols);
+        return a;
+    }
+
+    private static int[][] unflat(int[] a, int rows, int cols) {
+        int[][] A = new int[rows][cols];
+        for (int r = 0; r < rows; r++)
+            System.arraycopy(a, r * cols, A[r], 0, cols);
+        return A;
+    }
+}
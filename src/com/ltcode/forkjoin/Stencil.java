@@ -0,0 +1,786 @@
+package com.ltcode.forkjoin;
+
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.metrics.KernelMetrics;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Neighborhood (stencil) operations on int[] and double[] arrays and flat (row-major) 2D grids:
+ *
+ *     convolve      - out[i] = sum of kernel[j] * a[i + j - r], kernel of odd length 2r + 1
+ *     convolve2D    - the same with a k x k kernel (k odd) on a rows x cols grid, e.g. 3x3 or 5x5 filters
+ *     movingAverage - mean of the window of odd length centered on every element
+ *     jacobi        - iterations of the averaging stencil, a[i] = (a[i - 1] + a[i + 1]) / 2,
+ *                     in 2D the mean of the 4 neighbors, the cells on the border are fixed
+ *
+ * Outside of the array the convolutions and the moving average read the nearest element (clamp to edge).
+ *
+ * The parallel versions split the array (or the rows of the grid) into chunks run as fork/join tasks.
+ * A chunk reads its halo - the r elements (rows) beyond its borders - from the source, which is not
+ * written during a step, so the chunks need no synchronization.
+ *
+ * The Jacobi iterations ping-pong between two buffers, so no array is allocated per step. With temporal
+ * blocking (timeBlock > 1) a chunk runs timeBlock steps on itself and a halo of timeBlock elements (rows):
+ * the first step reads the source, the steps between go through two local buffers, which fit in the cache,
+ * and the last step writes the chunk to the destination - the valid part shrinks by one cell per side
+ * per step. The array then goes through the memory once per timeBlock steps instead of once per step,
+ * for a few cells computed twice at the borders of the chunks.
+ */
+public class Stencil {
+
+    // steps of the Jacobi iterations done on a chunk at once
+    private static final int TIME_BLOCK = 8;
+    // max elements of a temporally blocked chunk - two buffers of 256 KB stay in L2
+    private static final int CACHE_ELEMENTS = 1 << 15;
+    // elements of a moving average between two exact sums of the window
+    private static final int RESUM_INTERVAL = 1 << 12;
+
+    /**
+     * Local buffers of temporal blocking reused by the worker threads - a fresh buffer costs a zeroing pass
+     * over the band, as much as a step. Buffers larger than the cache are not kept.
+     */
+    private static final ThreadLocal<double[][]> SCRATCH = ThreadLocal.withInitial(() -> new double[2][0]);
+
+    private static final KernelMetrics.Operation CONVOLVE_PAR = KernelMetrics.operation("Stencil.convolvePar");
+    private static final KernelMetrics.Operation CONVOLVE_2D_PAR = KernelMetrics.operation("Stencil.convolve2DPar");
+    private static final KernelMetrics.Operation MOVING_AVERAGE_PAR =
+            KernelMetrics.operation("Stencil.movingAveragePar");
+    private static final KernelMetrics.Operation JACOBI_PAR = KernelMetrics.operation("Stencil.jacobiPar");
+    private static final KernelMetrics.Operation JACOBI_2D_PAR = KernelMetrics.operation("Stencil.jacobi2DPar");
+
+    /**
+     * Computes the range [lo, hi) of the output
+     */
+    @FunctionalInterface
+    private interface RangeAction {
+        void apply(int lo, int hi);
+    }
+
+    /* 1D convolution */
+
+    /**
+     * Sequentially convolves the array with the kernel
+     *
+     * @param a An input array
+     * @param kernel Weights of odd length 2r + 1, kernel[r] is the weight of the element itself
+     * @return New array with the result
+     */
+    public static double[] convolve(final double[] a, final double[] kernel) {
+        checkArray(a, kernel);
+        double[] out = new double[a.length];
+        convolveRange(a, kernel, out, 0, a.length);
+        return out;
+    }
+
+    /**
+     * Convolves the array with the kernel in parallel in the common pool
+     */
+    public static double[] convolvePar(final double[] a, final double[] kernel) {
+        return convolvePar(a, kernel, ExecutionContext.common());
+    }
+
+    /**
+     * Convolves the array with the kernel in parallel with the pool and cutoff policy of the context
+     *
+     * @param a An input array
+     * @param kernel Weights of odd length 2r + 1, kernel[r] is the weight of the element itself
+     * @param context Execution context of the call
+     * @return New array with the result
+     */
+    public static double[] convolvePar(final double[] a, final double[] kernel, final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = CONVOLVE_PAR.start(always);
+        checkArray(a, kernel);
+        double[] out = new double[a.length];
+        run(context, CONVOLVE_PAR, always, a.length, context.getCutoff(a.length),
+                (lo, hi) -> convolveRange(a, kernel, out, lo, hi));
+        CONVOLVE_PAR.stop(start, a.length);
+        return out;
+    }
+
+    /**
+     * Sequentially convolves the array with the kernel
+     *
+     * @param a An input array
+     * @param kernel Weights of odd length 2r + 1, kernel[r] is the weight of the element itself
+     * @return New array with the result
+     */
+    public static int[] convolve(final int[] a, final int[] kernel) {
+        checkArray(a, kernel);
+        int[] out = new int[a.length];
+        convolveRange(a, kernel, out, 0, a.length);
+        return out;
+    }
+
+    /**
+     * Convolves the array with the kernel in parallel in the common pool
+     */
+    public static int[] convolvePar(final int[] a, final int[] kernel) {
+        return convolvePar(a, kernel, ExecutionContext.common());
+    }
+
+    /**
+     * Convolves the array with the kernel in parallel with the pool and cutoff policy of the context
+     *
+     * @param a An input array
+     * @param kernel Weights of odd length 2r + 1, kernel[r] is the weight of the element itself
+     * @param context Execution context of the call
+     * @return New array with the result
+     */
+    public static int[] convolvePar(final int[] a, final int[] kernel, final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = CONVOLVE_PAR.start(always);
+        checkArray(a, kernel);
+        int[] out = new int[a.length];
+        run(context, CONVOLVE_PAR, always, a.length, context.getCutoff(a.length),
+                (lo, hi) -> convolveRange(a, kernel, out, lo, hi));
+        CONVOLVE_PAR.stop(start, a.length);
+        return out;
+    }
+
+    /* 2D convolution */
+
+    /**
+     * Sequentially convolves the grid with the kernel
+     *
+     * @param a An input grid with rows x cols elements, row by row
+     * @param kernel Weights with k x k elements, k odd, kernel[k / 2][k / 2] is the weight of the element itself
+     * @return New grid with the result
+     */
+    public static double[] convolve2D(final double[] a, final int rows, final int cols, final double[][] kernel) {
+        checkGrid(a, rows, cols);
+        checkKernel2D(kernel);
+        double[] out = new double[a.length];
+        convolveRows(a, rows, cols, kernel, out, 0, rows);
+        return out;
+    }
+
+    /**
+     * Convolves the grid with the kernel in parallel in the common pool
+     */
+    public static double[] convolve2DPar(final double[] a, final int rows, final int cols, final double[][] kernel) {
+        return convolve2DPar(a, rows, cols, kernel, ExecutionContext.common());
+    }
+
+    /**
+     * Convolves the grid with the kernel in parallel with the pool and cutoff policy of the context -
+     * the rows are split until a task has at most the context's cutoff of elements
+     *
+     * @param a An input grid with rows x cols elements, row by row
+     * @param kernel Weights with k x k elements, k odd, kernel[k / 2][k / 2] is the weight of the element itself
+     * @param context Execution context of the call
+     * @return New grid with the result
+     */
+    public static double[] convolve2DPar(final double[] a, final int rows, final int cols, final double[][] kernel,
+                                         final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = CONVOLVE_2D_PAR.start(always);
+        checkGrid(a, rows, cols);
+        checkKernel2D(kernel);
+        double[] out = new double[a.length];
+        run(context, CONVOLVE_2D_PAR, always, rows, cutoffRows(context, rows, cols, Long.MAX_VALUE),
+                (lo, hi) -> convolveRows(a, rows, cols, kernel, out, lo, hi));
+        CONVOLVE_2D_PAR.stop(start, a.length);
+        return out;
+    }
+
+    /**
+     * Sequentially convolves the grid with the kernel
+     *
+     * @param a An input grid with rows x cols elements, row by row
+     * @param kernel Weights with k x k elements, k odd, kernel[k / 2][k / 2] is the weight of the element itself
+     * @return New grid with the result
+     */
+    public static int[] convolve2D(final int[] a, final int rows, final int cols, final int[][] kernel) {
+        checkGrid(a, rows, cols);
+        checkKernel2D(kernel);
+        int[] out = new int[a.length];
+        convolveRows(a, rows, cols, kernel, out, 0, rows);
+        return out;
+    }
+
+    /**
+     * Convolves the grid with the kernel in parallel in the common pool
+     */
+    public static int[] convolve2DPar(final int[] a, final int rows, final int cols, final int[][] kernel) {
+        return convolve2DPar(a, rows, cols, kernel, ExecutionContext.common());
+    }
+
+    /**
+     * Convolves the grid with the kernel in parallel with the pool and cutoff policy of the context -
+     * the rows are split until a task has at most the context's cutoff of elements
+     *
+     * @param a An input grid with rows x cols elements, row by row
+     * @param kernel Weights with k x k elements, k odd, kernel[k / 2][k / 2] is the weight of the element itself
+     * @param context Execution context of the call
+     * @return New grid with the result
+     */
+    public static int[] convolve2DPar(final int[] a, final int rows, final int cols, final int[][] kernel,
+                                      final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = CONVOLVE_2D_PAR.start(always);
+        checkGrid(a, rows, cols);
+        checkKernel2D(kernel);
+        int[] out = new int[a.length];
+        run(context, CONVOLVE_2D_PAR, always, rows, cutoffRows(context, rows, cols, Long.MAX_VALUE),
+                (lo, hi) -> convolveRows(a, rows, cols, kernel, out, lo, hi));
+        CONVOLVE_2D_PAR.stop(start, a.length);
+        return out;
+    }
+
+    /* moving average */
+
+    /**
+     * Sequentially computes the moving average - O(n) for any window, the compensated sum slides along the array
+     *
+     * @param a An input array
+     * @param window Odd number of averaged elements, centered on every element
+     * @return New array with the result
+     */
+    public static double[] movingAverage(final double[] a, final int window) {
+        checkWindow(a, window);
+        double[] out = new double[a.length];
+        movingAverageRange(a, window, out, 0, a.length);
+        return out;
+    }
+
+    /**
+     * Computes the moving average in parallel in the common pool
+     */
+    public static double[] movingAveragePar(final double[] a, final int window) {
+        return movingAveragePar(a, window, ExecutionContext.common());
+    }
+
+    /**
+     * Computes the moving average in parallel with the pool and cutoff policy of the context -
+     * every chunk sums its first window from the halo and then slides the sum
+     *
+     * @param a An input array
+     * @param window Odd number of averaged elements, centered on every element
+     * @param context Execution context of the call
+     * @return New array with the result
+     */
+    public static double[] movingAveragePar(final double[] a, final int window, final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = MOVING_AVERAGE_PAR.start(always);
+        checkWindow(a, window);
+        double[] out = new double[a.length];
+        // a chunk shorter than the window would spend more on its first sum than on sliding
+        long cutoff = Math.max(context.getCutoff(a.length), 4L * window);
+        run(context, MOVING_AVERAGE_PAR, always, a.length, cutoff,
+                (lo, hi) -> movingAverageRange(a, window, out, lo, hi));
+        MOVING_AVERAGE_PAR.stop(start, a.length);
+        return out;
+    }
+
+    /* Jacobi iterations */
+
+    /**
+     * Sequentially runs the steps of a[i] = (a[i - 1] + a[i + 1]) / 2, the first and the last element are fixed.
+     * Every step is one sweep over the array between two buffers.
+     *
+     * @param a An input array, it is not modified
+     * @param steps Number of steps
+     * @return New array with the result
+     */
+    public static double[] jacobi(final double[] a, final int steps) {
+        checkSteps(a, steps, 1);
+        double[] x = a.clone();
+        double[] y = a.clone();
+        for (int s = 0; s < steps; s++) {
+            jacobiRange(x, 0, y, 0, 1, a.length - 1);
+            double[] swap = x;
+            x = y;
+            y = swap;
+        }
+        return x;
+    }
+
+    /**
+     * Runs the steps of the 1D Jacobi iteration in parallel in the common pool
+     */
+    public static double[] jacobiPar(final double[] a, final int steps) {
+        return jacobiPar(a, steps, TIME_BLOCK, ExecutionContext.common());
+    }
+
+    /**
+     * Runs the steps of the 1D Jacobi iteration in parallel with the pool and cutoff policy of the context
+     *
+     * @param a An input array, it is not modified
+     * @param steps Number of steps
+     * @param timeBlock Steps done on a chunk at once, 1 for a sweep over the array per step
+     * @param context Execution context of the call
+     * @return New array with the result, equal to jacobi(a, steps)
+     */
+    public static double[] jacobiPar(final double[] a, final int steps, final int timeBlock,
+                                     final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = JACOBI_PAR.start(always);
+        checkSteps(a, steps, timeBlock);
+        int n = a.length;
+        double[] src = a.clone();
+        double[] dst = a.clone();
+        // the chunk fits in the cache, but is large enough for its halo
+        long cutoff = Math.max(4L * timeBlock, Math.min(context.getCutoff(n), CACHE_ELEMENTS));
+
+        for (int done = 0; done < steps; done += timeBlock) {
+            final int t = Math.min(timeBlock, steps - done);
+            final double[] s = src;
+            final double[] d = dst;
+            run(context, JACOBI_PAR, always, n, cutoff, (lo, hi) -> jacobiChunk(s, d, lo, hi, t));
+            src = d;
+            dst = s;
+        }
+        JACOBI_PAR.stop(start, (long) n * steps);
+        return src;
+    }
+
+    /**
+     * Sequentially runs the steps of the 2D Jacobi iteration - every inner cell gets the mean of its
+     * 4 neighbors, the cells on the border are fixed. Every step is one sweep over the grid between two buffers.
+     *
+     * @param a An input grid with rows x cols elements, row by row, it is not modified
+     * @param steps Number of steps
+     * @return New grid with the result
+     */
+    public static double[] jacobi2D(final double[] a, final int rows, final int cols, final int steps) {
+        checkGrid(a, rows, cols);
+        checkSteps(a, steps, 1);
+        double[] x = a.clone();
+        double[] y = a.clone();
+        for (int s = 0; s < steps; s++) {
+            for (int r = 1; r < rows - 1; r++) {
+                jacobiRow(x, 0, y, 0, r, cols);
+            }
+            double[] swap = x;
+            x = y;
+            y = swap;
+        }
+        return x;
+    }
+
+    /**
+     * Runs the steps of the 2D Jacobi iteration in parallel in the common pool
+     */
+    public static double[] jacobi2DPar(final double[] a, final int rows, final int cols, final int steps) {
+        return jacobi2DPar(a, rows, cols, steps, TIME_BLOCK, ExecutionContext.common());
+    }
+
+    /**
+     * Runs the steps of the 2D Jacobi iteration in parallel with the pool and cutoff policy of the context -
+     * the chunks are bands of rows, with temporal blocking a band has timeBlock halo rows above and below
+     *
+     * @param a An input grid with rows x cols elements, row by row, it is not modified
+     * @param steps Number of steps
+     * @param timeBlock Steps done on a band at once, 1 for a sweep over the grid per step - lowered for
+     *                  wide grids, whose bands would not fit in the cache
+     * @param context Execution context of the call
+     * @return New grid with the result, equal to jacobi2D(a, rows, cols, steps)
+     */
+    public static double[] jacobi2DPar(final double[] a, final int rows, final int cols, final int steps,
+                                       final int timeBlock, final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = JACOBI_2D_PAR.start(always);
+        checkGrid(a, rows, cols);
+        checkSteps(a, steps, timeBlock);
+        double[] src = a.clone();
+        double[] dst = a.clone();
+        // a band of 4 * block rows with its halo of 2 * block rows still fits in the cache
+        final int block = Math.max(1, Math.min(timeBlock, CACHE_ELEMENTS / Math.max(1, 3 * cols)));
+        long cutoff = Math.max(4L * block, cutoffRows(context, rows, cols, CACHE_ELEMENTS));
+
+        for (int done = 0; done < steps; done += block) {
+            final int t = Math.min(block, steps - done);
+            final double[] s = src;
+            final double[] d = dst;
+            run(context, JACOBI_2D_PAR, always, rows, cutoff, (lo, hi) -> jacobiBand(s, d, rows, cols, lo, hi, t));
+            src = d;
+            dst = s;
+        }
+        JACOBI_2D_PAR.stop(start, (long) a.length * steps);
+        return src;
+    }
+
+    /* kernels */
+
+    /**
+     * Convolves the range [lo, hi) - the inner elements, whose window is inside the array, are computed
+     * weight by weight over the whole range, so the loop over the elements has no branches and is vectorized
+     */
+    private static void convolveRange(final double[] a, final double[] kernel, final double[] out,
+                                      final int lo, final int hi) {
+        final int n = a.length;
+        final int r = kernel.length / 2;
+        final int innerLo = Math.min(hi, Math.max(lo, r));
+        final int innerHi = Math.max(innerLo, Math.min(hi, n - r));
+
+        for (int i = lo; i < innerLo; i++)
+            out[i] = clampedSum(a, kernel, i);
+        for (int j = 0; j < kernel.length; j++) {
+            final double w = kernel[j];
+            final int offset = j - r;
+            for (int i = innerLo; i < innerHi; i++) {
+                out[i] += w * a[i + offset];
+            }
+        }
+        for (int i = innerHi; i < hi; i++)
+            out[i] = clampedSum(a, kernel, i);
+    }
+
+    private static double clampedSum(final double[] a, final double[] kernel, final int i) {
+        final int r = kernel.length / 2;
+        double sum = 0;
+        for (int j = 0; j < kernel.length; j++) {
+            sum += kernel[j] * a[clamp(i + j - r, a.length)];
+        }
+        return sum;
+    }
+
+    private static void convolveRange(final int[] a, final int[] kernel, final int[] out,
+                                      final int lo, final int hi) {
+        final int n = a.length;
+        final int r = kernel.length / 2;
+        final int innerLo = Math.min(hi, Math.max(lo, r));
+        final int innerHi = Math.max(innerLo, Math.min(hi, n - r));
+
+        for (int i = lo; i < innerLo; i++)
+            out[i] = clampedSum(a, kernel, i);
+        for (int j = 0; j < kernel.length; j++) {
+            final int w = kernel[j];
+            final int offset = j - r;
+            for (int i = innerLo; i < innerHi; i++) {
+                out[i] += w * a[i + offset];
+            }
+        }
+        for (int i = innerHi; i < hi; i++)
+            out[i] = clampedSum(a, kernel, i);
+    }
+
+    private static int clampedSum(final int[] a, final int[] kernel, final int i) {
+        final int r = kernel.length / 2;
+        int sum = 0;
+        for (int j = 0; j < kernel.length; j++) {
+            sum += kernel[j] * a[clamp(i + j - r, a.length)];
+        }
+        return sum;
+    }
+
+    /**
+     * Convolves the rows [lo, hi) of the grid - every weight adds a shifted source row to the output row,
+     * only the r columns at the left and the right border are clamped
+     */
+    private static void convolveRows(final double[] a, final int rows, final int cols, final double[][] kernel,
+                                     final double[] out, final int lo, final int hi) {
+        final int k = kernel.length;
+        final int r = k / 2;
+        final int innerLo = Math.min(cols, r);
+        final int innerHi = Math.max(innerLo, cols - r);
+
+        for (int row = lo; row < hi; row++) {
+            final int base = row * cols;
+            for (int kr = 0; kr < k; kr++) {
+                final int source = clamp(row + kr - r, rows) * cols;
+                final double[] weights = kernel[kr];
+                for (int kc = 0; kc < k; kc++) {
+                    final double w = weights[kc];
+                    final int offset = kc - r;
+                    for (int c = 0; c < innerLo; c++)
+                        out[base + c] += w * a[source + clamp(c + offset, cols)];
+                    for (int c = innerLo; c < innerHi; c++) {
+                        out[base + c] += w * a[source + c + offset];
+                    }
+                    for (int c = innerHi; c < cols; c++)
+                        out[base + c] += w * a[source + clamp(c + offset, cols)];
+                }
+            }
+        }
+    }
+
+    private static void convolveRows(final int[] a, final int rows, final int cols, final int[][] kernel,
+                                     final int[] out, final int lo, final int hi) {
+        final int k = kernel.length;
+        final int r = k / 2;
+        final int innerLo = Math.min(cols, r);
+        final int innerHi = Math.max(innerLo, cols - r);
+
+        for (int row = lo; row < hi; row++) {
+            final int base = row * cols;
+            for (int kr = 0; kr < k; kr++) {
+                final int source = clamp(row + kr - r, rows) * cols;
+                final int[] weights = kernel[kr];
+                for (int kc = 0; kc < k; kc++) {
+                    final int w = weights[kc];
+                    final int offset = kc - r;
+                    for (int c = 0; c < innerLo; c++)
+                        out[base + c] += w * a[source + clamp(c + offset, cols)];
+                    for (int c = innerLo; c < innerHi; c++) {
+                        out[base + c] += w * a[source + c + offset];
+                    }
+                    for (int c = innerHi; c < cols; c++)
+                        out[base + c] += w * a[source + clamp(c + offset, cols)];
+                }
+            }
+        }
+    }
+
+    /**
+     * Moving average of the range [lo, hi) - the first window is summed from the halo, then every step
+     * adds the element entering the window and subtracts the one leaving it. The rounding errors of
+     * the steps are kept in a compensation term (two-sum), otherwise a large element would leave its
+     * rounding error in the sum of all the following windows. The window is summed again every
+     * RESUM_INTERVAL elements (at the same indexes in every chunk), so the compensation does not drift either.
+     */
+    private static void movingAverageRange(final double[] a, final int window, final double[] out,
+                                           final int lo, final int hi) {
+        if (lo >= hi)
+            return;
+        final int n = a.length;
+        final int r = window / 2;
+        // summing a window costs 'window' adds, spread over at least as many slides
+        final int interval = Math.max(RESUM_INTERVAL, window);
+        double sum = 0;
+        double error = 0;
+        for (int i = lo; i < hi; i++) {
+            if (i == lo || i % interval == 0) {
+                sum = 0;
+                error = 0;
+                for (int j = i - r; j <= i + r; j++) {
+                    final double x = a[clamp(j, n)];
+                    final double t = sum + x;
+                    final double z = t - sum;
+                    error += (sum - (t - z)) + (x - z);
+                    sum = t;
+                }
+                out[i] = (sum + error) / window;
+                continue;
+            }
+            final double in = a[clamp(i + r, n)];
+            double t = sum + in;
+            double z = t - sum;
+            error += (sum - (t - z)) + (in - z);
+            sum = t;
+
+            final double outgoing = -a[clamp(i - r - 1, n)];
+            t = sum + outgoing;
+            z = t - sum;
+            error += (sum - (t - z)) + (outgoing - z);
+            sum = t;
+            out[i] = (sum + error) / window;
+        }
+    }
+
+    /**
+     * One step of the 1D Jacobi iteration on the elements [lo, hi) - the indexes are the indexes in the array,
+     * x and y hold the elements from xOff and yOff on
+     */
+    private static void jacobiRange(final double[] x, final int xOff, final double[] y, final int yOff,
+                                    final int lo, final int hi) {
+        for (int i = lo; i < hi; i++) {
+            y[i - yOff] = (x[i - 1 - xOff] + x[i + 1 - xOff]) * 0.5;
+        }
+    }
+
+    /**
+     * One step of the 2D Jacobi iteration on the inner cells of row r - x and y hold the cells
+     * from xOff and yOff on
+     */
+    private static void jacobiRow(final double[] x, final int xOff, final double[] y, final int yOff,
+                                  final int r, final int cols) {
+        final int base = r * cols;
+        for (int c = base + 1; c < base + cols - 1; c++) {
+            y[c - yOff] = ((x[c - cols - xOff] + x[c + cols - xOff]) + (x[c - 1 - xOff] + x[c + 1 - xOff])) * 0.25;
+        }
+    }
+
+    /**
+     * Runs the steps on the chunk [lo, hi) with a halo of 'steps' elements. The first step reads src,
+     * the steps between go through two local buffers and the last one writes the chunk to dst, so a time block
+     * reads and writes the array once. After step s the local buffer is valid in [haloLo + s, haloHi - s),
+     * except at the borders of the array, which are fixed.
+     */
+    private static void jacobiChunk(final double[] src, final double[] dst, final int lo, final int hi,
+                                    final int steps) {
+        if (lo >= hi)
+            return;
+        final int n = src.length;
+        final int haloLo = Math.max(0, lo - steps);
+        final int haloHi = Math.min(n, hi + steps);
+        final double[] a = steps > 1 ? localBuffer(0, src, n, 1, haloLo, haloHi) : null;
+        final double[] b = steps > 2 ? localBuffer(1, src, n, 1, haloLo, haloHi) : null;
+
+        double[] x = src;
+        int xOff = 0;
+        for (int s = 1; s < steps; s++) {
+            double[] y = s % 2 == 1 ? a : b;
+            jacobiRange(x, xOff, y, haloLo, haloLo == 0 ? 1 : haloLo + s, haloHi == n ? n - 1 : haloHi - s);
+            x = y;
+            xOff = haloLo;
+        }
+        jacobiRange(x, xOff, dst, 0, Math.max(1, lo), Math.min(n - 1, hi));
+    }
+
+    /**
+     * Runs the steps on the rows [lo, hi) with 'steps' halo rows - the 2D version of jacobiChunk
+     */
+    private static void jacobiBand(final double[] src, final double[] dst, final int rows, final int cols,
+                                   final int lo, final int hi, final int steps) {
+        if (lo >= hi)
+            return;
+        final int haloLo = Math.max(0, lo - steps);
+        final int haloHi = Math.min(rows, hi + steps);
+        final double[] a = steps > 1 ? localBuffer(0, src, rows, cols, haloLo, haloHi) : null;
+        final double[] b = steps > 2 ? localBuffer(1, src, rows, cols, haloLo, haloHi) : null;
+
+        double[] x = src;
+        int xOff = 0;
+        for (int s = 1; s < steps; s++) {
+            double[] y = s % 2 == 1 ? a : b;
+            int last = haloHi == rows ? rows - 1 : haloHi - s;
+            for (int r = haloLo == 0 ? 1 : haloLo + s; r < last; r++) {
+                jacobiRow(x, xOff, y, haloLo * cols, r, cols);
+            }
+            x = y;
+            xOff = haloLo * cols;
+        }
+        for (int r = Math.max(1, lo); r < Math.min(rows - 1, hi); r++) {
+            jacobiRow(x, xOff, dst, 0, r, cols);
+        }
+    }
+
+    /**
+     * @param index Index of the scratch buffer of the thread, 0 or 1
+     * @return Local buffer for the rows [lo, hi) of the grid - only the fixed cells are copied: the first
+     * and the last row of the grid and the first and the last column, the other cells are written before they
+     * are read
+     */
+    private static double[] localBuffer(final int index, final double[] a, final int rows, final int cols,
+                                        final int lo, final int hi) {
+        final int length = (hi - lo) * cols;
+        double[][] scratch = SCRATCH.get();
+        double[] buffer = scratch[index];
+        if (buffer.length < length) {
+            buffer = new double[length];
+            if (length <= 4 * CACHE_ELEMENTS)
+                scratch[index] = buffer;
+        }
+        if (lo == 0)
+            System.arraycopy(a, 0, buffer, 0, cols);
+        if (hi == rows)
+            System.arraycopy(a, (rows - 1) * cols, buffer, (hi - 1 - lo) * cols, cols);
+        if (cols > 1) {
+            for (int r = lo; r < hi; r++) {
+                buffer[(r - lo) * cols] = a[r * cols];
+                buffer[(r - lo) * cols + cols - 1] = a[r * cols + cols - 1];
+            }
+        }
+        return buffer;
+    }
+
+    private static int clamp(int i, int n) {
+        return i < 0 ? 0 : (i >= n ? n - 1 : i);
+    }
+
+    /* parallel run */
+
+    /**
+     * @return Max rows of a task - the context's cutoff and the given max of elements divided by the row length
+     */
+    private static long cutoffRows(ExecutionContext context, int rows, int cols, long maxElements) {
+        long elements = (long) rows * cols;
+        return Math.max(1, Math.min(context.getCutoff(elements), maxElements) / Math.max(1, cols));
+    }
+
+    /**
+     * Runs the action on [0, n) as fork/join tasks of at most cutoff units - in the current thread
+     * if there is only one task
+     */
+    private static void run(ExecutionContext context, KernelMetrics.Operation operation, boolean always,
+                            int n, long cutoff, RangeAction action) {
+        operation.tasks(1, always);
+        RangeSplitter task = new RangeSplitter(operation, action, 0, n, cutoff, always);
+        context.invoke(task, n, cutoff);
+    }
+
+    /**
+     * Halves the range until it is not larger than the cutoff, then runs the action
+     */
+    private static class RangeSplitter extends RecursiveAction {
+
+        private final KernelMetrics.Operation operation;
+        private final RangeAction action;
+        private final int lo;
+        private final int hi;
+        private final long cutoff;
+        private final boolean alwaysRecord;
+
+        private RangeSplitter(KernelMetrics.Operation operation, RangeAction action, int lo, int hi, long cutoff,
+                              boolean alwaysRecord) {
+            this.operation = operation;
+            this.action = action;
+            this.lo = lo;
+            this.hi = hi;
+            this.cutoff = cutoff;
+            this.alwaysRecord = alwaysRecord;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                operation.leaf(hi - lo, alwaysRecord);
+                action.apply(lo, hi);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                operation.tasks(2, alwaysRecord);
+                invokeAll(new RangeSplitter(operation, action, lo, mid, cutoff, alwaysRecord),
+                        new RangeSplitter(operation, action, mid, hi, cutoff, alwaysRecord));
+            }
+        }
+    }
+
+    /* checks */
+
+    private static void checkArray(Object a, Object kernel) {
+        if (a == null || kernel == null)
+            throw new NullPointerException("Array and kernel can not be null");
+        int length = kernel instanceof double[] ? ((double[]) kernel).length : ((int[]) kernel).length;
+        if (length % 2 == 0)
+            throw new IllegalArgumentException("Kernel length must be odd");
+    }
+
+    private static void checkKernel2D(Object[] kernel) {
+        if (kernel == null)
+            throw new NullPointerException("Kernel can not be null");
+        if (kernel.length % 2 == 0)
+            throw new IllegalArgumentException("Kernel side must be odd");
+        for (Object row : kernel) {
+            int length = row instanceof double[] ? ((double[]) row).length : ((int[]) row).length;
+            if (length != kernel.length)
+                throw new IllegalArgumentException("Kernel must be square");
+        }
+    }
+
+    private static void checkGrid(Object a, int rows, int cols) {
+        if (a == null)
+            throw new NullPointerException("Grid can not be null");
+        int length = a instanceof double[] ? ((double[]) a).length : ((int[]) a).length;
+        if (rows < 0 || cols < 0 || (long) rows * cols != length)
+            throw new IllegalArgumentException("Grid must have rows x cols elements");
+    }
+
+    private static void checkWindow(double[] a, int window) {
+        if (a == null)
+            throw new NullPointerException("Array can not be null");
+        if (window < 1 || window % 2 == 0)
+            throw new IllegalArgumentException("Window must be positive and odd");
+    }
+
+    private static void checkSteps(double[] a, int steps, int timeBlock) {
+        if (a == null)
+            throw new NullPointerException("Array can not be null");
+        if (steps < 0)
+            throw new IllegalArgumentException("Number of steps can not be negative");
+        if (timeBlock < 1)
+            throw new IllegalArgumentException("Time block must be positive");
+    }
+}
@@ -0,0 +1,294 @@
+package com.ltcode.forkjoin;
+
+import com.ltcode.execution.CutoffPolicy;
+import com.ltcode.execution.ExecutionContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests of the class Stencil
+ */
+class StencilTest {
+
+    private static Random random;
+    private static int[] LENGTHS;
+    private static ExecutionContext context;
+
+    @BeforeAll
+    static void setUp() {
+        random = new Random();
+        // shorter than the kernels, around the chunk borders of the small cutoff and larger
+        LENGTHS = new int[]{0, 1, 2, 3, 5, 16, 17, 100, 1000, 70_000};
+        context = ExecutionContext.builder().setParallelism(3).setCutoffPolicy(CutoffPolicy.fixed(16)).build();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void convolve() {
+        for (int n : LENGTHS) {
+            for (int kernelLength : new int[]{1, 3, 7}) {
+                double[] a = randomArray(n);
+                double[] kernel = randomArray(kernelLength);
+                double[] expected = naiveConvolve(a, kernel);
+
+                assert Arrays.equals(expected, Stencil.convolve(a, kernel)) : "n: " + n;
+                assert Arrays.equals(expected, Stencil.convolvePar(a, kernel)) : "n: " + n;
+                assert Arrays.equals(expected, Stencil.convolvePar(a, kernel, context)) : "n: " + n;
+
+                int[] ints = randomInts(n);
+                int[] intKernel = randomInts(kernelLength);
+                int[] expectedInts = naiveConvolve(ints, intKernel);
+                assert Arrays.equals(expectedInts, Stencil.convolve(ints, intKernel)) : "n: " + n;
+                assert Arrays.equals(expectedInts, Stencil.convolvePar(ints, intKernel, context)) : "n: " + n;
+            }
+        }
+    }
+
+    @Test
+    void convolve2D() {
+        int[][] shapes = {{0, 0}, {1, 1}, {1, 9}, {9, 1}, {2, 3}, {17, 31}, {100, 64}, {300, 301}};
+        for (int[] shape : shapes) {
+            int rows = shape[0];
+            int cols = shape[1];
+            for (int k : new int[]{1, 3, 5}) {
+                double[] a = randomArray(rows * cols);
+                double[][] kernel = new double[k][];
+                int[] ints = randomInts(rows * cols);
+                int[][] intKernel = new int[k][];
+                for (int i = 0; i < k; i++) {
+                    kernel[i] = randomArray(k);
+                    intKernel[i] = randomInts(k);
+                }
+
+                double[] expected = naiveConvolve2D(a, rows, cols, kernel);
+                assert Arrays.equals(expected, Stencil.convolve2D(a, rows, cols, kernel)) : Arrays.toString(shape);
+                assert Arrays.equals(expected, Stencil.convolve2DPar(a, rows, cols, kernel, context))
+                        : Arrays.toString(shape);
+
+                int[] expectedInts = naiveConvolve2D(ints, rows, cols, intKernel);
+                assert Arrays.equals(expectedInts, Stencil.convolve2D(ints, rows, cols, intKernel))
+                        : Arrays.toString(shape);
+                assert Arrays.equals(expectedInts, Stencil.convolve2DPar(ints, rows, cols, intKernel))
+                        : Arrays.toString(shape);
+            }
+        }
+    }
+
+    @Test
+    void movingAverage() {
+        for (int n : LENGTHS) {
+            for (int window : new int[]{1, 3, 11}) {
+                double[] a = randomArray(n);
+                double[] kernel = new double[window];
+                Arrays.fill(kernel, 1);
+                double[] expected = naiveConvolve(a, kernel);
+                for (int i = 0; i < n; i++)
+                    expected[i] /= window;
+
+                assertClose(expected, Stencil.movingAverage(a, window));
+                assertClose(expected, Stencil.movingAveragePar(a, window));
+                assertClose(expected, Stencil.movingAveragePar(a, window, context));
+            }
+        }
+    }
+
+    @Test
+    void movingAverageDoesNotDrift() {
+        // rare huge elements among tiny ones - a plain sliding sum keeps their rounding errors
+        int n = 1_000_000;
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++)
+            a[i] = random.nextInt(100) == 0 ? (random.nextDouble() * 2 - 1) * 1e12 : random.nextDouble() * 1e-3;
+
+        for (int window : new int[]{1, 11, 101}) {
+            int r = window / 2;
+            double[][] results = {Stencil.movingAverage(a, window), Stencil.movingAveragePar(a, window, context)};
+            for (double[] actual : results) {
+                for (int i = 0; i < n; i++) {
+                    double sum = 0;
+                    double abs = 0;
+                    for (int j = i - r; j <= i + r; j++) {
+                        double x = a[Math.min(n - 1, Math.max(0, j))];
+                        sum += x;
+                        abs += Math.abs(x);
+                    }
+                    // exact up to the magnitude of the window - and of the compensation, ~1e12 * eps^2 per step
+                    assert Math.abs(sum / window - actual[i]) <= 1e-12 * abs / window + 1e-15
+                            : "Window " + window + ", element " + i + ": " + sum / window + " != " + actual[i];
+                }
+            }
+        }
+    }
+
+    @Test
+    void jacobi() {
+        // the heat flows from the fixed right border
+        double[] a = {0, 0, 0, 0, 1};
+        assert Arrays.equals(new double[]{0, 0, 0, 0.5, 1}, Stencil.jacobi(a, 1));
+        assert Arrays.equals(new double[]{0, 0, 0.25, 0.5, 1}, Stencil.jacobi(a, 2));
+        assert Arrays.equals(new double[]{0, 0, 0, 0, 1}, a) : "Input array was modified";
+
+        for (int n : LENGTHS) {
+            for (int steps : new int[]{0, 1, 5, 8, 21}) {
+                double[] array = randomArray(n);
+                double[] expected = Stencil.jacobi(array, steps);
+                // temporally blocked results are the same - every cell is computed in the same order
+                assert Arrays.equals(expected, Stencil.jacobiPar(array, steps)) : "n: " + n + ", steps: " + steps;
+                for (int timeBlock : new int[]{1, 3, 8, 32}) {
+                    assert Arrays.equals(expected, Stencil.jacobiPar(array, steps, timeBlock, context))
+                            : "n: " + n + ", steps: " + steps + ", time block: " + timeBlock;
+                }
+            }
+        }
+    }
+
+    @Test
+    void jacobi2D() {
+        // the mean of the 4 neighbors, the border is fixed
+        double[] a = {
+                0, 4, 0,
+                0, 0, 0,
+                0, 0, 0};
+        assert Arrays.equals(new double[]{0, 4, 0, 0, 1, 0, 0, 0, 0}, Stencil.jacobi2D(a, 3, 3, 1));
+
+        int[][] shapes = {{0, 0}, {1, 5}, {5, 1}, {2, 2}, {3, 3}, {17, 31}, {100, 64}, {300, 301}};
+        for (int[] shape : shapes) {
+            int rows = shape[0];
+            int cols = shape[1];
+            for (int steps : new int[]{0, 1, 7, 20}) {
+                double[] grid = randomArray(rows * cols);
+                double[] expected = naiveJacobi2D(grid, rows, cols, steps);
+                assert Arrays.equals(expected, Stencil.jacobi2D(grid, rows, cols, steps)) : Arrays.toString(shape);
+                assert Arrays.equals(expected, Stencil.jacobi2DPar(grid, rows, cols, steps)) : Arrays.toString(shape);
+                for (int timeBlock : new int[]{1, 4, 8}) {
+                    assert Arrays.equals(expected, Stencil.jacobi2DPar(grid, rows, cols, steps, timeBlock, context))
+                            : Arrays.toString(shape) + ", steps: " + steps + ", time block: " + timeBlock;
+                }
+            }
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        try {
+            Stencil.convolve(new double[3], new double[2]);
+            assert false : "Even kernel accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Stencil.convolve2D(new double[6], 2, 2, new double[][]{{1}});
+            assert false : "Invalid grid accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Stencil.convolve2D(new int[4], 2, 2, new int[][]{{1, 2, 3}, {1, 2, 3}, {1, 2}});
+            assert false : "Not square kernel accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Stencil.movingAverage(new double[3], 2);
+            assert false : "Even window accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Stencil.jacobiPar(new double[3], 1, 0, context);
+            assert false : "Zero time block accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Stencil.jacobi(null, 1);
+            assert false : "Null array accepted";
+        } catch (NullPointerException ignored) {
+        }
+    }
+
+    // HELPER METHODS
+
+    private static double[] naiveConvolve(double[] a, double[] kernel) {
+        int n = a.length;
+        int r = kernel.length / 2;
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < kernel.length; j++)
+                sum += kernel[j] * a[Math.min(n - 1, Math.max(0, i + j - r))];
+            out[i] = sum;
+        }
+        return out;
+    }
+
+    private static int[] naiveConvolve(int[] a, int[] kernel) {
+        int n = a.length;
+        int r = kernel.length / 2;
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < kernel.length; j++)
+                out[i] += kernel[j] * a[Math.min(n - 1, Math.max(0, i + j - r))];
+        return out;
+    }
+
+    private static double[] naiveConvolve2D(double[] a, int rows, int cols, double[][] kernel) {
+        int r = kernel.length / 2;
+        double[] out = new double[rows * cols];
+        for (int row = 0; row < rows; row++)
+            for (int c = 0; c < cols; c++)
+                for (int kr = 0; kr < kernel.length; kr++)
+                    for (int kc = 0; kc < kernel.length; kc++)
+                        out[row * cols + c] += kernel[kr][kc] * a[Math.min(rows - 1, Math.max(0, row + kr - r)) * cols
+                                + Math.min(cols - 1, Math.max(0, c + kc - r))];
+        return out;
+    }
+
+    private static int[] naiveConvolve2D(int[] a, int rows, int cols, int[][] kernel) {
+        int r = kernel.length / 2;
+        int[] out = new int[rows * cols];
+        for (int row = 0; row < rows; row++)
+            for (int c = 0; c < cols; c++)
+                for (int kr = 0; kr < kernel.length; kr++)
+                    for (int kc = 0; kc < kernel.length; kc++)
+                        out[row * cols + c] += kernel[kr][kc] * a[Math.min(rows - 1, Math.max(0, row + kr - r)) * cols
+                                + Math.min(cols - 1, Math.max(0, c + kc - r))];
+        return out;
+    }
+
+    private static double[] naiveJacobi2D(double[] a, int rows, int cols, int steps) {
+        double[] x = a.clone();
+        for (int s = 0; s < steps; s++) {
+            double[] y = x.clone();
+            for (int r = 1; r < rows - 1; r++)
+                for (int c = 1; c < cols - 1; c++)
+                    y[r * cols + c] = ((x[(r - 1) * cols + c] + x[(r + 1) * cols + c])
+                            + (x[r * cols + c - 1] + x[r * cols + c + 1])) * 0.25;
+            x = y;
+        }
+        return x;
+    }
+
+    private static void assertClose(double[] expected, double[] actual) {
+        assert expected.length == actual.length;
+        for (int i = 0; i < expected.length; i++)
+            assert Math.abs(expected[i] - actual[i]) <= 1e-9 : "Element " + i + ": " + expected[i] + " != " + actual[i];
+    }
+
+    private static double[] randomArray(int n) {
+        double[] array = new double[n];
+        for (int i = 0; i < n; i++)
+            array[i] = random.nextDouble() * 2 - 1;
+        return array;
+    }
+
+    private static int[] randomInts(int n) {
+        int[] array = new int[n];
+        for (int i = 0; i < n; i++)
+            array[i] = random.nextInt(21) - 10;
+        return array;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ltcode.liveness;
+
+/**
+ * The way a philosopher picks up both of his chopsticks - the same problem as locking
+ * a pair of shared resources. Philosopher i uses the chopsticks i (left) and (i + 1) % N (right):
+ *
+ *              P0
+ *          C0      C1
+ *       P4            P1
+ *        C4          C2
+ *          P3  C3  P2
+ *
+ * Implementations must guarantee that two neighbors never eat at the same time and that
+ * the philosophers can not deadlock. They differ in throughput, latency and fairness,
+ * which can be measured with PhilosophersBenchmark.
+ */
+public interface AcquisitionStrategy {
+
+    /**
+     * Waits until the philosopher holds both of his chopsticks
+     *
+     * @param philosopher - index of the philosopher
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    void acquire(int philosopher) throws InterruptedException;
+
+    /**
+     * Puts down both chopsticks of the philosopher - called by the thread which acquired them
+     *
+     * @param philosopher - index of the philosopher
+     */
+    void release(int philosopher);
+
+    /**
+     * @return Short name used in reports
+     */
+    String getName();
+
+    /**
+     * Chopsticks are objects with monitors (wait/notify), taken in the global order
+     */
+    static AcquisitionStrategy monitor(int philosophers) {
+        return new MonitorStrategy(philosophers);
+    }
+
+    /**
+     * Chopsticks are taken in the global order - the lower index first,
+     * so there is no cycle of philosophers waiting for each other
+     */
+    static AcquisitionStrategy globalOrder(int philosophers) {
+        return new GlobalOrderStrategy(philosophers);
+    }
+
+    /**
+     * Global order strategy recording the contention of every chopstick to the metrics
+     */
+    static AcquisitionStrategy globalOrder(int philosophers, ContentionMetrics metrics) {
+        if (metrics == null)
+            throw new NullPointerException("Metrics can not be null");
+        return new GlobalOrderStrategy(philosophers, metrics, false);
+    }
+
+    /**
+     * Global order strategy with fair locks - each chopstick is granted to its waiters
+     * in the order of their requests, which costs a context switch on every hand-off
+     */
+    static AcquisitionStrategy globalOrderFair(int philosophers) {
+        return new GlobalOrderStrategy(philosophers, null, true);
+    }
+
+    /**
+     * Starvation-free strategy - the hungry philosopher who waits longer has the priority
+     * over his neighbors, even if the chopstick they want is free
+     */
+    static AcquisitionStrategy fairTicket(int philosophers) {
+        return new TicketStrategy(philosophers);
+    }
+
+    /**
+     * The second chopstick is only tried - on failure the first one is put down,
+     * and the philosopher backs off for a random, exponentially growing time
+     */
+    static AcquisitionStrategy tryLockWithBackoff(int philosophers) {
+        return new TryLockBackoffStrategy(philosophers);
+    }
+
+    /**
+     * At most N - 1 philosophers may reach for the chopsticks at the same time,
+     * so at least one of them always gets both
+     */
+    static AcquisitionStrategy arbiter(int philosophers) {
+        return new ArbiterStrategy(philosophers);
+    }
+
+    /**
+     * Chandy-Misra solution - chopsticks are clean or dirty and are passed only
+     * when dirty, which gives priority to the philosopher who waited longer
+     */
+    static AcquisitionStrategy chandyMisra(int philosophers) {
+        return new ChandyMisraStrategy(philosophers);
+    }
+
+    /**
+     * Chopsticks are resources of an OrderedLockManager with 4 stripes per philosopher
+     */
+    static AcquisitionStrategy lockManager(int philosophers) {
+        return new LockManagerStrategy(philosophers, new OrderedLockManager(4 * philosophers));
+    }
+
+    /**
+     * Chopsticks are bits of atomic words - both are claimed with one CAS, without locks
+     */
+    static AcquisitionStrategy atomicTable(int philosophers) {
+        return new ChopstickTable(philosophers);
+    }
+}
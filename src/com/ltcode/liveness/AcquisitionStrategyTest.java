@@ -0,0 +1,151 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntFunction;
+
+/**
+ * Tests of the implementations of AcquisitionStrategy
+ */
+class AcquisitionStrategyTest {
+
+    static int MEALS;
+    static List<IntFunction<AcquisitionStrategy>> strategies;
+
+    @BeforeAll
+    static void setUp() {
+        MEALS = 2000;
+        strategies = List.of(
+                AcquisitionStrategy::globalOrder,
+                AcquisitionStrategy::tryLockWithBackoff,
+                AcquisitionStrategy::arbiter,
+                AcquisitionStrategy::chandyMisra,
+                AcquisitionStrategy::monitor,
+                AcquisitionStrategy::atomicTable,
+                n -> new ChopstickTable(n, 4),
+                AcquisitionStrategy::lockManager,
+                AcquisitionStrategy::globalOrderFair,
+                AcquisitionStrategy::fairTicket,
+                n -> new LockManagerStrategy(n, new OrderedLockManager(2)));
+    }
+
+    @Test
+    void twoPhilosophers() throws InterruptedException {
+        for (IntFunction<AcquisitionStrategy> factory : strategies) {
+            dine(factory.apply(2), 2);
+        }
+    }
+
+    @Test
+    void fivePhilosophers() throws InterruptedException {
+        for (IntFunction<AcquisitionStrategy> factory : strategies) {
+            dine(factory.apply(5), 5);
+        }
+    }
+
+    @Test
+    void manyPhilosophers() throws InterruptedException {
+        for (IntFunction<AcquisitionStrategy> factory : strategies) {
+            dine(factory.apply(32), 32);
+        }
+    }
+
+    @Test
+    void atomicTableAcrossWords() throws InterruptedException {
+        // pairs of 2 of every 3 philosophers lie in two words
+        dine(new ChopstickTable(7, 3), 7);
+        dine(new ChopstickTable(130), 130);
+    }
+
+    @Test
+    void atomicTableTryAcquire() {
+        ChopstickTable table = new ChopstickTable(5, 2);
+        boolean acquired = table.tryAcquire(1);
+        assert acquired;
+        assert table.isTaken(1) && table.isTaken(2);
+        acquired = table.tryAcquire(0);
+        assert !acquired;
+        acquired = table.tryAcquire(2);
+        assert !acquired;
+        // failed claim of the pair crossing words must not keep the first chopstick
+        assert !table.isTaken(0) && !table.isTaken(3);
+        acquired = table.tryAcquire(3);
+        assert acquired;
+        table.release(1);
+        acquired = table.tryAcquire(0);
+        assert acquired;
+        assert !table.isTaken(2);
+    }
+
+    @Test
+    void acquireCanBeInterrupted() throws InterruptedException {
+        for (IntFunction<AcquisitionStrategy> factory : strategies) {
+            AcquisitionStrategy strategy = factory.apply(3);
+            strategy.acquire(0);
+
+            AtomicInteger interrupted = new AtomicInteger();
+            Thread neighbor = new Thread(() -> {
+                try {
+                    strategy.acquire(1);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+            });
+            neighbor.start();
+            Thread.sleep(50);
+            neighbor.interrupt();
+            neighbor.join(TimeUnit.SECONDS.toMillis(5));
+
+            assert interrupted.get() == 1 : strategy.getName() + " did not stop waiting";
+            strategy.release(0);
+        }
+    }
+
+    /**
+     * Every philosopher eats MEALS times - checks that no chopstick is used by two
+     * philosophers at once and that all of them finish
+     */
+    private void dine(AcquisitionStrategy strategy, int philosophers) throws InterruptedException {
+        AtomicIntegerArray users = new AtomicIntegerArray(philosophers);
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger meals = new AtomicInteger();
+        Thread[] threads = new Thread[philosophers];
+
+        for (int i = 0; i < philosophers; i++) {
+            int p = i;
+            int left = p;
+            int right = (p + 1) % philosophers;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int m = 0; m < MEALS; m++) {
+                        strategy.acquire(p);
+                        if (users.incrementAndGet(left) != 1 | users.incrementAndGet(right) != 1)
+                            conflicts.incrementAndGet();
+                        Thread.onSpinWait();
+                        users.decrementAndGet(left);
+                        users.decrementAndGet(right);
+                        strategy.release(p);
+                        meals.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+            assert !thread.isAlive() : strategy.getName() + " did not finish - deadlock?";
+        }
+
+        assert conflicts.get() == 0 : strategy.getName() + " let neighbors eat together";
+        assert meals.get() == philosophers * MEALS;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A waiter (semaphore) lets at most N - 1 philosophers to the table. With one
+ * seat empty the cycle of waiting philosophers can not close, so everybody
+ * may pick the left chopstick first.
+ */
+final class ArbiterStrategy implements AcquisitionStrategy {
+
+    private final ReentrantLock[] chopsticks;
+    private final Semaphore seats;
+
+    ArbiterStrategy(int philosophers) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        chopsticks = new ReentrantLock[philosophers];
+        for (int i = 0; i < philosophers; i++) {
+            chopsticks[i] = new ReentrantLock();
+        }
+        seats = new Semaphore(philosophers - 1);
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        ReentrantLock left = chopsticks[philosopher];
+        ReentrantLock right = chopsticks[(philosopher + 1) % chopsticks.length];
+
+        seats.acquire();
+        try {
+            left.lockInterruptibly();
+            try {
+                right.lockInterruptibly();
+            } catch (InterruptedException e) {
+                left.unlock();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            seats.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(int philosopher) {
+        chopsticks[(philosopher + 1) % chopsticks.length].unlock();
+        chopsticks[philosopher].unlock();
+        seats.release();
+    }
+
+    @Override
+    public String getName() {
+        return "arbiter";
+    }
+}
@@ -0,0 +1,118 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chandy-Misra solution for shared memory. Every chopstick always belongs to one of its
+ * two philosophers and is clean or dirty:
+ *
+ *     - at the start every chopstick is dirty and belongs to the neighbor with the lower index
+ *     - a hungry philosopher takes a chopstick from his neighbor only if it is dirty
+ *       and the neighbor is not eating, and the chopstick becomes clean
+ *     - clean chopsticks are kept until their owner has eaten
+ *     - after eating both chopsticks become dirty
+ *
+ * So a philosopher who has just eaten loses to a hungry neighbor, the graph of
+ * priorities stays acyclic and nobody can deadlock or starve.
+ * The original algorithm passes request tokens between the neighbors - here the hungry
+ * philosopher checks the state of the chopstick himself and waits for its change.
+ */
+final class ChandyMisraStrategy implements AcquisitionStrategy {
+
+    private final Chopstick[] chopsticks;
+
+    ChandyMisraStrategy(int philosophers) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        chopsticks = new Chopstick[philosophers];
+        for (int i = 0; i < philosophers; i++) {
+            // chopstick i lies between the philosophers i - 1 and i
+            int owner = i == 0 ? 0 : i - 1;
+            chopsticks[i] = new Chopstick(i, owner);
+        }
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        Chopstick left = chopsticks[philosopher];
+        Chopstick right = chopsticks[(philosopher + 1) % chopsticks.length];
+        Chopstick lower = left.index < right.index ? left : right;
+        Chopstick higher = left.index < right.index ? right : left;
+
+        while (true) {
+            lower.take(philosopher);
+            higher.take(philosopher);
+
+            // a dirty chopstick could have been taken while waiting for the other one
+            lower.lock.lock();
+            higher.lock.lock();
+            try {
+                if (lower.owner == philosopher && higher.owner == philosopher) {
+                    lower.inUse = true;
+                    higher.inUse = true;
+                    return;
+                }
+            } finally {
+                higher.lock.unlock();
+                lower.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void release(int philosopher) {
+        chopsticks[philosopher].putDown();
+        chopsticks[(philosopher + 1) % chopsticks.length].putDown();
+    }
+
+    @Override
+    public String getName() {
+        return "chandy-misra";
+    }
+
+    private static class Chopstick {
+
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private int owner;
+        private boolean dirty = true;
+        private boolean inUse;
+
+        private Chopstick(int index, int owner) {
+            this.index = index;
+            this.owner = owner;
+        }
+
+        /**
+         * Waits until the philosopher owns the chopstick
+         */
+        private void take(int philosopher) throws InterruptedException {
+            lock.lock();
+            try {
+                while (owner != philosopher) {
+                    if (dirty && !inUse) {
+                        owner = philosopher;
+                        dirty = false;
+                    } else {
+                        changed.await();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void putDown() {
+            lock.lock();
+            try {
+                inUse = false;
+                dirty = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free table of chopsticks - the state of every chopstick is one bit of an AtomicLong word,
+ * so a philosopher claims both of his chopsticks with a single CAS:
+ *
+ *     word:   ... 0 0 1 1 0 0 0 1 1 0
+ *                     \_/       \_/
+ *                    eating    eating
+ *
+ * There are no monitors and no lock objects - a free pair is taken by one CAS and put down by another.
+ * A philosopher who finds a chopstick taken spins, then parks, and is unparked by the neighbor
+ * who puts the chopstick down.
+ *
+ * With many philosophers the bits are striped over several words, each on its own cache line,
+ * so philosophers at distant seats do not compete for one word. Only a pair crossing two words
+ * (and the last philosopher's pair) needs two CASes - the word with the lower index is claimed first,
+ * so like GlobalOrderStrategy it can not deadlock.
+ */
+public final class ChopstickTable implements AcquisitionStrategy {
+
+    // spinning only helps if the neighbor runs on another CPU
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // 8 longs = 64 bytes, the usual size of a cache line
+    private static final int PADDING = 8;
+
+    private final int philosophers;
+    private final int chopsticksPerWord;
+    private final AtomicLongArray words;
+    private final AtomicReferenceArray<Thread> waiters;
+
+    /**
+     * Table with all chopsticks of up to 64 philosophers in one word
+     *
+     * @param philosophers - number of philosophers and chopsticks
+     */
+    public ChopstickTable(int philosophers) {
+        this(philosophers, 64);
+    }
+
+    /**
+     * @param philosophers      - number of philosophers and chopsticks
+     * @param chopsticksPerWord - number of chopsticks in one word (stripe), between 2 and 64
+     */
+    public ChopstickTable(int philosophers, int chopsticksPerWord) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        if (chopsticksPerWord < 2 || chopsticksPerWord > 64)
+            throw new IllegalArgumentException("Number of chopsticks in a word must be between 2 and 64");
+        this.philosophers = philosophers;
+        this.chopsticksPerWord = chopsticksPerWord;
+        int wordCount = (philosophers + chopsticksPerWord - 1) / chopsticksPerWord;
+        this.words = new AtomicLongArray(wordCount * PADDING);
+        this.waiters = new AtomicReferenceArray<>(philosophers);
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        int left = philosopher;
+        int right = (philosopher + 1) % philosophers;
+        int first = Math.min(left, right);
+        int second = Math.max(left, right);
+
+        if (wordOf(first) == wordOf(second)) {
+            claim(philosopher, wordOf(first), bitOf(first) | bitOf(second));
+        } else {
+            claim(philosopher, wordOf(first), bitOf(first));
+            try {
+                claim(philosopher, wordOf(second), bitOf(second));
+            } catch (InterruptedException e) {
+                clear(wordOf(first), bitOf(first));
+                wakeNeighbors(philosopher);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Tries to take both chopsticks without waiting
+     *
+     * @return True if the philosopher holds both chopsticks
+     */
+    public boolean tryAcquire(int philosopher) {
+        int left = philosopher;
+        int right = (philosopher + 1) % philosophers;
+        int first = Math.min(left, right);
+        int second = Math.max(left, right);
+
+        if (wordOf(first) == wordOf(second))
+            return tryClaim(wordOf(first), bitOf(first) | bitOf(second));
+        if (!tryClaim(wordOf(first), bitOf(first)))
+            return false;
+        if (tryClaim(wordOf(second), bitOf(second)))
+            return true;
+        clear(wordOf(first), bitOf(first));
+        return false;
+    }
+
+    @Override
+    public void release(int philosopher) {
+        int left = philosopher;
+        int right = (philosopher + 1) % philosophers;
+        if (wordOf(left) == wordOf(right)) {
+            clear(wordOf(left), bitOf(left) | bitOf(right));
+        } else {
+            clear(wordOf(left), bitOf(left));
+            clear(wordOf(right), bitOf(right));
+        }
+        wakeNeighbors(philosopher);
+    }
+
+    /**
+     * @return True if the chopstick is taken at the moment
+     */
+    public boolean isTaken(int chopstick) {
+        return (words.get(wordOf(chopstick)) & bitOf(chopstick)) != 0;
+    }
+
+    @Override
+    public String getName() {
+        return chopsticksPerWord == 64 ? "atomic-table" : "atomic-table/" + chopsticksPerWord;
+    }
+
+    /**
+     * Sets the bits of the mask in the word - spins, then parks while any of them is set
+     */
+    private void claim(int philosopher, int word, long mask) throws InterruptedException {
+        int spins = 0;
+        while (!tryClaim(word, mask)) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (++spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                // register first, then check again - the neighbor clears the bits first, then looks for waiters
+                waiters.set(philosopher, Thread.currentThread());
+                if ((words.get(word) & mask) != 0)
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                waiters.set(philosopher, null);
+            }
+        }
+    }
+
+    private boolean tryClaim(int word, long mask) {
+        long state = words.get(word);
+        while ((state & mask) == 0) {
+            if (words.compareAndSet(word, state, state | mask))
+                return true;
+            state = words.get(word);
+        }
+        return false;
+    }
+
+    private void clear(int word, long mask) {
+        long state;
+        do {
+            state = words.get(word);
+        } while (!words.compareAndSet(word, state, state & ~mask));
+    }
+
+    /**
+     * Unparks the neighbors sharing the chopsticks of the philosopher
+     */
+    private void wakeNeighbors(int philosopher) {
+        unpark(waiters.get((philosopher + philosophers - 1) % philosophers));
+        unpark(waiters.get((philosopher + 1) % philosophers));
+    }
+
+    private static void unpark(Thread thread) {
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    private int wordOf(int chopstick) {
+        return chopstick / chopsticksPerWord * PADDING;
+    }
+
+    private long bitOf(int chopstick) {
+        return 1L << (chopstick % chopsticksPerWord);
+    }
+}
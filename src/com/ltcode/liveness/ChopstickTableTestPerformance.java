@@ -0,0 +1,55 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the lock-free ChopstickTable with chopsticks guarded by monitors
+ *
+ * No tests for correctness are included in this class - you can find them in the class: AcquisitionStrategyTest
+ */
+class ChopstickTableTestPerformance {
+
+    static int DURATION_MILLIS;
+    static int[] PHILOSOPHERS;
+    static List<IntFunction<AcquisitionStrategy>> strategies;
+
+    @BeforeAll
+    static void setUp() {
+        DURATION_MILLIS = 300;
+        PHILOSOPHERS = new int[]{5, 16, 64, 256, 1024};
+        strategies = List.of(
+                AcquisitionStrategy::monitor,
+                AcquisitionStrategy::globalOrder,
+                AcquisitionStrategy::atomicTable,
+                n -> new ChopstickTable(n, 8));
+    }
+
+    @Test
+    void shortMeals() throws InterruptedException {
+        compare(1, 1);
+    }
+
+    @Test
+    void longMeals() throws InterruptedException {
+        compare(20, 20);
+    }
+
+    private void compare(long thinkMicros, long eatMicros) throws InterruptedException {
+        System.out.printf("think %dus, eat %dus%n", thinkMicros, eatMicros);
+        System.out.println(PhilosophersBenchmark.Result.header());
+        for (int philosophers : PHILOSOPHERS) {
+            PhilosophersBenchmark benchmark = new PhilosophersBenchmark(philosophers)
+                    .setDuration(DURATION_MILLIS, TimeUnit.MILLISECONDS)
+                    .setWorkload(thinkMicros, eatMicros, TimeUnit.MICROSECONDS);
+            for (IntFunction<AcquisitionStrategy> strategy : strategies) {
+                System.out.println(benchmark.run(strategy));
+            }
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,415 @@
+package com.ltcode.liveness;
+
+import jdk.jfr.EventType;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contention metrics of locked resources - finds hot locks under real load without a profiler.
+ *
+ * For every resource it records:
+ *     acquisitions - how many times it was locked
+ *     blocked time - histogram of the times from asking for the lock to getting it
+ *     hand-offs    - how many times it was locked by another thread than the previous owner
+ *
+ * For every thread it records the histogram of the times it held the resources.
+ * Long waits and holds are also emitted as JFR events (LockContentionEvent, LockHoldEvent),
+ * so they can be seen on a timeline in JDK Mission Control.
+ *
+ * Recording does not lock and allocates only the first time a thread releases a resource and,
+ * while a JFR recording has the events enabled, for every emitted event. Threads that terminated
+ * are merged into one 'terminated threads' entry once more than 1024 threads were seen.
+ *
+ * Usage:
+ *     ContentionMetrics metrics = new ContentionMetrics();
+ *     ReentrantLock lock = metrics.newLock("orders");                  // for locks
+ *     ContentionMetrics.Resource resource = metrics.newResource("C1"); // for monitors, see Resource
+ *     ...
+ *     System.out.println(metrics.snapshot());
+ */
+public class ContentionMetrics {
+
+    // enabled only while a recording has the event enabled
+    private static final EventType CONTENTION_EVENT = EventType.getEventType(LockContentionEvent.class);
+    private static final EventType HOLD_EVENT = EventType.getEventType(LockHoldEvent.class);
+    // number of kept threads after which the terminated ones are merged
+    private static final int MAX_THREADS = 1024;
+
+    private final Queue<Resource> resources = new ConcurrentLinkedQueue<>();
+    private final Queue<ThreadHolds> threads = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ThreadHolds terminated = new ThreadHolds(null, "terminated threads", -1);
+    private final ThreadLocal<ThreadHolds> currentThread = ThreadLocal.withInitial(this::registerThread);
+    private final long eventThresholdNanos;
+
+    /**
+     * Metrics emitting JFR events for waits and holds longer than 10 us
+     */
+    public ContentionMetrics() {
+        this(10, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @param eventThreshold - min time of a wait or hold emitted as a JFR event
+     * @param unit           - unit of the time
+     */
+    public ContentionMetrics(long eventThreshold, TimeUnit unit) {
+        if (eventThreshold < 0)
+            throw new IllegalArgumentException("Threshold can not be negative");
+        this.eventThresholdNanos = unit.toNanos(eventThreshold);
+    }
+
+    /**
+     * @param name - name of the resource in the reports
+     * @return New resource recorded by these metrics
+     */
+    public Resource newResource(String name) {
+        if (name == null)
+            throw new NullPointerException("Name can not be null");
+        Resource resource = new Resource(name);
+        resources.add(resource);
+        return resource;
+    }
+
+    /**
+     * @param name - name of the lock in the reports
+     * @return New non-fair lock recorded by these metrics
+     */
+    public MeteredLock newLock(String name) {
+        return new MeteredLock(newResource(name), false);
+    }
+
+    /**
+     * @param name - name of the lock in the reports
+     * @param fair - true if the lock should be granted in the order of the requests
+     * @return New lock recorded by these metrics
+     */
+    public MeteredLock newLock(String name, boolean fair) {
+        return new MeteredLock(newResource(name), fair);
+    }
+
+    /**
+     * @return Copy of the current values - resources with the longest total blocked time first
+     */
+    public Snapshot snapshot() {
+        List<ResourceStats> resourceStats = new ArrayList<>();
+        for (Resource resource : resources) {
+            LatencyHistogram blocked = new LatencyHistogram();
+            blocked.add(resource.blocked);
+            resourceStats.add(new ResourceStats(resource.name, resource.acquisitions.get(),
+                    resource.handOffs.get(), blocked));
+        }
+        resourceStats.sort(Comparator.comparingDouble(ResourceStats::getTotalBlockedNanos).reversed());
+
+        List<ThreadStats> threadStats = new ArrayList<>();
+        for (ThreadHolds thread : threads) {
+            LatencyHistogram held = new LatencyHistogram();
+            held.add(thread.held);
+            threadStats.add(new ThreadStats(thread.name, thread.id, held));
+        }
+        if (terminated.held.getCount() > 0) {
+            LatencyHistogram held = new LatencyHistogram();
+            held.add(terminated.held);
+            threadStats.add(new ThreadStats(terminated.name, terminated.id, held));
+        }
+        return new Snapshot(resourceStats, threadStats);
+    }
+
+    /**
+     * Forgets all recorded values, the resources stay registered
+     */
+    public void reset() {
+        for (Resource resource : resources) {
+            resource.acquisitions.set(0);
+            resource.handOffs.set(0);
+            resource.blocked.reset();
+        }
+        for (ThreadHolds thread : threads) {
+            thread.held.reset();
+        }
+        terminated.held.reset();
+    }
+
+    private ThreadHolds registerThread() {
+        Thread thread = Thread.currentThread();
+        ThreadHolds holds = new ThreadHolds(thread, thread.getName(), thread.getId());
+        threads.add(holds);
+        if (threadCount.incrementAndGet() > MAX_THREADS)
+            mergeTerminatedThreads();
+        return holds;
+    }
+
+    /**
+     * Moves the holds of the terminated threads to the 'terminated threads' entry,
+     * so a pool replacing its threads does not grow the metrics without bound
+     */
+    private void mergeTerminatedThreads() {
+        for (ThreadHolds holds : threads) {
+            Thread thread = holds.thread.get();
+            // removed by one caller only, a terminated thread does not record any more
+            if ((thread == null || !thread.isAlive()) && threads.remove(holds)) {
+                threadCount.decrementAndGet();
+                terminated.held.add(holds.held);
+            }
+        }
+    }
+
+    private static class ThreadHolds {
+
+        private final WeakReference<Thread> thread;
+        private final String name;
+        private final long id;
+        private final LatencyHistogram held = new LatencyHistogram();
+
+        private ThreadHolds(Thread thread, String name, long id) {
+            this.thread = new WeakReference<>(thread);
+            this.name = name;
+            this.id = id;
+        }
+    }
+
+    /**
+     * One recorded resource. Locks of metrics.newLock() record themselves, a monitor
+     * must be recorded by its user:
+     *
+     *     long since = resource.beforeAcquire();
+     *     synchronized (chopstick) {
+     *         resource.acquired(since);
+     *         try {
+     *             ...
+     *         } finally {
+     *             resource.released();
+     *         }
+     *     }
+     */
+    public class Resource {
+
+        private final String name;
+        private final AtomicLong acquisitions = new AtomicLong();
+        private final AtomicLong handOffs = new AtomicLong();
+        private final LatencyHistogram blocked = new LatencyHistogram();
+        // written only by the owner of the resource
+        private volatile long lastOwnerId = -1;
+        private long acquiredAt;
+
+        private Resource(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Time to pass to acquired()
+         */
+        public long beforeAcquire() {
+            return System.nanoTime();
+        }
+
+        /**
+         * Called by the new owner right after it got the resource
+         *
+         * @param since - value returned by beforeAcquire() before waiting for the resource
+         */
+        public void acquired(long since) {
+            long now = System.nanoTime();
+            acquired(now, now - since);
+        }
+
+        /**
+         * Called by MeteredLock when the lock was free at the first try
+         */
+        void acquiredWithoutWaiting() {
+            acquired(System.nanoTime(), 0);
+        }
+
+        private void acquired(long now, long blockedNanos) {
+            acquiredAt = now;
+            acquisitions.incrementAndGet();
+            blocked.record(blockedNanos);
+
+            long ownerId = Thread.currentThread().getId();
+            long previousOwnerId = lastOwnerId;
+            if (previousOwnerId != ownerId) {
+                if (previousOwnerId != -1)
+                    handOffs.incrementAndGet();
+                lastOwnerId = ownerId;
+            }
+
+            if (blockedNanos >= eventThresholdNanos && CONTENTION_EVENT.isEnabled()) {
+                LockContentionEvent event = new LockContentionEvent();
+                event.resource = name;
+                event.blocked = blockedNanos;
+                event.previousOwner = previousOwnerId;
+                event.commit();
+            }
+        }
+
+        /**
+         * Called by the owner right before it releases the resource
+         */
+        public void released() {
+            long heldNanos = System.nanoTime() - acquiredAt;
+            currentThread.get().held.record(heldNanos);
+
+            if (heldNanos >= eventThresholdNanos && HOLD_EVENT.isEnabled()) {
+                LockHoldEvent event = new LockHoldEvent();
+                event.resource = name;
+                event.held = heldNanos;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Values of all resources and threads at one moment
+     */
+    public static class Snapshot {
+
+        private final List<ResourceStats> resources;
+        private final List<ThreadStats> threads;
+
+        private Snapshot(List<ResourceStats> resources, List<ThreadStats> threads) {
+            this.resources = Collections.unmodifiableList(resources);
+            this.threads = Collections.unmodifiableList(threads);
+        }
+
+        /**
+         * @return Resources with the longest total blocked time first
+         */
+        public List<ResourceStats> getResources() {
+            return resources;
+        }
+
+        /**
+         * @return The resource with the given name or null
+         */
+        public ResourceStats getResource(String name) {
+            for (ResourceStats resource : resources) {
+                if (resource.getName().equals(name))
+                    return resource;
+            }
+            return null;
+        }
+
+        /**
+         * @return Threads in the order they first released a resource, merged terminated threads last
+         */
+        public List<ThreadStats> getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return Tables of the resources and the threads
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-20s %10s %10s %12s %10s %10s %10s%n", "resource", "acquired", "hand-offs",
+                    "blocked", "p50", "p99", "max"));
+            for (ResourceStats resource : resources) {
+                LatencyHistogram blocked = resource.getBlocked();
+                sb.append(String.format("%-20s %10d %10d %12s %10s %10s %10s%n", resource.getName(),
+                        resource.getAcquisitions(), resource.getHandOffs(),
+                        LatencyHistogram.format((long) resource.getTotalBlockedNanos()),
+                        LatencyHistogram.format(blocked.getPercentile(50)),
+                        LatencyHistogram.format(blocked.getPercentile(99)),
+                        LatencyHistogram.format(blocked.getMax())));
+            }
+            sb.append(String.format("%n%-20s %10s %10s %10s %10s%n", "thread", "holds", "hold p50", "hold p99", "hold max"));
+            for (ThreadStats thread : threads) {
+                LatencyHistogram held = thread.getHeld();
+                sb.append(String.format("%-20s %10d %10s %10s %10s%n", thread.getName(), held.getCount(),
+                        LatencyHistogram.format(held.getPercentile(50)),
+                        LatencyHistogram.format(held.getPercentile(99)),
+                        LatencyHistogram.format(held.getMax())));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Values of one resource
+     */
+    public static class ResourceStats {
+
+        private final String name;
+        private final long acquisitions;
+        private final long handOffs;
+        private final LatencyHistogram blocked;
+
+        private ResourceStats(String name, long acquisitions, long handOffs, LatencyHistogram blocked) {
+            this.name = name;
+            this.acquisitions = acquisitions;
+            this.handOffs = handOffs;
+            this.blocked = blocked;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        /**
+         * @return Number of acquisitions by another thread than the previous owner
+         */
+        public long getHandOffs() {
+            return handOffs;
+        }
+
+        /**
+         * @return Histogram of the blocked times in nanoseconds
+         */
+        public LatencyHistogram getBlocked() {
+            return blocked;
+        }
+
+        public double getTotalBlockedNanos() {
+            return blocked.getMean() * blocked.getCount();
+        }
+    }
+
+    /**
+     * Values of one thread
+     */
+    public static class ThreadStats {
+
+        private final String name;
+        private final long id;
+        private final LatencyHistogram held;
+
+        private ThreadStats(String name, long id, LatencyHistogram held) {
+            this.name = name;
+            this.id = id;
+            this.held = held;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * @return Histogram of the times the thread held any resource, in nanoseconds
+         */
+        public LatencyHistogram getHeld() {
+            return held;
+        }
+    }
+}
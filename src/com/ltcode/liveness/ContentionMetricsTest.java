@@ -0,0 +1,221 @@
+package com.ltcode.liveness;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of the class ContentionMetrics
+ */
+class ContentionMetricsTest {
+
+    @Test
+    void acquisitionsAndHandOffs() throws InterruptedException {
+        ContentionMetrics metrics = new ContentionMetrics();
+        MeteredLock lock = metrics.newLock("lock");
+
+        for (int i = 0; i < 3; i++) {
+            lock.lock();
+            lock.unlock();
+        }
+        Thread other = new Thread(() -> {
+            lock.lock();
+            lock.unlock();
+        });
+        other.start();
+        other.join();
+        lock.lock();
+        lock.unlock();
+
+        ContentionMetrics.ResourceStats stats = metrics.snapshot().getResource("lock");
+        assert stats.getAcquisitions() == 5;
+        assert stats.getHandOffs() == 2;
+        // nobody waited
+        assert stats.getBlocked().getMax() == 0;
+    }
+
+    @Test
+    void reentrantHoldIsRecordedOnce() {
+        ContentionMetrics metrics = new ContentionMetrics();
+        MeteredLock lock = metrics.newLock("lock");
+
+        lock.lock();
+        lock.lock();
+        boolean locked = lock.tryLock();
+        assert locked;
+        lock.unlock();
+        lock.unlock();
+        lock.unlock();
+
+        ContentionMetrics.Snapshot snapshot = metrics.snapshot();
+        assert snapshot.getResource("lock").getAcquisitions() == 1;
+        assert snapshot.getThreads().size() == 1;
+        assert snapshot.getThreads().get(0).getHeld().getCount() == 1;
+    }
+
+    @Test
+    void fairLockDoesNotBarge() throws InterruptedException {
+        ContentionMetrics metrics = new ContentionMetrics();
+        MeteredLock lock = metrics.newLock("fair", true);
+        List<String> owners = new CopyOnWriteArrayList<>();
+
+        lock.lock();
+        Thread waiter = new Thread(() -> {
+            lock.lock();
+            owners.add("waiter");
+            lock.unlock();
+        });
+        waiter.start();
+        while (!lock.hasQueuedThread(waiter))
+            Thread.sleep(1);
+        // the releasing thread asks again at once, the queued waiter must get the lock first
+        lock.unlock();
+        lock.lock();
+        owners.add("releaser");
+        lock.unlock();
+        waiter.join();
+
+        assert owners.equals(List.of("waiter", "releaser")) : owners;
+        assert metrics.snapshot().getResource("fair").getAcquisitions() == 3;
+    }
+
+    @Test
+    void interruptedThreadDoesNotTakeFreeLock() {
+        MeteredLock lock = new ContentionMetrics().newLock("lock");
+
+        Thread.currentThread().interrupt();
+        try {
+            lock.lockInterruptibly();
+            assert false : "Interrupted thread took the lock";
+        } catch (InterruptedException e) {
+            // expected
+        }
+        assert !lock.isHeldByCurrentThread();
+        assert !Thread.interrupted();
+    }
+
+    @Test
+    void blockedAndHeldTimes() throws InterruptedException {
+        ContentionMetrics metrics = new ContentionMetrics();
+        MeteredLock hot = metrics.newLock("hot");
+        metrics.newLock("cold").lock();
+
+        holdWhileOtherWaits(hot, 50);
+
+        ContentionMetrics.Snapshot snapshot = metrics.snapshot();
+        // sorted by the total blocked time
+        assert snapshot.getResources().get(0).getName().equals("hot");
+        ContentionMetrics.ResourceStats stats = snapshot.getResources().get(0);
+        assert stats.getAcquisitions() == 2;
+        assert stats.getBlocked().getMax() >= TimeUnit.MILLISECONDS.toNanos(30) : stats.getBlocked();
+
+        ContentionMetrics.ThreadStats holder = snapshot.getThreads().stream()
+                .filter(t -> t.getName().equals("holder")).findFirst().orElseThrow();
+        assert holder.getHeld().getMax() >= TimeUnit.MILLISECONDS.toNanos(50);
+        assert snapshot.toString().contains("hot");
+
+        metrics.reset();
+        assert metrics.snapshot().getResource("hot").getAcquisitions() == 0;
+    }
+
+    @Test
+    void monitorResource() throws InterruptedException {
+        ContentionMetrics metrics = new ContentionMetrics();
+        ContentionMetrics.Resource resource = metrics.newResource("monitor");
+        Object monitor = new Object();
+
+        long since = resource.beforeAcquire();
+        synchronized (monitor) {
+            resource.acquired(since);
+            resource.released();
+        }
+        assert metrics.snapshot().getResource("monitor").getAcquisitions() == 1;
+    }
+
+    @Test
+    void terminatedThreadsAreMerged() throws InterruptedException {
+        ContentionMetrics metrics = new ContentionMetrics();
+        MeteredLock lock = metrics.newLock("lock");
+
+        int threads = 2000;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                lock.lock();
+                lock.unlock();
+            });
+            thread.start();
+            thread.join();
+        }
+
+        ContentionMetrics.Snapshot snapshot = metrics.snapshot();
+        assert snapshot.getThreads().size() <= 1025 : snapshot.getThreads().size();
+        // no hold is lost by the merge
+        assert snapshot.getThreads().stream().mapToLong(t -> t.getHeld().getCount()).sum() == threads;
+        assert snapshot.getThreads().get(snapshot.getThreads().size() - 1).getName().equals("terminated threads");
+    }
+
+    @Test
+    void jfrEvents() throws InterruptedException, IOException {
+        ContentionMetrics metrics = new ContentionMetrics(1, TimeUnit.MILLISECONDS);
+        MeteredLock lock = metrics.newLock("recorded");
+        Path file = Files.createTempFile("contention", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(LockContentionEvent.class);
+            recording.enable(LockHoldEvent.class);
+            recording.start();
+            holdWhileOtherWaits(lock, 20);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assert events.stream().anyMatch(e -> e.getEventType().getName().equals("com.ltcode.liveness.LockContention")
+                    && e.getString("resource").equals("recorded")
+                    && e.getLong("blocked") >= TimeUnit.MILLISECONDS.toNanos(1));
+            assert events.stream().anyMatch(e -> e.getEventType().getName().equals("com.ltcode.liveness.LockHold")
+                    && e.getLong("held") >= TimeUnit.MILLISECONDS.toNanos(20));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Thread 'holder' holds the lock for the given time, while thread 'waiter' waits for it
+     */
+    private static void holdWhileOtherWaits(MeteredLock lock, long holdMillis) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                Thread.sleep(holdMillis);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                lock.unlock();
+            }
+        }, "holder");
+        Thread waiter = new Thread(() -> {
+            try {
+                locked.await();
+                lock.lockInterruptibly();
+                lock.unlock();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }, "waiter");
+        holder.start();
+        waiter.start();
+        holder.join();
+        waiter.join();
+    }
+}
@@ -0,0 +1,43 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of recording the contention and prints the hottest chopsticks under load
+ *
+ * No tests for correctness are included in this class - you can find them in the class: ContentionMetricsTest
+ */
+class ContentionMetricsTestPerformance {
+
+    static int DURATION_MILLIS;
+    static int PHILOSOPHERS;
+
+    @BeforeAll
+    static void setUp() {
+        DURATION_MILLIS = 500;
+        PHILOSOPHERS = 16;
+    }
+
+    @Test
+    void overheadOfMetrics() throws InterruptedException {
+        PhilosophersBenchmark benchmark = new PhilosophersBenchmark(PHILOSOPHERS)
+                .setDuration(DURATION_MILLIS, TimeUnit.MILLISECONDS)
+                .setWorkload(5, 5, TimeUnit.MICROSECONDS);
+        ContentionMetrics metrics = new ContentionMetrics();
+
+        PhilosophersBenchmark.Result plain = benchmark.run(AcquisitionStrategy::globalOrder);
+        PhilosophersBenchmark.Result metered = benchmark.run(n -> AcquisitionStrategy.globalOrder(n, metrics));
+
+        System.out.println(PhilosophersBenchmark.Result.header());
+        System.out.println(plain);
+        System.out.println(metered);
+        System.out.printf("overhead of metrics: %.1f%%%n%n", 100 * (1 - metered.getMealsPerSecond() / plain.getMealsPerSecond()));
+
+        ContentionMetrics.Snapshot snapshot = metrics.snapshot();
+        System.out.println(snapshot);
+        assert snapshot.getResources().size() == PHILOSOPHERS;
+    }
+}
@@ -0,0 +1,339 @@
+package com.ltcode.liveness;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Watchdog which polls ThreadMXBean.findDeadlockedThreads() in a daemon thread and reports
+ * every found cycle of threads waiting for each other's locks, with the stacks of the owners:
+ *
+ *     philosopher-0 waits for ReentrantLock$NonfairSync@1b6d3586 held by philosopher-1
+ *     philosopher-1 waits for ReentrantLock$NonfairSync@4554617c held by philosopher-0
+ *
+ * Optionally it recovers by interrupting one thread of the cycle (the victim). It works only when
+ * the victim waits interruptibly - e.g. in ReentrantLock.lockInterruptibly() - and gives up
+ * its locks on interrupt. Threads blocked on 'synchronized' can not be interrupted,
+ * such deadlocks are only reported.
+ *
+ * Usage:
+ *     try (DeadlockWatchdog watchdog = new DeadlockWatchdog(100, TimeUnit.MILLISECONDS)
+ *             .setRecovery(DeadlockWatchdog.YOUNGEST_THREAD)) {
+ *         watchdog.start();
+ *         ...
+ *     }
+ */
+public class DeadlockWatchdog implements AutoCloseable {
+
+    /**
+     * Victim order - the thread started last is interrupted
+     */
+    public static final Comparator<ThreadInfo> YOUNGEST_THREAD = Comparator.comparingLong(ThreadInfo::getThreadId);
+
+    /**
+     * Victim order - the thread holding the fewest locks is interrupted, it has probably done the least work
+     */
+    public static final Comparator<ThreadInfo> FEWEST_LOCKS = Comparator.comparingInt(
+            (ThreadInfo info) -> info.getLockedMonitors().length + info.getLockedSynchronizers().length).reversed();
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final long intervalNanos;
+    private Consumer<Deadlock> listener = deadlock -> System.err.println(deadlock);
+    private Comparator<ThreadInfo> victimOrder;
+    private ScheduledExecutorService executor;
+
+    // ids of the threads of the cycles found by the previous check - reported only once
+    private Set<Set<Long>> reportedCycles = new HashSet<>();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong checkNanos = new AtomicLong();
+    private final AtomicLong deadlocks = new AtomicLong();
+    private final AtomicLong victims = new AtomicLong();
+
+    /**
+     * @param interval - time between two checks
+     * @param unit     - unit of the time
+     */
+    public DeadlockWatchdog(long interval, TimeUnit unit) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("Interval must be positive");
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * @param listener - called with every new deadlock, in the thread of the watchdog
+     */
+    public synchronized DeadlockWatchdog setListener(Consumer<Deadlock> listener) {
+        if (listener == null)
+            throw new NullPointerException("Listener can not be null");
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Enables the recovery - the greatest thread of the cycle in the given order,
+     * among the threads waiting interruptibly, is interrupted
+     *
+     * @param victimOrder - order of the victims, e.g. YOUNGEST_THREAD, or null to disable the recovery
+     */
+    public synchronized DeadlockWatchdog setRecovery(Comparator<ThreadInfo> victimOrder) {
+        this.victimOrder = victimOrder;
+        return this;
+    }
+
+    /**
+     * Starts checking in a daemon thread
+     *
+     * @throws IllegalStateException if the watchdog has already been started
+     */
+    public synchronized void start() {
+        if (executor != null)
+            throw new IllegalStateException("Watchdog has already been started");
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "deadlock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkAndRecover, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops checking
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Checks once for deadlocks, without reporting and recovering
+     *
+     * @return Cycles of deadlocked threads, empty if there is no deadlock
+     */
+    public List<Deadlock> check() {
+        long start = System.nanoTime();
+        try {
+            long[] ids = threadBean.findDeadlockedThreads();
+            if (ids == null)
+                return Collections.emptyList();
+
+            Map<Long, ThreadInfo> infos = new HashMap<>();
+            for (ThreadInfo info : threadBean.getThreadInfo(ids,
+                    threadBean.isObjectMonitorUsageSupported(), threadBean.isSynchronizerUsageSupported())) {
+                // null if the thread has ended in the meantime
+                if (info != null)
+                    infos.put(info.getThreadId(), info);
+            }
+            return findCycles(infos);
+        } finally {
+            checks.incrementAndGet();
+            checkNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return Number of checks done so far
+     */
+    public long getChecks() {
+        return checks.get();
+    }
+
+    /**
+     * @return Average time of one check in nanoseconds
+     */
+    public double getAverageCheckNanos() {
+        long n = checks.get();
+        return n == 0 ? 0 : (double) checkNanos.get() / n;
+    }
+
+    /**
+     * @return Number of reported deadlocks
+     */
+    public long getDeadlocks() {
+        return deadlocks.get();
+    }
+
+    /**
+     * @return Number of interrupted victims
+     */
+    public long getVictims() {
+        return victims.get();
+    }
+
+    private void checkAndRecover() {
+        try {
+            Consumer<Deadlock> listener;
+            Comparator<ThreadInfo> victimOrder;
+            synchronized (this) {
+                listener = this.listener;
+                victimOrder = this.victimOrder;
+            }
+
+            Set<Set<Long>> cycles = new HashSet<>();
+            for (Deadlock deadlock : check()) {
+                Set<Long> ids = deadlock.getThreadIds();
+                cycles.add(ids);
+                if (reportedCycles.contains(ids))
+                    continue;
+
+                deadlocks.incrementAndGet();
+                Thread victim = victimOrder == null ? null : chooseVictim(deadlock, victimOrder);
+                // reported and counted before the interrupt, so both are complete when the victim reacts
+                listener.accept(deadlock);
+                if (victim != null) {
+                    victims.incrementAndGet();
+                    victim.interrupt();
+                }
+            }
+            reportedCycles = cycles;
+        } catch (RuntimeException e) {
+            // the watchdog must keep running
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return The victim of the deadlock or null if no thread of the cycle can be interrupted
+     */
+    private static Thread chooseVictim(Deadlock deadlock, Comparator<ThreadInfo> victimOrder) {
+        ThreadInfo victim = null;
+        for (ThreadInfo info : deadlock.getThreads()) {
+            // threads blocked on a monitor (BLOCKED) ignore interrupts
+            if (info.getThreadState() == Thread.State.BLOCKED)
+                continue;
+            if (victim == null || victimOrder.compare(info, victim) > 0)
+                victim = info;
+        }
+        if (victim == null)
+            return null;
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getId() == victim.getThreadId()) {
+                deadlock.victim = victim;
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Follows the lock owners from every deadlocked thread - threads which wait for
+     * a cycle without being a part of it are left out
+     */
+    private static List<Deadlock> findCycles(Map<Long, ThreadInfo> infos) {
+        List<Deadlock> cycles = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+
+        for (long start : infos.keySet()) {
+            LinkedHashMap<Long, ThreadInfo> path = new LinkedHashMap<>();
+            long id = start;
+            while (infos.containsKey(id) && !visited.contains(id) && !path.containsKey(id)) {
+                path.put(id, infos.get(id));
+                id = infos.get(id).getLockOwnerId();
+            }
+            if (path.containsKey(id)) {
+                List<ThreadInfo> cycle = new ArrayList<>();
+                boolean inCycle = false;
+                for (Map.Entry<Long, ThreadInfo> entry : path.entrySet()) {
+                    inCycle |= entry.getKey() == id;
+                    if (inCycle)
+                        cycle.add(entry.getValue());
+                }
+                cycles.add(new Deadlock(cycle));
+            }
+            visited.addAll(path.keySet());
+        }
+        return cycles;
+    }
+
+    /**
+     * One cycle of deadlocked threads - every thread waits for a lock held by the next one
+     */
+    public static class Deadlock {
+
+        private final List<ThreadInfo> threads;
+        private volatile ThreadInfo victim;
+
+        private Deadlock(List<ThreadInfo> threads) {
+            this.threads = Collections.unmodifiableList(threads);
+        }
+
+        /**
+         * @return Threads of the cycle with their stacks and held locks
+         */
+        public List<ThreadInfo> getThreads() {
+            return threads;
+        }
+
+        public Set<Long> getThreadIds() {
+            Set<Long> ids = new HashSet<>();
+            for (ThreadInfo info : threads) {
+                ids.add(info.getThreadId());
+            }
+            return ids;
+        }
+
+        /**
+         * @return The interrupted thread or null if no thread was interrupted
+         */
+        public ThreadInfo getVictim() {
+            return victim;
+        }
+
+        /**
+         * @return The cycle followed by the stacks of its threads
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Deadlock of " + threads.size() + " threads:\n");
+            for (ThreadInfo info : threads) {
+                sb.append("    ").append(info.getThreadName())
+                        .append(" waits for ").append(info.getLockName())
+                        .append(" held by ").append(info.getLockOwnerName()).append('\n');
+            }
+            if (victim != null)
+                sb.append("Interrupted: ").append(victim.getThreadName()).append('\n');
+            for (ThreadInfo info : threads) {
+                sb.append('\n').append('"').append(info.getThreadName()).append("\" ")
+                        .append(info.getThreadState()).append('\n');
+                appendStack(sb, info);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Unlike ThreadInfo.toString() prints the whole stack with the locks taken in every frame
+         */
+        private static void appendStack(StringBuilder sb, ThreadInfo info) {
+            StackTraceElement[] stack = info.getStackTrace();
+            for (int i = 0; i < stack.length; i++) {
+                sb.append("    at ").append(stack[i]).append('\n');
+                if (i == 0 && info.getLockInfo() != null)
+                    sb.append("    - waiting for ").append(info.getLockInfo()).append('\n');
+                for (MonitorInfo monitor : info.getLockedMonitors()) {
+                    if (monitor.getLockedStackDepth() == i)
+                        sb.append("    - locked ").append(monitor).append('\n');
+                }
+            }
+            for (LockInfo lock : info.getLockedSynchronizers()) {
+                sb.append("    - holds ").append(lock).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tests of the class DeadlockWatchdog
+ */
+class DeadlockWatchdogTest {
+
+    /**
+     * A thread waiting for a lock held by a thread which does not wait back is not a deadlock. Deadlocks
+     * with 'synchronized' can not be broken, so other tests leave theirs in the JVM - only the threads
+     * of this test are checked.
+     */
+    @Test
+    void noDeadlock() throws InterruptedException {
+        ReentrantLock lock = new ReentrantLock();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = startDaemon("holder", () -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        locked.await();
+        Thread waiter = startDaemon("waiter", () -> {
+            lock.lock();
+            lock.unlock();
+        });
+        while (!lock.hasQueuedThread(waiter))
+            Thread.sleep(1);
+
+        DeadlockWatchdog watchdog = new DeadlockWatchdog(1, TimeUnit.SECONDS);
+        Set<Long> ids = Set.of(holder.getId(), waiter.getId());
+        assert watchdog.check().stream().noneMatch(d -> d.getThreadIds().stream().anyMatch(ids::contains));
+        assert watchdog.getChecks() == 1;
+
+        release.countDown();
+        holder.join();
+        waiter.join();
+    }
+
+    @Test
+    void monitorDeadlockIsReportedWithStacks() throws InterruptedException {
+        Object a = new Object();
+        Object b = new Object();
+        CountDownLatch bothLocked = new CountDownLatch(2);
+        // blocked forever - daemon threads do not stop the JVM
+        startDaemon("monitor-1", () -> {
+            synchronized (a) {
+                awaitQuietly(bothLocked);
+                synchronized (b) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        startDaemon("monitor-2", () -> {
+            synchronized (b) {
+                awaitQuietly(bothLocked);
+                synchronized (a) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+
+        DeadlockWatchdog.Deadlock deadlock = awaitDeadlock(new DeadlockWatchdog(1, TimeUnit.SECONDS), "monitor-1");
+        assert deadlock.getThreads().size() == 2;
+        assert deadlock.getVictim() == null;
+
+        String report = deadlock.toString();
+        assert report.contains("monitor-1 waits for") && report.contains("held by monitor-2");
+        assert report.contains("- locked") : report;
+        assert report.contains(DeadlockWatchdogTest.class.getName());
+    }
+
+    @Test
+    void interruptibleDeadlockIsRecovered() throws InterruptedException {
+        ReentrantLock a = new ReentrantLock();
+        ReentrantLock b = new ReentrantLock();
+        CountDownLatch bothLocked = new CountDownLatch(2);
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger interrupted = new AtomicInteger();
+        // the watchdog reports every deadlock of the JVM, only the cycle of this test is collected
+        List<DeadlockWatchdog.Deadlock> reported = new CopyOnWriteArrayList<>();
+
+        try (DeadlockWatchdog watchdog = new DeadlockWatchdog(10, TimeUnit.MILLISECONDS)
+                .setListener(deadlock -> {
+                    if (deadlock.getThreads().stream().anyMatch(t -> t.getThreadName().startsWith("lock-")))
+                        reported.add(deadlock);
+                })
+                .setRecovery(DeadlockWatchdog.YOUNGEST_THREAD)) {
+            watchdog.start();
+
+            Thread first = startDaemon("lock-1", () -> lockBoth(a, b, bothLocked, finished, interrupted));
+            Thread second = startDaemon("lock-2", () -> lockBoth(b, a, bothLocked, finished, interrupted));
+            first.join(TimeUnit.SECONDS.toMillis(10));
+            second.join(TimeUnit.SECONDS.toMillis(10));
+
+            assert finished.get() == 1 && interrupted.get() == 1;
+            assert watchdog.getVictims() == 1;
+        }
+
+        assert reported.size() == 1;
+        assert reported.get(0).getVictim().getThreadName().equals("lock-2");
+        assert reported.get(0).toString().contains("- holds");
+    }
+
+    private static void lockBoth(ReentrantLock first, ReentrantLock second, CountDownLatch bothLocked,
+                                 AtomicInteger finished, AtomicInteger interrupted) {
+        try {
+            first.lockInterruptibly();
+            try {
+                bothLocked.countDown();
+                bothLocked.await();
+                second.lockInterruptibly();
+                second.unlock();
+                finished.incrementAndGet();
+            } finally {
+                first.unlock();
+            }
+        } catch (InterruptedException e) {
+            interrupted.incrementAndGet();
+        }
+    }
+
+    private static DeadlockWatchdog.Deadlock awaitDeadlock(DeadlockWatchdog watchdog, String threadName)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            for (DeadlockWatchdog.Deadlock deadlock : watchdog.check()) {
+                if (deadlock.getThreads().stream().anyMatch(t -> t.getThreadName().equals(threadName)))
+                    return deadlock;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Deadlock of " + threadName + " was not found");
+    }
+
+    private static Thread startDaemon(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of the DeadlockWatchdog on the throughput of the philosophers -
+ * findDeadlockedThreads() stops the JVM at a safepoint, so its cost grows with the number of threads
+ *
+ * No tests for correctness are included in this class - you can find them in the class: DeadlockWatchdogTest
+ */
+class DeadlockWatchdogTestPerformance {
+
+    static int DURATION_MILLIS;
+    static long[] INTERVALS_MICROS;
+
+    @BeforeAll
+    static void setUp() {
+        DURATION_MILLIS = 500;
+        // 0 = without the watchdog
+        INTERVALS_MICROS = new long[]{0, 100_000, 10_000, 1_000};
+    }
+
+    @Test
+    void fewThreads() throws InterruptedException {
+        compare(8);
+    }
+
+    @Test
+    void manyThreads() throws InterruptedException {
+        compare(256);
+    }
+
+    private void compare(int philosophers) throws InterruptedException {
+        PhilosophersBenchmark benchmark = new PhilosophersBenchmark(philosophers)
+                .setDuration(DURATION_MILLIS, TimeUnit.MILLISECONDS)
+                .setWorkload(5, 5, TimeUnit.MICROSECONDS);
+
+        System.out.printf("%5s %12s %12s %10s %12s %10s%n", "N", "interval", "meals/s", "overhead", "checks", "check");
+        double baseline = 0;
+        for (long interval : INTERVALS_MICROS) {
+            DeadlockWatchdog watchdog = null;
+            if (interval > 0) {
+                // deadlocks left by other tests are not printed
+                watchdog = new DeadlockWatchdog(interval, TimeUnit.MICROSECONDS).setListener(deadlock -> { });
+                watchdog.start();
+            }
+            try {
+                double mealsPerSecond = benchmark.run(AcquisitionStrategy::globalOrder).getMealsPerSecond();
+                if (interval == 0)
+                    baseline = mealsPerSecond;
+                System.out.printf("%5d %12s %12.0f %9.1f%% %12d %10s%n", philosophers,
+                        interval == 0 ? "off" : LatencyHistogram.format(TimeUnit.MICROSECONDS.toNanos(interval)),
+                        mealsPerSecond, 100 * (1 - mealsPerSecond / baseline),
+                        watchdog == null ? 0 : watchdog.getChecks(),
+                        watchdog == null ? "-" : LatencyHistogram.format((long) watchdog.getAverageCheckNanos()));
+            } finally {
+                if (watchdog != null)
+                    watchdog.close();
+            }
+        }
+        System.out.println();
+    }
+}
@@ -2,6 +2,7 @@ package com.ltcode.liveness;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Class shows liveness problem - deadlock, that can occur in parallel programming
@@ -10,9 +11,22 @@ import java.util.Random;
  *         C1  Aristotle  C2
  *       Plato   TABLE  Socrates
  *         C3  Confucius  C4
+ *
+ * N philosophers eating in a loop with different deadlock-free strategies
+ * are measured by PhilosophersBenchmark.
  */
 public class DiningPhilosophers {
 
+    // time blocked on every chopstick and time of holding them by every philosopher
+    private final ContentionMetrics metrics = new ContentionMetrics();
+
+    /**
+     * @return Contention metrics of the chopsticks of all runs
+     */
+    public ContentionMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Deadlock occurs when all philosophers try to eat at the same time, and all
      * of them pick a chopstick from the same side.
@@ -20,10 +34,10 @@ public class DiningPhilosophers {
      * @return Thread array with all running Philosophers
      */
     public Thread[] runWithDeadlock() {
-        Chopstick c1 = new Chopstick();
-        Chopstick c2 = new Chopstick();
-        Chopstick c3 = new Chopstick();
-        Chopstick c4 = new Chopstick();
+        Chopstick c1 = newChopstick("C1");
+        Chopstick c2 = newChopstick("C2");
+        Chopstick c3 = newChopstick("C3");
+        Chopstick c4 = newChopstick("C4");
 
         // All philosophers start eating by picking their left chopstick
         Philosopher aristotle = new Philosopher("Aristotle", c2, c1);
@@ -32,10 +46,10 @@ public class DiningPhilosophers {
         Philosopher confucius = new Philosopher("Confucius", c3, c4);
 
         Thread[] threads = new Thread[4];
-        threads[0] = new Thread(aristotle);
-        threads[1] = new Thread(plato);
-        threads[2] = new Thread(socrates);
-        threads[3] = new Thread(confucius);
+        threads[0] = new Thread(aristotle, "Aristotle");
+        threads[1] = new Thread(plato, "Plato");
+        threads[2] = new Thread(socrates, "Socrates");
+        threads[3] = new Thread(confucius, "Confucius");
 
         Arrays
                 .stream(threads)
@@ -46,29 +60,93 @@ public class DiningPhilosophers {
 
     /**
      * To assure that Deadlock will not occurs when all philosophers try to eat at the same time,
-     * at least one of them must pick a chopstick from the different side then other philosophers.
+     * the chopsticks must be picked in one global order - it is enough that at least one of
+     * the philosophers picks a chopstick from the different side then other philosophers.
+     * The OrderedLockManager finds this order for any set of chopsticks, so the philosophers
+     * sit the same way as in runWithDeadlock.
      *
      * @return Thread array with all running Philosophers
      */
     public Thread[] runWithNoDeadlock() {
-        Chopstick c1 = new Chopstick();
-        Chopstick c2 = new Chopstick();
-        Chopstick c3 = new Chopstick();
-        Chopstick c4 = new Chopstick();
+        OrderedLockManager lockManager = new OrderedLockManager(64);
+        Chopstick c1 = newChopstick("C1");
+        Chopstick c2 = newChopstick("C2");
+        Chopstick c3 = newChopstick("C3");
+        Chopstick c4 = newChopstick("C4");
 
-        // 3 out of 4 philosophers start eating by picking their left chopstick
-        Philosopher aristotle = new Philosopher("Aristotle", c2, c1);
-        Philosopher plato = new Philosopher("Plato", c1, c3);
-        Philosopher socrates = new Philosopher("Socrates", c4, c2);
+        // All philosophers ask for their left chopstick first - the manager decides the order
+        OrderedPhilosopher aristotle = new OrderedPhilosopher("Aristotle", lockManager, c2, c1);
+        OrderedPhilosopher plato = new OrderedPhilosopher("Plato", lockManager, c1, c3);
+        OrderedPhilosopher socrates = new OrderedPhilosopher("Socrates", lockManager, c4, c2);
+        OrderedPhilosopher confucius = new OrderedPhilosopher("Confucius", lockManager, c3, c4);
+
+        Thread[] threads = new Thread[4];
+        threads[0] = new Thread(aristotle, "Aristotle");
+        threads[1] = new Thread(plato, "Plato");
+        threads[2] = new Thread(socrates, "Socrates");
+        threads[3] = new Thread(confucius, "Confucius");
+
+        Arrays
+                .stream(threads)
+                .forEach(t -> t.start());
+
+        return threads;
+    }
+
+    /**
+     * Monitors are not fair, so under load some philosophers eat far more often than others.
+     * Here a hungry philosopher draws a ticket and the one who waits longer has the priority
+     * over his neighbors (TicketStrategy), so nobody starves - and nobody deadlocks.
+     *
+     * @param meals - how many times every philosopher eats
+     * @return Thread array with all running Philosophers
+     */
+    public Thread[] runWithNoStarvation(int meals) {
+        AcquisitionStrategy table = AcquisitionStrategy.fairTicket(4);
+
+        // Philosophers sit around the table in the order of their seats
+        FairPhilosopher aristotle = new FairPhilosopher("Aristotle", table, 0, meals);
+        FairPhilosopher socrates = new FairPhilosopher("Socrates", table, 1, meals);
+        FairPhilosopher confucius = new FairPhilosopher("Confucius", table, 2, meals);
+        FairPhilosopher plato = new FairPhilosopher("Plato", table, 3, meals);
+
+        Thread[] threads = new Thread[4];
+        threads[0] = new Thread(aristotle, "Aristotle");
+        threads[1] = new Thread(plato, "Plato");
+        threads[2] = new Thread(socrates, "Socrates");
+        threads[3] = new Thread(confucius, "Confucius");
 
-        // One philosopher start eating by picking right (different) chopstick
-        Philosopher confucius = new Philosopher("Confucius", c4, c3);
+        Arrays
+                .stream(threads)
+                .forEach(t -> t.start());
+
+        return threads;
+    }
+
+    /**
+     * The same deadlock as in runWithDeadlock, but the chopsticks are ReentrantLocks
+     * taken with lockInterruptibly(). The deadlock can be found and broken by DeadlockWatchdog -
+     * an interrupted philosopher puts his chopstick down and leaves the table, so the others can eat.
+     *
+     * @return Thread array with all running Philosophers
+     */
+    public Thread[] runWithInterruptibleDeadlock() {
+        ReentrantLock c1 = metrics.newLock("C1");
+        ReentrantLock c2 = metrics.newLock("C2");
+        ReentrantLock c3 = metrics.newLock("C3");
+        ReentrantLock c4 = metrics.newLock("C4");
+
+        // All philosophers start eating by picking their left chopstick
+        InterruptiblePhilosopher aristotle = new InterruptiblePhilosopher("Aristotle", c2, c1);
+        InterruptiblePhilosopher plato = new InterruptiblePhilosopher("Plato", c1, c3);
+        InterruptiblePhilosopher socrates = new InterruptiblePhilosopher("Socrates", c4, c2);
+        InterruptiblePhilosopher confucius = new InterruptiblePhilosopher("Confucius", c3, c4);
 
         Thread[] threads = new Thread[4];
-        threads[0] = new Thread(aristotle);
-        threads[1] = new Thread(plato);
-        threads[2] = new Thread(socrates);
-        threads[3] = new Thread(confucius);
+        threads[0] = new Thread(aristotle, "Aristotle");
+        threads[1] = new Thread(plato, "Plato");
+        threads[2] = new Thread(socrates, "Socrates");
+        threads[3] = new Thread(confucius, "Confucius");
 
         Arrays
                 .stream(threads)
@@ -101,25 +179,168 @@ public class DiningPhilosophers {
                 Thread.sleep(thinkingTime);
                 System.out.println(name + " is waiting for first chopstick");
                 Thread.sleep(takingChopstickTime);
+                long firstSince = firstChopstick.resource.beforeAcquire();
                 synchronized (firstChopstick) {
+                    firstChopstick.resource.acquired(firstSince);
+                    try {
+                        System.out.println(name + " is taking first chopstick");
+                        Thread.sleep(takingChopstickTime);
+                        System.out.println(name + " is waiting for second chopstick");
+                        Thread.sleep(takingChopstickTime);
+                        long secondSince = secondChopstick.resource.beforeAcquire();
+                        synchronized (secondChopstick) {
+                            secondChopstick.resource.acquired(secondSince);
+                            try {
+                                System.out.println(name + " is taking second chopstick");
+                                System.out.println(name + " is eating now");
+                                Thread.sleep(eatingTime);
+                                System.out.println(name + " ended eating");
+                            } finally {
+                                secondChopstick.resource.released();
+                            }
+                        }
+                    } finally {
+                        firstChopstick.resource.released();
+                    }
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static class OrderedPhilosopher implements Runnable {
+
+        String name;
+        OrderedLockManager lockManager;
+        Chopstick leftChopstick;
+        Chopstick rightChopstick;
+
+        OrderedPhilosopher(String name, OrderedLockManager lockManager, Chopstick leftChopstick, Chopstick rightChopstick) {
+            this.name = name;
+            this.lockManager = lockManager;
+            this.leftChopstick = leftChopstick;
+            this.rightChopstick = rightChopstick;
+        }
+
+        // the lock set is not referenced on purpose - it only holds both chopsticks for the body of the try
+        @SuppressWarnings("try")
+        @Override
+        public void run() {
+            try {
+                System.out.println(name + " is thinking...");
+                Thread.sleep(Philosopher.thinkingTime);
+                System.out.println(name + " is waiting for both chopsticks");
+                Thread.sleep(Philosopher.takingChopstickTime);
+                long since = leftChopstick.resource.beforeAcquire();
+                try (OrderedLockManager.LockSet chopsticks = lockManager.lock(leftChopstick, rightChopstick)) {
+                    // both chopsticks are taken at once - each is blocked the same time
+                    leftChopstick.resource.acquired(since);
+                    rightChopstick.resource.acquired(since);
+                    try {
+                        System.out.println(name + " is taking both chopsticks");
+                        Thread.sleep(Philosopher.takingChopstickTime);
+                        System.out.println(name + " is eating now");
+                        Thread.sleep(Philosopher.eatingTime);
+                        System.out.println(name + " ended eating");
+                    } finally {
+                        rightChopstick.resource.released();
+                        leftChopstick.resource.released();
+                    }
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static class FairPhilosopher implements Runnable {
+
+        String name;
+        AcquisitionStrategy table;
+        int seat;
+        int meals;
+
+        FairPhilosopher(String name, AcquisitionStrategy table, int seat, int meals) {
+            this.name = name;
+            this.table = table;
+            this.seat = seat;
+            this.meals = meals;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int meal = 0; meal < meals; meal++) {
+                    System.out.println(name + " is thinking...");
+                    Thread.sleep(Philosopher.thinkingTime);
+                    System.out.println(name + " is waiting for his turn");
+                    table.acquire(seat);
+                    try {
+                        System.out.println(name + " is eating now");
+                        Thread.sleep(Philosopher.eatingTime);
+                        System.out.println(name + " ended eating");
+                    } finally {
+                        table.release(seat);
+                    }
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static class InterruptiblePhilosopher implements Runnable {
+
+        String name;
+        ReentrantLock firstChopstick;
+        ReentrantLock secondChopstick;
+
+        InterruptiblePhilosopher(String name, ReentrantLock firstChopstick, ReentrantLock secondChopstick) {
+            this.name = name;
+            this.firstChopstick = firstChopstick;
+            this.secondChopstick = secondChopstick;
+        }
+
+        @Override
+        public void run() {
+            try {
+                System.out.println(name + " is thinking...");
+                Thread.sleep(Philosopher.thinkingTime);
+                System.out.println(name + " is waiting for first chopstick");
+                firstChopstick.lockInterruptibly();
+                try {
                     System.out.println(name + " is taking first chopstick");
-                    Thread.sleep(takingChopstickTime);
+                    Thread.sleep(Philosopher.takingChopstickTime);
                     System.out.println(name + " is waiting for second chopstick");
-                    Thread.sleep(takingChopstickTime);
-                    synchronized (secondChopstick) {
+                    secondChopstick.lockInterruptibly();
+                    try {
                         System.out.println(name + " is taking second chopstick");
                         System.out.println(name + " is eating now");
-                        Thread.sleep(eatingTime);
+                        Thread.sleep(Philosopher.eatingTime);
                         System.out.println(name + " ended eating");
+                    } finally {
+                        secondChopstick.unlock();
                     }
+                } finally {
+                    firstChopstick.unlock();
                 }
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                System.out.println(name + " was interrupted and leaves the table");
             }
         }
     }
 
+    private Chopstick newChopstick(String name) {
+        return new Chopstick(metrics.newResource(name));
+    }
+
     private static class Chopstick {
 
+        final ContentionMetrics.Resource resource;
+
+        Chopstick(ContentionMetrics.Resource resource) {
+            this.resource = resource;
+        }
     }
 }
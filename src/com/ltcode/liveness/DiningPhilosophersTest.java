@@ -3,6 +3,13 @@ package com.ltcode.liveness;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
 
 class DiningPhilosophersTest {
 
@@ -46,7 +53,8 @@ class DiningPhilosophersTest {
     @Test
     void runWithNoDeadlock() throws InterruptedException {
         // Threads are running (Runnable) philosophers
-        Thread[] threads = new DiningPhilosophers().runWithNoDeadlock();
+        DiningPhilosophers diningPhilosophers = new DiningPhilosophers();
+        Thread[] threads = diningPhilosophers.runWithNoDeadlock();
         int maxExpectedRunningTime = (int)(philosophers * workloadMillis * 1.1);
         boolean allThreadsTerminated = false;
 
@@ -71,5 +79,78 @@ class DiningPhilosophersTest {
         }
 
         assert allThreadsTerminated;
+
+        // every chopstick is shared by 2 philosophers, every philosopher holds 2 chopsticks
+        ContentionMetrics.Snapshot snapshot = diningPhilosophers.getMetrics().snapshot();
+        for (String chopstick : new String[]{"C1", "C2", "C3", "C4"}) {
+            assert snapshot.getResource(chopstick).getAcquisitions() == 2;
+            assert snapshot.getResource(chopstick).getHandOffs() == 1;
+        }
+        assert snapshot.getThreads().stream().allMatch(t -> t.getHeld().getCount() == 2);
+    }
+
+    /**
+     * Tests if the deadlock of runWithDeadlock is found by the watchdog - a cycle of all 4 philosophers
+     */
+    @Test
+    void runWithDeadlockFoundByWatchdog() throws InterruptedException {
+        Thread[] threads = new DiningPhilosophers().runWithDeadlock();
+        DeadlockWatchdog watchdog = new DeadlockWatchdog(100, TimeUnit.MILLISECONDS);
+        Set<Long> ids = Arrays.stream(threads).map(Thread::getId).collect(Collectors.toSet());
+
+        // the philosophers reach their second chopsticks after 4 s of thinking and taking,
+        // a cycle missed for 5 s more fails the test
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(9);
+        List<DeadlockWatchdog.Deadlock> deadlocks = watchdog.check();
+        while (deadlocks.stream().noneMatch(d -> d.getThreadIds().equals(ids)) && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            deadlocks = watchdog.check();
+        }
+        assert deadlocks.stream().anyMatch(d -> d.getThreadIds().equals(ids)) : "Deadlock not found in 9 s";
+    }
+
+    /**
+     * Tests if the watchdog breaks the deadlock of runWithInterruptibleDeadlock
+     * and all philosophers terminate
+     */
+    @Test
+    void runWithInterruptibleDeadlockRecovered() throws InterruptedException {
+        List<DeadlockWatchdog.Deadlock> reported = new CopyOnWriteArrayList<>();
+        // philosophers of runWithDeadlock may still be blocked - they can not be interrupted
+        try (DeadlockWatchdog watchdog = new DeadlockWatchdog(100, TimeUnit.MILLISECONDS)
+                .setListener(deadlock -> {
+                    if (deadlock.getVictim() != null)
+                        reported.add(deadlock);
+                })
+                .setRecovery(DeadlockWatchdog.YOUNGEST_THREAD)) {
+            watchdog.start();
+            Thread[] threads = new DiningPhilosophers().runWithInterruptibleDeadlock();
+
+            int maxExpectedRunningTime = (int) (philosophers * workloadMillis * 1.1);
+            for (Thread thread : threads) {
+                thread.join(maxExpectedRunningTime);
+                assert thread.getState() == Thread.State.TERMINATED :
+                        "Philosophers should have terminated already, but are still running.";
+            }
+        }
+
+        assert reported.size() == 1;
+        assert reported.get(0).getThreads().size() == philosophers;
+        assert reported.get(0).getVictim() != null;
+    }
+
+    /**
+     * Tests if all philosophers eating twice with the fair tickets terminate
+     */
+    @Test
+    void runWithNoStarvation() throws InterruptedException {
+        Thread[] threads = new DiningPhilosophers().runWithNoStarvation(2);
+        int maxExpectedRunningTime = (int) (2 * philosophers * workloadMillis * 1.1);
+
+        for (Thread thread : threads) {
+            thread.join(maxExpectedRunningTime);
+            assert thread.getState() == Thread.State.TERMINATED :
+                    "Philosophers should have terminated already, but are still running.";
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the cost of fairness in throughput against the max/min meal ratio and the p99 wait,
+ * under heavy load (philosophers think much shorter than they eat)
+ *
+ * No tests for correctness are included in this class - you can find them in the classes:
+ * AcquisitionStrategyTest, TicketStrategyTest
+ */
+class FairnessTestPerformance {
+
+    static int DURATION_MILLIS;
+    static List<IntFunction<AcquisitionStrategy>> strategies;
+
+    @BeforeAll
+    static void setUp() {
+        DURATION_MILLIS = 500;
+        strategies = List.of(
+                AcquisitionStrategy::monitor,
+                AcquisitionStrategy::globalOrder,
+                AcquisitionStrategy::globalOrderFair,
+                AcquisitionStrategy::chandyMisra,
+                AcquisitionStrategy::fairTicket);
+    }
+
+    @Test
+    void fivePhilosophers() throws InterruptedException {
+        compare(5);
+    }
+
+    @Test
+    void manyPhilosophers() throws InterruptedException {
+        compare(32);
+    }
+
+    private void compare(int philosophers) throws InterruptedException {
+        PhilosophersBenchmark benchmark = new PhilosophersBenchmark(philosophers)
+                .setDuration(DURATION_MILLIS, TimeUnit.MILLISECONDS)
+                .setWorkload(1, 20, TimeUnit.MICROSECONDS);
+
+        System.out.printf("%s %10s%n", PhilosophersBenchmark.Result.header(), "cost");
+        double baseline = 0;
+        for (IntFunction<AcquisitionStrategy> strategy : strategies) {
+            PhilosophersBenchmark.Result result = benchmark.run(strategy);
+            if (baseline == 0)
+                baseline = result.getMealsPerSecond();
+            System.out.printf("%s %9.1f%%%n", result, 100 * (1 - result.getMealsPerSecond() / baseline));
+        }
+        System.out.println();
+    }
+}
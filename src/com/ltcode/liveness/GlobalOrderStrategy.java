@@ -0,0 +1,60 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks the chopsticks in the order of their indexes. It is the general form
+ * of DiningPhilosophers.runWithNoDeadlock - only the last philosopher
+ * picks his right chopstick first.
+ */
+final class GlobalOrderStrategy implements AcquisitionStrategy {
+
+    private final ReentrantLock[] chopsticks;
+
+    private final boolean fair;
+
+    GlobalOrderStrategy(int philosophers) {
+        this(philosophers, null, false);
+    }
+
+    /**
+     * @param metrics - records the contention of every chopstick, or null
+     * @param fair    - true if the chopsticks should be granted in the order of the requests
+     */
+    GlobalOrderStrategy(int philosophers, ContentionMetrics metrics, boolean fair) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        this.fair = fair;
+        chopsticks = new ReentrantLock[philosophers];
+        for (int i = 0; i < philosophers; i++) {
+            chopsticks[i] = metrics == null ? new ReentrantLock(fair) : metrics.newLock("chopstick-" + i, fair);
+        }
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        int left = philosopher;
+        int right = (philosopher + 1) % chopsticks.length;
+        ReentrantLock first = chopsticks[Math.min(left, right)];
+        ReentrantLock second = chopsticks[Math.max(left, right)];
+
+        first.lockInterruptibly();
+        try {
+            second.lockInterruptibly();
+        } catch (InterruptedException e) {
+            first.unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(int philosopher) {
+        chopsticks[(philosopher + 1) % chopsticks.length].unlock();
+        chopsticks[philosopher].unlock();
+    }
+
+    @Override
+    public String getName() {
+        return fair ? "global-order-fair" : "global-order";
+    }
+}
@@ -0,0 +1,137 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of nanosecond latencies with log-linear buckets (like HdrHistogram):
+ * every power of two is split into 16 sub-buckets, so a value is kept with
+ * a relative error of at most 1/16 (6.25%) on the whole range of long values.
+ *
+ * Recording is thread-safe, does not allocate and does not lock - one atomic
+ * increment of the bucket, so many threads can record to one histogram.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value, negative values are recorded as 0
+     *
+     * @param nanos - latency in nanoseconds
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        if (nanos > max.get())
+            max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Adds all values of the other histogram to this one
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0)
+                counts.addAndGet(i, c);
+        }
+        count.addAndGet(other.count.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * Forgets all values - values recorded at the same time may be partially kept
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @param percentile - percentile between 0 and 100
+     * @return Highest value of the bucket containing the percentile, at most the max value
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        long n = count.get();
+        if (n == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(max.get(), highestValueOf(i));
+        }
+        return max.get();
+    }
+
+    /**
+     * @return Short summary, e.g. "n=100 p50=12us p99=1.1ms max=2.0ms"
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%s p99=%s max=%s", getCount(),
+                format(getPercentile(50)), format(getPercentile(99)), format(getMax()));
+    }
+
+    /**
+     * @return Value formatted with a suitable unit
+     */
+    public static String format(long nanos) {
+        if (nanos < TimeUnit.MICROSECONDS.toNanos(10))
+            return nanos + "ns";
+        if (nanos < TimeUnit.MILLISECONDS.toNanos(10))
+            return String.format("%.1fus", nanos / 1e3);
+        if (nanos < TimeUnit.SECONDS.toNanos(10))
+            return String.format("%.1fms", nanos / 1e6);
+        return String.format("%.1fs", nanos / 1e9);
+    }
+
+    /**
+     * Values below 2 * SUB_BUCKETS have their own bucket, larger values are
+     * grouped by the highest bit and the next SUB_BUCKET_BITS bits
+     */
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(int bucket) {
+        int shift = Math.max(0, bucket / SUB_BUCKETS - 1);
+        long subBucket = bucket - (long) shift * SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
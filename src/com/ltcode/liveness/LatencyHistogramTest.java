@@ -0,0 +1,55 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the class LatencyHistogram
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverAllValues() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            long lowest = bucket == 0 ? 0 : LatencyHistogram.highestValueOf(bucket - 1) + 1;
+            assert lowest <= value && value <= highest : value + " is not in bucket " + bucket;
+            // relative error at most 1/16
+            assert highest - lowest <= Math.max(0, value / 16) : value;
+        }
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assert histogram.getCount() == 1000;
+        assert histogram.getMax() == 1_000_000;
+        assert histogram.getMean() == 500_500;
+        assert Math.abs(histogram.getPercentile(50) - 500_000) <= 500_000 / 16;
+        assert Math.abs(histogram.getPercentile(99) - 990_000) <= 990_000 / 16;
+        assert histogram.getPercentile(100) == 1_000_000;
+    }
+
+    @Test
+    void addAndReset() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(10);
+        b.record(20);
+        b.record(-5);
+
+        a.add(b);
+        assert a.getCount() == 3;
+        assert a.getMax() == 20;
+        assert a.getPercentile(0) == 0;
+
+        a.reset();
+        assert a.getCount() == 0;
+        assert a.getPercentile(99) == 0;
+    }
+}
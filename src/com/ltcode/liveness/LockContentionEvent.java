@@ -0,0 +1,31 @@
+package com.ltcode.liveness;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a long wait for a resource recorded by ContentionMetrics
+ */
+@Name("com.ltcode.liveness.LockContention")
+@Label("Lock Contention")
+@Category({"Liveness", "Locks"})
+@Description("Thread waited for a resource longer than the threshold of ContentionMetrics")
+@StackTrace
+class LockContentionEvent extends Event {
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Blocked")
+    @Timespan(Timespan.NANOSECONDS)
+    long blocked;
+
+    @Label("Previous Owner")
+    @Description("Id of the thread which held the resource before, -1 if none")
+    long previousOwner;
+}
@@ -0,0 +1,27 @@
+package com.ltcode.liveness;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a long hold of a resource recorded by ContentionMetrics
+ */
+@Name("com.ltcode.liveness.LockHold")
+@Label("Lock Hold")
+@Category({"Liveness", "Locks"})
+@Description("Thread held a resource longer than the threshold of ContentionMetrics")
+@StackTrace(false)
+class LockHoldEvent extends Event {
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Held")
+    @Timespan(Timespan.NANOSECONDS)
+    long held;
+}
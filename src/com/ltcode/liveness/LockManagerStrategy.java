@@ -0,0 +1,35 @@
+package com.ltcode.liveness;
+
+/**
+ * Chopsticks are resources of an OrderedLockManager, which takes them in its global order
+ */
+final class LockManagerStrategy implements AcquisitionStrategy {
+
+    private final OrderedLockManager manager;
+    private final OrderedLockManager.LockSet[] held;
+
+    LockManagerStrategy(int philosophers, OrderedLockManager manager) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        this.manager = manager;
+        this.held = new OrderedLockManager.LockSet[philosophers];
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        // written and read only by the philosopher's thread
+        held[philosopher] = manager.lockIds(philosopher, (philosopher + 1) % held.length);
+    }
+
+    @Override
+    public void release(int philosopher) {
+        OrderedLockManager.LockSet locks = held[philosopher];
+        held[philosopher] = null;
+        locks.close();
+    }
+
+    @Override
+    public String getName() {
+        return "lock-manager/" + manager.getStripes();
+    }
+}
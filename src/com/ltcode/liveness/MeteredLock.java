@@ -0,0 +1,83 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ReentrantLock recording its contention to ContentionMetrics - created by ContentionMetrics.newLock().
+ * An uncontended lock (free at the first try) is recorded with 0 blocked time. A fair lock has no
+ * such fast path - it would barge ahead of the queued threads - so it records the time of queuing.
+ * Only the outermost lock and unlock of a reentrant hold are recorded.
+ */
+public class MeteredLock extends ReentrantLock {
+
+    private final ContentionMetrics.Resource resource;
+
+    MeteredLock(ContentionMetrics.Resource resource, boolean fair) {
+        super(fair);
+        this.resource = resource;
+    }
+
+    public ContentionMetrics.Resource getResource() {
+        return resource;
+    }
+
+    @Override
+    public void lock() {
+        if (!isFair() && super.tryLock()) {
+            acquiredWithoutWaiting();
+            return;
+        }
+        long since = resource.beforeAcquire();
+        super.lock();
+        acquired(since);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        // the fast path would take a free lock even when interrupted
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (!isFair() && super.tryLock()) {
+            acquiredWithoutWaiting();
+            return;
+        }
+        long since = resource.beforeAcquire();
+        super.lockInterruptibly();
+        acquired(since);
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (!super.tryLock())
+            return false;
+        acquiredWithoutWaiting();
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+        long since = resource.beforeAcquire();
+        if (!super.tryLock(timeout, unit))
+            return false;
+        acquired(since);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        if (getHoldCount() == 1)
+            resource.released();
+        super.unlock();
+    }
+
+    private void acquired(long since) {
+        if (getHoldCount() == 1)
+            resource.acquired(since);
+    }
+
+    private void acquiredWithoutWaiting() {
+        if (getHoldCount() == 1)
+            resource.acquiredWithoutWaiting();
+    }
+}
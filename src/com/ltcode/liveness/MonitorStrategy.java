@@ -0,0 +1,64 @@
+package com.ltcode.liveness;
+
+/**
+ * Chopsticks are plain objects guarded by their monitors, like in DiningPhilosophers,
+ * and are taken in the global order. A taken chopstick is marked by a flag, because
+ * a synchronized block can not outlive the acquire method - waiting is done by wait/notify.
+ */
+final class MonitorStrategy implements AcquisitionStrategy {
+
+    private final Chopstick[] chopsticks;
+
+    MonitorStrategy(int philosophers) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        chopsticks = new Chopstick[philosophers];
+        for (int i = 0; i < philosophers; i++) {
+            chopsticks[i] = new Chopstick();
+        }
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        int left = philosopher;
+        int right = (philosopher + 1) % chopsticks.length;
+        Chopstick first = chopsticks[Math.min(left, right)];
+        Chopstick second = chopsticks[Math.max(left, right)];
+
+        first.take();
+        try {
+            second.take();
+        } catch (InterruptedException e) {
+            first.putDown();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(int philosopher) {
+        chopsticks[(philosopher + 1) % chopsticks.length].putDown();
+        chopsticks[philosopher].putDown();
+    }
+
+    @Override
+    public String getName() {
+        return "monitor";
+    }
+
+    private static class Chopstick {
+
+        private boolean taken;
+
+        private synchronized void take() throws InterruptedException {
+            while (taken) {
+                wait();
+            }
+            taken = true;
+        }
+
+        private synchronized void putDown() {
+            taken = false;
+            notify();
+        }
+    }
+}
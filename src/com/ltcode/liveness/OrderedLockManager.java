@@ -0,0 +1,246 @@
+package com.ltcode.liveness;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks any set of resources without the risk of deadlock - the locks are always taken
+ * in one global order, so no cycle of threads waiting for each other can appear.
+ * It is the general form of DiningPhilosophers.runWithNoDeadlock, where the order
+ * had to be hand-coded for one of the philosophers.
+ *
+ * Resources are not locked directly - each one is mapped by its id (or hashCode for objects,
+ * which is the identity hash for objects without their own equals) to one stripe of a bounded
+ * table of locks, so millions of logical resources need only 'stripes' lock objects:
+ *
+ *     resources:   r1   r2   r3   r4   ...  (any number)
+ *                   \    |  /      \
+ *     stripes:    [ 0 ][ 1 ][ 2 ][ 3 ]...[ stripes - 1 ]
+ *
+ * The global order is the order of the stripes. Resources sharing a stripe are guarded by
+ * the same lock, which is taken only once - that breaks the ties of equal hashes.
+ *
+ * Usage:
+ *     try (OrderedLockManager.LockSet locks = manager.lock(from, to)) {
+ *         ...
+ *     }
+ *
+ * Nested calls of one thread are safe only if the inner set is already locked by the outer one,
+ * otherwise the global order could be broken.
+ */
+public class OrderedLockManager {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Manager with non-fair locks
+     *
+     * @param stripes - number of locks, rounded up to a power of two
+     */
+    public OrderedLockManager(int stripes) {
+        this(stripes, false);
+    }
+
+    /**
+     * @param stripes - number of locks, rounded up to a power of two
+     * @param fair    - true if the locks should be granted in the order of the requests
+     */
+    public OrderedLockManager(int stripes, boolean fair) {
+        if (stripes < 1 || stripes > (1 << 30))
+            throw new IllegalArgumentException("Number of stripes must be between 1 and 2^30");
+        int size = Math.max(1, Integer.highestOneBit(stripes - 1) << 1);
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock(fair);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return Number of locks in the table
+     */
+    public int getStripes() {
+        return locks.length;
+    }
+
+    /**
+     * Waits until all resources are locked
+     *
+     * @param resources - locked objects, mapped by their hashCode
+     * @return Held locks, which must be closed by the same thread
+     * @throws InterruptedException if interrupted while waiting - no lock is held then
+     */
+    public LockSet lock(Object... resources) throws InterruptedException {
+        return lockStripes(stripesOf(resources));
+    }
+
+    /**
+     * Waits until all resources are locked
+     *
+     * @param ids - ids of the locked resources
+     * @return Held locks, which must be closed by the same thread
+     * @throws InterruptedException if interrupted while waiting - no lock is held then
+     */
+    public LockSet lockIds(long... ids) throws InterruptedException {
+        return lockStripes(stripesOf(ids));
+    }
+
+    /**
+     * Locks all resources or none of them, without waiting
+     *
+     * @param resources - locked objects, mapped by their hashCode
+     * @return Held locks or null if any of the resources is locked by another thread
+     */
+    public LockSet tryLock(Object... resources) {
+        return tryLockStripes(stripesOf(resources));
+    }
+
+    /**
+     * Locks all resources or none of them, waiting at most the given time
+     *
+     * @param timeout   - max time of waiting for all locks together
+     * @param unit      - unit of the time
+     * @param resources - locked objects, mapped by their hashCode
+     * @return Held locks or null if the resources were not locked in time - no lock is held then
+     * @throws InterruptedException if interrupted while waiting - no lock is held then
+     */
+    public LockSet tryLockFor(long timeout, TimeUnit unit, Object... resources) throws InterruptedException {
+        return tryLockStripes(stripesOf(resources), unit.toNanos(timeout));
+    }
+
+    /**
+     * Locks all resources or none of them, waiting at most the given time
+     *
+     * @param timeout - max time of waiting for all locks together
+     * @param unit    - unit of the time
+     * @param ids     - ids of the locked resources
+     * @return Held locks or null if the resources were not locked in time - no lock is held then
+     * @throws InterruptedException if interrupted while waiting - no lock is held then
+     */
+    public LockSet tryLockIdsFor(long timeout, TimeUnit unit, long... ids) throws InterruptedException {
+        return tryLockStripes(stripesOf(ids), unit.toNanos(timeout));
+    }
+
+    /**
+     * @return Stripe of the resource with the given id
+     */
+    public int stripeOf(long id) {
+        // finalizer of MurmurHash3 - neighboring ids end up in distant stripes
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        id *= 0xc4ceb9fe1a85ec53L;
+        id ^= id >>> 33;
+        return (int) id & mask;
+    }
+
+    private LockSet lockStripes(int[] stripes) throws InterruptedException {
+        for (int i = 0; i < stripes.length; i++) {
+            try {
+                locks[stripes[i]].lockInterruptibly();
+            } catch (InterruptedException e) {
+                unlock(stripes, i);
+                throw e;
+            }
+        }
+        return new LockSet(stripes);
+    }
+
+    private LockSet tryLockStripes(int[] stripes) {
+        for (int i = 0; i < stripes.length; i++) {
+            if (!locks[stripes[i]].tryLock()) {
+                unlock(stripes, i);
+                return null;
+            }
+        }
+        return new LockSet(stripes);
+    }
+
+    private LockSet tryLockStripes(int[] stripes, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (int i = 0; i < stripes.length; i++) {
+            boolean locked;
+            try {
+                locked = locks[stripes[i]].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                unlock(stripes, i);
+                throw e;
+            }
+            if (!locked) {
+                unlock(stripes, i);
+                return null;
+            }
+        }
+        return new LockSet(stripes);
+    }
+
+    /**
+     * Unlocks the first 'count' stripes in the reverse order
+     */
+    private void unlock(int[] stripes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    private int[] stripesOf(Object[] resources) {
+        int[] stripes = new int[resources.length];
+        for (int i = 0; i < resources.length; i++) {
+            if (resources[i] == null)
+                throw new NullPointerException("Resource can not be null");
+            stripes[i] = stripeOf(resources[i].hashCode());
+        }
+        return sortedUnique(stripes);
+    }
+
+    private int[] stripesOf(long[] ids) {
+        int[] stripes = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            stripes[i] = stripeOf(ids[i]);
+        }
+        return sortedUnique(stripes);
+    }
+
+    private static int[] sortedUnique(int[] stripes) {
+        Arrays.sort(stripes);
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            if (i == 0 || stripes[i] != stripes[i - 1])
+                stripes[count++] = stripes[i];
+        }
+        return count == stripes.length ? stripes : Arrays.copyOf(stripes, count);
+    }
+
+    /**
+     * Locks held by one thread - closing releases all of them
+     */
+    public class LockSet implements AutoCloseable {
+
+        private final int[] stripes;
+        private boolean closed;
+
+        private LockSet(int[] stripes) {
+            this.stripes = stripes;
+        }
+
+        /**
+         * @return Number of distinct locks held - less than the number of resources if some share a stripe
+         */
+        public int size() {
+            return stripes.length;
+        }
+
+        /**
+         * Releases all locks - called by the thread which locked them, a second call does nothing
+         */
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            unlock(stripes, stripes.length);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of the class OrderedLockManager
+ */
+class OrderedLockManagerTest {
+
+    @Test
+    void stripesAreRoundedAndShared() throws InterruptedException {
+        OrderedLockManager manager = new OrderedLockManager(5);
+        assert manager.getStripes() == 8;
+
+        // 9 resources in 8 stripes - at least two share a lock, which is taken once
+        try (OrderedLockManager.LockSet locks = manager.lockIds(0, 1, 2, 3, 4, 5, 6, 7, 8)) {
+            assert locks.size() < 9;
+        }
+        try (OrderedLockManager.LockSet locks = manager.lockIds(42, 42, 42)) {
+            assert locks.size() == 1;
+        }
+    }
+
+    @Test
+    void equalObjectsShareTheLock() throws InterruptedException {
+        OrderedLockManager manager = new OrderedLockManager(1024);
+        try (OrderedLockManager.LockSet locks = manager.lock("account-1", new String("account-1"))) {
+            assert locks.size() == 1;
+        }
+    }
+
+    @Test
+    void tryLockIsAllOrNothing() throws InterruptedException {
+        OrderedLockManager manager = new OrderedLockManager(1024);
+        Long a = 1L;
+        Long b = 2L;
+        Long c = 3L;
+        assert manager.stripeOf(a.hashCode()) != manager.stripeOf(b.hashCode())
+                && manager.stripeOf(b.hashCode()) != manager.stripeOf(c.hashCode())
+                && manager.stripeOf(a.hashCode()) != manager.stripeOf(c.hashCode());
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread owner = new Thread(() -> {
+            try (OrderedLockManager.LockSet locks = manager.lock(b)) {
+                assert locks.size() == 1;
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        owner.start();
+        locked.await();
+
+        Thread other = new Thread(() -> {
+            assert manager.tryLock(a, b, c) == null;
+            try {
+                assert manager.tryLockFor(20, TimeUnit.MILLISECONDS, a, b, c) == null;
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            // nothing is held after a failed attempt
+            OrderedLockManager.LockSet locks = manager.tryLock(a, c);
+            assert locks != null;
+            locks.close();
+        });
+        other.start();
+        other.join();
+
+        done.countDown();
+        owner.join();
+        OrderedLockManager.LockSet all = manager.tryLock(a, b, c);
+        assert all != null;
+        all.close();
+        all.close();
+    }
+
+    @Test
+    void lockIsInterruptible() throws InterruptedException {
+        OrderedLockManager manager = new OrderedLockManager(16);
+        AtomicInteger interrupted = new AtomicInteger();
+
+        try (OrderedLockManager.LockSet locks = manager.lockIds(1, 2)) {
+            assert locks.size() == (manager.stripeOf(1) == manager.stripeOf(2) ? 1 : 2);
+            Thread waiter = new Thread(() -> {
+                try {
+                    manager.lockIds(2, 3).close();
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+            });
+            waiter.start();
+            Thread.sleep(50);
+            waiter.interrupt();
+            waiter.join();
+        }
+        assert interrupted.get() == 1;
+        // the waiter must not keep any lock - Long.hashCode() of 3 is 3
+        OrderedLockManager.LockSet locks = manager.tryLock(3L);
+        assert locks != null;
+        locks.close();
+    }
+
+    /**
+     * Threads lock random sets of accounts in random order and move money between them -
+     * without a deadlock and without losing money
+     */
+    @Test
+    void randomTransfersDoNotDeadlock() throws InterruptedException {
+        int accounts = 1000;
+        long[] balances = new long[accounts];
+        Arrays.fill(balances, 100);
+        OrderedLockManager manager = new OrderedLockManager(64);
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            Random random = new Random(t);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int from = random.nextInt(accounts);
+                    int to = random.nextInt(accounts);
+                    try (OrderedLockManager.LockSet locks = manager.lockIds(to, from)) {
+                        assert locks.size() <= 2;
+                        balances[from]--;
+                        balances[to]++;
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+            assert !thread.isAlive() : "Transfers did not finish - deadlock?";
+        }
+
+        assert Arrays.stream(balances).sum() == 100L * accounts;
+    }
+}
@@ -0,0 +1,210 @@
+package com.ltcode.liveness;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Generalized DiningPhilosophers - N philosophers, each in his own thread, think and eat
+ * in a loop for the given time, and pick up the chopsticks with the given AcquisitionStrategy.
+ * Thinking and eating are busy loops, so the chopsticks are the only shared resource.
+ *
+ * For each strategy it reports:
+ *
+ *     meals/s  - throughput of the whole table
+ *     wait     - percentiles of the time from getting hungry to holding both chopsticks
+ *     max/min  - meals of the most fed philosopher / meals of the least fed one
+ *     jain     - Jain's fairness index of the meals, 1 = all philosophers ate equally, 1/N = one ate
+ */
+public class PhilosophersBenchmark {
+
+    private final int philosophers;
+    private long durationNanos = TimeUnit.SECONDS.toNanos(1);
+    private long thinkNanos = TimeUnit.MICROSECONDS.toNanos(10);
+    private long eatNanos = TimeUnit.MICROSECONDS.toNanos(10);
+
+    /**
+     * @param philosophers - number of philosophers and chopsticks
+     */
+    public PhilosophersBenchmark(int philosophers) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        this.philosophers = philosophers;
+    }
+
+    /**
+     * @param duration - time of one run
+     * @param unit     - unit of the time
+     */
+    public PhilosophersBenchmark setDuration(long duration, TimeUnit unit) {
+        if (duration <= 0)
+            throw new IllegalArgumentException("Duration must be positive");
+        this.durationNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * @param think - time of thinking between the meals
+     * @param eat   - time of eating (holding both chopsticks)
+     * @param unit  - unit of the times
+     */
+    public PhilosophersBenchmark setWorkload(long think, long eat, TimeUnit unit) {
+        if (think < 0 || eat < 0)
+            throw new IllegalArgumentException("Times can not be negative");
+        this.thinkNanos = unit.toNanos(think);
+        this.eatNanos = unit.toNanos(eat);
+        return this;
+    }
+
+    /**
+     * Runs the philosophers with a new strategy
+     *
+     * @param strategyFactory - creates the strategy for the number of philosophers,
+     *                        e.g. AcquisitionStrategy::globalOrder
+     * @return Result of the run
+     * @throws InterruptedException if interrupted while waiting for the philosophers
+     * @throws IllegalStateException if the philosophers did not stop in time - a deadlock
+     */
+    public Result run(IntFunction<? extends AcquisitionStrategy> strategyFactory) throws InterruptedException {
+        AcquisitionStrategy strategy = strategyFactory.apply(philosophers);
+        long[] meals = new long[philosophers];
+        LatencyHistogram waits = new LatencyHistogram();
+        Thread[] threads = new Thread[philosophers];
+
+        long startTime = System.nanoTime();
+        long endTime = startTime + durationNanos;
+        for (int i = 0; i < philosophers; i++) {
+            int philosopher = i;
+            threads[i] = new Thread(() -> dine(strategy, philosopher, endTime, meals, waits),
+                    "philosopher-" + philosopher);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        long patienceMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos) + 10_000;
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, patienceMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+            if (thread.isAlive()) {
+                Arrays.stream(threads).forEach(Thread::interrupt);
+                throw new IllegalStateException("Philosophers of '" + strategy.getName() + "' did not stop - deadlock?");
+            }
+        }
+        long runtime = System.nanoTime() - startTime;
+
+        return new Result(strategy.getName(), runtime, meals, waits);
+    }
+
+    private void dine(AcquisitionStrategy strategy, int philosopher, long endTime,
+                      long[] meals, LatencyHistogram waits) {
+        long eaten = 0;
+        try {
+            while (System.nanoTime() < endTime) {
+                work(thinkNanos);
+
+                long hungry = System.nanoTime();
+                strategy.acquire(philosopher);
+                waits.record(System.nanoTime() - hungry);
+                try {
+                    work(eatNanos);
+                    eaten++;
+                } finally {
+                    strategy.release(philosopher);
+                }
+            }
+        } catch (InterruptedException e) {
+            // the run was cancelled
+        }
+        // read by the main thread after join
+        meals[philosopher] = eaten;
+    }
+
+    private static void work(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Result of one run
+     */
+    public static class Result {
+
+        private final String strategy;
+        private final long runtime;
+        private final long[] meals;
+        private final LatencyHistogram waits;
+
+        Result(String strategy, long runtime, long[] meals, LatencyHistogram waits) {
+            this.strategy = strategy;
+            this.runtime = runtime;
+            this.meals = meals;
+            this.waits = waits;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * @return Meals of every philosopher
+         */
+        public long[] getMeals() {
+            return meals.clone();
+        }
+
+        public long getTotalMeals() {
+            return Arrays.stream(meals).sum();
+        }
+
+        public double getMealsPerSecond() {
+            return getTotalMeals() * 1e9 / runtime;
+        }
+
+        /**
+         * @return Histogram of the times from getting hungry to holding both chopsticks
+         */
+        public LatencyHistogram getWaits() {
+            return waits;
+        }
+
+        /**
+         * @return Meals of the most fed philosopher / meals of the least fed one,
+         *         infinity if somebody starved
+         */
+        public double getMaxMinRatio() {
+            long min = Arrays.stream(meals).min().orElse(0);
+            long max = Arrays.stream(meals).max().orElse(0);
+            return min == 0 ? Double.POSITIVE_INFINITY : (double) max / min;
+        }
+
+        /**
+         * @return Jain's fairness index (sum x)^2 / (n * sum x^2), between 1/n and 1
+         */
+        public double getJainIndex() {
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (long m : meals) {
+                sum += m;
+                sumOfSquares += (double) m * m;
+            }
+            return sumOfSquares == 0 ? 0 : sum * sum / (meals.length * sumOfSquares);
+        }
+
+        public static String header() {
+            return String.format("%-18s %5s %12s %10s %10s %10s %8s %6s",
+                    "strategy", "N", "meals/s", "wait p50", "wait p99", "wait max", "max/min", "jain");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-18s %5d %12.0f %10s %10s %10s %8.2f %6.3f",
+                    strategy, meals.length, getMealsPerSecond(),
+                    LatencyHistogram.format(waits.getPercentile(50)),
+                    LatencyHistogram.format(waits.getPercentile(99)),
+                    LatencyHistogram.format(waits.getMax()),
+                    getMaxMinRatio(), getJainIndex());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the throughput, waiting times and fairness of the acquisition strategies
+ *
+ * No tests for correctness are included in this class - you can find them in the class: AcquisitionStrategyTest
+ */
+class PhilosophersBenchmarkTestPerformance {
+
+    static int DURATION_MILLIS;
+    static List<IntFunction<AcquisitionStrategy>> strategies;
+
+    @BeforeAll
+    static void setUp() {
+        DURATION_MILLIS = 500;
+        strategies = List.of(
+                AcquisitionStrategy::globalOrder,
+                AcquisitionStrategy::tryLockWithBackoff,
+                AcquisitionStrategy::arbiter,
+                AcquisitionStrategy::chandyMisra,
+                AcquisitionStrategy::lockManager);
+    }
+
+    @Test
+    void fivePhilosophers() throws InterruptedException {
+        compare(5);
+    }
+
+    @Test
+    void manyPhilosophers() throws InterruptedException {
+        compare(64);
+    }
+
+    private void compare(int philosophers) throws InterruptedException {
+        PhilosophersBenchmark benchmark = new PhilosophersBenchmark(philosophers)
+                .setDuration(DURATION_MILLIS, TimeUnit.MILLISECONDS)
+                .setWorkload(5, 5, TimeUnit.MICROSECONDS);
+
+        System.out.println(PhilosophersBenchmark.Result.header());
+        for (IntFunction<AcquisitionStrategy> strategy : strategies) {
+            PhilosophersBenchmark.Result result = benchmark.run(strategy);
+            System.out.println(result);
+            assert result.getTotalMeals() > 0;
+        }
+        System.out.println();
+    }
+}
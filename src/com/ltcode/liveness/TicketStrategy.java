@@ -0,0 +1,98 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Starvation-free strategy - a hungry philosopher draws a ticket, and a lower ticket means
+ * a higher priority (aging - the longer he waits, the more neighbors he overtakes):
+ *
+ *     philosopher p may eat only if both neighbors are not eating
+ *     and neither of them is hungry with a lower ticket
+ *
+ * So a neighbor who got hungry later can not take a chopstick away from p, even if it is free.
+ * The hungry philosopher with the lowest ticket waits only for his eating neighbors,
+ * every philosopher becomes the lowest ticket in the end, and nobody starves.
+ * The price is throughput - a chopstick may stay unused while its older neighbor waits for the other one.
+ *
+ * The state of the table is guarded by one lock held only for the decision, eating is outside of it.
+ */
+final class TicketStrategy implements AcquisitionStrategy {
+
+    private final ReentrantLock table = new ReentrantLock();
+    private final Condition[] turns;
+    private final long[] tickets;     // 0 = not hungry
+    private final boolean[] eating;
+    private long nextTicket = 1;
+
+    TicketStrategy(int philosophers) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        turns = new Condition[philosophers];
+        for (int i = 0; i < philosophers; i++) {
+            turns[i] = table.newCondition();
+        }
+        tickets = new long[philosophers];
+        eating = new boolean[philosophers];
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        table.lock();
+        try {
+            tickets[philosopher] = nextTicket++;
+            try {
+                while (!canEat(philosopher)) {
+                    turns[philosopher].await();
+                }
+            } catch (InterruptedException e) {
+                // the neighbors may be waiting for his priority
+                tickets[philosopher] = 0;
+                wakeNeighbors(philosopher);
+                throw e;
+            }
+            tickets[philosopher] = 0;
+            eating[philosopher] = true;
+        } finally {
+            table.unlock();
+        }
+    }
+
+    @Override
+    public void release(int philosopher) {
+        table.lock();
+        try {
+            eating[philosopher] = false;
+            wakeNeighbors(philosopher);
+        } finally {
+            table.unlock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "fair-ticket";
+    }
+
+    private boolean canEat(int philosopher) {
+        int left = leftNeighbor(philosopher);
+        int right = rightNeighbor(philosopher);
+        long ticket = tickets[philosopher];
+        return !eating[left] && !eating[right]
+                && (tickets[left] == 0 || tickets[left] > ticket)
+                && (tickets[right] == 0 || tickets[right] > ticket);
+    }
+
+    private void wakeNeighbors(int philosopher) {
+        turns[leftNeighbor(philosopher)].signal();
+        turns[rightNeighbor(philosopher)].signal();
+    }
+
+    private int leftNeighbor(int philosopher) {
+        return (philosopher + tickets.length - 1) % tickets.length;
+    }
+
+    private int rightNeighbor(int philosopher) {
+        return (philosopher + 1) % tickets.length;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ltcode.liveness;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests of the class TicketStrategy - mutual exclusion and progress are tested in AcquisitionStrategyTest
+ */
+class TicketStrategyTest {
+
+    /**
+     * A free chopstick is not given to a neighbor who got hungry later
+     * than the philosopher who wants it
+     */
+    @Test
+    void olderHungryNeighborHasPriority() throws InterruptedException {
+        TicketStrategy table = new TicketStrategy(5);
+        table.acquire(0);
+
+        // philosopher 1 waits for 0, philosopher 2 is next to 1
+        AtomicBoolean firstAte = new AtomicBoolean();
+        AtomicBoolean secondAte = new AtomicBoolean();
+        Thread first = new Thread(() -> {
+            try {
+                table.acquire(1);
+                firstAte.set(true);
+                table.release(1);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        first.start();
+        while (first.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        Thread second = new Thread(() -> {
+            try {
+                table.acquire(2);
+                // chopstick 2 is free, but philosopher 1 has been hungry longer
+                secondAte.set(firstAte.get());
+                table.release(2);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        second.start();
+        while (second.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        table.release(0);
+        first.join();
+        second.join();
+        assert firstAte.get() && secondAte.get() : "Philosopher 2 ate before the older philosopher 1";
+    }
+
+    @Test
+    void interruptedPhilosopherGivesUpPriority() throws InterruptedException {
+        TicketStrategy table = new TicketStrategy(3);
+        table.acquire(0);
+
+        Thread waiting = new Thread(() -> {
+            try {
+                table.acquire(1);
+            } catch (InterruptedException e) {
+                // gives up
+            }
+        });
+        waiting.start();
+        while (waiting.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        waiting.interrupt();
+        waiting.join();
+
+        // philosopher 2 shares a chopstick with 0, release it first
+        table.release(0);
+        table.acquire(2);
+        table.release(2);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ltcode.liveness;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks the left chopstick and only tries the right one. If it is taken, the left
+ * chopstick is put down and the philosopher sleeps for a random time, up to a limit
+ * that doubles after every failure, so the neighbors do not retry in lockstep (livelock).
+ */
+final class TryLockBackoffStrategy implements AcquisitionStrategy {
+
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ReentrantLock[] chopsticks;
+
+    TryLockBackoffStrategy(int philosophers) {
+        if (philosophers < 2)
+            throw new IllegalArgumentException("At least 2 philosophers are needed");
+        chopsticks = new ReentrantLock[philosophers];
+        for (int i = 0; i < philosophers; i++) {
+            chopsticks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void acquire(int philosopher) throws InterruptedException {
+        ReentrantLock left = chopsticks[philosopher];
+        ReentrantLock right = chopsticks[(philosopher + 1) % chopsticks.length];
+        long backoff = MIN_BACKOFF_NANOS;
+
+        while (true) {
+            left.lockInterruptibly();
+            if (right.tryLock())
+                return;
+            left.unlock();
+
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoff) + 1);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+    }
+
+    @Override
+    public void release(int philosopher) {
+        chopsticks[(philosopher + 1) % chopsticks.length].unlock();
+        chopsticks[philosopher].unlock();
+    }
+
+    @Override
+    public String getName() {
+        return "trylock-backoff";
+    }
+}
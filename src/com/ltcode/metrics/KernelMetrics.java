@@ -0,0 +1,518 @@
+package com.ltcode.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics of the parallel kernels (ArrayManipulator, MatrixManipulator ...).
+ *
+ * For every operation it records:
+ *     calls    - number of calls and their total and max time
+ *     tasks    - number of created fork/join tasks or threads
+ *     leaves   - number of tasks doing the work sequentially, and their min/max/mean size
+ *     elements - number of processed elements, gives the elements per second
+ *
+ * For every registered ForkJoinPool (the common pool is registered by default) the snapshot
+ * contains its parallelism, active threads, steal count and queued tasks.
+ *
+ * The metrics are disabled by default - then an operation costs one volatile read.
+ * When enabled, recording does not allocate and does not lock - counters are striped LongAdders.
+ *
+ * Usage:
+ *     KernelMetrics.setEnabled(true);
+ *     KernelMetrics.registerMBean();                  // optional, for JConsole / JMX clients
+ *     ...
+ *     System.out.println(KernelMetrics.snapshot());
+ *
+ * Instrumented code keeps its Operation in a static field:
+ *     private static final KernelMetrics.Operation SORT = KernelMetrics.operation("Sorter.sort");
+ *     long start = SORT.start();
+ *     ...
+ *     SORT.stop(start, elements);
+ */
+public final class KernelMetrics {
+
+    public static final String OBJECT_NAME = "com.ltcode:type=KernelMetrics";
+
+    // start time of a call made while the metrics were disabled
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private static volatile boolean enabled;
+    private static final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private static final Map<String, WeakReference<ForkJoinPool>> pools = new ConcurrentHashMap<>();
+
+    static {
+        pools.put("common", new WeakReference<>(ForkJoinPool.commonPool()));
+    }
+
+    private KernelMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled - true to start recording, false to make the recording a no-op
+     */
+    public static void setEnabled(boolean enabled) {
+        KernelMetrics.enabled = enabled;
+    }
+
+    /**
+     * @param name - name of the operation in the reports, e.g. "ArrayManipulator.incrementPar"
+     * @return The operation of the name - created on the first call
+     */
+    public static Operation operation(String name) {
+        if (name == null)
+            throw new NullPointerException("Name can not be null");
+        return operations.computeIfAbsent(name, Operation::new);
+    }
+
+    /**
+     * Adds the pool to the snapshots - the pool is held weakly, so it does not have to be unregistered
+     *
+     * @param name - name of the pool in the reports, replaces a pool of the same name
+     * @param pool - observed pool
+     */
+    public static void registerPool(String name, ForkJoinPool pool) {
+        if (name == null || pool == null)
+            throw new NullPointerException("Name and pool can not be null");
+        pools.put(name, new WeakReference<>(pool));
+    }
+
+    public static void unregisterPool(String name) {
+        pools.remove(name);
+    }
+
+    /**
+     * Sets all counters of all operations to 0
+     */
+    public static void reset() {
+        operations.values().forEach(Operation::reset);
+    }
+
+    /**
+     * @return Current values of all operations and registered pools
+     */
+    public static Snapshot snapshot() {
+        Map<String, OperationStats> operationStats = new TreeMap<>();
+        for (Operation operation : operations.values()) {
+            operationStats.put(operation.name, operation.stats());
+        }
+        Map<String, PoolStats> poolStats = new TreeMap<>();
+        pools.forEach((name, reference) -> {
+            ForkJoinPool pool = reference.get();
+            if (pool == null)
+                pools.remove(name, reference);
+            else
+                poolStats.put(name, new PoolStats(name, pool));
+        });
+        return new Snapshot(operationStats, poolStats);
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server under OBJECT_NAME
+     *
+     * @return Name of the MBean
+     * @throws IllegalStateException if the MBean can not be registered
+     */
+    public static ObjectName registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(new KernelMetricsMXBeanImpl(), name);
+            } catch (InstanceAlreadyExistsException e) {
+                // registered before
+            }
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("MBean can not be registered", e);
+        }
+    }
+
+    public static void unregisterMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (JMException e) {
+            throw new IllegalStateException("MBean can not be unregistered", e);
+        }
+    }
+
+    /**
+     * Recorded operation - keep it in a static field of the instrumented class
+     */
+    public static final class Operation {
+
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder tasks = new LongAdder();
+        private final LongAdder leaves = new LongAdder();
+        private final LongAdder leafElements = new LongAdder();
+        private final LongAccumulator minLeaf = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxLeaf = new LongAccumulator(Math::max, 0);
+        private final LongAdder elements = new LongAdder();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Start time of the call, pass it to stop()
+         */
+        public long start() {
+            return start(false);
+        }
+
+        /**
+         * @param always - true to record the call even if the metrics are disabled
+         * @return Start time of the call, pass it to stop()
+         */
+        public long start(boolean always) {
+            return always || enabled ? System.nanoTime() : NOT_STARTED;
+        }
+
+        /**
+         * Records one finished call
+         *
+         * @param start    - value returned by start()
+         * @param elements - number of elements processed by the call
+         */
+        public void stop(long start, long elements) {
+            if (start == NOT_STARTED)
+                return;
+            long nanos = System.nanoTime() - start;
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            this.elements.add(elements);
+        }
+
+        /**
+         * Records created tasks (or threads) of a call
+         */
+        public void tasks(int count) {
+            tasks(count, false);
+        }
+
+        /**
+         * @param always - true to record the tasks even if the metrics are disabled
+         */
+        public void tasks(int count, boolean always) {
+            if (always || enabled)
+                tasks.add(count);
+        }
+
+        /**
+         * Records a task doing the work sequentially
+         *
+         * @param size - number of elements of the task
+         */
+        public void leaf(long size) {
+            leaf(size, false);
+        }
+
+        /**
+         * @param always - true to record the task even if the metrics are disabled
+         */
+        public void leaf(long size, boolean always) {
+            if (always || enabled) {
+                leaves.increment();
+                leafElements.add(size);
+                minLeaf.accumulate(size);
+                maxLeaf.accumulate(size);
+            }
+        }
+
+        private void reset() {
+            calls.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            tasks.reset();
+            leaves.reset();
+            leafElements.reset();
+            minLeaf.reset();
+            maxLeaf.reset();
+            elements.reset();
+        }
+
+        private OperationStats stats() {
+            long leafCount = leaves.sum();
+            return new OperationStats(name, calls.sum(), totalNanos.sum(), maxNanos.get(), tasks.sum(),
+                    leafCount, leafCount == 0 ? 0 : minLeaf.get(), maxLeaf.get(), leafElements.sum(), elements.sum());
+        }
+    }
+
+    /**
+     * Values of all operations and pools at one moment
+     */
+    public static class Snapshot {
+
+        private final Map<String, OperationStats> operations;
+        private final Map<String, PoolStats> pools;
+
+        private Snapshot(Map<String, OperationStats> operations, Map<String, PoolStats> pools) {
+            this.operations = Collections.unmodifiableMap(operations);
+            this.pools = Collections.unmodifiableMap(pools);
+        }
+
+        /**
+         * @return Operations by name
+         */
+        public Map<String, OperationStats> getOperations() {
+            return operations;
+        }
+
+        /**
+         * @return Statistics of the operation, with zeros if it was never called
+         */
+        public OperationStats getOperation(String name) {
+            OperationStats stats = operations.get(name);
+            return stats != null ? stats : new OperationStats(name, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+
+        /**
+         * @return Pools by name
+         */
+        public Map<String, PoolStats> getPools() {
+            return pools;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-36s %8s %10s %10s %8s %8s %10s %10s %12s%n", "operation", "calls",
+                    "mean[us]", "max[us]", "tasks", "leaves", "mean leaf", "max leaf", "elements/s"));
+            for (OperationStats op : operations.values()) {
+                if (op.getCalls() == 0)
+                    continue;
+                sb.append(String.format("%-36s %8d %10d %10d %8d %8d %10d %10d %12.0f%n", op.getName(), op.getCalls(),
+                        TimeUnit.NANOSECONDS.toMicros(op.getTotalNanos() / op.getCalls()),
+                        TimeUnit.NANOSECONDS.toMicros(op.getMaxNanos()),
+                        op.getTasks(), op.getLeaves(), (long) op.getMeanLeafSize(), op.getMaxLeafSize(),
+                        op.getElementsPerSecond()));
+            }
+            sb.append(String.format("%n%-36s %8s %8s %12s %10s %12s%n", "pool", "threads", "active",
+                    "steals", "queued", "submissions"));
+            for (PoolStats pool : pools.values()) {
+                sb.append(String.format("%-36s %8s %8d %12d %10d %12d%n", pool.getName(),
+                        pool.getPoolSize() + "/" + pool.getParallelism(), pool.getActiveThreads(),
+                        pool.getStealCount(), pool.getQueuedTasks(), pool.getQueuedSubmissions()));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Values of one operation, times are in nanoseconds
+     */
+    public static class OperationStats {
+
+        private final String name;
+        private final long calls;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long tasks;
+        private final long leaves;
+        private final long minLeafSize;
+        private final long maxLeafSize;
+        private final long leafElements;
+        private final long elements;
+
+        OperationStats(String name, long calls, long totalNanos, long maxNanos, long tasks,
+                       long leaves, long minLeafSize, long maxLeafSize, long leafElements, long elements) {
+            this.name = name;
+            this.calls = calls;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.tasks = tasks;
+            this.leaves = leaves;
+            this.minLeafSize = minLeafSize;
+            this.maxLeafSize = maxLeafSize;
+            this.leafElements = leafElements;
+            this.elements = elements;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getTasks() {
+            return tasks;
+        }
+
+        public long getLeaves() {
+            return leaves;
+        }
+
+        public long getMinLeafSize() {
+            return minLeafSize;
+        }
+
+        public long getMaxLeafSize() {
+            return maxLeafSize;
+        }
+
+        public double getMeanLeafSize() {
+            return leaves == 0 ? 0 : (double) leafElements / leaves;
+        }
+
+        public long getElements() {
+            return elements;
+        }
+
+        /**
+         * @return Processed elements per second of the calls' time
+         */
+        public double getElementsPerSecond() {
+            return totalNanos == 0 ? 0 : elements * 1e9 / totalNanos;
+        }
+    }
+
+    /**
+     * Values of one ForkJoinPool
+     */
+    public static class PoolStats {
+
+        private final String name;
+        private final int parallelism;
+        private final int poolSize;
+        private final int activeThreads;
+        private final long stealCount;
+        private final long queuedTasks;
+        private final int queuedSubmissions;
+
+        private PoolStats(String name, ForkJoinPool pool) {
+            this.name = name;
+            this.parallelism = pool.getParallelism();
+            this.poolSize = pool.getPoolSize();
+            this.activeThreads = pool.getActiveThreadCount();
+            this.stealCount = pool.getStealCount();
+            this.queuedTasks = pool.getQueuedTaskCount();
+            this.queuedSubmissions = pool.getQueuedSubmissionCount();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        /**
+         * @return Total number of tasks stolen from other workers' queues - grows monotonically
+         */
+        public long getStealCount() {
+            return stealCount;
+        }
+
+        public long getQueuedTasks() {
+            return queuedTasks;
+        }
+
+        public int getQueuedSubmissions() {
+            return queuedSubmissions;
+        }
+    }
+
+    /**
+     * The metrics seen by JMX clients - operations and pools are tables of name -> values
+     */
+    private static class KernelMetricsMXBeanImpl implements KernelMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return KernelMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            KernelMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Map<String, Long>> getOperations() {
+            Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+            for (OperationStats op : snapshot().getOperations().values()) {
+                Map<String, Long> values = new LinkedHashMap<>();
+                values.put("calls", op.getCalls());
+                values.put("totalNanos", op.getTotalNanos());
+                values.put("maxNanos", op.getMaxNanos());
+                values.put("tasks", op.getTasks());
+                values.put("leaves", op.getLeaves());
+                values.put("minLeafSize", op.getMinLeafSize());
+                values.put("maxLeafSize", op.getMaxLeafSize());
+                values.put("meanLeafSize", Math.round(op.getMeanLeafSize()));
+                values.put("elements", op.getElements());
+                values.put("elementsPerSecond", Math.round(op.getElementsPerSecond()));
+                result.put(op.getName(), values);
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Map<String, Long>> getPools() {
+            Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+            for (PoolStats pool : snapshot().getPools().values()) {
+                Map<String, Long> values = new LinkedHashMap<>();
+                values.put("parallelism", (long) pool.getParallelism());
+                values.put("poolSize", (long) pool.getPoolSize());
+                values.put("activeThreads", (long) pool.getActiveThreads());
+                values.put("stealCount", pool.getStealCount());
+                values.put("queuedTasks", pool.getQueuedTasks());
+                values.put("queuedSubmissions", (long) pool.getQueuedSubmissions());
+                result.put(pool.getName(), values);
+            }
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            KernelMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ltcode.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of KernelMetrics, registered by KernelMetrics.registerMBean()
+ */
+public interface KernelMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return Operation name -> counters of the operation (calls, totalNanos, tasks, leaves ...)
+     */
+    Map<String, Map<String, Long>> getOperations();
+
+    /**
+     * @return Pool name -> values of the pool (parallelism, stealCount, queuedTasks ...)
+     */
+    Map<String, Map<String, Long>> getPools();
+
+    /**
+     * Sets all counters to 0
+     */
+    void reset();
+}
@@ -0,0 +1,157 @@
+package com.ltcode.metrics;
+
+import com.ltcode.forkjoin.ArrayManipulator;
+import com.ltcode.threads.MatrixManipulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests of the class KernelMetrics
+ */
+class KernelMetricsTest {
+
+    @BeforeEach
+    void setUp() {
+        KernelMetrics.reset();
+        KernelMetrics.setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        KernelMetrics.setEnabled(false);
+        KernelMetrics.reset();
+    }
+
+    @Test
+    void disabledMetricsRecordNothing() {
+        KernelMetrics.setEnabled(false);
+        ArrayManipulator.incrementPar(new int[1000], 0, 1000, 1);
+        ArrayManipulator.incrementSeq(new int[1000], 0, 1000, 1);
+
+        KernelMetrics.OperationStats stats = KernelMetrics.snapshot().getOperation("ArrayManipulator.incrementPar");
+        assert stats.getCalls() == 0 && stats.getTasks() == 0 && stats.getLeaves() == 0 && stats.getElements() == 0;
+        assert KernelMetrics.snapshot().getOperation("ArrayManipulator.incrementSeq").getCalls() == 0;
+    }
+
+    @Test
+    void incrementParRecordsOneLeafPerTask() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ArrayManipulator.incrementPar(new int[1000], 0, 1000, 1, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        KernelMetrics.OperationStats stats = KernelMetrics.snapshot().getOperation("ArrayManipulator.incrementPar");
+        assert stats.getCalls() == 1;
+        assert stats.getTasks() == 4 && stats.getLeaves() == 4;
+        assert stats.getMinLeafSize() == 250 && stats.getMaxLeafSize() == 250 && stats.getMeanLeafSize() == 250;
+        assert stats.getElements() == 1000;
+        assert stats.getTotalNanos() > 0 && stats.getMaxNanos() == stats.getTotalNanos();
+        assert stats.getElementsPerSecond() > 0;
+    }
+
+    @Test
+    void incrementParWithThresholdRecordsTheTree() {
+        ArrayManipulator.incrementParWithThreshold(new int[1000], 0, 1000, 1, 100);
+
+        KernelMetrics.OperationStats stats =
+                KernelMetrics.snapshot().getOperation("ArrayManipulator.incrementParWithThreshold");
+        // 1000 is halved 4 times into 16 leaves of 62 or 63 elements
+        assert stats.getLeaves() == 16 : stats.getLeaves();
+        assert stats.getTasks() == 2 * 16 - 1;
+        assert stats.getMinLeafSize() == 62 && stats.getMaxLeafSize() == 63;
+        assert stats.getElements() == 1000;
+    }
+
+    @Test
+    void multiplyParRecordsThreads() {
+        MatrixManipulator.multiplyPar(new int[10][5], new int[5][10], 3);
+        MatrixManipulator.multiplySeq(new int[10][5], new int[5][10]);
+
+        KernelMetrics.Snapshot snapshot = KernelMetrics.snapshot();
+        KernelMetrics.OperationStats par = snapshot.getOperation("MatrixManipulator.multiplyPar");
+        assert par.getCalls() == 1 && par.getTasks() == 3 && par.getLeaves() == 3;
+        assert par.getElements() == 100 && par.getMaxLeafSize() == 34;
+        assert snapshot.getOperation("MatrixManipulator.multiplySeq").getElements() == 100;
+        assert snapshot.toString().contains("MatrixManipulator.multiplyPar");
+    }
+
+    @Test
+    void resetSetsCountersToZero() {
+        KernelMetrics.Operation operation = KernelMetrics.operation("test.reset");
+        assert KernelMetrics.operation("test.reset") == operation;
+        operation.stop(operation.start(), 10);
+        operation.tasks(2);
+        operation.leaf(5);
+
+        KernelMetrics.reset();
+        KernelMetrics.OperationStats stats = KernelMetrics.snapshot().getOperation("test.reset");
+        assert stats.getCalls() == 0 && stats.getTasks() == 0 && stats.getLeaves() == 0;
+        assert stats.getMinLeafSize() == 0 && stats.getMaxNanos() == 0;
+    }
+
+    @Test
+    void callStartedWhileDisabledIsNotRecorded() {
+        KernelMetrics.Operation operation = KernelMetrics.operation("test.toggle");
+        KernelMetrics.setEnabled(false);
+        long start = operation.start();
+        KernelMetrics.setEnabled(true);
+        operation.stop(start, 10);
+        assert KernelMetrics.snapshot().getOperation("test.toggle").getCalls() == 0;
+    }
+
+    @Test
+    void poolSnapshots() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            KernelMetrics.registerPool("test", pool);
+            ArrayManipulator.incrementParWithThreshold(new int[100_000], 0, 100_000, 1, 100, pool);
+
+            KernelMetrics.Snapshot snapshot = KernelMetrics.snapshot();
+            assert snapshot.getPools().containsKey("common");
+            KernelMetrics.PoolStats stats = snapshot.getPools().get("test");
+            assert stats.getParallelism() == 2 && stats.getPoolSize() >= 1;
+            assert stats.getStealCount() >= 0 && stats.getQueuedTasks() >= 0;
+        } finally {
+            KernelMetrics.unregisterPool("test");
+            pool.shutdown();
+        }
+        assert !KernelMetrics.snapshot().getPools().containsKey("test");
+    }
+
+    @Test
+    void jmx() throws Exception {
+        ObjectName name = KernelMetrics.registerMBean();
+        try {
+            assert KernelMetrics.registerMBean().equals(name);
+            ArrayManipulator.incrementPar(new int[1000], 0, 1000, 1);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assert (Boolean) server.getAttribute(name, "Enabled");
+
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+            CompositeData row = operations.get(new Object[]{"ArrayManipulator.incrementPar"});
+            TabularData values = (TabularData) row.get("value");
+            assert (Long) values.get(new Object[]{"calls"}).get("value") == 1;
+            assert (Long) values.get(new Object[]{"elements"}).get("value") == 1000;
+
+            TabularData pools = (TabularData) server.getAttribute(name, "Pools");
+            assert pools.get(new Object[]{"common"}) != null;
+
+            server.invoke(name, "reset", null, null);
+            assert KernelMetrics.snapshot().getOperation("ArrayManipulator.incrementPar").getCalls() == 0;
+        } finally {
+            KernelMetrics.unregisterMBean();
+        }
+        assert !ManagementFactory.getPlatformMBeanServer().isRegistered(name);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ltcode.metrics;
+
+import com.ltcode.forkjoin.ArrayManipulator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the cost of the metrics on a hot path - many increments of short ranges
+ *
+ * No tests for correctness are included in this class - you can find them in the class: KernelMetricsTest
+ */
+class KernelMetricsTestPerformance {
+
+    static int CALLS;
+    static int RANGE;
+    static int REPEATS;
+
+    @BeforeAll
+    static void setUp() {
+        CALLS = 2_000_000;
+        RANGE = 16;
+        REPEATS = 5;
+    }
+
+    @Test
+    void overhead() {
+        int[] array = new int[RANGE];
+        long disabled = Long.MAX_VALUE;
+        long enabled = Long.MAX_VALUE;
+        try {
+            for (int r = 0; r < REPEATS; r++) {
+                KernelMetrics.setEnabled(false);
+                disabled = Math.min(disabled, run(array));
+                KernelMetrics.setEnabled(true);
+                enabled = Math.min(enabled, run(array));
+            }
+        } finally {
+            KernelMetrics.setEnabled(false);
+        }
+
+        System.out.printf("incrementSeq of %d elements: disabled %.1f ns/call, enabled %.1f ns/call%n",
+                RANGE, (double) disabled / CALLS, (double) enabled / CALLS);
+        System.out.println(KernelMetrics.snapshot());
+        KernelMetrics.reset();
+        assert array[0] == 2 * REPEATS * CALLS;
+    }
+
+    private static long run(int[] array) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            ArrayManipulator.incrementSeq(array, 0, array.length, 1);
+        }
+        return System.nanoTime() - startTime;
+    }
+}
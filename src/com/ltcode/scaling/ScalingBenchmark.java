@@ -0,0 +1,115 @@
+package com.ltcode.scaling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs a parallel kernel with 1, 2, 4 ... N workers and records its scaling curve:
+ *
+ *     strong scaling - the size is the same for every number of workers
+ *     weak scaling   - the work grows with the number of workers (size of ScalingKernel.getWeakSize)
+ *
+ * Each number of workers gets its own ForkJoinPool. The kernel is run a few times
+ * to warm up and then the fastest of the measured runs is kept.
+ */
+public class ScalingBenchmark {
+
+    public enum Mode {
+        STRONG,
+        WEAK
+    }
+
+    private int[] workers = defaultWorkers(Runtime.getRuntime().availableProcessors());
+    private int warmups = 2;
+    private int repeats = 5;
+
+    /**
+     * @param maxWorkers - max number of workers
+     * @return 1, 2, 4 ... powers of two below maxWorkers, and maxWorkers
+     */
+    public static int[] defaultWorkers(int maxWorkers) {
+        if (maxWorkers < 1)
+            throw new IllegalArgumentException("Number of workers must be positive");
+        List<Integer> workers = new ArrayList<>();
+        for (int w = 1; w < maxWorkers; w *= 2) {
+            workers.add(w);
+        }
+        workers.add(maxWorkers);
+        return workers.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param workers - numbers of workers in increasing order, the first one must be 1 - it is the baseline
+     */
+    public ScalingBenchmark setWorkers(int... workers) {
+        if (workers.length == 0 || workers[0] != 1)
+            throw new IllegalArgumentException("Numbers of workers must start with 1");
+        for (int i = 1; i < workers.length; i++) {
+            if (workers[i] <= workers[i - 1])
+                throw new IllegalArgumentException("Numbers of workers must be increasing");
+        }
+        this.workers = workers.clone();
+        return this;
+    }
+
+    /**
+     * @param warmups - number of not measured runs for each number of workers
+     * @param repeats - number of measured runs for each number of workers, the fastest one is kept
+     */
+    public ScalingBenchmark setRepeats(int warmups, int repeats) {
+        if (warmups < 0 || repeats < 1)
+            throw new IllegalArgumentException("Warmups can not be negative and repeats must be positive");
+        this.warmups = warmups;
+        this.repeats = repeats;
+        return this;
+    }
+
+    public int[] getWorkers() {
+        return workers.clone();
+    }
+
+    /**
+     * Runs the kernel with every number of workers
+     *
+     * @param kernel   - measured kernel
+     * @param mode     - strong or weak scaling
+     * @param baseSize - size of the kernel with one worker
+     * @return Scaling curve of the kernel
+     */
+    public ScalingCurve run(ScalingKernel kernel, Mode mode, int baseSize) {
+        if (kernel == null || mode == null)
+            throw new NullPointerException("Kernel and mode can not be null");
+        if (baseSize < 1)
+            throw new IllegalArgumentException("Size must be positive");
+
+        List<ScalingCurve.Point> points = new ArrayList<>();
+        for (int w : workers) {
+            int size = mode == Mode.STRONG ? baseSize : kernel.getWeakSize(baseSize, w);
+            ForkJoinPool pool = new ForkJoinPool(w);
+            try {
+                Runnable run = kernel.prepare(size, pool);
+                for (int i = 0; i < warmups; i++) {
+                    run.run();
+                }
+                long best = Long.MAX_VALUE;
+                for (int i = 0; i < repeats; i++) {
+                    long startTime = System.nanoTime();
+                    run.run();
+                    best = Math.min(best, System.nanoTime() - startTime);
+                }
+                points.add(new ScalingCurve.Point(w, size, kernel.getWork(size), Math.max(1, best)));
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return new ScalingCurve(kernel.getName(), mode, points);
+    }
+
+    @Override
+    public String toString() {
+        return "ScalingBenchmark{workers=" + Arrays.toString(workers)
+                + ", warmups=" + warmups + ", repeats=" + repeats + "}";
+    }
+}
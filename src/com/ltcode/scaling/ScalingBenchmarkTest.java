@@ -0,0 +1,133 @@
+package com.ltcode.scaling;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests of the classes ScalingBenchmark and ScalingCurve
+ */
+class ScalingBenchmarkTest {
+
+    @Test
+    void defaultWorkers() {
+        assert Arrays.equals(ScalingBenchmark.defaultWorkers(1), new int[]{1});
+        assert Arrays.equals(ScalingBenchmark.defaultWorkers(8), new int[]{1, 2, 4, 8});
+        assert Arrays.equals(ScalingBenchmark.defaultWorkers(6), new int[]{1, 2, 4, 6});
+    }
+
+    @Test
+    void workersMustStartWithOneAndGrow() {
+        for (int[] workers : new int[][]{{}, {2, 4}, {1, 4, 2}, {1, 1}}) {
+            try {
+                new ScalingBenchmark().setWorkers(workers);
+                assert false : "Accepted " + Arrays.toString(workers);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    void strongAndWeakSizes() {
+        ScalingBenchmark benchmark = new ScalingBenchmark().setWorkers(1, 2, 4).setRepeats(0, 1);
+
+        ScalingCurve strong = benchmark.run(ScalingKernel.incrementPar(), ScalingBenchmark.Mode.STRONG, 1000);
+        assert strong.getPoints().stream().allMatch(p -> p.getSize() == 1000 && p.getWork() == 1000);
+
+        ScalingCurve weak = benchmark.run(ScalingKernel.incrementParWithThreshold(4), ScalingBenchmark.Mode.WEAK, 1000);
+        assert weak.getPoints().get(2).getSize() == 4000;
+        assert weak.getKernel().equals("incrementParWithThreshold/4");
+
+        // work of the matrix multiply grows with side^3
+        assert ScalingKernel.multiplyPar().getWeakSize(100, 8) == 200;
+        assert ScalingKernel.multiplyPar().getWeakSize(100, 2) == 126;
+    }
+
+    @Test
+    void kernelsComputeOnThePool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (ScalingKernel kernel : List.of(ScalingKernel.incrementPar(), ScalingKernel.incrementParWithThreshold(2),
+                    ScalingKernel.multiplyPar(), ScalingKernel.luDecomposition(), ScalingKernel.dataFlow(100))) {
+                Runnable run = kernel.prepare(37, pool);
+                run.run();
+                run.run();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void speedupEfficiencyAndKarpFlatt() {
+        // the work is the same, 10% of the 1-worker time is serial
+        ScalingCurve curve = new ScalingCurve("k", ScalingBenchmark.Mode.STRONG, List.of(
+                new ScalingCurve.Point(1, 100, 1000, 1000),
+                new ScalingCurve.Point(2, 100, 1000, 550),
+                new ScalingCurve.Point(4, 100, 1000, 325)));
+
+        ScalingCurve.Point one = curve.getPoints().get(0);
+        assert one.getSpeedup() == 1 && one.getEfficiency() == 1 && Double.isNaN(one.getKarpFlatt());
+        assert one.getThroughput() == 1e9;
+
+        ScalingCurve.Point four = curve.getPoints().get(2);
+        assert Math.abs(four.getSpeedup() - 1000.0 / 325) < 1e-9;
+        assert Math.abs(four.getEfficiency() - 1000.0 / 325 / 4) < 1e-9;
+        assert Math.abs(four.getKarpFlatt() - 0.1) < 1e-9;
+        assert Math.abs(curve.getPoints().get(1).getKarpFlatt() - 0.1) < 1e-9;
+
+        assert curve.getMaxEfficientWorkers(0.9) == 2;
+        assert curve.getMaxEfficientWorkers(0.7) == 4;
+        assert curve.getMaxEfficientWorkers(1.0) == 1;
+    }
+
+    @Test
+    void weakSpeedupUsesThroughput() {
+        // twice the work in the same time - perfect weak scaling
+        ScalingCurve curve = new ScalingCurve("k", ScalingBenchmark.Mode.WEAK, List.of(
+                new ScalingCurve.Point(1, 100, 1000, 1000),
+                new ScalingCurve.Point(2, 200, 2000, 1000)));
+        assert curve.getPoints().get(1).getSpeedup() == 2;
+        assert curve.getPoints().get(1).getKarpFlatt() == 0;
+    }
+
+    @Test
+    void csvAndJson() throws IOException {
+        ScalingCurve curve = new ScalingCurve("k", ScalingBenchmark.Mode.STRONG, List.of(
+                new ScalingCurve.Point(1, 100, 1000, 1000),
+                new ScalingCurve.Point(2, 100, 1000, 500)));
+
+        String[] lines = curve.toCsv().split("\n");
+        assert lines.length == 3;
+        assert lines[0].equals("kernel,mode,workers,size,work,nanos,throughput,speedup,efficiency,karp_flatt");
+        assert lines[1].equals("k,strong,1,100,1000,1000,1000000000.0,1.0000,1.0000,") : lines[1];
+        assert lines[2].equals("k,strong,2,100,1000,500,2000000000.0,2.0000,1.0000,0.0000") : lines[2];
+
+        String json = curve.toJson();
+        assert json.startsWith("{\"kernel\":\"k\",\"mode\":\"strong\",\"points\":[");
+        assert json.contains("{\"workers\":1,\"size\":100,\"work\":1000,\"nanos\":1000,"
+                + "\"throughput\":1000000000.0,\"speedup\":1.0000,\"efficiency\":1.0000,\"karp_flatt\":null}") : json;
+        assert json.contains("\"karp_flatt\":0.0000}");
+
+        Path directory = Files.createTempDirectory("scaling");
+        try {
+            Path csv = directory.resolve("curves.csv");
+            Path jsonFile = directory.resolve("curves.json");
+            ScalingCurve.write(List.of(curve, curve), csv);
+            ScalingCurve.write(List.of(curve, curve), jsonFile);
+            assert Files.readAllLines(csv).size() == 5;
+            String written = Files.readString(jsonFile);
+            assert written.startsWith("[\n{") && written.endsWith("}\n]\n");
+            Files.delete(csv);
+            Files.delete(jsonFile);
+        } finally {
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ltcode.scaling;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong and weak scaling curves of all parallel kernels. Set the system property
+ * 'scaling.out' to a directory to get the curves as scaling.csv and scaling.json.
+ *
+ * No tests for correctness are included in this class - you can find them in the class: ScalingBenchmarkTest
+ */
+class ScalingBenchmarkTestPerformance {
+
+    static ScalingBenchmark benchmark;
+    static List<ScalingCurve> curves;
+
+    @BeforeAll
+    static void setUp() {
+        benchmark = new ScalingBenchmark().setRepeats(2, 5);
+        curves = new ArrayList<>();
+    }
+
+    @Test
+    void strongScaling() throws IOException {
+        measure(ScalingBenchmark.Mode.STRONG, 10_000_000, 512, 1024);
+    }
+
+    @Test
+    void weakScaling() throws IOException {
+        measure(ScalingBenchmark.Mode.WEAK, 2_000_000, 256, 256);
+    }
+
+    private void measure(ScalingBenchmark.Mode mode, int arraySize, int matrixSide, int dataFlowNodes)
+            throws IOException {
+        System.out.println("Workers: " + java.util.Arrays.toString(benchmark.getWorkers()));
+        System.out.println(ScalingCurve.header());
+        for (ScalingCurve curve : List.of(
+                benchmark.run(ScalingKernel.incrementPar(), mode, arraySize),
+                benchmark.run(ScalingKernel.incrementParWithThreshold(1), mode, arraySize),
+                benchmark.run(ScalingKernel.incrementParWithThreshold(16), mode, arraySize),
+                benchmark.run(ScalingKernel.multiplyPar(), mode, matrixSide),
+                benchmark.run(ScalingKernel.luDecomposition(), mode, 2 * matrixSide),
+                benchmark.run(ScalingKernel.dataFlow(1 << 14), mode, dataFlowNodes))) {
+            System.out.print(curve);
+            System.out.println("  max workers with efficiency >= 0.7: " + curve.getMaxEfficientWorkers(0.7));
+            assert curve.getPoints().stream().allMatch(p -> p.getThroughput() > 0);
+            curves.add(curve);
+        }
+        System.out.println();
+
+        String out = System.getProperty("scaling.out");
+        if (out != null) {
+            ScalingCurve.write(curves, Path.of(out, "scaling.csv"));
+            ScalingCurve.write(curves, Path.of(out, "scaling.json"));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.ltcode.scaling;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Result of ScalingBenchmark - one point for every number of workers P.
+ * All values are relative to the point with one worker:
+ *
+ *     throughput = work / time
+ *     speedup    = throughput(P) / throughput(1)   (T1 / TP for strong scaling, scaled speedup for weak)
+ *     efficiency = speedup / P
+ *     karp-flatt = (1 / speedup - 1 / P) / (1 - 1 / P)
+ *
+ * Karp-Flatt is the experimentally determined serial fraction - if it grows with P,
+ * the kernel loses time on the overhead of parallelism (splitting, joining, memory bandwidth),
+ * not on a fixed serial part. It is not defined for one worker.
+ *
+ * The curves can be written as CSV or JSON to compare them across commits.
+ */
+public class ScalingCurve {
+
+    private static final String CSV_HEADER =
+            "kernel,mode,workers,size,work,nanos,throughput,speedup,efficiency,karp_flatt";
+
+    private final String kernel;
+    private final ScalingBenchmark.Mode mode;
+    private final List<Point> points;
+
+    ScalingCurve(String kernel, ScalingBenchmark.Mode mode, List<Point> points) {
+        if (points.isEmpty() || points.get(0).workers != 1)
+            throw new IllegalArgumentException("The first point must have one worker");
+        this.kernel = kernel;
+        this.mode = mode;
+        this.points = Collections.unmodifiableList(points);
+        for (Point point : points) {
+            point.baseline = points.get(0);
+        }
+    }
+
+    public String getKernel() {
+        return kernel;
+    }
+
+    public ScalingBenchmark.Mode getMode() {
+        return mode;
+    }
+
+    public List<Point> getPoints() {
+        return points;
+    }
+
+    /**
+     * Answers how many CPUs are worth giving to the kernel
+     *
+     * @param minEfficiency - lowest acceptable parallel efficiency, between 0 and 1
+     * @return Largest number of workers with at least the given efficiency
+     */
+    public int getMaxEfficientWorkers(double minEfficiency) {
+        int workers = 1;
+        for (Point point : points) {
+            if (point.getEfficiency() >= minEfficiency)
+                workers = point.getWorkers();
+        }
+        return workers;
+    }
+
+    /**
+     * @return The curve as CSV with a header line
+     */
+    public String toCsv() {
+        return toCsv(List.of(this));
+    }
+
+    /**
+     * @return The curves as one CSV table with a header line
+     */
+    public static String toCsv(List<ScalingCurve> curves) {
+        StringBuilder sb = new StringBuilder(CSV_HEADER).append('\n');
+        for (ScalingCurve curve : curves) {
+            for (Point p : curve.points) {
+                sb.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%.1f,%.4f,%.4f,%s%n",
+                        curve.kernel, curve.mode.name().toLowerCase(Locale.ROOT), p.workers, p.size, p.work, p.nanos,
+                        p.getThroughput(), p.getSpeedup(), p.getEfficiency(), number(p.getKarpFlatt(), "")));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The curve as a JSON object
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("{\"kernel\":\"%s\",\"mode\":\"%s\",\"points\":[",
+                escape(kernel), mode.name().toLowerCase(Locale.ROOT)));
+        for (int i = 0; i < points.size(); i++) {
+            Point p = points.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append(String.format(Locale.ROOT, "  {\"workers\":%d,\"size\":%d,\"work\":%d,\"nanos\":%d,"
+                            + "\"throughput\":%.1f,\"speedup\":%.4f,\"efficiency\":%.4f,\"karp_flatt\":%s}",
+                    p.workers, p.size, p.work, p.nanos,
+                    p.getThroughput(), p.getSpeedup(), p.getEfficiency(), number(p.getKarpFlatt(), "null")));
+        }
+        return sb.append("\n]}").toString();
+    }
+
+    /**
+     * @return The curves as a JSON array
+     */
+    public static String toJson(List<ScalingCurve> curves) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < curves.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n").append(curves.get(i).toJson());
+        }
+        return sb.append("\n]\n").toString();
+    }
+
+    /**
+     * Writes the curves as CSV or JSON, chosen by the extension of the file (.json or anything else)
+     *
+     * @throws IOException if the file can not be written
+     */
+    public static void write(List<ScalingCurve> curves, Path file) throws IOException {
+        String content = file.toString().endsWith(".json") ? toJson(curves) : toCsv(curves);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String header() {
+        return String.format("%-28s %6s %4s %10s %10s %12s %8s %6s %10s",
+                "kernel", "mode", "P", "size", "time[us]", "ops/us", "speedup", "eff", "karp-flatt");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Point p : points) {
+            sb.append(String.format("%-28s %6s %4d %10d %10d %12.1f %8.2f %6.2f %10s%n",
+                    kernel, mode.name().toLowerCase(Locale.ROOT), p.workers, p.size, p.nanos / 1000,
+                    p.getThroughput() / 1e6, p.getSpeedup(), p.getEfficiency(), number(p.getKarpFlatt(), "-")));
+        }
+        return sb.toString();
+    }
+
+    private static String number(double value, String undefined) {
+        return Double.isNaN(value) ? undefined : String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * One measured number of workers
+     */
+    public static class Point {
+
+        private final int workers;
+        private final int size;
+        private final long work;
+        private final long nanos;
+        private Point baseline;
+
+        Point(int workers, int size, long work, long nanos) {
+            this.workers = workers;
+            this.size = size;
+            this.work = work;
+            this.nanos = nanos;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getWork() {
+            return work;
+        }
+
+        /**
+         * @return Time of the fastest run in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return Operations per second
+         */
+        public double getThroughput() {
+            return work * 1e9 / nanos;
+        }
+
+        public double getSpeedup() {
+            return getThroughput() / baseline.getThroughput();
+        }
+
+        public double getEfficiency() {
+            return getSpeedup() / workers;
+        }
+
+        /**
+         * @return Experimentally determined serial fraction, NaN for one worker
+         */
+        public double getKarpFlatt() {
+            if (workers == 1)
+                return Double.NaN;
+            return (1 / getSpeedup() - 1.0 / workers) / (1 - 1.0 / workers);
+        }
+    }
+}
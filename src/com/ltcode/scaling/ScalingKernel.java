@@ -0,0 +1,210 @@
+package com.ltcode.scaling;
+
+import com.ltcode.data_flow.DataFlowGraph;
+import com.ltcode.data_flow.DataFlowKernels;
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.forkjoin.ArrayManipulator;
+import com.ltcode.forkjoin.LUDecomposition;
+import com.ltcode.threads.MatrixManipulator;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel kernel measured by ScalingBenchmark. The benchmark prepares the input of the
+ * given size outside of the measured time and then times only the returned run.
+ *
+ * Size is the problem size of the kernel (elements, matrix side, tasks), work is the number
+ * of operations done for the size - throughput is work / time, and weak scaling grows
+ * the size so that the work grows as fast as the number of workers.
+ */
+public interface ScalingKernel {
+
+    /**
+     * @return Short name used in reports
+     */
+    String getName();
+
+    /**
+     * @param size - problem size
+     * @return Number of operations done for the size
+     */
+    long getWork(int size);
+
+    /**
+     * Prepares the input of the kernel
+     *
+     * @param size - problem size
+     * @param pool - pool of the workers, its parallelism is the number of workers;
+     *             kernels with their own threads use the parallelism as the number of threads
+     * @return Run of the kernel on the prepared input - may be called many times
+     */
+    Runnable prepare(int size, ForkJoinPool pool);
+
+    /**
+     * @param baseSize - size of the kernel with one worker
+     * @param workers  - number of workers
+     * @return Size with about (workers * work of the base size) operations
+     */
+    default int getWeakSize(int baseSize, int workers) {
+        long target = getWork(baseSize) * workers;
+        // the work grows with the size, so the smallest size with enough work is found by bisection
+        int lo = baseSize;
+        int hi = baseSize;
+        while (getWork(hi) < target && hi <= Integer.MAX_VALUE / 2) {
+            lo = hi;
+            hi *= 2;
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (getWork(mid) < target)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * ArrayManipulator.incrementPar - one chunk per worker, size is the length of the array
+     */
+    static ScalingKernel incrementPar() {
+        return arrayKernel("incrementPar", 0);
+    }
+
+    /**
+     * ArrayManipulator.incrementParWithThreshold - the threshold gives the tasks per worker,
+     * size is the length of the array
+     */
+    static ScalingKernel incrementParWithThreshold(int tasksPerWorker) {
+        if (tasksPerWorker < 1)
+            throw new IllegalArgumentException("Number of tasks per worker must be positive");
+        return arrayKernel("incrementParWithThreshold/" + tasksPerWorker, tasksPerWorker);
+    }
+
+    /**
+     * MatrixManipulator.multiplyPar - one thread per worker, size is the side of the square matrices
+     */
+    static ScalingKernel multiplyPar() {
+        return new ScalingKernel() {
+            @Override
+            public String getName() {
+                return "multiplyPar";
+            }
+
+            @Override
+            public long getWork(int size) {
+                return (long) size * size * size;
+            }
+
+            @Override
+            public Runnable prepare(int size, ForkJoinPool pool) {
+                Random random = new Random(size);
+                int[][] A = new int[size][size];
+                int[][] B = new int[size][size];
+                for (int r = 0; r < size; r++) {
+                    for (int c = 0; c < size; c++) {
+                        A[r][c] = random.nextInt(100);
+                        B[r][c] = random.nextInt(100);
+                    }
+                }
+                return () -> MatrixManipulator.multiplyPar(A, B, pool.getParallelism());
+            }
+        };
+    }
+
+    /**
+     * LUDecomposition.decomposePar - fork/join tasks in the pool, size is the side of the square matrix
+     */
+    static ScalingKernel luDecomposition() {
+        return new ScalingKernel() {
+            @Override
+            public String getName() {
+                return "luDecomposition";
+            }
+
+            @Override
+            public long getWork(int size) {
+                return 2L * size * size * size / 3;
+            }
+
+            @Override
+            public Runnable prepare(int size, ForkJoinPool pool) {
+                Random random = new Random(size);
+                double[][] A = new double[size][size];
+                for (int r = 0; r < size; r++) {
+                    for (int c = 0; c < size; c++) {
+                        A[r][c] = random.nextDouble();
+                    }
+                }
+                ExecutionContext context = ExecutionContext.builder().setPool(pool).build();
+                return () -> LUDecomposition.decomposePar(A, context);
+            }
+        };
+    }
+
+    /**
+     * DataFlowGraph.runNonBlocking on a graph of independent array passes of the given length,
+     * size is the number of nodes
+     */
+    static ScalingKernel dataFlow(int elementsPerNode) {
+        if (elementsPerNode < 1)
+            throw new IllegalArgumentException("Number of elements must be positive");
+        return new ScalingKernel() {
+            @Override
+            public String getName() {
+                return "dataFlow/" + elementsPerNode;
+            }
+
+            @Override
+            public long getWork(int size) {
+                return (long) size * elementsPerNode;
+            }
+
+            @Override
+            public Runnable prepare(int size, ForkJoinPool pool) {
+                DataFlowGraph.Builder builder = DataFlowGraph.builder();
+                for (int i = 0; i < size; i++) {
+                    builder.addNode("N" + i, DataFlowKernels.arrayPass(elementsPerNode));
+                }
+                DataFlowGraph graph = builder.build();
+                return () -> {
+                    try {
+                        graph.runNonBlocking(pool);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Run of the graph was interrupted", e);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Kernels of ArrayManipulator, tasksPerWorker 0 means incrementPar
+     */
+    private static ScalingKernel arrayKernel(String name, int tasksPerWorker) {
+        return new ScalingKernel() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public long getWork(int size) {
+                return size;
+            }
+
+            @Override
+            public Runnable prepare(int size, ForkJoinPool pool) {
+                int[] array = new int[size];
+                if (tasksPerWorker == 0)
+                    return () -> ArrayManipulator.incrementPar(array, 0, size, 1, pool);
+
+                int tasks = tasksPerWorker * pool.getParallelism();
+                int threshold = Math.max(1, (size + tasks - 1) / tasks);
+                return () -> ArrayManipulator.incrementParWithThreshold(array, 0, size, 1, threshold, pool);
+            }
+        };
+    }
+}
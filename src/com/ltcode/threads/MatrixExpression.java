@@ -0,0 +1,422 @@
+package com.ltcode.threads;
+
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.metrics.KernelMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Lazy element-wise expression of int matrices, e.g. alpha*A + B .* C (.* is the element-wise product):
+ *
+ *     int[][] R = MatrixExpression.of(A).scale(alpha)
+ *             .add(MatrixExpression.of(B).hadamard(MatrixExpression.of(C)))
+ *             .evaluatePar();
+ *
+ * The methods only build the expression tree. evaluate() computes the result row by row in one pass:
+ * every node computes its row into a buffer of one row, so no intermediate matrix is allocated
+ * and the row of every operand is read once while it is in the cache.
+ *
+ * A product (multiply) is computed row by row too, and the rest of the expression is applied
+ * to each row of the product while it is in the cache - as the epilogue of the multiply kernel.
+ * Only the right operand of a product, if it is not a plain matrix, is evaluated into a temporary
+ * matrix first, because every row of the product needs all of its rows.
+ */
+public abstract class MatrixExpression {
+
+    private static final KernelMetrics.Operation EVALUATE_PAR = KernelMetrics.operation("MatrixExpression.evaluatePar");
+
+    private final int rows;
+    private final int columns;
+
+    private MatrixExpression(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * @param A An input matrix with dimensions NxM - it is not copied, so it must not change until evaluated
+     * @return Expression of the matrix
+     */
+    public static MatrixExpression of(int[][] A) {
+        if (A == null)
+            throw new NullPointerException("Matrix can not be null");
+        for (int[] row : A) {
+            if (row.length != A[0].length)
+                throw new IllegalArgumentException("Rows of the matrix must have the same length");
+        }
+        return new Leaf(A);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return Element-wise sum (this + other)
+     */
+    public MatrixExpression add(MatrixExpression other) {
+        checkSameSize(other);
+        return new Add(this, other);
+    }
+
+    /**
+     * @return Element-wise product (this .* other)
+     */
+    public MatrixExpression hadamard(MatrixExpression other) {
+        checkSameSize(other);
+        return new Hadamard(this, other);
+    }
+
+    /**
+     * @return Every element multiplied by alpha
+     */
+    public MatrixExpression scale(int alpha) {
+        return new Mapped(this, null, alpha);
+    }
+
+    /**
+     * @param function - function applied to every element, it must be stateless - it runs in many threads
+     * @return The function of every element
+     */
+    public MatrixExpression map(IntUnaryOperator function) {
+        if (function == null)
+            throw new NullPointerException("Function can not be null");
+        return new Mapped(this, function, 1);
+    }
+
+    /**
+     * @return Matrix product (this x other)
+     */
+    public MatrixExpression multiply(MatrixExpression other) {
+        if (other == null)
+            throw new NullPointerException("Expression can not be null");
+        if (columns != other.rows)
+            throw new IllegalArgumentException("Matrices can not be multiplied");
+        return new Product(this, other);
+    }
+
+    /**
+     * Evaluates the expression sequentially
+     *
+     * @return New matrix with the result
+     */
+    public int[][] evaluate() {
+        Plan plan = new Plan(this, null);
+        int[][] result = new int[rows][];
+        plan.evaluateRows(result, 0, rows);
+        return result;
+    }
+
+    /**
+     * Evaluates the expression in parallel in the common pool
+     *
+     * @return New matrix with the result
+     */
+    public int[][] evaluatePar() {
+        return evaluatePar(ExecutionContext.common());
+    }
+
+    /**
+     * Evaluates the expression in parallel with the pool and cutoff policy of the context -
+     * the rows of the result are halved until one task has at most the context's cutoff of elements
+     *
+     * @param context Execution context of the call
+     * @return New matrix with the result
+     */
+    public int[][] evaluatePar(ExecutionContext context) {
+        long start = EVALUATE_PAR.start(context.isMetricsEnabled());
+        Plan plan = new Plan(this, context);
+        int[][] result = new int[rows][];
+        long elements = (long) rows * columns;
+        int cutoffRows = (int) Math.max(1, Math.min(rows, context.getCutoff(elements) / Math.max(1, columns)));
+
+        RowsEvaluator task = new RowsEvaluator(plan, result, 0, rows, cutoffRows);
+        context.invoke(task, rows, cutoffRows);
+        EVALUATE_PAR.stop(start, elements);
+        return result;
+    }
+
+    /**
+     * Computes one row of the expression
+     *
+     * @param r       - index of the row
+     * @param out     - buffer with getColumns() elements
+     * @param buffers - buffers of the nodes, indexed by their slots
+     * @return The row - 'out' or a row of a matrix, which must not be modified
+     */
+    abstract int[] row(int r, int[] out, int[][] buffers);
+
+    /**
+     * @return Copy of the tree ready to be evaluated - buffer slots are assigned and right operands
+     *         of products are evaluated to matrices
+     */
+    abstract MatrixExpression prepare(Plan plan);
+
+    private void checkSameSize(MatrixExpression other) {
+        if (other == null)
+            throw new NullPointerException("Expression can not be null");
+        if (rows != other.rows || columns != other.columns)
+            throw new IllegalArgumentException("Matrices must have the same dimensions");
+    }
+
+    /**
+     * Prepared tree with the widths of the row buffers of its nodes
+     */
+    static class Plan {
+
+        private final List<Integer> bufferWidths = new ArrayList<>();
+        private final ExecutionContext context;
+        private final MatrixExpression root;
+
+        private Plan(MatrixExpression expression, ExecutionContext context) {
+            this.context = context;
+            this.root = expression.prepare(this);
+        }
+
+        /**
+         * @return Slot of a new row buffer
+         */
+        int newBuffer(int width) {
+            bufferWidths.add(width);
+            return bufferWidths.size() - 1;
+        }
+
+        /**
+         * Evaluates the expression to a matrix in the same way (sequentially or in the context) as the plan
+         */
+        int[][] materialize(MatrixExpression expression) {
+            return context == null ? expression.evaluate() : expression.evaluatePar(context);
+        }
+
+        /**
+         * Computes the rows [lo, hi) of the result - the row buffers are allocated once for the range
+         */
+        void evaluateRows(int[][] result, int lo, int hi) {
+            int[][] buffers = new int[bufferWidths.size()][];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = new int[bufferWidths.get(i)];
+            }
+            for (int r = lo; r < hi; r++) {
+                int[] out = new int[root.columns];
+                int[] row = root.row(r, out, buffers);
+                if (row != out)
+                    System.arraycopy(row, 0, out, 0, out.length);
+                result[r] = out;
+            }
+        }
+    }
+
+    /**
+     * Computes a range of rows of the result - halves the range until it is not larger than the cutoff
+     */
+    private static class RowsEvaluator extends RecursiveAction {
+
+        private final Plan plan;
+        private final int[][] result;
+        private final int lo;
+        private final int hi;
+        private final int cutoff;
+
+        private RowsEvaluator(Plan plan, int[][] result, int lo, int hi, int cutoff) {
+            this.plan = plan;
+            this.result = result;
+            this.lo = lo;
+            this.hi = hi;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                plan.evaluateRows(result, lo, hi);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RowsEvaluator(plan, result, lo, mid, cutoff),
+                        new RowsEvaluator(plan, result, mid, hi, cutoff));
+            }
+        }
+    }
+
+    /**
+     * A matrix
+     */
+    private static class Leaf extends MatrixExpression {
+
+        private final int[][] A;
+
+        private Leaf(int[][] A) {
+            super(A.length, A.length == 0 ? 0 : A[0].length);
+            this.A = A;
+        }
+
+        @Override
+        int[] row(int r, int[] out, int[][] buffers) {
+            return A[r];
+        }
+
+        @Override
+        MatrixExpression prepare(Plan plan) {
+            return this;
+        }
+    }
+
+    /**
+     * Scale (function == null) or map of every element
+     */
+    private static class Mapped extends MatrixExpression {
+
+        private final MatrixExpression operand;
+        private final IntUnaryOperator function;
+        private final int alpha;
+
+        private Mapped(MatrixExpression operand, IntUnaryOperator function, int alpha) {
+            super(operand.rows, operand.columns);
+            this.operand = operand;
+            this.function = function;
+            this.alpha = alpha;
+        }
+
+        @Override
+        int[] row(int r, int[] out, int[][] buffers) {
+            int[] a = operand.row(r, out, buffers);
+            if (function == null) {
+                for (int c = 0; c < out.length; c++) {
+                    out[c] = alpha * a[c];
+                }
+            } else {
+                for (int c = 0; c < out.length; c++) {
+                    out[c] = function.applyAsInt(a[c]);
+                }
+            }
+            return out;
+        }
+
+        @Override
+        MatrixExpression prepare(Plan plan) {
+            return new Mapped(operand.prepare(plan), function, alpha);
+        }
+    }
+
+    /**
+     * Element-wise sum
+     */
+    private static class Add extends MatrixExpression {
+
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+        private final int slot;
+
+        private Add(MatrixExpression left, MatrixExpression right) {
+            this(left, right, -1);
+        }
+
+        private Add(MatrixExpression left, MatrixExpression right, int slot) {
+            super(left.rows, left.columns);
+            this.left = left;
+            this.right = right;
+            this.slot = slot;
+        }
+
+        @Override
+        int[] row(int r, int[] out, int[][] buffers) {
+            int[] a = left.row(r, out, buffers);
+            int[] b = right.row(r, buffers[slot], buffers);
+            for (int c = 0; c < out.length; c++) {
+                out[c] = a[c] + b[c];
+            }
+            return out;
+        }
+
+        @Override
+        MatrixExpression prepare(Plan plan) {
+            return new Add(left.prepare(plan), right.prepare(plan), plan.newBuffer(getColumns()));
+        }
+    }
+
+    /**
+     * Element-wise product
+     */
+    private static class Hadamard extends MatrixExpression {
+
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+        private final int slot;
+
+        private Hadamard(MatrixExpression left, MatrixExpression right) {
+            this(left, right, -1);
+        }
+
+        private Hadamard(MatrixExpression left, MatrixExpression right, int slot) {
+            super(left.rows, left.columns);
+            this.left = left;
+            this.right = right;
+            this.slot = slot;
+        }
+
+        @Override
+        int[] row(int r, int[] out, int[][] buffers) {
+            int[] a = left.row(r, out, buffers);
+            int[] b = right.row(r, buffers[slot], buffers);
+            for (int c = 0; c < out.length; c++) {
+                out[c] = a[c] * b[c];
+            }
+            return out;
+        }
+
+        @Override
+        MatrixExpression prepare(Plan plan) {
+            return new Hadamard(left.prepare(plan), right.prepare(plan), plan.newBuffer(getColumns()));
+        }
+    }
+
+    /**
+     * Matrix product - row r is the sum of the rows of the right matrix weighted by row r of the left one,
+     * so both matrices are read by rows
+     */
+    private static class Product extends MatrixExpression {
+
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+        private final int slot;
+
+        private Product(MatrixExpression left, MatrixExpression right) {
+            this(left, right, -1);
+        }
+
+        private Product(MatrixExpression left, MatrixExpression right, int slot) {
+            super(left.rows, right.columns);
+            this.left = left;
+            this.right = right;
+            this.slot = slot;
+        }
+
+        @Override
+        int[] row(int r, int[] out, int[][] buffers) {
+            int[] a = left.row(r, buffers[slot], buffers);
+            int[][] B = ((Leaf) right).A;
+            Arrays.fill(out, 0);
+            for (int k = 0; k < a.length; k++) {
+                final int aik = a[k];
+                final int[] row = B[k];
+                for (int c = 0; c < out.length; c++) {
+                    out[c] += aik * row[c];
+                }
+            }
+            return out;
+        }
+
+        @Override
+        MatrixExpression prepare(Plan plan) {
+            MatrixExpression preparedRight = right instanceof Leaf ? right : new Leaf(plan.materialize(right));
+            return new Product(left.prepare(plan), preparedRight, plan.newBuffer(left.getColumns()));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.ltcode.threads;
+
+import com.ltcode.execution.CutoffPolicy;
+import com.ltcode.execution.ExecutionContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests the correctness of the class MatrixExpression
+ */
+class MatrixExpressionTest {
+
+    private static int REPEATS;
+    private static int MAX_MATRIX_SIDE;
+    private static Random random;
+
+    @BeforeAll
+    static void setUp() {
+        REPEATS = 20;
+        random = new Random();
+        MAX_MATRIX_SIDE = 128;
+    }
+
+    /**
+     * Tests alpha*A + B .* C against the step by step computation
+     */
+    @Test
+    void elementWise() {
+        for (int i = 0; i < REPEATS; i++) {
+            int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+            int M = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+            int alpha = random.nextInt(7) - 3;
+
+            int[][] A = createRandomMatrix(N, M);
+            int[][] B = createRandomMatrix(N, M);
+            int[][] C = createRandomMatrix(N, M);
+
+            int[][] expected = new int[N][M];
+            for (int r = 0; r < N; r++)
+                for (int c = 0; c < M; c++)
+                    expected[r][c] = alpha * A[r][c] + B[r][c] * C[r][c];
+
+            MatrixExpression expression = MatrixExpression.of(A).scale(alpha)
+                    .add(MatrixExpression.of(B).hadamard(MatrixExpression.of(C)));
+            assert Arrays.deepEquals(expected, expression.evaluate()) : "Matrices are not equal";
+            assert Arrays.deepEquals(expected, expression.evaluatePar()) : "Matrices are not equal";
+        }
+    }
+
+    /**
+     * Tests map and an expression using the same matrix more than once
+     */
+    @Test
+    void map() {
+        int[][] A = createRandomMatrix(37, 53);
+        int[][] expected = new int[37][53];
+        for (int r = 0; r < 37; r++)
+            for (int c = 0; c < 53; c++)
+                expected[r][c] = (A[r][c] + 1) * (A[r][c] + 1) - A[r][c];
+
+        MatrixExpression plusOne = MatrixExpression.of(A).map(x -> x + 1);
+        MatrixExpression expression = plusOne.hadamard(plusOne).add(MatrixExpression.of(A).scale(-1));
+        assert Arrays.deepEquals(expected, expression.evaluate()) : "Matrices are not equal";
+        assert Arrays.deepEquals(expected, expression.evaluatePar()) : "Matrices are not equal";
+
+        // a matrix alone is copied, not returned
+        int[][] copy = MatrixExpression.of(A).evaluate();
+        assert copy != A && copy[0] != A[0] && Arrays.deepEquals(A, copy);
+    }
+
+    /**
+     * Tests products in the expression - a product of plain matrices, of expressions and a nested product
+     */
+    @Test
+    void multiply() {
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(3)
+                .setCutoffPolicy(CutoffPolicy.fixed(17)).build()) {
+            for (int i = 0; i < REPEATS; i++) {
+                int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+                int M = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+                int L = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+
+                int[][] A = createRandomMatrix(N, M);
+                int[][] B = createRandomMatrix(M, L);
+                int[][] C = createRandomMatrix(N, L);
+                int[][] D = createRandomMatrix(L, L);
+
+                // 2*(A x B) + C
+                int[][] expected = MatrixManipulator.multiplySeq(A, B);
+                for (int r = 0; r < N; r++)
+                    for (int c = 0; c < L; c++)
+                        expected[r][c] = 2 * expected[r][c] + C[r][c];
+                MatrixExpression expression = MatrixExpression.of(A).multiply(MatrixExpression.of(B))
+                        .scale(2).add(MatrixExpression.of(C));
+                assert Arrays.deepEquals(expected, expression.evaluate()) : "Matrices are not equal";
+                assert Arrays.deepEquals(expected, expression.evaluatePar(context)) : "Matrices are not equal";
+
+                // (A x (B .* B)) x D - the right operands are an expression and a plain matrix
+                int[][] BB = new int[M][L];
+                for (int r = 0; r < M; r++)
+                    for (int c = 0; c < L; c++)
+                        BB[r][c] = B[r][c] * B[r][c];
+                expected = MatrixManipulator.multiplySeq(MatrixManipulator.multiplySeq(A, BB), D);
+                expression = MatrixExpression.of(A)
+                        .multiply(MatrixExpression.of(B).hadamard(MatrixExpression.of(B)))
+                        .multiply(MatrixExpression.of(D));
+                assert Arrays.deepEquals(expected, expression.evaluate()) : "Matrices are not equal";
+                assert Arrays.deepEquals(expected, expression.evaluatePar(context)) : "Matrices are not equal";
+
+                // A x (B x D)
+                expected = MatrixManipulator.multiplySeq(A, MatrixManipulator.multiplySeq(B, D));
+                expression = MatrixExpression.of(A).multiply(MatrixExpression.of(B).multiply(MatrixExpression.of(D)));
+                assert Arrays.deepEquals(expected, expression.evaluatePar(context)) : "Matrices are not equal";
+            }
+        }
+    }
+
+    /**
+     * Tests that operands with wrong dimensions are rejected
+     */
+    @Test
+    void dimensions() {
+        MatrixExpression A = MatrixExpression.of(new int[2][3]);
+        MatrixExpression B = MatrixExpression.of(new int[3][2]);
+
+        assert A.multiply(B).getRows() == 2 && A.multiply(B).getColumns() == 2;
+        assert MatrixExpression.of(new int[0][0]).scale(3).evaluatePar().length == 0;
+
+        try {
+            A.add(B);
+            assert false : "Invalid add accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            A.hadamard(B);
+            assert false : "Invalid hadamard accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            A.multiply(A);
+            assert false : "Invalid multiply accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            MatrixExpression.of(new int[][]{{1, 2}, {3}});
+            assert false : "Ragged matrix accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            A.add(null);
+            assert false : "Null expression accepted";
+        } catch (NullPointerException ignored) {
+        }
+    }
+
+    // HELPER METHODS
+
+    /**
+     * Creates new random int[N][M] matrix to use as input for the tests
+     *
+     * @param N - number rows
+     * @param M - number columns
+     * @return Initialized int[N][M] array
+     */
+    private static int[][] createRandomMatrix(int N, int M) {
+        int[][] matrix = new int[N][M];
+
+        for (int n = 0; n < N; n++) {
+            for (int m = 0; m < M; m++) {
+                matrix[n][m] = random.nextInt(5) - 2;
+            }
+        }
+        return matrix;
+    }
+}
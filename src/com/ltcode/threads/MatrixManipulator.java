@@ -1,14 +1,26 @@
 package com.ltcode.threads;
 
+import com.ltcode.execution.ExecutionContext;
+import com.ltcode.metrics.KernelMetrics;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Wrapper class for implementing matrix multiply sequentially and in parallel.
  */
 public class MatrixManipulator {
 
+    private static final KernelMetrics.Operation MULTIPLY_SEQ = KernelMetrics.operation("MatrixManipulator.multiplySeq");
+    private static final KernelMetrics.Operation MULTIPLY_PAR = KernelMetrics.operation("MatrixManipulator.multiplyPar");
+    private static final KernelMetrics.Operation MULTIPLY_VECTOR_SEQ =
+            KernelMetrics.operation("MatrixManipulator.multiplyVectorSeq");
+    private static final KernelMetrics.Operation MULTIPLY_VECTOR_PAR =
+            KernelMetrics.operation("MatrixManipulator.multiplyVectorPar");
+    private static final KernelMetrics.Operation POWER = KernelMetrics.operation("MatrixManipulator.power");
+
     /**
      * Performs sequentially a two-dimensional matrix multiply (A x B = C)
      *
@@ -17,6 +29,7 @@ public class MatrixManipulator {
      * @return The output two-dimensional matrix with size NxL
      */
     public static int[][] multiplySeq(final int[][] A, final int[][] B) {
+        long start = MULTIPLY_SEQ.start();
         checkIfMultiplyPossible(A, B);
 
         int N = A.length;
@@ -32,6 +45,7 @@ public class MatrixManipulator {
                 }
             }
         }
+        MULTIPLY_SEQ.stop(start, (long) N * L);
         return C;
     }
 
@@ -44,7 +58,22 @@ public class MatrixManipulator {
      * @return The output two-dimensional matrix with size NxL
      */
     public static int[][] multiplyPar(final int[][] A, final int[][] B) {
+        return multiplyPar(A, B, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Performs in parallel a two-dimensional matrix multiply (A x B = C)
+     *
+     * @param A An input matrix with dimensions NxM
+     * @param B An input matrix with dimensions MxL
+     * @param nThreads Number of threads doing the work, including the current thread
+     * @return The output two-dimensional matrix with size NxL
+     */
+    public static int[][] multiplyPar(final int[][] A, final int[][] B, final int nThreads) {
+        long start = MULTIPLY_PAR.start();
         checkIfMultiplyPossible(A, B);
+        if (nThreads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive");
 
         int N = A.length;
         int L = B[0].length;
@@ -52,14 +81,13 @@ public class MatrixManipulator {
         // matrix to return
         int[][] C = new int[N][L];
 
-        int nCores = Runtime.getRuntime().availableProcessors();
         int TOTAL_WORK = N*L;
-        int WORK_CHUNK = (TOTAL_WORK + nCores - 1) / nCores;
+        int WORK_CHUNK = (TOTAL_WORK + nThreads - 1) / nThreads;
 
         List<Thread> threads = new ArrayList<>();
 
-        // multiply in parallel threads (nThreads = nCores - 1) / -1 for current thread
-        int parallelThreads = nCores - 1;
+        // multiply in parallel threads (nThreads - 1) / -1 for current thread
+        int parallelThreads = nThreads - 1;
         for (int i = 0; i < parallelThreads; i ++) {
             // Math.min guarantee that indexes do not exceed the TOTAL_WORK,
             // cause it might happen with small matrices
@@ -67,14 +95,16 @@ public class MatrixManipulator {
             int endIdx = Math.min(startIdx + WORK_CHUNK, TOTAL_WORK);
 
             if (startIdx < TOTAL_WORK) {
-                Thread t = new Thread(() -> multiply(A, B, C, startIdx, endIdx));
+                Thread t = new Thread(() -> multiply(A, B, C, startIdx, endIdx, false));
                 t.start();
+                MULTIPLY_PAR.tasks(1);
                 threads.add(t);
             }
         }
 
         // last multiplication can run in current thread
-        multiply(A, B, C, parallelThreads * WORK_CHUNK, TOTAL_WORK);
+        MULTIPLY_PAR.tasks(1);
+        multiply(A, B, C, parallelThreads * WORK_CHUNK, TOTAL_WORK, false);
 
         // wait for all threads to end
         threads.stream().forEach(t -> {
@@ -85,9 +115,252 @@ public class MatrixManipulator {
             }
         });
 
+        MULTIPLY_PAR.stop(start, TOTAL_WORK);
         return C;
     }
 
+    /**
+     * Performs in parallel a two-dimensional matrix multiply (A x B = C) with the pool, parallelism
+     * and cutoff policy of the context - the cells of C are split until one task has at most
+     * the context's cutoff of them
+     *
+     * @param A An input matrix with dimensions NxM
+     * @param B An input matrix with dimensions MxL
+     * @param context Execution context of the call
+     * @return The output two-dimensional matrix with size NxL
+     */
+    public static int[][] multiplyPar(final int[][] A, final int[][] B, final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = MULTIPLY_PAR.start(always);
+        checkIfMultiplyPossible(A, B);
+
+        int[][] C = new int[A.length][B[0].length];
+        int TOTAL_WORK = A.length * B[0].length;
+        int cutoff = (int) Math.min(Integer.MAX_VALUE, context.getCutoff(TOTAL_WORK));
+
+        MULTIPLY_PAR.tasks(1, always);
+        CellsMultiplier task = new CellsMultiplier(A, B, C, 0, TOTAL_WORK, cutoff, always);
+        context.invoke(task, TOTAL_WORK, cutoff);
+
+        MULTIPLY_PAR.stop(start, TOTAL_WORK);
+        return C;
+    }
+
+    /**
+     * Performs sequentially a matrix-vector multiply (A x x = y)
+     *
+     * @param A An input matrix with dimensions NxM
+     * @param x An input vector with M elements
+     * @return The output vector with N elements
+     */
+    public static int[] multiplyVectorSeq(final int[][] A, final int[] x) {
+        return multiplyVectorSeq(A, x, false);
+    }
+
+    /**
+     * Performs sequentially a matrix-vector multiply (A x x = y)
+     *
+     * @param A An input matrix with dimensions NxM, or MxN if transposed
+     * @param x An input vector with M elements
+     * @param transposed True if A is given transposed (its rows are the columns of the multiplied matrix)
+     * @return The output vector with N elements
+     */
+    public static int[] multiplyVectorSeq(final int[][] A, final int[] x, final boolean transposed) {
+        long start = MULTIPLY_VECTOR_SEQ.start();
+        int N = checkIfMultiplyVectorPossible(A, x, transposed);
+
+        int[] y = new int[N];
+        multiplyVector(A, x, y, 0, N, transposed);
+
+        MULTIPLY_VECTOR_SEQ.stop(start, (long) N * x.length);
+        return y;
+    }
+
+    /**
+     * Performs in parallel a matrix-vector multiply (A x x = y)
+     * Uses number of CPUs for parallel work
+     *
+     * @param A An input matrix with dimensions NxM
+     * @param x An input vector with M elements
+     * @return The output vector with N elements
+     */
+    public static int[] multiplyVectorPar(final int[][] A, final int[] x) {
+        return multiplyVectorPar(A, x, false, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Performs in parallel a matrix-vector multiply (A x x = y) - every thread computes
+     * one contiguous range of y, so the threads never write to the same cache line except at the borders
+     *
+     * @param A An input matrix with dimensions NxM, or MxN if transposed
+     * @param x An input vector with M elements
+     * @param transposed True if A is given transposed (its rows are the columns of the multiplied matrix)
+     * @param nThreads Number of threads doing the work, including the current thread
+     * @return The output vector with N elements
+     */
+    public static int[] multiplyVectorPar(final int[][] A, final int[] x, final boolean transposed, final int nThreads) {
+        long start = MULTIPLY_VECTOR_PAR.start();
+        int N = checkIfMultiplyVectorPossible(A, x, transposed);
+        if (nThreads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive");
+
+        int[] y = new int[N];
+        int WORK_CHUNK = (N + nThreads - 1) / nThreads;
+
+        List<Thread> threads = new ArrayList<>();
+
+        // multiply in parallel threads (nThreads - 1) / -1 for current thread
+        for (int i = 0; i < nThreads - 1 && (i + 1) * WORK_CHUNK < N; i++) {
+            int startIdx = (i + 1) * WORK_CHUNK;
+            int endIdx = Math.min(startIdx + WORK_CHUNK, N);
+            Thread t = new Thread(() -> multiplyVectorRange(A, x, y, startIdx, endIdx, transposed, false));
+            t.start();
+            MULTIPLY_VECTOR_PAR.tasks(1);
+            threads.add(t);
+        }
+
+        // first chunk can run in current thread
+        MULTIPLY_VECTOR_PAR.tasks(1);
+        multiplyVectorRange(A, x, y, 0, Math.min(WORK_CHUNK, N), transposed, false);
+
+        // wait for all threads to end
+        threads.forEach(t -> {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+
+        MULTIPLY_VECTOR_PAR.stop(start, (long) N * x.length);
+        return y;
+    }
+
+    /**
+     * Performs in parallel a matrix-vector multiply (A x x = y) with the pool, parallelism and cutoff
+     * policy of the context - the range of y is halved until one task has at most the context's cutoff
+     * of the matrix elements
+     *
+     * @param A An input matrix with dimensions NxM, or MxN if transposed
+     * @param x An input vector with M elements
+     * @param transposed True if A is given transposed (its rows are the columns of the multiplied matrix)
+     * @param context Execution context of the call
+     * @return The output vector with N elements
+     */
+    public static int[] multiplyVectorPar(final int[][] A, final int[] x, final boolean transposed,
+                                         final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = MULTIPLY_VECTOR_PAR.start(always);
+        int N = checkIfMultiplyVectorPossible(A, x, transposed);
+
+        int[] y = new int[N];
+        long elements = (long) N * x.length;
+        // cutoff is given in matrix elements, every cell of y needs M of them
+        int cutoff = (int) Math.max(1, Math.min(N, context.getCutoff(elements) / Math.max(1, x.length)));
+
+        MULTIPLY_VECTOR_PAR.tasks(1, always);
+        VectorMultiplier task = new VectorMultiplier(A, x, y, 0, N, transposed, cutoff, always);
+        context.invoke(task, N, cutoff);
+
+        MULTIPLY_VECTOR_PAR.stop(start, elements);
+        return y;
+    }
+
+    /**
+     * Computes A^k in parallel in the common pool
+     *
+     * @param A An input matrix with dimensions NxN
+     * @param k Exponent, 0 gives the identity matrix
+     * @return The output matrix A^k with size NxN
+     */
+    public static int[][] power(final int[][] A, final long k) {
+        return power(A, k, 0, ExecutionContext.common());
+    }
+
+    /**
+     * Computes A^k modulo m in parallel in the common pool, e.g. the number of paths of length k
+     * in a graph with the adjacency matrix A, which overflows int already for small k
+     *
+     * @param A An input matrix with dimensions NxN
+     * @param k Exponent, 0 gives the identity matrix
+     * @param m Modulus, every element of the result is in [0, m)
+     * @return The output matrix A^k mod m with size NxN
+     */
+    public static int[][] power(final int[][] A, final long k, final int m) {
+        if (m < 1)
+            throw new IllegalArgumentException("Modulus must be positive");
+        return power(A, k, m, ExecutionContext.common());
+    }
+
+    /**
+     * Computes A^k (mod m) by repeated squaring - O(log k) multiplies instead of k - with the pool
+     * and cutoff policy of the context. The multiplies ping-pong between three preallocated matrices
+     * (result, square and product), so the extra memory does not depend on k.
+     *
+     * @param A An input matrix with dimensions NxN
+     * @param k Exponent, 0 gives the identity matrix
+     * @param m Modulus, 0 for none (int overflow wraps around as in multiplyPar)
+     * @param context Execution context of the call
+     * @return The output matrix A^k (mod m) with size NxN
+     */
+    public static int[][] power(final int[][] A, final long k, final int m, final ExecutionContext context) {
+        boolean always = context.isMetricsEnabled();
+        long start = POWER.start(always);
+        if (A == null)
+            throw new NullPointerException("Matrix can not be null");
+        if (k < 0)
+            throw new IllegalArgumentException("Exponent can not be negative");
+        if (m < 0)
+            throw new IllegalArgumentException("Modulus can not be negative");
+        int N = A.length;
+        for (int[] row : A) {
+            if (row.length != N)
+                throw new IllegalArgumentException("Matrix must be square");
+        }
+
+        int[][] result = new int[N][N];
+        if (k == 0) {
+            for (int i = 0; i < N; i++)
+                result[i][i] = m == 1 ? 0 : 1;
+            POWER.stop(start, (long) N * N);
+            return result;
+        }
+
+        int[][] square = new int[N][N];
+        int[][] product = new int[N][N];
+        for (int r = 0; r < N; r++) {
+            for (int c = 0; c < N; c++)
+                square[r][c] = m == 0 ? A[r][c] : Math.floorMod(A[r][c], m);
+        }
+        int cutoffRows = (int) Math.max(1, Math.min(N, context.getCutoff((long) N * N) / Math.max(1, N)));
+
+        // result is empty until the lowest set bit of k - it saves the multiply by the identity
+        boolean empty = true;
+        for (long e = k; e > 0; e >>= 1) {
+            if ((e & 1) == 1) {
+                if (empty) {
+                    for (int r = 0; r < N; r++)
+                        System.arraycopy(square[r], 0, result[r], 0, N);
+                    empty = false;
+                } else {
+                    multiplyInto(result, square, product, m, cutoffRows, context, always);
+                    int[][] swap = result;
+                    result = product;
+                    product = swap;
+                }
+            }
+            if (e > 1) {
+                multiplyInto(square, square, product, m, cutoffRows, context, always);
+                int[][] swap = square;
+                square = product;
+                product = swap;
+            }
+        }
+
+        POWER.stop(start, (long) N * N);
+        return result;
+    }
+
     /**
      * Multiply is possible only if M == M
      *
@@ -113,6 +386,76 @@ public class MatrixManipulator {
             throw new IllegalArgumentException("Matrices can not be multiplied");
     }
 
+    /**
+     * Checks the dimensions of a matrix-vector multiply
+     * Throws Exception if arguments are null or multiplication is not possible
+     *
+     * @return Number of elements of the result
+     * @throws IllegalArgumentException if the rows do not have the same length
+     */
+    private static int checkIfMultiplyVectorPossible(int[][] A, int[] x, boolean transposed) {
+        if (A == null || x == null)
+            throw new NullPointerException("Matrix and vector can not be null");
+        for (int[] row : A) {
+            if (row.length != A[0].length)
+                throw new IllegalArgumentException("Rows of the matrix must have the same length");
+        }
+        if (transposed) {
+            if (A.length != x.length)
+                throw new IllegalArgumentException("Matrix and vector can not be multiplied");
+            return A.length == 0 ? 0 : A[0].length;
+        }
+        if (A.length > 0 && A[0].length != x.length)
+            throw new IllegalArgumentException("Matrix and vector can not be multiplied");
+        return A.length;
+    }
+
+    /**
+     * Multiply sequentially given range of a matrix-vector multiply and record it as one task
+     */
+    private static void multiplyVectorRange(final int[][] A, final int[] x, final int[] y,
+                                            final int startIdx, final int endIdx,
+                                            final boolean transposed, final boolean alwaysRecord) {
+        MULTIPLY_VECTOR_PAR.leaf((long) Math.max(0, endIdx - startIdx) * x.length, alwaysRecord);
+        multiplyVector(A, x, y, startIdx, endIdx, transposed);
+    }
+
+    /**
+     * Multiply sequentially given range of a matrix-vector multiply
+     *
+     * Not transposed, every y[r] is a dot product of a row and x. The loop is a plain reduction
+     * with no dependencies between iterations, so the JIT compiles it to SIMD instructions.
+     * Transposed, y[lo, hi) is updated by x[k] * row k for every k - rows are read sequentially,
+     * and the range of y stays in the cache while the matrix streams through it.
+     *
+     * @param A An input matrix with dimensions NxM, or MxN if transposed
+     * @param x An input vector with M elements
+     * @param y The output vector with N elements
+     * @param startIdx - first computed element of y (inclusive)
+     * @param endIdx - last computed element of y (exclusive)
+     */
+    private static void multiplyVector(final int[][] A, final int[] x, final int[] y,
+                                       final int startIdx, final int endIdx, final boolean transposed) {
+        if (transposed) {
+            for (int k = 0; k < x.length; k++) {
+                final int[] row = A[k];
+                final int xk = x[k];
+                for (int r = startIdx; r < endIdx; r++) {
+                    y[r] += row[r] * xk;
+                }
+            }
+        } else {
+            for (int r = startIdx; r < endIdx; r++) {
+                final int[] row = A[r];
+                int sum = 0;
+                for (int k = 0; k < row.length; k++) {
+                    sum += row[k] * x[k];
+                }
+                y[r] = sum;
+            }
+        }
+    }
+
     /**
      * Multiply sequentially given range
      *
@@ -121,12 +464,14 @@ public class MatrixManipulator {
      * @param C The output matrix
      * @param startIdx - work's range start (inclusive)
      * @param endIdx - work's range end (exclusive)
+     * @param alwaysRecord - true to record the metrics even if they are disabled
      */
     private static void multiply(final int [][] A, final int[][] B, final int[][] C,
-                                final int startIdx, final int endIdx) {
+                                final int startIdx, final int endIdx, final boolean alwaysRecord) {
         final int COLUMNS = C[0].length;
         final int M = B.length; // == A[0].length
 
+        MULTIPLY_PAR.leaf(Math.max(0, endIdx - startIdx), alwaysRecord);
         for (int i = startIdx; i < endIdx; i++) {
             int row = i / COLUMNS;
             int column = i % COLUMNS;
@@ -136,4 +481,185 @@ public class MatrixManipulator {
             }
         }
     }
+
+    /**
+     * Multiplies square matrices in parallel into a preallocated matrix C (A x B = C, C is not A or B)
+     */
+    private static void multiplyInto(final int[][] A, final int[][] B, final int[][] C, final int m,
+                                     final int cutoffRows, final ExecutionContext context, final boolean alwaysRecord) {
+        POWER.tasks(1, alwaysRecord);
+        RowsMultiplier task = new RowsMultiplier(A, B, C, m, 0, C.length, cutoffRows, alwaysRecord);
+        context.invoke(task, C.length, cutoffRows);
+    }
+
+    /**
+     * Multiply sequentially the rows [startRow, endRow) of C (A x B = C) - row r of C is the sum
+     * of the rows of B weighted by row r of A, so all matrices are read by rows.
+     *
+     * With a modulus m the sums are kept in longs: the elements are in [0, m), so one product
+     * is at most (m - 1)^2 and the sums are reduced by % only once per element of C.
+     *
+     * @param m - modulus, 0 for none
+     */
+    private static void multiplyRows(final int[][] A, final int[][] B, final int[][] C, final int m,
+                                     final int startRow, final int endRow) {
+        final int M = B.length;
+        final int L = B.length == 0 ? 0 : B[0].length;
+
+        if (m == 0) {
+            for (int r = startRow; r < endRow; r++) {
+                final int[] rowC = C[r];
+                final int[] rowA = A[r];
+                Arrays.fill(rowC, 0);
+                for (int k = 0; k < M; k++) {
+                    final int a = rowA[k];
+                    final int[] rowB = B[k];
+                    for (int c = 0; c < L; c++) {
+                        rowC[c] += a * rowB[c];
+                    }
+                }
+            }
+            return;
+        }
+
+        // one product is at most (m - 1)^2, a sum at least 'limit' gets 'limit' (a multiple of m) subtracted,
+        // so the sums stay below limit + (m - 1)^2 and never overflow
+        final long max = (long) (m - 1) * (m - 1);
+        final long limit = (Long.MAX_VALUE - max) / m * m;
+        final long[] sums = new long[L];
+        for (int r = startRow; r < endRow; r++) {
+            final int[] rowA = A[r];
+            Arrays.fill(sums, 0);
+            for (int k = 0; k < M; k++) {
+                final long a = rowA[k];
+                final int[] rowB = B[k];
+                for (int c = 0; c < L; c++) {
+                    final long sum = sums[c] + a * rowB[c];
+                    sums[c] = sum >= limit ? sum - limit : sum;
+                }
+            }
+            for (int c = 0; c < L; c++) {
+                sums[c] %= m;
+            }
+            final int[] rowC = C[r];
+            for (int c = 0; c < L; c++) {
+                rowC[c] = (int) sums[c];
+            }
+        }
+    }
+
+    /**
+     * Computes a range of the cells of C - halves the range until it is not larger than the cutoff
+     */
+    private static class CellsMultiplier extends RecursiveAction {
+
+        private final int[][] A;
+        private final int[][] B;
+        private final int[][] C;
+        private final int lo;
+        private final int hi;
+        private final int cutoff;
+        private final boolean alwaysRecord;
+
+        private CellsMultiplier(int[][] A, int[][] B, int[][] C, int lo, int hi, int cutoff, boolean alwaysRecord) {
+            this.A = A;
+            this.B = B;
+            this.C = C;
+            this.lo = lo;
+            this.hi = hi;
+            this.cutoff = cutoff;
+            this.alwaysRecord = alwaysRecord;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                multiply(A, B, C, lo, hi, alwaysRecord);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                MULTIPLY_PAR.tasks(2, alwaysRecord);
+                invokeAll(new CellsMultiplier(A, B, C, lo, mid, cutoff, alwaysRecord),
+                        new CellsMultiplier(A, B, C, mid, hi, cutoff, alwaysRecord));
+            }
+        }
+    }
+
+    /**
+     * Computes a range of y of a matrix-vector multiply - halves the range until it is not larger than the cutoff
+     */
+    private static class VectorMultiplier extends RecursiveAction {
+
+        private final int[][] A;
+        private final int[] x;
+        private final int[] y;
+        private final int lo;
+        private final int hi;
+        private final boolean transposed;
+        private final int cutoff;
+        private final boolean alwaysRecord;
+
+        private VectorMultiplier(int[][] A, int[] x, int[] y, int lo, int hi, boolean transposed, int cutoff,
+                                 boolean alwaysRecord) {
+            this.A = A;
+            this.x = x;
+            this.y = y;
+            this.lo = lo;
+            this.hi = hi;
+            this.transposed = transposed;
+            this.cutoff = cutoff;
+            this.alwaysRecord = alwaysRecord;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                multiplyVectorRange(A, x, y, lo, hi, transposed, alwaysRecord);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                MULTIPLY_VECTOR_PAR.tasks(2, alwaysRecord);
+                invokeAll(new VectorMultiplier(A, x, y, lo, mid, transposed, cutoff, alwaysRecord),
+                        new VectorMultiplier(A, x, y, mid, hi, transposed, cutoff, alwaysRecord));
+            }
+        }
+    }
+
+    /**
+     * Computes a range of the rows of C - halves the range until it is not larger than the cutoff
+     */
+    private static class RowsMultiplier extends RecursiveAction {
+
+        private final int[][] A;
+        private final int[][] B;
+        private final int[][] C;
+        private final int m;
+        private final int lo;
+        private final int hi;
+        private final int cutoff;
+        private final boolean alwaysRecord;
+
+        private RowsMultiplier(int[][] A, int[][] B, int[][] C, int m, int lo, int hi, int cutoff,
+                               boolean alwaysRecord) {
+            this.A = A;
+            this.B = B;
+            this.C = C;
+            this.m = m;
+            this.lo = lo;
+            this.hi = hi;
+            this.cutoff = cutoff;
+            this.alwaysRecord = alwaysRecord;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                POWER.leaf((long) (hi - lo) * C.length, alwaysRecord);
+                multiplyRows(A, B, C, m, lo, hi);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                POWER.tasks(2, alwaysRecord);
+                invokeAll(new RowsMultiplier(A, B, C, m, lo, mid, cutoff, alwaysRecord),
+                        new RowsMultiplier(A, B, C, m, mid, hi, cutoff, alwaysRecord));
+            }
+        }
+    }
 }
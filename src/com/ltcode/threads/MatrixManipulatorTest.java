@@ -1,5 +1,7 @@
 package com.ltcode.threads;
 
+import com.ltcode.execution.CutoffPolicy;
+import com.ltcode.execution.ExecutionContext;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import java.util.Arrays;
@@ -67,6 +69,206 @@ class MatrixManipulatorTest {
         }
     }
 
+    /**
+     * Tests the correctness of the method: MatrixManipulator.multiplyPar(A, B, nThreads)
+     */
+    @Test
+    void multiplyParWithThreads() {
+        for (int nThreads = 1; nThreads <= 8; nThreads++) {
+            int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 4));
+            int M = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 4));
+            int L = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 4));
+
+            int[][] A = createRandomMatrix(N, M);
+            int[][] B = createRandomMatrix(M, L);
+
+            assert areMatricesEqual(multiplySeq(A, B), MatrixManipulator.multiplyPar(A, B, nThreads))
+                    : "Matrices are not equal for " + nThreads + " threads";
+        }
+
+        try {
+            MatrixManipulator.multiplyPar(new int[1][1], new int[1][1], 0);
+            assert false : "Zero threads accepted";
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests the correctness of the method: MatrixManipulator.multiplyPar(A, B, context)
+     */
+    @Test
+    void multiplyParWithContext() {
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(3)
+                .setCutoffPolicy(CutoffPolicy.fixed(17)).build()) {
+            for (int i = 0; i < REPEATS; i++) {
+                int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 4));
+                int M = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 4));
+                int L = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 4));
+
+                int[][] A = createRandomMatrix(N, M);
+                int[][] B = createRandomMatrix(M, L);
+
+                assert areMatricesEqual(multiplySeq(A, B), MatrixManipulator.multiplyPar(A, B, context))
+                        : "Matrices are not equal";
+            }
+        }
+    }
+
+    /**
+     * Tests the correctness of the method: MatrixManipulator.power(A, k) against repeated multiplies
+     */
+    @Test
+    void power() {
+        for (int i = 0; i < REPEATS; i++) {
+            int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 8));
+            int k = random.nextInt(12);
+            int[][] A = createRandomMatrix(N, N);
+
+            int[][] expected = identity(N);
+            for (int j = 0; j < k; j++)
+                expected = multiplySeq(expected, A);
+
+            assert areMatricesEqual(expected, MatrixManipulator.power(A, k)) : "Matrices are not equal, k: " + k;
+        }
+    }
+
+    /**
+     * Tests the correctness of the method: MatrixManipulator.power(A, k, m) with large exponents and moduli
+     */
+    @Test
+    void powerModulo() {
+        int[] moduli = {1, 2, 1_000_000_007, Integer.MAX_VALUE};
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(3)
+                .setCutoffPolicy(CutoffPolicy.fixed(17)).build()) {
+            for (int i = 0; i < REPEATS; i++) {
+                int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE / 16));
+                int m = moduli[i % moduli.length];
+                long k = random.nextInt(1000);
+                int[][] A = new int[N][N];
+                for (int r = 0; r < N; r++)
+                    for (int c = 0; c < N; c++)
+                        A[r][c] = random.nextInt();
+
+                long[][] expected = new long[N][N];
+                for (int r = 0; r < N; r++)
+                    expected[r][r] = 1 % m;
+                for (long j = 0; j < k; j++)
+                    expected = multiplyModulo(expected, A, m);
+
+                int[][] tested = MatrixManipulator.power(A, k, m, context);
+                for (int r = 0; r < N; r++)
+                    for (int c = 0; c < N; c++)
+                        assert tested[r][c] == expected[r][c] : "Matrices are not equal, k: " + k + ", m: " + m;
+            }
+        }
+
+        // paths of length 2^40 in a cycle with 3 nodes - one path to the node 2^40 mod 3 = 1 steps ahead
+        int[][] cycle = {{0, 1, 0}, {0, 0, 1}, {1, 0, 0}};
+        assert areMatricesEqual(cycle, MatrixManipulator.power(cycle, 1L << 40, 1_000_000_007));
+        try {
+            MatrixManipulator.power(cycle, 2, 0);
+            assert false : "Zero modulus accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            MatrixManipulator.power(new int[2][3], 2);
+            assert false : "Not square matrix accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            MatrixManipulator.power(cycle, -1);
+            assert false : "Negative exponent accepted";
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    /**
+     * Tests the correctness of the methods: MatrixManipulator.multiplyVectorSeq and multiplyVectorPar
+     */
+    @Test
+    void multiplyVector() {
+        for (int i = 0; i < REPEATS; i++) {
+            int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+            int M = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+            int nThreads = 1 + random.nextInt(8);
+
+            int[][] A = createRandomMatrix(N, M);
+            int[][] AT = transpose(A);
+            int[][] x = createRandomMatrix(M, 1);
+            int[] vector = new int[M];
+            for (int k = 0; k < M; k++)
+                vector[k] = x[k][0];
+
+            int[][] safe = multiplySeq(A, x);
+            int[] expected = new int[N];
+            for (int r = 0; r < N; r++)
+                expected[r] = safe[r][0];
+
+            assert Arrays.equals(expected, MatrixManipulator.multiplyVectorSeq(A, vector));
+            assert Arrays.equals(expected, MatrixManipulator.multiplyVectorSeq(AT, vector, true));
+            assert Arrays.equals(expected, MatrixManipulator.multiplyVectorPar(A, vector));
+            assert Arrays.equals(expected, MatrixManipulator.multiplyVectorPar(A, vector, false, nThreads))
+                    : "Vectors are not equal for " + nThreads + " threads";
+            assert Arrays.equals(expected, MatrixManipulator.multiplyVectorPar(AT, vector, true, nThreads))
+                    : "Vectors are not equal for " + nThreads + " threads and transposed matrix";
+        }
+    }
+
+    /**
+     * Tests the correctness of the method: MatrixManipulator.multiplyVectorPar(A, x, transposed, context)
+     */
+    @Test
+    void multiplyVectorWithContext() {
+        try (ExecutionContext context = ExecutionContext.builder().setParallelism(3)
+                .setCutoffPolicy(CutoffPolicy.fixed(1000)).build()) {
+            for (int i = 0; i < REPEATS; i++) {
+                int N = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+                int M = Math.max(1, random.nextInt(MAX_MATRIX_SIDE));
+
+                int[][] A = createRandomMatrix(N, M);
+                int[] x = createRandomMatrix(1, M)[0];
+                int[] expected = MatrixManipulator.multiplyVectorSeq(A, x);
+
+                assert Arrays.equals(expected, MatrixManipulator.multiplyVectorPar(A, x, false, context));
+                assert Arrays.equals(expected, MatrixManipulator.multiplyVectorPar(transpose(A), x, true, context));
+            }
+        }
+    }
+
+    /**
+     * Tests the dimension checks of the matrix-vector multiply
+     */
+    @Test
+    void multiplyVectorDimensions() {
+        int[][] A = new int[3][2];
+        assert MatrixManipulator.multiplyVectorSeq(A, new int[2]).length == 3;
+        assert MatrixManipulator.multiplyVectorSeq(A, new int[3], true).length == 2;
+        assert MatrixManipulator.multiplyVectorPar(new int[0][0], new int[0]).length == 0;
+
+        for (Runnable invalid : new Runnable[]{
+                () -> MatrixManipulator.multiplyVectorSeq(A, new int[3]),
+                () -> MatrixManipulator.multiplyVectorSeq(A, new int[2], true),
+                () -> MatrixManipulator.multiplyVectorPar(A, new int[2], false, 0),
+                // jagged matrices, the transposed multiply would index the short row out of bounds
+                () -> MatrixManipulator.multiplyVectorSeq(new int[][]{{1, 2}, {3}}, new int[2]),
+                () -> MatrixManipulator.multiplyVectorSeq(new int[][]{{1, 2}, {3}}, new int[2], true),
+                () -> MatrixManipulator.multiplyVectorPar(new int[][]{{1}, {2, 3}}, new int[2], true, 2)}) {
+            try {
+                invalid.run();
+                assert false : "Invalid multiply accepted";
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            MatrixManipulator.multiplyVectorSeq(A, null);
+            assert false : "Null vector accepted";
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+
     /**
      * Tests the correctness of the method: MatrixManipulator.isMultiplyPossible(A, B)
      */
@@ -123,6 +325,37 @@ class MatrixManipulatorTest {
         return C;
     }
 
+    /**
+     * @return Identity matrix with size NxN
+     */
+    private static int[][] identity(int N) {
+        int[][] I = new int[N][N];
+        for (int i = 0; i < N; i++)
+            I[i][i] = 1;
+        return I;
+    }
+
+    /**
+     * Reference multiply modulo m (A x B mod m) with the exact products of the elements
+     *
+     * @param A An input matrix with dimensions NxN and elements in [0, m)
+     * @param B An input matrix with dimensions NxN
+     * @return The output matrix with elements in [0, m)
+     */
+    private static long[][] multiplyModulo(long[][] A, int[][] B, int m) {
+        int N = A.length;
+        long[][] C = new long[N][N];
+        for (int r = 0; r < N; r++) {
+            for (int c = 0; c < N; c++) {
+                long sum = 0;
+                for (int k = 0; k < N; k++)
+                    sum = (sum + A[r][k] * Math.floorMod(B[k][c], m)) % m;
+                C[r][c] = sum;
+            }
+        }
+        return C;
+    }
+
     /**
      * Creates new random int[N][M] matrix to use as input for the tests
      *
@@ -150,4 +383,16 @@ class MatrixManipulatorTest {
     private boolean areMatricesEqual(int[][] A, int[][] B) {
         return Arrays.deepEquals(A, B);
     }
-}
\ No newline at end of file
+
+    /**
+     * @param A An input matrix with dimensions NxM
+     * @return Transposed matrix with dimensions MxN
+     */
+    private static int[][] transpose(int[][] A) {
+        int[][] AT = new int[A[0].length][A.length];
+        for (int r = 0; r < A.length; r++)
+            for (int c = 0; c < A[0].length; c++)
+                AT[c][r] = A[r][c];
+        return AT;
+    }
+}